@@ -1,91 +1,196 @@
 package dev.prjbtrad001.backtest;
 
+import dev.prjbtrad001.indicator.IndicatorMath;
+import dev.prjbtrad001.market.CandleColumns;
+import dev.prjbtrad001.market.Intervals;
 import dev.prjbtrad001.market.KlineDto;
 import dev.prjbtrad001.market.MarketDataClient;
-import dev.prjbtrad001.strategy.EmaCrossStrategy;
+import dev.prjbtrad001.market.RequestPriority;
+import dev.prjbtrad001.market.TradeBars;
+import dev.prjbtrad001.strategy.EmaCrossKernel;
+import dev.prjbtrad001.strategy.RuleCompiler;
+import dev.prjbtrad001.strategy.RuleProgram;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lombok.extern.jbosslog.JBossLog;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.ta4j.core.BarSeries;
-import org.ta4j.core.backtest.BarSeriesManager;
-import org.ta4j.core.Position;
-import org.ta4j.core.Strategy;
-import org.ta4j.core.TradingRecord;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Runs the EMA-cross strategy over historical candles and reports how it would
  * have performed — the single most important tool in the project.
  *
- * ta4j supplies the honest part: correct indicator math and lookahead-free entry
- * and exit timing (including the stop-loss). We then compute the money side
- * ourselves — a fixed nominal capital that compounds trade-to-trade, with the
- * fee charged on both sides — so the numbers are in BRL and reflect real cost
- * drag rather than a version-specific criterion's semantics.
+ * {@link EmaCrossKernel} supplies the honest part: ta4j's indicator math and
+ * lookahead-free entry and exit timing (including the stop-loss), on plain
+ * arrays. We then compute the money side ourselves — a fixed nominal capital
+ * that compounds trade-to-trade, with the fee charged on both sides — so the
+ * numbers are in BRL and reflect real cost drag rather than a version-specific
+ * criterion's semantics.
+ *
+ * A request with its own entry and exit rules runs them as a compiled
+ * {@link RuleProgram} instead, with the same timing and stop-loss.
  */
 @JBossLog
 @ApplicationScoped
 public class BacktestEngine {
 
-  private static final int MAX_CANDLES = 2000;
+  /**
+   * Pages are fetched in parallel and joined linearly, so multi-year 1h runs
+   * (tens of thousands of bars) load in a few round trips. The cap only keeps a
+   * typo like "1m since 2017" from filling the heap.
+   */
+  private static final int MAX_CANDLES = 100_000;
+  /** The page waits on the fetch; past this the user gets an answer instead of a hung request. */
+  private static final Duration FETCH_DEADLINE = Duration.ofMinutes(2);
+  /**
+   * Runs × candles a sweep may cost: a 50×50×10 grid over 20k bars is half of
+   * it, and takes about four seconds on a single core.
+   */
+  private static final long MAX_SWEEP_BARS = 1_000_000_000L;
   private static final DateTimeFormatter FMT =
     DateTimeFormatter.ofPattern("dd/MM/yy HH:mm").withZone(ZoneId.systemDefault());
 
   @Inject
   MarketDataClient marketData;
+  @Inject
+  TradeBars tradeBars;
 
   @ConfigProperty(name = "bot.paper.initial-balance")
   BigDecimal initialBalance;
 
   public BacktestResult run(BacktestRequest req) {
-    if (req.emaFast() >= req.emaSlow()) {
-      return BacktestResult.error("Fast EMA must be smaller than slow EMA.");
+    String invalid = invalid(req);
+    if (invalid != null) return BacktestResult.error(invalid);
+    try {
+      return run(req, history(req, lookback(req)));
+    } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+      return BacktestResult.error(e.getMessage());
     }
+  }
 
-    int wanted = Math.min(Math.max(req.candles(), req.emaSlow() + 10), MAX_CANDLES);
-    List<KlineDto> candles = marketData.getCandlesRange(req.symbol(), req.timeframe(), wanted);
-    if (candles.size() < req.emaSlow() + 10) {
-      return BacktestResult.error("Not enough historical data returned ("
-        + candles.size() + " candles). Try a larger timeframe or fewer periods.");
+  /**
+   * Every combination of EMA periods and stop-losses in {@code req} over one
+   * download of the history, scored in parallel.
+   */
+  public SweepResult sweep(SweepRequest req) {
+    String invalid = invalid(req);
+    if (invalid != null) return SweepResult.error(invalid);
+    try {
+      return sweep(req, history(req.history(), req.slowTo()));
+    } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+      return SweepResult.error(e.getMessage());
     }
+  }
 
-    BarSeries series = EmaCrossStrategy.buildSeries(candles, req.symbol());
-    Strategy strategy = EmaCrossStrategy.buildStrategy(series, req.emaFast(), req.emaSlow(), req.stopLossPercent());
+  /**
+   * Optimises on rolling or anchored training windows and trades each
+   * winner on the window after it, over one download of the history.
+   */
+  public WalkForwardResult walkForward(WalkForwardRequest req) {
+    String invalid = invalid(req);
+    if (invalid != null) return WalkForwardResult.error(invalid);
+    try {
+      return walkForward(req, history(req.ranges().history(), req.trainBars() + req.testBars()));
+    } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+      return WalkForwardResult.error(e.getMessage());
+    }
+  }
 
-    TradingRecord record = new BarSeriesManager(series).run(strategy);
+  /**
+   * The bars {@code req} asks for, closed and oldest first. Throws with a
+   * message for the user when they cannot be had.
+   */
+  private List<KlineDto> history(BacktestRequest req, int lookback) throws IOException {
+    TradeBars.Spec sampling = TradeBars.Spec.parse(req.timeframe());
+    if (sampling != null) {
+      if (!req.hasDateRange()) {
+        throw new IllegalArgumentException("Bars built from trades need a start and an end date.");
+      }
+      if (req.to().isBefore(req.from())) {
+        throw new IllegalArgumentException("The end date must not be before the start date.");
+      }
+      return tradeBars.bars(req.symbol(), req.from(), req.to(), sampling.builder()).asKlines();
+    }
+    if (req.hasDateRange()) {
+      long from = req.from().atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+      long to = req.to().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+      if (to <= from) {
+        throw new IllegalArgumentException("The end date must not be before the start date.");
+      }
+      if ((to - from) / Intervals.millis(req.timeframe()) > MAX_CANDLES) {
+        throw new IllegalArgumentException("That period holds more than " + MAX_CANDLES
+          + " candles on " + req.timeframe() + ". Pick a larger timeframe or a shorter period.");
+      }
+      return within(RequestPriority.call(RequestPriority.BACKTEST,
+        () -> marketData.getCandlesBetweenAsync(req.symbol(), req.timeframe(), from, to, FETCH_DEADLINE)));
+    }
+    int wanted = Math.min(Math.max(req.candles(), lookback + 10), MAX_CANDLES);
+    return within(RequestPriority.call(RequestPriority.BACKTEST,
+      () -> marketData.getCandlesRangeAsync(req.symbol(), req.timeframe(), wanted, FETCH_DEADLINE)));
+  }
+
+  private static List<KlineDto> within(CompletableFuture<List<KlineDto>> history) {
+    try {
+      return history.join();
+    } catch (CompletionException e) {
+      if (!(e.getCause() instanceof TimeoutException)) {
+        log.warnf("Backtest history fetch failed: %s", e.getCause().getMessage());
+        throw new IllegalStateException("Could not load the history from the exchange. Try again later.");
+      }
+      throw new IllegalStateException("The exchange did not deliver the history within "
+        + FETCH_DEADLINE.toSeconds() + " s. Try again, or ask for fewer candles.");
+    }
+  }
+
+  /**
+   * Runs on bars the caller already has — klines, or bars sampled from trades
+   * by {@link TradeBars}. They must be closed and oldest first.
+   */
+  public BacktestResult run(BacktestRequest req, List<KlineDto> candles) {
+    String invalid = invalid(req);
+    if (invalid != null) return BacktestResult.error(invalid);
+    if (candles.size() < lookback(req) + 10) {
+      return BacktestResult.error("Not enough historical data returned ("
+        + candles.size() + " candles). Try a larger timeframe or fewer periods.");
+    }
 
-    int bars = series.getBarCount();
+    int bars = candles.size();
+    double[] open = new double[bars];
     double[] close = new double[bars];
     long[] times = new long[bars];
     for (int i = 0; i < bars; i++) {
-      close[i] = series.getBar(i).getClosePrice().doubleValue();
-      times[i] = series.getBar(i).getEndTime().toEpochMilli();
+      KlineDto k = candles.get(i);
+      open[i] = k.open().doubleValue();
+      close[i] = k.close().doubleValue();
+      times[i] = k.closeTime();
     }
 
-    // Map bar index -> entry / exit for the equity walk.
-    Map<Integer, Integer> entryToExit = new HashMap<>();
-    for (Position p : record.getPositions()) {
-      if (p.getEntry() != null && p.getExit() != null) {
-        entryToExit.put(p.getEntry().getIndex(), p.getExit().getIndex());
-      }
-    }
-    Position current = record.getCurrentPosition();
-    Integer openEntryIdx = (current != null && current.isOpened() && current.getEntry() != null)
-      ? current.getEntry().getIndex() : null;
+    // Entry and exit bar of every position; exit -1 for one still open.
+    int[] entries = new int[bars / 2 + 1];
+    int[] exits = new int[bars / 2 + 1];
+    int positions = req.hasRules()
+      ? rules(req).backtest(CandleColumns.of(candles), bars, req.stopLossPercent().doubleValue(), entries, exits)
+      : EmaCrossKernel.backtest(open, close, bars, req.emaFast(), req.emaSlow(),
+        req.stopLossPercent().doubleValue(), new double[bars], new double[bars], entries, exits);
 
     double feeRate = req.feePercent().doubleValue() / 100.0;
     double initial = initialBalance.doubleValue();
 
     // ── Strategy equity curve (mark-to-market each bar) ──
-    List<Double> equity = new ArrayList<>(bars);
+    double[] marks = new double[bars];
     List<BacktestResult.TradeRow> tradeRows = new ArrayList<>();
 
     double capital = initial;
@@ -96,13 +201,14 @@ public class BacktestEngine {
     int tradeNo = 0;
     int wins = 0;
     double grossWin = 0, grossLoss = 0;
-    Integer pendingExit = null;
+    int position = 0;
+    int pendingExit = -1;
 
     for (int i = 0; i < bars; i++) {
       double price = close[i];
 
-      // Enter on this bar's close if the record opened a position here.
-      if (!inPos && (entryToExit.containsKey(i) || (openEntryIdx != null && openEntryIdx == i))) {
+      // Enter on this bar's close if the strategy opened a position here.
+      if (!inPos && position < positions && entries[position] == i) {
         double fee = capital * feeRate;
         entryCapital = capital;
         entryPrice = price;
@@ -110,13 +216,13 @@ public class BacktestEngine {
         units = (capital - fee) / price;
         capital = 0;
         inPos = true;
-        pendingExit = entryToExit.get(i); // null when this is the still-open position
+        pendingExit = exits[position]; // -1 when this is the still-open position
       }
 
       double barEquity = inPos ? units * price : capital;
 
       // Exit on this bar's close if scheduled.
-      if (inPos && pendingExit != null && pendingExit == i) {
+      if (inPos && pendingExit == i) {
         double proceeds = units * price;
         double fee = proceeds * feeRate;
         capital = proceeds - fee;
@@ -131,29 +237,28 @@ public class BacktestEngine {
         barEquity = capital;
         inPos = false;
         units = 0;
-        pendingExit = null;
+        pendingExit = -1;
+        position++;
       }
 
-      equity.add(round2(barEquity));
+      marks[i] = round2(barEquity);
     }
 
+    List<Double> equity = new ArrayList<>(bars);
+    for (double m : marks) equity.add(m);
     double finalEquity = equity.isEmpty() ? initial : equity.getLast();
     double netReturnPct = (finalEquity / initial - 1) * 100.0;
 
     // ── Buy & hold benchmark ──
     List<Double> buyHold = new ArrayList<>(bars);
     double bhUnits = (initial - initial * feeRate) / close[0];
-    for (int i = 0; i < bars; i++) buyHold.add(round2(bhUnits * close[i]));
-    double bhFinal = bhUnits * close[bars - 1];
-    bhFinal -= bhFinal * feeRate;
-    double buyHoldReturnPct = (bhFinal / initial - 1) * 100.0;
+    double[] bhMarks = new double[bars];
+    IndicatorMath.scale(close, bars, bhUnits, bhMarks);
+    for (double m : bhMarks) buyHold.add(round2(m));
+    double buyHoldReturnPct = buyHoldReturn(close, 0, bars, feeRate, initial);
 
     // ── Drawdown ──
-    double peak = Double.NEGATIVE_INFINITY, maxDd = 0;
-    for (double eq : equity) {
-      peak = Math.max(peak, eq);
-      if (peak > 0) maxDd = Math.max(maxDd, (peak - eq) / peak * 100.0);
-    }
+    double maxDd = IndicatorMath.maxDrawdown(marks, bars) * 100.0;
 
     double winRate = tradeNo == 0 ? 0 : (double) wins / tradeNo * 100.0;
     double profitFactor = grossLoss == 0 ? (grossWin > 0 ? Double.POSITIVE_INFINITY : 0) : grossWin / grossLoss;
@@ -161,12 +266,14 @@ public class BacktestEngine {
     List<Long> timeList = new ArrayList<>(bars);
     for (long t : times) timeList.add(t);
 
-    log.infof("Backtest %s %s EMA%dx%d: %d candles, %d trades, return %.2f%% (B&H %.2f%%)",
-      req.symbol(), req.timeframe(), req.emaFast(), req.emaSlow(), bars, tradeNo, netReturnPct, buyHoldReturnPct);
+    log.infof("Backtest %s %s %s: %d candles, %d trades, return %.2f%% (B&H %.2f%%)",
+      req.symbol(), req.timeframe(), req.hasRules() ? "rules" : "EMA" + req.emaFast() + "x" + req.emaSlow(),
+      bars, tradeNo, netReturnPct, buyHoldReturnPct);
 
     return new BacktestResult(
       true, null,
-      req.symbol(), req.timeframe(), req.emaFast(), req.emaSlow(), bars,
+      req.symbol(), req.timeframe(), req.emaFast(), req.emaSlow(),
+      req.hasRules() ? req.entryRule() : null, req.hasRules() ? req.exitRule() : null, bars,
       FMT.format(java.time.Instant.ofEpochMilli(times[0])),
       FMT.format(java.time.Instant.ofEpochMilli(times[bars - 1])),
       round2(initial), round2(finalEquity), round2(netReturnPct), round2(buyHoldReturnPct),
@@ -175,6 +282,223 @@ public class BacktestEngine {
       equity, buyHold, timeList, tradeRows);
   }
 
+  /**
+   * Runs a sweep on bars the caller already has, closed and oldest first.
+   * The best cell is the one with the highest return.
+   */
+  public SweepResult sweep(SweepRequest req, List<KlineDto> candles) {
+    String invalid = invalid(req);
+    if (invalid != null) return SweepResult.error(invalid);
+    if (candles.size() < req.slowTo() + 10) {
+      return SweepResult.error("Not enough historical data returned ("
+        + candles.size() + " candles). Try a larger timeframe or fewer periods.");
+    }
+    int bars = candles.size();
+    int[] fasts = req.fasts(), slows = req.slows();
+    double[] stops = req.stops();
+    long runs = ParameterSweep.runs(fasts, slows, stops.length);
+    if (runs * bars > MAX_SWEEP_BARS) {
+      return SweepResult.error("That sweep is " + runs + " runs over " + bars + " candles. Keep runs × candles under "
+        + MAX_SWEEP_BARS + ": narrow the ranges, take larger steps, or use fewer candles.");
+    }
+
+    double[] open = new double[bars];
+    double[] close = new double[bars];
+    for (int i = 0; i < bars; i++) {
+      KlineDto k = candles.get(i);
+      open[i] = k.open().doubleValue();
+      close[i] = k.close().doubleValue();
+    }
+    double feeRate = req.feePercent().doubleValue() / 100.0;
+    double initial = initialBalance.doubleValue();
+
+    long started = System.nanoTime();
+    ParameterSweep grid = new ParameterSweep(new ParameterSweep.Columns(open, close, bars, fasts, slows),
+      0, bars, fasts, slows, stops, feeRate, initial);
+    ForkJoinPool.commonPool().invoke(grid);
+    long millis = (System.nanoTime() - started) / 1_000_000;
+    SweepResult.Cell best = grid.best();
+    if (best == null) return SweepResult.error("No fast EMA in that range is smaller than a slow one.");
+    log.infof("Sweep %s %s: %d runs over %d candles in %d ms, best EMA%dx%d stop %.2f%% return %.2f%%",
+      req.symbol(), req.timeframe(), runs, bars, millis,
+      best.emaFast(), best.emaSlow(), best.stopLossPercent(), best.netReturnPct());
+
+    return new SweepResult(true, null, req.symbol(), req.timeframe(), bars,
+      FMT.format(java.time.Instant.ofEpochMilli(candles.getFirst().closeTime())),
+      FMT.format(java.time.Instant.ofEpochMilli(candles.getLast().closeTime())),
+      Arrays.stream(fasts).boxed().toList(), Arrays.stream(slows).boxed().toList(),
+      Arrays.stream(stops).boxed().toList(), Arrays.asList(grid.cells()), (int) runs, best,
+      round2(buyHoldReturn(close, 0, bars, feeRate, initial)), millis);
+  }
+
+  /**
+   * Runs a walk-forward on bars the caller already has, closed and oldest
+   * first. Windows run in parallel; the out-of-sample stretches are then
+   * joined in order, each starting with the money the last one ended with.
+   */
+  public WalkForwardResult walkForward(WalkForwardRequest req, List<KlineDto> candles) {
+    String invalid = invalid(req);
+    if (invalid != null) return WalkForwardResult.error(invalid);
+    int bars = candles.size();
+    if (bars < req.trainBars() + req.testBars()) {
+      return WalkForwardResult.error("Not enough historical data for one training and one test window ("
+        + bars + " candles, " + (req.trainBars() + req.testBars()) + " needed).");
+    }
+
+    SweepRequest ranges = req.ranges();
+    int[] fasts = ranges.fasts(), slows = ranges.slows();
+    double[] stops = ranges.stops();
+    int windows = (bars - req.trainBars() + req.testBars() - 1) / req.testBars();
+    int[] trainFrom = new int[windows], testFrom = new int[windows], testTo = new int[windows];
+    long trained = 0;
+    for (int k = 0; k < windows; k++) {
+      testFrom[k] = req.trainBars() + k * req.testBars();
+      testTo[k] = Math.min(testFrom[k] + req.testBars(), bars);
+      trainFrom[k] = req.anchored() ? 0 : testFrom[k] - req.trainBars();
+      trained += testFrom[k] - trainFrom[k];
+    }
+    long runs = ParameterSweep.runs(fasts, slows, stops.length);
+    // Every window sweeps the same grid; an empty one would give nothing to trade.
+    if (runs == 0) return WalkForwardResult.error("No fast EMA in that range is smaller than a slow one.");
+    if (runs * trained > MAX_SWEEP_BARS) {
+      return WalkForwardResult.error("That walk-forward is " + runs + " runs over " + trained
+        + " training candles. Keep runs × candles under " + MAX_SWEEP_BARS
+        + ": narrow the ranges, take larger steps, or use shorter or fewer windows.");
+    }
+
+    double[] open = new double[bars];
+    double[] close = new double[bars];
+    long[] times = new long[bars];
+    for (int i = 0; i < bars; i++) {
+      KlineDto k = candles.get(i);
+      open[i] = k.open().doubleValue();
+      close[i] = k.close().doubleValue();
+      times[i] = k.closeTime();
+    }
+    double feeRate = ranges.feePercent().doubleValue() / 100.0;
+    double initial = initialBalance.doubleValue();
+
+    long started = System.nanoTime();
+    WalkForward walk = new WalkForward(new ParameterSweep.Columns(open, close, bars, fasts, slows),
+      fasts, slows, stops, feeRate, initial, trainFrom, testFrom, testTo);
+    ForkJoinPool.commonPool().invoke(walk);
+    long millis = (System.nanoTime() - started) / 1_000_000;
+    if (Arrays.asList(walk.chosen()).contains(null)) {
+      return WalkForwardResult.error("No fast EMA in that range is smaller than a slow one.");
+    }
+
+    // ── Join the out-of-sample stretches ──
+    int start = testFrom[0];
+    double[] marks = new double[bars - start];
+    double money = initial, grossWin = 0, grossLoss = 0;
+    int trades = 0, wins = 0, profitable = 0;
+    List<WalkForwardResult.Window> rows = new ArrayList<>(windows);
+    for (int k = 0; k < windows; k++) {
+      SweepResult.Cell cell = walk.chosen()[k];
+      WalkForward.Segment seg = walk.segments()[k];
+      for (int i = testFrom[k]; i < testTo[k]; i++) marks[i - start] = round2(money * walk.marks()[i]);
+      trades += seg.trades();
+      wins += seg.wins();
+      grossWin += money * seg.grossWin();
+      grossLoss += money * seg.grossLoss();
+      money *= seg.end();
+      if (seg.end() > 1) profitable++;
+      rows.add(new WalkForwardResult.Window(k + 1,
+        FMT.format(java.time.Instant.ofEpochMilli(times[trainFrom[k]])),
+        FMT.format(java.time.Instant.ofEpochMilli(times[testFrom[k]])),
+        FMT.format(java.time.Instant.ofEpochMilli(times[testTo[k] - 1])),
+        cell.emaFast(), cell.emaSlow(), cell.stopLossPercent(), cell.netReturnPct(),
+        round2((seg.end() - 1) * 100.0), round2(seg.maxDrawdown() * 100.0), seg.trades()));
+    }
+
+    List<Double> equity = new ArrayList<>(marks.length);
+    for (double m : marks) equity.add(m);
+    double finalEquity = equity.getLast();
+    double bhUnits = (initial - initial * feeRate) / close[start];
+    List<Double> buyHold = new ArrayList<>(marks.length);
+    List<Long> timeList = new ArrayList<>(marks.length);
+    for (int i = start; i < bars; i++) {
+      buyHold.add(round2(bhUnits * close[i]));
+      timeList.add(times[i]);
+    }
+
+    double netReturnPct = (finalEquity / initial - 1) * 100.0;
+    double profitFactor = grossLoss == 0 ? (grossWin > 0 ? Double.POSITIVE_INFINITY : 0) : grossWin / grossLoss;
+    log.infof("Walk-forward %s %s: %d windows of %d runs in %d ms, out-of-sample return %.2f%%",
+      ranges.symbol(), ranges.timeframe(), windows, runs, millis, netReturnPct);
+
+    return new WalkForwardResult(true, null, ranges.symbol(), ranges.timeframe(), bars,
+      FMT.format(java.time.Instant.ofEpochMilli(times[0])),
+      FMT.format(java.time.Instant.ofEpochMilli(times[bars - 1])),
+      req.trainBars(), req.testBars(), req.anchored(), (int) runs, rows,
+      round2(initial), round2(finalEquity), round2(netReturnPct),
+      round2(buyHoldReturn(close, start, bars, feeRate, initial)),
+      round2(IndicatorMath.maxDrawdown(marks, marks.length) * 100.0), trades,
+      round2(trades == 0 ? 0 : (double) wins / trades * 100.0),
+      Double.isInfinite(profitFactor) ? profitFactor : round2(profitFactor), profitable,
+      equity, buyHold, timeList, millis);
+  }
+
+  /** Buying on close {@code from} and selling on close {@code to - 1}, fees included. */
+  private static double buyHoldReturn(double[] close, int from, int to, double feeRate, double initial) {
+    double units = (initial - initial * feeRate) / close[from];
+    double proceeds = units * close[to - 1];
+    return ((proceeds - proceeds * feeRate) / initial - 1) * 100.0;
+  }
+
+  /** Why the windows in {@code req} cannot be walked, or null. */
+  private static String invalid(WalkForwardRequest req) {
+    String invalid = invalid(req.ranges());
+    if (invalid != null) return invalid;
+    if (req.testBars() < 10) return "Test windows need at least 10 candles.";
+    if (req.trainBars() < req.ranges().slowTo() + 10) {
+      return "Training windows need at least " + (req.ranges().slowTo() + 10)
+        + " candles: the slowest EMA plus room to trade.";
+    }
+    return null;
+  }
+
+  /** Why the ranges in {@code req} cannot be swept, or null. */
+  private static String invalid(SweepRequest req) {
+    if (req.stopFrom() == null || req.stopTo() == null || req.stopStep() == null) {
+      return "Give the stop-loss range and its step.";
+    }
+    if (req.fastFrom() < 1 || req.slowFrom() < 1) return "EMA periods must be positive.";
+    if (req.fastFrom() > req.fastTo() || req.slowFrom() > req.slowTo() || req.stopFrom().compareTo(req.stopTo()) > 0) {
+      return "Each range must start at or below its end.";
+    }
+    if (req.emaStep() < 1) return "The EMA step must be at least 1.";
+    if (req.stopStep().signum() <= 0) return "The stop-loss step must be positive.";
+    // Periods step up from the start of each range and may stop short of its
+    // end, so compare the periods actually swept, not the bounds.
+    if (ParameterSweep.runs(req.fasts(), req.slows(), 1) == 0) {
+      return "No fast EMA in that range is smaller than a slow one.";
+    }
+    return null;
+  }
+
+  /** Why the strategy in {@code req} cannot run, or null. */
+  private static String invalid(BacktestRequest req) {
+    if (req.hasRules()) {
+      try {
+        rules(req);
+      } catch (IllegalArgumentException e) {
+        return e.getMessage();
+      }
+      return null;
+    }
+    return req.emaFast() >= req.emaSlow() ? "Fast EMA must be smaller than slow EMA." : null;
+  }
+
+  private static RuleProgram rules(BacktestRequest req) {
+    return RuleCompiler.compile(req.entryRule(), req.exitRule());
+  }
+
+  /** Bars before the strategy can first act. */
+  private static int lookback(BacktestRequest req) {
+    return req.hasRules() ? rules(req).lookback() : req.emaSlow();
+  }
+
   private static double round2(double v) {
     return Math.round(v * 100.0) / 100.0;
   }
@@ -1,10 +1,23 @@
 package dev.prjbtrad001.backtest;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 /**
  * Parameters for a single backtest run.
  *
+ * History is chosen either by {@code candles} (the most recent N) or, when both
+ * are given, by the {@code from}/{@code to} dates (UTC, inclusive), which then
+ * take precedence.
+ *
+ * {@code timeframe} may instead name bars sampled from recorded trades
+ * ({@code tick:1000}, {@code volume:2.5}, {@code dollar:500000}); those need the
+ * dates.
+ *
+ * {@code entryRule} and {@code exitRule}, when given, replace the EMA cross
+ * with compiled rules ({@link dev.prjbtrad001.strategy.RuleCompiler}); the
+ * stop-loss still applies.
+ *
  * @param feePercent per-side fee as a percentage (e.g. 0.1 for 0.1%)
  */
 public record BacktestRequest(
@@ -14,6 +27,29 @@ public record BacktestRequest(
   int emaSlow,
   BigDecimal stopLossPercent,
   int candles,
-  BigDecimal feePercent
+  BigDecimal feePercent,
+  LocalDate from,
+  LocalDate to,
+  String entryRule,
+  String exitRule
 ) {
+
+  public BacktestRequest(String symbol, String timeframe, int emaFast, int emaSlow,
+                         BigDecimal stopLossPercent, int candles, BigDecimal feePercent) {
+    this(symbol, timeframe, emaFast, emaSlow, stopLossPercent, candles, feePercent, null, null);
+  }
+
+  public BacktestRequest(String symbol, String timeframe, int emaFast, int emaSlow,
+                         BigDecimal stopLossPercent, int candles, BigDecimal feePercent,
+                         LocalDate from, LocalDate to) {
+    this(symbol, timeframe, emaFast, emaSlow, stopLossPercent, candles, feePercent, from, to, null, null);
+  }
+
+  public boolean hasRules() {
+    return entryRule != null && !entryRule.isBlank() || exitRule != null && !exitRule.isBlank();
+  }
+
+  public boolean hasDateRange() {
+    return from != null && to != null;
+  }
 }
@@ -5,6 +5,7 @@ import java.util.List;
 /**
  * Outcome of a backtest: headline metrics, the equity curve, and the trade log.
  * When {@code ok} is false, {@code message} explains why and the rest is empty.
+ * The rules are null when the run used the EMA cross.
  */
 public record BacktestResult(
   boolean ok,
@@ -14,6 +15,8 @@ public record BacktestResult(
   String timeframe,
   int emaFast,
   int emaSlow,
+  String entryRule,
+  String exitRule,
   int candleCount,
   String fromTime,
   String toTime,
@@ -40,7 +43,7 @@ public record BacktestResult(
 
   public static BacktestResult error(String message) {
     return new BacktestResult(false, message,
-      null, null, 0, 0, 0, null, null,
+      null, null, 0, 0, null, null, 0, null, null,
       0, 0, 0, 0, 0, 0, 0, 0,
       List.of(), List.of(), List.of(), List.of());
   }
@@ -0,0 +1,208 @@
+package dev.prjbtrad001.backtest;
+
+import dev.prjbtrad001.strategy.EmaCrossKernel;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Scores every combination of a sweep over a window of one history, split
+ * across the fork/join pool by (fast, slow) pair.
+ *
+ * Every task reads the same {@link Columns}: the prices and one EMA per
+ * distinct period, computed once over the whole history, so a window that
+ * starts late sees averages already warmed up by the bars before it. A pair
+ * derives its crosses once and replays them at each stop-loss with
+ * {@link EmaCrossKernel#trade}; the money side is {@link BacktestEngine#run}'s
+ * without the curves, so over the whole history each cell has the metrics a
+ * single run with those parameters would report.
+ */
+final class ParameterSweep extends RecursiveAction {
+
+  /** Pairs a task scores itself rather than splitting further. */
+  private static final int LEAF = 4;
+
+  private final Columns columns;
+  private final int from, to;
+  private final int[] fasts, slows, pairFast, pairSlow;
+  private final double[] stops;
+  private final double feeRate, initial;
+  private final SweepResult.Cell[] cells;
+  private final int firstPair, lastPair;
+
+  /** A sweep over bars {@code from} to {@code to - 1}; invoke it, then read {@link #cells}. */
+  ParameterSweep(Columns columns, int from, int to, int[] fasts, int[] slows, double[] stops,
+                 double feeRate, double initial) {
+    this.columns = columns;
+    this.from = from;
+    this.to = to;
+    this.fasts = fasts;
+    this.slows = slows;
+    this.stops = stops;
+    this.feeRate = feeRate;
+    this.initial = initial;
+
+    int pairs = 0;
+    int[] pf = new int[fasts.length * slows.length], ps = new int[pf.length];
+    for (int s = 0; s < slows.length; s++) {
+      for (int f = 0; f < fasts.length; f++) {
+        if (fasts[f] >= slows[s]) continue;
+        pf[pairs] = f;
+        ps[pairs++] = s;
+      }
+    }
+    this.pairFast = Arrays.copyOf(pf, pairs);
+    this.pairSlow = Arrays.copyOf(ps, pairs);
+    this.cells = new SweepResult.Cell[stops.length * slows.length * fasts.length];
+    this.firstPair = 0;
+    this.lastPair = pairs;
+  }
+
+  private ParameterSweep(ParameterSweep parent, int firstPair, int lastPair) {
+    this.columns = parent.columns;
+    this.from = parent.from;
+    this.to = parent.to;
+    this.fasts = parent.fasts;
+    this.slows = parent.slows;
+    this.pairFast = parent.pairFast;
+    this.pairSlow = parent.pairSlow;
+    this.stops = parent.stops;
+    this.feeRate = parent.feeRate;
+    this.initial = parent.initial;
+    this.cells = parent.cells;
+    this.firstPair = firstPair;
+    this.lastPair = lastPair;
+  }
+
+  /**
+   * The grid of {@link SweepResult#cells}, null where the fast period is not
+   * below the slow one.
+   */
+  SweepResult.Cell[] cells() {
+    return cells;
+  }
+
+  /** The highest-return cell, the first one on ties. */
+  SweepResult.Cell best() {
+    SweepResult.Cell best = null;
+    for (SweepResult.Cell c : cells) {
+      if (c != null && (best == null || c.netReturnPct() > best.netReturnPct())) best = c;
+    }
+    return best;
+  }
+
+  /** Runs {@code fasts × slows × stops}, counting only fast-below-slow pairs. */
+  static long runs(int[] fasts, int[] slows, int stops) {
+    long pairs = 0;
+    for (int slow : slows) for (int fast : fasts) if (fast < slow) pairs++;
+    return pairs * stops;
+  }
+
+  @Override
+  protected void compute() {
+    if (lastPair - firstPair > LEAF) {
+      int mid = (firstPair + lastPair) >>> 1;
+      invokeAll(new ParameterSweep(this, firstPair, mid), new ParameterSweep(this, mid, lastPair));
+      return;
+    }
+    int bars = columns.bars;
+    boolean[] enter = new boolean[bars], leave = new boolean[bars];
+    int[] entries = new int[(to - from) / 2 + 1], exits = new int[entries.length];
+    for (int p = firstPair; p < lastPair; p++) {
+      int f = pairFast[p], s = pairSlow[p];
+      EmaCrossKernel.crosses(columns.ema(fasts[f]), columns.ema(slows[s]), from, to, enter, leave);
+      for (int t = 0; t < stops.length; t++) {
+        int positions = EmaCrossKernel.trade(columns.open, columns.close, from, to, enter, leave, stops[t],
+          entries, exits);
+        cells[(t * slows.length + s) * fasts.length + f] =
+          score(entries, exits, positions, fasts[f], slows[s], stops[t]);
+      }
+    }
+  }
+
+  /**
+   * The run's money, as {@link BacktestEngine#run} keeps it: fills at the
+   * close of the fill bar, the fee on both sides, equity marked to the cent
+   * each bar. Only bars in a position can move the marks, so only those are
+   * visited, and of those only the ones that set a high or a low are marked.
+   */
+  private SweepResult.Cell score(int[] entries, int[] exits, int positions, int emaFast, int emaSlow, double stop) {
+    double[] close = columns.close;
+    double capital = initial, mark = round2(initial), peak = mark, maxDd = 0;
+    double grossWin = 0, grossLoss = 0;
+    int trades = 0, wins = 0;
+
+    for (int k = 0; k < positions; k++) {
+      int entry = entries[k], exit = exits[k];
+      double entryCapital = capital;
+      double units = (capital - capital * feeRate) / close[entry];
+      // Marks rise and fall with the close, so between a high and the next
+      // one only a new low can deepen the drawdown.
+      double high = Double.NEGATIVE_INFINITY, low = Double.POSITIVE_INFINITY;
+      int end = exit < 0 ? to : exit;
+      for (int i = entry; i < end; i++) {
+        double c = close[i];
+        if (c > high) {
+          high = low = c;
+          mark = round2(units * c);
+          peak = Math.max(peak, mark);
+        } else if (c < low) {
+          low = c;
+          mark = round2(units * c);
+        } else {
+          continue;
+        }
+        if (peak > 0) maxDd = Math.max(maxDd, (peak - mark) / peak);
+      }
+      if (exit < 0) {
+        mark = round2(units * close[to - 1]);
+        break;
+      }
+
+      double proceeds = units * close[exit];
+      capital = proceeds - proceeds * feeRate;
+      trades++;
+      if (capital >= entryCapital) { wins++; grossWin += capital - entryCapital; }
+      else { grossLoss += entryCapital - capital; }
+      mark = round2(capital);
+      peak = Math.max(peak, mark);
+      if (peak > 0) maxDd = Math.max(maxDd, (peak - mark) / peak);
+    }
+
+    double profitFactor = grossLoss == 0 ? (grossWin > 0 ? Double.POSITIVE_INFINITY : 0) : grossWin / grossLoss;
+    return new SweepResult.Cell(emaFast, emaSlow, stop,
+      round2((mark / initial - 1) * 100.0), round2(maxDd * 100.0),
+      Double.isInfinite(profitFactor) ? profitFactor : round2(profitFactor),
+      trades, round2(trades == 0 ? 0 : (double) wins / trades * 100.0));
+  }
+
+  private static double round2(double v) {
+    return Math.round(v * 100.0) / 100.0;
+  }
+
+  /**
+   * The history a sweep reads: prices, and the EMA of every period it needs
+   * over all of it, one array per period.
+   */
+  static final class Columns {
+
+    final double[] open, close;
+    final int bars;
+    private final int[] periods;
+    private final double[][] ema;
+
+    Columns(double[] open, double[] close, int bars, int[] fasts, int[] slows) {
+      this.open = open;
+      this.close = close;
+      this.bars = bars;
+      this.periods = IntStream.concat(Arrays.stream(fasts), Arrays.stream(slows)).distinct().sorted().toArray();
+      this.ema = new double[periods.length][bars];
+      for (int p = 0; p < periods.length; p++) EmaCrossKernel.ema(close, bars, periods[p], ema[p]);
+    }
+
+    double[] ema(int period) {
+      return ema[Arrays.binarySearch(periods, period)];
+    }
+  }
+}
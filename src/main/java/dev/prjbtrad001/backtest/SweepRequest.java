@@ -0,0 +1,59 @@
+package dev.prjbtrad001.backtest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ranges for a parameter sweep: every fast EMA against every slower one, at
+ * every stop-loss, over a single history chosen as in {@link BacktestRequest}.
+ *
+ * Bounds are inclusive. EMA periods step by {@code emaStep}, the stop-loss by
+ * {@code stopStep}.
+ *
+ * @param feePercent per-side fee as a percentage (e.g. 0.1 for 0.1%)
+ */
+public record SweepRequest(
+  String symbol,
+  String timeframe,
+  int fastFrom,
+  int fastTo,
+  int slowFrom,
+  int slowTo,
+  int emaStep,
+  BigDecimal stopFrom,
+  BigDecimal stopTo,
+  BigDecimal stopStep,
+  int candles,
+  BigDecimal feePercent,
+  LocalDate from,
+  LocalDate to
+) {
+
+  public int[] fasts() {
+    return periods(fastFrom, fastTo);
+  }
+
+  public int[] slows() {
+    return periods(slowFrom, slowTo);
+  }
+
+  public double[] stops() {
+    int count = stopTo.subtract(stopFrom).divideToIntegralValue(stopStep).intValueExact() + 1;
+    double[] out = new double[count];
+    for (int i = 0; i < count; i++) {
+      out[i] = stopFrom.add(stopStep.multiply(BigDecimal.valueOf(i))).doubleValue();
+    }
+    return out;
+  }
+
+  /** The history to load: enough for the slowest EMA. */
+  BacktestRequest history() {
+    return new BacktestRequest(symbol, timeframe, fastFrom, slowTo, stopFrom, candles, feePercent, from, to);
+  }
+
+  private int[] periods(int first, int last) {
+    int[] out = new int[(last - first) / emaStep + 1];
+    for (int i = 0; i < out.length; i++) out[i] = first + i * emaStep;
+    return out;
+  }
+}
@@ -0,0 +1,56 @@
+package dev.prjbtrad001.backtest;
+
+import java.util.List;
+
+/**
+ * Outcome of a parameter sweep: one {@link Cell} per combination, laid out
+ * as a grid for a heatmap. When {@code ok} is false, {@code message} explains
+ * why and the rest is empty.
+ *
+ * {@code cells} holds stop-loss slices of slow-by-fast grids: the cell for
+ * {@code fasts[f]}, {@code slows[s]} and {@code stops[t]} is at
+ * {@code (t * slows.size() + s) * fasts.size() + f}, null where the fast EMA
+ * is not the faster one.
+ */
+public record SweepResult(
+  boolean ok,
+  String message,
+
+  String symbol,
+  String timeframe,
+  int candleCount,
+  String fromTime,
+  String toTime,
+
+  List<Integer> fasts,
+  List<Integer> slows,
+  List<Double> stops,
+  List<Cell> cells,
+  int runs,
+  Cell best,
+  double buyHoldReturnPct,
+  long millis
+) {
+
+  public Cell cell(int fast, int slow, int stop) {
+    return cells.get((stop * slows.size() + slow) * fasts.size() + fast);
+  }
+
+  public static SweepResult error(String message) {
+    return new SweepResult(false, message, null, null, 0, null, null,
+      List.of(), List.of(), List.of(), List.of(), 0, null, 0, 0);
+  }
+
+  /** Headline metrics of one combination, as {@link BacktestResult} reports them. */
+  public record Cell(
+    int emaFast,
+    int emaSlow,
+    double stopLossPercent,
+    double netReturnPct,
+    double maxDrawdownPct,
+    double profitFactor,
+    int numTrades,
+    double winRatePct
+  ) {
+  }
+}
@@ -0,0 +1,141 @@
+package dev.prjbtrad001.backtest;
+
+import dev.prjbtrad001.strategy.EmaCrossKernel;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The windows of a walk-forward, split across the fork/join pool: each one
+ * sweeps its training bars with a {@link ParameterSweep}, itself forked by
+ * pair, and trades the winner on its test bars.
+ *
+ * All windows read one set of {@link ParameterSweep.Columns} over the whole
+ * history. A test window starts flat with one unit of money and closes any
+ * position out on its last bar, so windows do not depend on each other and
+ * the caller joins them by scaling each by the money the previous ones left.
+ */
+final class WalkForward extends RecursiveAction {
+
+  private final ParameterSweep.Columns columns;
+  private final int[] fasts, slows;
+  private final double[] stops;
+  private final double feeRate, initial;
+  /** Window k trains on {@code [trainFrom[k], testFrom[k])} and tests on {@code [testFrom[k], testTo[k])}. */
+  private final int[] trainFrom, testFrom, testTo;
+  private final SweepResult.Cell[] chosen;
+  private final Segment[] segments;
+  /** Equity through each test window per unit it started with; disjoint ranges, one writer each. */
+  private final double[] marks;
+  private final int first, last;
+
+  WalkForward(ParameterSweep.Columns columns, int[] fasts, int[] slows, double[] stops, double feeRate,
+              double initial, int[] trainFrom, int[] testFrom, int[] testTo) {
+    this.columns = columns;
+    this.fasts = fasts;
+    this.slows = slows;
+    this.stops = stops;
+    this.feeRate = feeRate;
+    this.initial = initial;
+    this.trainFrom = trainFrom;
+    this.testFrom = testFrom;
+    this.testTo = testTo;
+    this.chosen = new SweepResult.Cell[testFrom.length];
+    this.segments = new Segment[testFrom.length];
+    this.marks = new double[columns.bars];
+    this.first = 0;
+    this.last = testFrom.length;
+  }
+
+  private WalkForward(WalkForward parent, int first, int last) {
+    this.columns = parent.columns;
+    this.fasts = parent.fasts;
+    this.slows = parent.slows;
+    this.stops = parent.stops;
+    this.feeRate = parent.feeRate;
+    this.initial = parent.initial;
+    this.trainFrom = parent.trainFrom;
+    this.testFrom = parent.testFrom;
+    this.testTo = parent.testTo;
+    this.chosen = parent.chosen;
+    this.segments = parent.segments;
+    this.marks = parent.marks;
+    this.first = first;
+    this.last = last;
+  }
+
+  /** The winning cell of each training window. */
+  SweepResult.Cell[] chosen() {
+    return chosen;
+  }
+
+  /** What each test window did with one unit of money. */
+  Segment[] segments() {
+    return segments;
+  }
+
+  double[] marks() {
+    return marks;
+  }
+
+  @Override
+  protected void compute() {
+    if (last - first > 1) {
+      int mid = (first + last) >>> 1;
+      invokeAll(new WalkForward(this, first, mid), new WalkForward(this, mid, last));
+      return;
+    }
+    ParameterSweep train = new ParameterSweep(columns, trainFrom[first], testFrom[first], fasts, slows, stops,
+      feeRate, initial);
+    train.invoke();
+    chosen[first] = train.best();
+    // An empty grid has no winner; the caller refuses those before forking.
+    if (chosen[first] != null) segments[first] = test(chosen[first], testFrom[first], testTo[first]);
+  }
+
+  /**
+   * The chosen parameters on bars {@code from} to {@code to - 1}, with
+   * {@link BacktestEngine#run}'s money and a close-out on the last bar. A
+   * fill on the last bar is skipped, as it would be sold straight back.
+   */
+  private Segment test(SweepResult.Cell cell, int from, int to) {
+    double[] close = columns.close;
+    boolean[] enter = new boolean[columns.bars], leave = new boolean[columns.bars];
+    int[] entries = new int[(to - from) / 2 + 1], exits = new int[entries.length];
+    EmaCrossKernel.crosses(columns.ema(cell.emaFast()), columns.ema(cell.emaSlow()), from, to, enter, leave);
+    int positions = EmaCrossKernel.trade(columns.open, close, from, to, enter, leave, cell.stopLossPercent(),
+      entries, exits);
+
+    double capital = 1, units = 0, entryCapital = 0, peak = 1, maxDd = 0;
+    double grossWin = 0, grossLoss = 0;
+    int trades = 0, wins = 0, k = 0, exit = -1;
+    boolean holding = false;
+    for (int i = from; i < to; i++) {
+      double price = close[i];
+      if (!holding && k < positions && entries[k] == i && i + 1 < to) {
+        entryCapital = capital;
+        units = (capital - capital * feeRate) / price;
+        capital = 0;
+        holding = true;
+        exit = exits[k];
+      }
+      if (holding && (exit == i || i + 1 == to)) {
+        double proceeds = units * price;
+        capital = proceeds - proceeds * feeRate;
+        trades++;
+        if (capital >= entryCapital) { wins++; grossWin += capital - entryCapital; }
+        else { grossLoss += entryCapital - capital; }
+        holding = false;
+        k++;
+      }
+      double mark = holding ? units * price : capital;
+      marks[i] = mark;
+      peak = Math.max(peak, mark);
+      maxDd = Math.max(maxDd, (peak - mark) / peak);
+    }
+    return new Segment(capital, maxDd, trades, wins, grossWin, grossLoss);
+  }
+
+  /** A test window per unit of starting money. */
+  record Segment(double end, double maxDrawdown, int trades, int wins, double grossWin, double grossLoss) {
+  }
+}
@@ -0,0 +1,19 @@
+package dev.prjbtrad001.backtest;
+
+/**
+ * A walk-forward over the history and ranges of a {@link SweepRequest}: the
+ * best combination on each training window is traded on the test window that
+ * follows it.
+ *
+ * Test windows of {@code testBars} candles tile the history after the first
+ * {@code trainBars}. A rolling training window is the {@code trainBars}
+ * candles before its test window; an anchored one starts at the first candle
+ * and grows.
+ */
+public record WalkForwardRequest(
+  SweepRequest ranges,
+  int trainBars,
+  int testBars,
+  boolean anchored
+) {
+}
@@ -0,0 +1,76 @@
+package dev.prjbtrad001.backtest;
+
+import java.util.List;
+
+/**
+ * Outcome of a walk-forward: every window's choice and how it did, and the
+ * out-of-sample stretches joined into one equity curve. The headline metrics
+ * are those of that curve. When {@code ok} is false, {@code message} explains
+ * why and the rest is empty.
+ */
+public record WalkForwardResult(
+  boolean ok,
+  String message,
+
+  String symbol,
+  String timeframe,
+  int candleCount,
+  String fromTime,
+  String toTime,
+  int trainBars,
+  int testBars,
+  boolean anchored,
+  int runsPerWindow,
+  List<Window> windows,
+
+  double initialEquity,
+  double finalEquity,
+  double netReturnPct,
+  double buyHoldReturnPct,
+  double maxDrawdownPct,
+  int numTrades,
+  double winRatePct,
+  double profitFactor,
+  int profitableWindows,
+
+  List<Double> equityCurve,
+  List<Double> buyHoldCurve,
+  List<Long> times,
+  long millis
+) {
+
+  public boolean beatBuyHold() {
+    return netReturnPct > buyHoldReturnPct;
+  }
+
+  /** The newest window: the parameters a bot would trade with today. */
+  public Window last() {
+    return windows.getLast();
+  }
+
+  public static WalkForwardResult error(String message) {
+    return new WalkForwardResult(false, message, null, null, 0, null, null, 0, 0, false, 0, List.of(),
+      0, 0, 0, 0, 0, 0, 0, 0, 0,
+      List.of(), List.of(), List.of(), 0);
+  }
+
+  /**
+   * One training window and the test window after it. The in-sample return
+   * is the winning cell of the training sweep; the out-of-sample one is its
+   * parameters on the test window, closed out at the end of it.
+   */
+  public record Window(
+    int number,
+    String trainFrom,
+    String testFrom,
+    String testTo,
+    int emaFast,
+    int emaSlow,
+    double stopLossPercent,
+    double inSampleReturnPct,
+    double outOfSampleReturnPct,
+    double maxDrawdownPct,
+    int numTrades
+  ) {
+  }
+}
@@ -1,6 +1,10 @@
 package dev.prjbtrad001.bot;
 
 import dev.prjbtrad001.domain.bot.TradeBot;
+import dev.prjbtrad001.market.CandleCache;
+import dev.prjbtrad001.market.Intervals;
+import dev.prjbtrad001.market.MarketClock;
+import dev.prjbtrad001.market.MarketDataClient;
 import io.quarkus.runtime.StartupEvent;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -9,10 +13,12 @@ import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lombok.extern.jbosslog.JBossLog;
 
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
 
@@ -23,6 +29,9 @@ import java.util.concurrent.*;
  * minutes, and "1s"/"1w" threw). Here {@link #pollSeconds} maps the timeframe
  * correctly and clamps to a sane [60s, 1h] polling band — re-checking a closed
  * candle is harmless because entries only fire when flat.
+ *
+ * Delays are market time on {@link MarketClock}, so a fleet against a
+ * simulated exchange running faster ticks just as much faster.
  */
 @JBossLog
 @ApplicationScoped
@@ -30,12 +39,29 @@ public class BotOrchestrator {
 
   @Inject
   BotRunner runner;
+  @Inject
+  CandleCache candleCache;
+  @Inject
+  LivePrices livePrices;
+  @Inject
+  MarketClock clock;
+  @Inject
+  IndicatorRegistry indicators;
+  @Inject
+  MarketDataClient marketData;
 
   /** Seconds to wait after a candle closes before acting, so the API has it. */
   private static final long CLOSE_BUFFER_SECONDS = 20;
 
-  private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(8);
+  // The scheduler threads only dispatch; each tick runs on its own virtual
+  // thread, so a slow exchange response holds up that bot and nothing else.
+  // Whatever a tick waits on across I/O is a lock, not a monitor: a virtual
+  // thread blocked inside synchronized pins its carrier, and a wave wider than
+  // the carriers would then wait forever on fetches with nowhere to run.
+  private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+  private final ExecutorService ticks = Executors.newVirtualThreadPerTaskExecutor();
   private final Map<UUID, List<ScheduledFuture<?>>> scheduled = new ConcurrentHashMap<>();
+  private final TickStats stats = new TickStats();
 
   void onStart(@Observes StartupEvent ev) {
     // Re-arm any bot left marked as running (no-op on a fresh drop-and-create DB).
@@ -45,7 +71,8 @@ public class BotOrchestrator {
   @Transactional
   void reschedulePersistedRunners() {
     List<TradeBot> bots = TradeBot.list("running", true);
-    for (TradeBot bot : bots) schedule(bot.getId(), bot.getTimeframe());
+    follow(bots);
+    for (TradeBot bot : bots) schedule(bot);
     if (!bots.isEmpty()) log.infof("Re-armed %d running bot(s) on startup", bots.size());
   }
 
@@ -55,7 +82,8 @@ public class BotOrchestrator {
     TradeBot bot = TradeBot.findById(botId);
     if (bot == null) return;
     bot.setRunning(true);
-    schedule(botId, bot.getTimeframe());
+    follow(TradeBot.list("running", true));
+    schedule(bot);
     log.infof("Started bot %s (%s %s)", botId, bot.getSymbol(), bot.getTimeframe());
   }
 
@@ -65,13 +93,43 @@ public class BotOrchestrator {
     cancel(botId);
     TradeBot bot = TradeBot.findById(botId);
     if (bot != null) bot.setRunning(false);
+    releaseShared();
     log.infof("Stopped bot %s", botId);
   }
 
+  /**
+   * Keeps the fleet-wide caches sized to the running fleet: a pair nobody
+   * trades any more is dropped, each candle ring only holds what its most
+   * demanding bot (largest slow EMA) reads, indicators no running bot uses
+   * are forgotten, and so are the market streams.
+   */
+  private void releaseShared() {
+    List<TradeBot> running = TradeBot.list("running", true);
+    Map<String, Integer> needs = new HashMap<>();
+    for (TradeBot b : running) {
+      needs.merge(CandleCache.key(b.getSymbol(), b.getTimeframe()), BotRunner.candlesNeeded(b), Math::max);
+    }
+    candleCache.retain(needs);
+    indicators.retain(running.stream().filter(b -> !b.hasRules()).toList());
+    follow(running);
+  }
+
+  /** Tells the market data which pairs the running fleet trades, so their streams are up before the first tick. */
+  private void follow(List<TradeBot> running) {
+    Map<String, Set<String>> pairs = new HashMap<>();
+    for (TradeBot b : running) pairs.computeIfAbsent(b.getSymbol(), s -> new HashSet<>()).add(b.getTimeframe());
+    marketData.follow(pairs);
+  }
+
   public boolean isScheduled(UUID botId) {
     return scheduled.containsKey(botId);
   }
 
+  /** Ticks run, and close-to-decision latency of the close-aligned ones, since startup. */
+  public TickStats stats() {
+    return stats;
+  }
+
   /**
    * Two schedules per bot, on purpose:
    *
@@ -82,28 +140,27 @@ public class BotOrchestrator {
    *  - an hourly HEARTBEAT that retries if the aligned tick failed (network
    *    blip, restart). Re-checking is harmless — entries only fire when flat.
    */
-  private void schedule(UUID botId, String timeframe) {
+  private void schedule(TradeBot bot) {
+    UUID botId = bot.getId();
+    String timeframe = bot.getTimeframe();
     if (scheduled.containsKey(botId)) return;
+    livePrices.track(botId, bot.getSymbol());
 
-    Runnable task = () -> {
-      try {
-        runner.runOnce(botId);
-      } catch (Exception e) {
-        log.errorf("Bot %s tick failed: %s", botId, e.getMessage());
-      }
-    };
+    Runnable task = () -> ticks.execute(() -> tick(botId, null));
+    Runnable aligned = () -> ticks.execute(() -> tick(botId, timeframe));
 
     long candle = timeframeSeconds(timeframe);
-    long untilClose = secondsUntilNextClose(candle) + CLOSE_BUFFER_SECONDS;
+    long untilClose = secondsUntilNextClose(timeframe, clock.millis()) + CLOSE_BUFFER_SECONDS;
+    long poll = realNanos(pollSeconds(timeframe));
 
     List<ScheduledFuture<?>> futures = new ArrayList<>(3);
     // Immediate first look, so a freshly started bot reports in right away.
     futures.add(scheduler.schedule(task, 3, TimeUnit.SECONDS));
     // Right after every candle close.
-    futures.add(scheduler.scheduleAtFixedRate(task, untilClose, candle, TimeUnit.SECONDS));
+    futures.add(scheduler.scheduleAtFixedRate(aligned, realNanos(untilClose), realNanos(candle),
+      TimeUnit.NANOSECONDS));
     // Safety net.
-    futures.add(scheduler.scheduleAtFixedRate(task, pollSeconds(timeframe),
-      pollSeconds(timeframe), TimeUnit.SECONDS));
+    futures.add(scheduler.scheduleAtFixedRate(task, poll, poll, TimeUnit.NANOSECONDS));
 
     scheduled.put(botId, futures);
     log.infof("Bot %s: próximo fechamento em %ds, heartbeat a cada %ds",
@@ -111,17 +168,43 @@ public class BotOrchestrator {
   }
 
   /**
-   * Candles align to the Unix epoch in UTC, so the next boundary is simply the
-   * remainder of the current time against the candle length.
+   * One tick. A close-aligned one ({@code timeframe} set) also records how
+   * long after the close the decision landed: the buffer, scheduling delay
+   * and the tick itself, in real time.
    */
-  static long secondsUntilNextClose(long candleSeconds) {
-    long now = Instant.now().getEpochSecond();
-    return candleSeconds - Math.floorMod(now, candleSeconds);
+  private void tick(UUID botId, String timeframe) {
+    boolean failed = false;
+    try {
+      runner.runOnce(botId);
+    } catch (Exception e) {
+      failed = true;
+      log.errorf("Bot %s tick failed: %s", botId, e.getMessage());
+    }
+    stats.tick(failed);
+    if (timeframe != null && !failed) {
+      long now = clock.millis();
+      long close = Intervals.openTimeOf(now - CLOSE_BUFFER_SECONDS * 1000, timeframe);
+      stats.decided(clock.realMicrosSince(close));
+    }
+  }
+
+  private long realNanos(long marketSeconds) {
+    return clock.realNanos(marketSeconds * 1000);
+  }
+
+  /**
+   * Candles align to the Unix epoch in UTC (weeks to Mondays), so the next
+   * boundary is the end of the candle open at {@code now}. Rounded up, so never zero.
+   */
+  static long secondsUntilNextClose(String timeframe, long now) {
+    long next = Intervals.openTimeOf(now, timeframe) + Intervals.millis(timeframe);
+    return Math.ceilDiv(next - now, 1000);
   }
 
   private void cancel(UUID botId) {
     List<ScheduledFuture<?>> futures = scheduled.remove(botId);
     if (futures != null) futures.forEach(f -> f.cancel(false));
+    livePrices.untrack(botId);
   }
 
   @PreDestroy
@@ -129,6 +212,7 @@ public class BotOrchestrator {
     scheduled.values().forEach(l -> l.forEach(f -> f.cancel(false)));
     scheduled.clear();
     scheduler.shutdownNow();
+    ticks.shutdownNow();
   }
 
   /**
@@ -141,20 +225,6 @@ public class BotOrchestrator {
   }
 
   static long timeframeSeconds(String timeframe) {
-    if (timeframe == null || timeframe.length() < 2) return 3600;
-    char unit = timeframe.charAt(timeframe.length() - 1);
-    long n;
-    try {
-      n = Long.parseLong(timeframe.substring(0, timeframe.length() - 1));
-    } catch (NumberFormatException e) {
-      return 3600;
-    }
-    return switch (unit) {
-      case 'm' -> n * 60;
-      case 'h' -> n * 3600;
-      case 'd' -> n * 86400;
-      case 'w' -> n * 604800;
-      default -> 3600;
-    };
+    return Intervals.seconds(timeframe);
   }
 }
@@ -3,21 +3,24 @@ package dev.prjbtrad001.bot;
 import dev.prjbtrad001.domain.bot.BotStatus;
 import dev.prjbtrad001.domain.bot.TradeBot;
 import dev.prjbtrad001.domain.bot.TradeRecord;
+import dev.prjbtrad001.market.CandleCache;
+import dev.prjbtrad001.market.CandleColumns;
 import dev.prjbtrad001.market.KlineDto;
-import dev.prjbtrad001.market.MarketDataClient;
 import dev.prjbtrad001.paper.PaperExecutor;
 import dev.prjbtrad001.strategy.EmaCrossStrategy;
+import dev.prjbtrad001.strategy.RuleCompiler;
+import dev.prjbtrad001.strategy.RuleProgram;
 import dev.prjbtrad001.strategy.Signal;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lombok.extern.jbosslog.JBossLog;
-import org.ta4j.core.BarSeries;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * One evaluation tick for a single bot: fetch candles, decide, paper-trade.
@@ -37,26 +40,50 @@ import java.util.UUID;
 public class BotRunner {
 
   @Inject
-  MarketDataClient marketData;
+  LivePrices livePrices;
+  @Inject
+  CandleCache candleCache;
   @Inject
   PaperExecutor paperExecutor;
+  @Inject
+  IndicatorRegistry indicators;
+
+  /** Closed candles a bot's evaluation looks at: enough for its slowest indicator to settle. */
+  static int candlesNeeded(TradeBot bot) {
+    return candlesFor(bot.hasRules() ? rules(bot).lookback() : bot.getEmaSlow());
+  }
+
+  /** Closed candles for an indicator that needs {@code lookback} bars: four times that, within [120, 500]. */
+  public static int candlesFor(int lookback) {
+    return Math.max(Math.min(Math.max(lookback * 4, 120), 500), lookback + 2) - 1;
+  }
+
+  /** The bot's compiled rules; compiling is cached, so this is a lookup on every tick but the first. */
+  static RuleProgram rules(TradeBot bot) {
+    return RuleCompiler.compile(bot.getEntryRule(), bot.getExitRule());
+  }
 
   @Transactional
   public void runOnce(UUID botId) {
     TradeBot bot = TradeBot.findById(botId);
     if (bot == null || !bot.isRunning()) return;
 
-    String symbol = bot.getSymbol().name();
-    int limit = Math.min(Math.max(bot.getEmaSlow() * 4, 120), 500);
+    String symbol = bot.getSymbol();
+
+    // The live price does not depend on the candles, so both are fetched at
+    // once: the tick costs the slower of the two round trips, not their sum.
+    CompletableFuture<BigDecimal> priceFetch = livePrices.getAsync(symbol);
 
-    List<KlineDto> candles = marketData.getCandles(symbol, bot.getTimeframe(), limit);
-    if (candles.size() < bot.getEmaSlow() + 2) {
-      log.warnf("[%s] not enough candles (%d) — skipping tick", symbol, candles.size());
+    // CLOSED candles only — the SIGNAL may never see the in-progress one. The
+    // list is a shared view: every bot on this pair reads the same candles.
+    List<KlineDto> closed = bot.hasRules() ? candleCache.closed(symbol, bot.getTimeframe(), candlesNeeded(bot))
+      : advanceEmas(bot);
+    if (closed == null) return;
+    if (closed.isEmpty()) {
+      log.warnf("[%s] candles unavailable — skipping tick", symbol);
       return;
     }
 
-    // Drop the in-progress candle: the SIGNAL may only ever see closed data.
-    List<KlineDto> closed = candles.subList(0, candles.size() - 1);
     BotStatus status = bot.getStatus();
 
     // Orders fill at the CURRENT market price — never at the candle close the
@@ -64,8 +91,9 @@ public class BotRunner {
     // the gap is not random: entries fire in uptrends (so the real fill is
     // dearer) and exits in downtrends (so the real fill is cheaper). Filling at
     // the stale close would flatter every trade in both directions and make
-    // paper results useless as evidence.
-    BigDecimal livePrice = marketData.getPrice(symbol);
+    // paper results useless as evidence. The price comes from a fleet-wide
+    // batch taken moments ago, so a wave of bots costs one request.
+    BigDecimal livePrice = priceFetch.exceptionally(e -> null).join();
     if (livePrice == null) {
       // Skip rather than fall back to the stale close: that would silently
       // reintroduce the bias. The hourly tick retries soon enough.
@@ -86,8 +114,11 @@ public class BotRunner {
       }
     }
 
-    BarSeries series = EmaCrossStrategy.buildSeries(closed, symbol);
-    Signal signal = EmaCrossStrategy.evaluateLast(series, bot.getEmaFast(), bot.getEmaSlow(), status.isOpen());
+    // Rules are evaluated over the whole window in one pass of their compiled
+    // program; the EMA cross was already folded in above.
+    Signal signal = bot.hasRules()
+      ? rules(bot).evaluateLast(CandleColumns.of(closed), closed.size(), status.isOpen())
+      : EmaCrossStrategy.evaluate(bot.getEma(), status.isOpen());
 
     switch (signal) {
       case ENTER -> paperExecutor.buy(bot, livePrice);
@@ -103,4 +134,28 @@ public class BotRunner {
         closed.getLast().closeInstant());
     }
   }
+
+  /**
+   * The EMAs are shared too: a configuration some bot already runs, or one
+   * this bot ran before a restart, only folds in what closed since, so it
+   * reads just the newest two candles. A new configuration, or one that
+   * missed candles, is rebuilt from full history. Null to skip the tick.
+   */
+  private List<KlineDto> advanceEmas(TradeBot bot) {
+    String symbol = bot.getSymbol();
+    boolean warm = indicators.isWarm(bot);
+    List<KlineDto> closed = candleCache.closed(symbol, bot.getTimeframe(), warm ? 2 : candlesNeeded(bot));
+    if (closed.isEmpty() || indicators.advance(bot, closed)) return closed;
+    if (warm) {
+      log.infof("[%s] candles missed since the last tick — rebuilding EMAs", symbol);
+      closed = candleCache.closed(symbol, bot.getTimeframe(), candlesNeeded(bot));
+    }
+    if (closed.isEmpty()) return closed;
+    if (closed.size() < bot.getEmaSlow() + 1) {
+      log.warnf("[%s] not enough candles (%d) — skipping tick", symbol, closed.size());
+      return null;
+    }
+    indicators.resync(bot, closed);
+    return closed;
+  }
 }
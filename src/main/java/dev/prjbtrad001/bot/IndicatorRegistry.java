@@ -0,0 +1,269 @@
+package dev.prjbtrad001.bot;
+
+import dev.prjbtrad001.domain.bot.EmaState;
+import dev.prjbtrad001.domain.bot.TradeBot;
+import dev.prjbtrad001.market.CandleCache;
+import dev.prjbtrad001.market.KlineDto;
+import dev.prjbtrad001.strategy.EmaCrossStrategy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Fleet-wide indicator state for live bots, keyed by (symbol, interval,
+ * indicator, params), so each distinct computation runs once per candle close
+ * however many bots need it.
+ *
+ * Users clone bots: ten bots on ETHBRL/4h at 9×21, 12×26 and 9×21 again used
+ * to fold ten EMA pairs per close. Now the first bot of each configuration to
+ * see the close folds the EMAs it needs — EMA(9) once, although two
+ * configurations read it — and computes the cross; every other bot with the
+ * same configuration just copies the result into its own {@link EmaState}.
+ * Per-close CPU therefore grows with distinct configurations, not bots.
+ *
+ * The bot's own state stays the persisted copy: after a restart the first bot
+ * of a configuration seeds the shared state from it instead of rebuilding
+ * from history, provided it was folded from this pair. Entries nobody
+ * running uses are dropped by {@link #retain}.
+ *
+ * Every change to a pair's computations happens under that pair's lock, and
+ * a pair is only dropped from the map under it too, marked so a caller that
+ * looked it up just before takes a fresh one.
+ */
+@ApplicationScoped
+public class IndicatorRegistry {
+
+  public static final String EMA = "EMA";
+  public static final String EMA_CROSS = "EMA_CROSS";
+
+  /** One shared computation. */
+  public record Key(String symbol, String interval, String indicator, List<Integer> params) {
+
+    static Key ema(String symbol, String interval, int period) {
+      return new Key(symbol, interval, EMA, List.of(period));
+    }
+
+    static Key emaCross(TradeBot bot) {
+      return new Key(bot.getSymbol(), bot.getTimeframe(), EMA_CROSS, List.of(bot.getEmaFast(), bot.getEmaSlow()));
+    }
+  }
+
+  // Per pair, so a fold only locks out bots reading the same candles.
+  private final Map<String, Pair> pairs = new ConcurrentHashMap<>();
+  private final LongAdder folds = new LongAdder();
+
+  /** True when {@link #advance} can continue: the configuration is shared already, or the bot has state to seed it. */
+  public boolean isWarm(TradeBot bot) {
+    Pair pair = pairs.get(CandleCache.key(bot.getSymbol(), bot.getTimeframe()));
+    if (pair != null) {
+      synchronized (pair) {
+        if (pair.signals.containsKey(Key.emaCross(bot))) return true;
+      }
+    }
+    return bot.getEma() != null
+      && bot.getEma().isWarm(bot.getSymbol(), bot.getTimeframe(), bot.getEmaFast(), bot.getEmaSlow());
+  }
+
+  /**
+   * Brings the bot's configuration up to the newest of {@code closed} and
+   * copies the shared state into the bot's {@link EmaState}. False — nothing
+   * copied — when the shared state cannot continue from these candles: none
+   * yet and none to seed from the bot, or candles missing. Then {@link #resync}.
+   */
+  public boolean advance(TradeBot bot, List<KlineDto> closed) {
+    Key key = Key.emaCross(bot);
+    return locked(bot, pair -> {
+      EmaState shared = pair.signals.get(key);
+      if (shared == null) {
+        shared = pair.adopt(key, bot.getEma());
+        if (shared == null) return false;
+      }
+      if (!fold(pair, key, shared, closed, false)) {
+        pair.signals.remove(key);
+        return false;
+      }
+      copyInto(bot, shared);
+      return true;
+    });
+  }
+
+  /**
+   * Rebuilds the bot's configuration from {@code closed} — both EMAs and the
+   * cross — and copies it into the bot. The EMAs are rebuilt in place, so
+   * bots sharing one carry on with the rebuilt values.
+   */
+  public void resync(TradeBot bot, List<KlineDto> closed) {
+    Key key = Key.emaCross(bot);
+    locked(bot, pair -> {
+      EmaState shared = new EmaState();
+      EmaCrossStrategy.resync(shared, List.of(), bot.getEmaFast(), bot.getEmaSlow());
+      shared.setSymbol(key.symbol());
+      shared.setTimeframe(key.interval());
+      pair.line(Key.ema(key.symbol(), key.interval(), bot.getEmaFast()), bot.getEmaFast()).reset();
+      pair.line(Key.ema(key.symbol(), key.interval(), bot.getEmaSlow()), bot.getEmaSlow()).reset();
+      pair.signals.put(key, shared);
+      fold(pair, key, shared, closed, true);
+      copyInto(bot, shared);
+      return null;
+    });
+  }
+
+  /** Drops every computation none of {@code running} uses. */
+  public void retain(Collection<TradeBot> running) {
+    Set<Key> used = new HashSet<>();
+    for (TradeBot bot : running) {
+      used.add(Key.emaCross(bot));
+      used.add(Key.ema(bot.getSymbol(), bot.getTimeframe(), bot.getEmaFast()));
+      used.add(Key.ema(bot.getSymbol(), bot.getTimeframe(), bot.getEmaSlow()));
+    }
+    for (String name : List.copyOf(pairs.keySet())) {
+      pairs.computeIfPresent(name, (k, pair) -> {
+        synchronized (pair) {
+          pair.signals.keySet().retainAll(used);
+          pair.lines.keySet().retainAll(used);
+          if (!pair.signals.isEmpty()) return pair;
+          pair.removed = true;
+          return null;
+        }
+      });
+    }
+  }
+
+  /** Computations currently shared, indicators and signals alike. */
+  public Set<Key> keys() {
+    Set<Key> keys = new HashSet<>();
+    pairs.values().forEach(pair -> {
+      synchronized (pair) {
+        keys.addAll(pair.lines.keySet());
+        keys.addAll(pair.signals.keySet());
+      }
+    });
+    return keys;
+  }
+
+  /** Single-candle indicator steps run since startup. */
+  public long folds() {
+    return folds.sum();
+  }
+
+  /** Runs {@code action} holding the lock of the bot's pair, as it is in the map. */
+  private <T> T locked(TradeBot bot, Function<Pair, T> action) {
+    String name = CandleCache.key(bot.getSymbol(), bot.getTimeframe());
+    while (true) {
+      Pair pair = pairs.computeIfAbsent(name, k -> new Pair());
+      synchronized (pair) {
+        // Dropped by retain between the lookup and the lock: take the new one.
+        if (!pair.removed) return action.apply(pair);
+      }
+    }
+  }
+
+  /**
+   * Folds the candles newer than {@code signal} into its EMAs and then the
+   * cross. A rebuild takes {@code closed} as it is, as {@link EmaCrossStrategy#resync} does.
+   */
+  private boolean fold(Pair pair, Key key, EmaState signal, List<KlineDto> closed, boolean rebuild) {
+    Line fast = pair.lines.get(Key.ema(key.symbol(), key.interval(), signal.getFastPeriod()));
+    Line slow = pair.lines.get(Key.ema(key.symbol(), key.interval(), signal.getSlowPeriod()));
+    if (fast == null || slow == null) return false;
+
+    Long last = signal.getLastCloseTime();
+    int from = closed.size();
+    while (from > 0 && (last == null || closed.get(from - 1).closeTime() > last)) from--;
+    for (int i = from; i < closed.size(); i++) {
+      KlineDto k = closed.get(i);
+      if (!rebuild && k.openTime() != (i == from ? last : closed.get(i - 1).closeTime()) + 1) return false;
+      if (!fast.advanceTo(k, rebuild) || !slow.advanceTo(k, rebuild)) return false;
+      EmaCrossStrategy.cross(signal, fast.value, slow.value, Math.min(fast.bars, slow.bars), k.closeTime());
+    }
+    return true;
+  }
+
+  private static void copyInto(TradeBot bot, EmaState shared) {
+    if (bot.getEma() == null) bot.setEma(new EmaState());
+    bot.getEma().copyFrom(shared);
+  }
+
+  /** The computations on one (symbol, interval). */
+  private final class Pair {
+    final Map<Key, Line> lines = new HashMap<>();
+    final Map<Key, EmaState> signals = new HashMap<>();
+    /** Set, under the lock, when {@link #retain} takes the pair out of the map. */
+    boolean removed;
+
+    Line line(Key key, int period) {
+      return lines.computeIfAbsent(key, k -> new Line(period));
+    }
+
+    /**
+     * Takes a bot's persisted state as the shared one, seeding EMAs nobody
+     * computes yet. Null, and nothing changed, unless that state continues
+     * this configuration on this very pair: one bot's stale state would
+     * otherwise feed every bot here.
+     */
+    EmaState adopt(Key key, EmaState own) {
+      if (own == null || !own.isWarm(key.symbol(), key.interval(), key.params().get(0), key.params().get(1))) {
+        return null;
+      }
+      EmaState shared = new EmaState();
+      shared.copyFrom(own);
+      seed(Key.ema(key.symbol(), key.interval(), own.getFastPeriod()), own.getFastPeriod(), own.getFast(), own);
+      seed(Key.ema(key.symbol(), key.interval(), own.getSlowPeriod()), own.getSlowPeriod(), own.getSlow(), own);
+      signals.put(key, shared);
+      return shared;
+    }
+
+    private void seed(Key key, int period, Double value, EmaState own) {
+      lines.computeIfAbsent(key, k -> {
+        Line line = new Line(period);
+        line.bars = own.getBars();
+        line.lastCloseTime = own.getLastCloseTime();
+        line.value = value;
+        return line;
+      });
+    }
+  }
+
+  /** One EMA over a pair's closes. */
+  private final class Line {
+    final int period;
+    int bars;
+    Long lastCloseTime;
+    Double value;
+
+    Line(int period) {
+      this.period = period;
+    }
+
+    void reset() {
+      bars = 0;
+      lastCloseTime = null;
+      value = null;
+    }
+
+    /**
+     * Makes {@code k} the newest candle folded: already done when another
+     * configuration got there first, one step when {@code k} is the next
+     * candle (or any later one, while rebuilding), impossible otherwise.
+     */
+    boolean advanceTo(KlineDto k, boolean rebuild) {
+      if (lastCloseTime != null && lastCloseTime == k.closeTime()) return true;
+      if (lastCloseTime != null && (rebuild ? k.closeTime() < lastCloseTime : k.openTime() != lastCloseTime + 1)) {
+        return false;
+      }
+      value = EmaCrossStrategy.ema(value, k.close().doubleValue(), bars, period);
+      bars++;
+      lastCloseTime = k.closeTime();
+      folds.increment();
+      return true;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package dev.prjbtrad001.bot;
+
+import dev.prjbtrad001.market.MarketDataClient;
+import dev.prjbtrad001.market.SymbolRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live prices for the running fleet, fetched as one batch.
+ *
+ * Close-aligned ticks fire together: every 4h bot wakes up seconds after the
+ * same candle close. Asking for each bot's price separately made a wave of 200
+ * bots 200 requests. Now a bot that finds no batch running fetches the price
+ * of every symbol the fleet trades in a single call, and the bots that ask
+ * while it runs wait for that call instead of making their own.
+ *
+ * Nothing is kept once a batch completes: the only cache is the one behind
+ * {@link MarketDataClient#getPrices}, so the price a stop-loss check compares
+ * against is never older than that cache allows. A batch is a plain array
+ * indexed by {@link SymbolRegistry} id, so reading it is an index, not a hash
+ * of the symbol name.
+ */
+@ApplicationScoped
+public class LivePrices {
+
+  /** A tick that has not got its price by then skips, like on any other failure. */
+  static final Duration DEADLINE = Duration.ofSeconds(15);
+
+  private static final ExecutorService FETCHES = Executors.newVirtualThreadPerTaskExecutor();
+
+  @Inject
+  MarketDataClient marketData;
+  @Inject
+  SymbolRegistry symbols;
+
+  /** Running bot → its symbol id; maintained by {@link BotOrchestrator}. */
+  private final Map<UUID, Integer> tracked = new ConcurrentHashMap<>();
+
+  /** The batch being fetched, if any. */
+  private final AtomicReference<Batch> running = new AtomicReference<>();
+
+  /** Prices by symbol id, for the ids marked in {@code requested}; null where the exchange had none. */
+  private record Batch(boolean[] requested, CompletableFuture<BigDecimal[]> prices) {
+
+    boolean covers(int id) {
+      return id < requested.length && requested[id];
+    }
+  }
+
+  public void track(UUID botId, String symbol) {
+    tracked.put(botId, symbols.id(symbol));
+  }
+
+  public void untrack(UUID botId) {
+    tracked.remove(botId);
+  }
+
+  /** {@link #get} started in the background, so the caller can do other work meanwhile. */
+  public CompletableFuture<BigDecimal> getAsync(String symbol) {
+    return CompletableFuture.supplyAsync(() -> get(symbol), FETCHES)
+      .orTimeout(DEADLINE.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Live price for {@code symbol}, or null when the exchange could not give one.
+   * Callers of one wave block briefly on the single fetch rather than each
+   * making their own — including when it failed, so an outage costs one
+   * request per wave, not one per bot.
+   */
+  public BigDecimal get(String symbol) {
+    int id = symbols.id(symbol);
+    while (true) {
+      Batch current = running.get();
+      if (current != null && current.covers(id)) return current.prices().join()[id];
+      Batch mine = batch(id);
+      if (running.compareAndSet(current, mine)) return fetch(mine)[id];
+    }
+  }
+
+  /** A batch for every tracked symbol plus {@code id}, not yet fetched. */
+  private Batch batch(int id) {
+    boolean[] requested = new boolean[symbols.size()];
+    for (int i : tracked.values()) requested[i] = true;
+    requested[id] = true;
+    return new Batch(requested, new CompletableFuture<>());
+  }
+
+  private BigDecimal[] fetch(Batch batch) {
+    BigDecimal[] prices = new BigDecimal[batch.requested().length];
+    try {
+      Set<String> names = new HashSet<>();
+      for (int i = 0; i < prices.length; i++) if (batch.requested()[i]) names.add(symbols.name(i));
+      Map<String, BigDecimal> fetched = marketData.getPrices(names);
+      for (int i = 0; i < prices.length; i++) if (batch.requested()[i]) prices[i] = fetched.get(symbols.name(i));
+    } finally {
+      running.compareAndSet(batch, null);
+      batch.prices().complete(prices);
+    }
+    return prices;
+  }
+}
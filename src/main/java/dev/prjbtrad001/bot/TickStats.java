@@ -0,0 +1,82 @@
+package dev.prjbtrad001.bot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts bot ticks and how long after a candle closes each bot has decided.
+ *
+ * Latencies go into log buckets (eight per power of two, so a percentile is
+ * within ~12% of the truth) — fixed memory and one atomic add per tick,
+ * whatever the size of the fleet.
+ */
+public final class TickStats {
+
+  private static final int SUB = 8;
+  private static final int BUCKETS = 64 * SUB;
+
+  private final LongAdder ticks = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+  private final LongAdder decisions = new LongAdder();
+  private volatile long maxMicros;
+
+  void tick(boolean failed) {
+    ticks.increment();
+    if (failed) failures.increment();
+  }
+
+  /** Close-to-decision latency of one close-aligned tick, real microseconds. */
+  void decided(long micros) {
+    micros = Math.max(0, micros);
+    latency.incrementAndGet(bucket(micros));
+    decisions.increment();
+    if (micros > maxMicros) {
+      synchronized (this) {
+        if (micros > maxMicros) maxMicros = micros;
+      }
+    }
+  }
+
+  public long ticks() {
+    return ticks.sum();
+  }
+
+  public long failures() {
+    return failures.sum();
+  }
+
+  public long decisions() {
+    return decisions.sum();
+  }
+
+  public long maxMicros() {
+    return maxMicros;
+  }
+
+  /** Upper bound of the bucket holding the {@code p}-th percentile (0–100), microseconds; 0 before any decision. */
+  public long percentileMicros(double p) {
+    long total = 0;
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) total += counts[i] = latency.get(i);
+    if (total == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(total * p / 100));
+    for (int i = 0; i < BUCKETS; i++) {
+      if ((rank -= counts[i]) <= 0) return Math.min(upper(i), maxMicros);
+    }
+    return maxMicros;
+  }
+
+  static int bucket(long v) {
+    if (v < SUB) return (int) v;
+    int exp = 63 - Long.numberOfLeadingZeros(v);          // ≥ 3
+    int mantissa = (int) (v >>> (exp - 3)) & (SUB - 1);   // the three bits after the leading one
+    return (exp - 2) * SUB + mantissa;
+  }
+
+  static long upper(int bucket) {
+    if (bucket < SUB) return bucket;
+    int exp = bucket / SUB + 2, mantissa = bucket % SUB;
+    return ((long) (SUB + mantissa + 1) << (exp - 3)) - 1;
+  }
+}
@@ -0,0 +1,87 @@
+package dev.prjbtrad001.domain.bot;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Objects;
+
+/**
+ * A bot's running EMAs, so a tick folds in the newest closed candle instead
+ * of recomputing both averages from hundreds of bars.
+ *
+ * Kept with the bot, so a restart carries on where it stopped. Every column
+ * is nullable: a bot saved before this existed loads with no state and is
+ * rebuilt from history on its first tick. The arithmetic lives in
+ * {@link dev.prjbtrad001.strategy.EmaCrossStrategy}.
+ */
+@Getter
+@Setter
+@Embeddable
+@NoArgsConstructor
+public class EmaState {
+
+  /** The pair these values were folded from; a bot moved to another one rebuilds. */
+  @Column(name = "ema_state_symbol")
+  private String symbol;
+
+  @Column(name = "ema_state_timeframe")
+  private String timeframe;
+
+  /** The EMA lengths these values were computed with; other lengths mean a rebuild. */
+  @Column(name = "ema_state_fast_period")
+  private Integer fastPeriod;
+
+  @Column(name = "ema_state_slow_period")
+  private Integer slowPeriod;
+
+  /** Candles folded in since the last rebuild. */
+  @Column(name = "ema_state_bars")
+  private Integer bars;
+
+  /** Close time of the newest folded candle; the next one must open right after it. */
+  @Column(name = "ema_state_last_close_time")
+  private Long lastCloseTime;
+
+  /** Null until the average has seen enough candles. */
+  @Column(name = "ema_state_fast")
+  private Double fast;
+
+  @Column(name = "ema_state_slow")
+  private Double slow;
+
+  /** Which side fast was on at the last candle where the two differed: 1 above, -1 below, 0 unknown. */
+  @Column(name = "ema_state_side")
+  private Integer side;
+
+  /** Cross on the newest candle: 1 up, -1 down, 0 none. */
+  @Column(name = "ema_state_cross")
+  private Integer cross;
+
+  /** True when this continues a computation with these EMA lengths. */
+  public boolean isWarm(int emaFast, int emaSlow) {
+    return bars != null && bars > 0 && lastCloseTime != null
+      && fastPeriod != null && fastPeriod == emaFast && slowPeriod != null && slowPeriod == emaSlow;
+  }
+
+  /** {@link #isWarm(int, int)}, and computed from the closes of {@code symbol} on {@code timeframe}. */
+  public boolean isWarm(String symbol, String timeframe, int emaFast, int emaSlow) {
+    return Objects.equals(this.symbol, symbol) && Objects.equals(this.timeframe, timeframe) && isWarm(emaFast, emaSlow);
+  }
+
+  /** Takes over every value of {@code other}. */
+  public void copyFrom(EmaState other) {
+    symbol = other.symbol;
+    timeframe = other.timeframe;
+    fastPeriod = other.fastPeriod;
+    slowPeriod = other.slowPeriod;
+    bars = other.bars;
+    lastCloseTime = other.lastCloseTime;
+    fast = other.fast;
+    slow = other.slow;
+    side = other.side;
+    cross = other.cross;
+  }
+}
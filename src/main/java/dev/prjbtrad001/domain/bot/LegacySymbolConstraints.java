@@ -0,0 +1,39 @@
+package dev.prjbtrad001.domain.bot;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.jbosslog.JBossLog;
+
+/**
+ * While {@code symbol} was an enum, Hibernate created its columns with a
+ * {@code CHECK (symbol IN ('BTCBRL', …))} listing the ten pairs. Schema
+ * {@code update} never removes a constraint, so on an existing database a bot
+ * on any other pair would fail to save. The stored values themselves are
+ * unchanged; only the constraints go.
+ */
+@JBossLog
+@ApplicationScoped
+public class LegacySymbolConstraints {
+
+  /** Table → the name PostgreSQL gave the inline check. */
+  private static final String[][] CHECKS = {
+    {"tradebot", "tradebot_symbol_check"},
+    {"trade_record", "trade_record_symbol_check"},
+  };
+
+  @Inject
+  EntityManager em;
+
+  @Transactional
+  void onStart(@Observes StartupEvent ev) {
+    for (String[] check : CHECKS) {
+      em.createNativeQuery("ALTER TABLE IF EXISTS " + check[0] + " DROP CONSTRAINT IF EXISTS " + check[1])
+        .executeUpdate();
+    }
+    log.debug("Legacy symbol constraints dropped (if present)");
+  }
+}
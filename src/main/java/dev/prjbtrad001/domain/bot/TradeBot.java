@@ -37,10 +37,15 @@ public class TradeBot extends PanacheEntityBase {
   @UuidGenerator(style = UuidGenerator.Style.AUTO)
   private UUID id;
 
+  /**
+   * Binance symbol, e.g. BTCBRL. Stored as the plain name, the same column
+   * values the old enum mapping wrote; the resource checks it against the
+   * {@link dev.prjbtrad001.market.SymbolRegistry}.
+   */
   @NotNull(message = "Trading pair is required")
-  @Enumerated(EnumType.STRING)
+  @Pattern(regexp = "^[A-Z0-9]{2,20}$", message = "Trading pair must be a Binance symbol such as BTCBRL")
   @FormParam("symbol")
-  private BotType symbol;
+  private String symbol;
 
   /** Binance candle interval (e.g. 1h, 4h, 1d). */
   @NotNull(message = "Timeframe is required")
@@ -70,12 +75,29 @@ public class TradeBot extends PanacheEntityBase {
   @FormParam("orderSizeBrl")
   private BigDecimal orderSizeBrl;
 
+  /**
+   * Entry and exit rules as expressions, e.g. {@code ema(close, 9) crossesAbove
+   * ema(close, 21) and rsi(close, 14) < 70}; compiled by
+   * {@link dev.prjbtrad001.strategy.RuleCompiler}. Both blank means the EMA cross above.
+   */
+  @Column(length = 500)
+  @FormParam("entryRule")
+  private String entryRule;
+
+  @Column(length = 500)
+  @FormParam("exitRule")
+  private String exitRule;
+
   private boolean running = false;
 
   @Embedded
   private BotStatus status = new BotStatus();
 
-  public TradeBot(BotType symbol, String timeframe, int emaFast, int emaSlow,
+  /** Running EMAs for live ticks; null for a bot that has not ticked yet. */
+  @Embedded
+  private EmaState ema;
+
+  public TradeBot(String symbol, String timeframe, int emaFast, int emaSlow,
                   BigDecimal stopLossPercent, BigDecimal orderSizeBrl) {
     this.symbol = symbol;
     this.timeframe = timeframe;
@@ -91,6 +113,11 @@ public class TradeBot extends PanacheEntityBase {
     return emaFast + "×" + emaSlow;
   }
 
+  /** True when the bot trades its own rules instead of the EMA cross. */
+  public boolean hasRules() {
+    return entryRule != null && !entryRule.isBlank();
+  }
+
   /** Cross-field sanity used by the resource before persisting. */
   public boolean hasValidEmaOrder() {
     return emaFast < emaSlow;
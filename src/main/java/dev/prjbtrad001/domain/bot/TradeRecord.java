@@ -44,8 +44,7 @@ public class TradeRecord extends PanacheEntityBase {
 
   private UUID botId;
 
-  @Enumerated(EnumType.STRING)
-  private BotType symbol;
+  private String symbol;
 
   @Enumerated(EnumType.STRING)
   private Side side;
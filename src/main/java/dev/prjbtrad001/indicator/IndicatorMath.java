@@ -0,0 +1,99 @@
+package dev.prjbtrad001.indicator;
+
+/**
+ * Bulk indicator math over {@code double[]} columns: element-wise, windowed
+ * and running operations for backtests and scans, where a whole history is
+ * computed at once.
+ *
+ * Runs on SIMD lanes ({@code jdk.incubator.vector}) when the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, and on plain loops
+ * otherwise or with {@code -Dbot.indicator.vector=false}. Both give the same
+ * results up to rounding.
+ *
+ * Like {@link dev.prjbtrad001.strategy.EmaCrossKernel}, callers pass the
+ * output arrays and only the first {@code n} elements are read or written.
+ */
+public final class IndicatorMath {
+
+  private static final Kernels KERNELS = load();
+
+  private IndicatorMath() {
+  }
+
+  /** Whether the SIMD kernels are in use. */
+  public static boolean vectorized() {
+    return !(KERNELS instanceof ScalarKernels);
+  }
+
+  /** {@code out[i] = x[i] * k}: marks of a fixed holding, unit conversions. */
+  public static void scale(double[] x, int n, double k, double[] out) {
+    KERNELS.scale(x, n, k, out);
+  }
+
+  /** Simple returns, {@code close[i] / close[i - 1] - 1}; the first is NaN. */
+  public static void returns(double[] close, int n, double[] out) {
+    KERNELS.returns(close, n, out);
+  }
+
+  /** Mean of the last {@code window} values; NaN until the window is full. */
+  public static void rollingMean(double[] x, int n, int window, double[] out) {
+    checkWindow(window);
+    KERNELS.rollingMean(x, n, window, out);
+  }
+
+  /** Population variance of the last {@code window} values; NaN until the window is full. */
+  public static void rollingVariance(double[] x, int n, int window, double[] out) {
+    checkWindow(window);
+    KERNELS.rollingVariance(x, n, window, out);
+  }
+
+  /**
+   * Drawdown from the running peak, as a fraction of it, into {@code out};
+   * returns the maximum. Zero while the peak is not positive.
+   */
+  public static double drawdown(double[] equity, int n, double[] out) {
+    return KERNELS.drawdown(equity, n, out);
+  }
+
+  /** Maximum drawdown, as {@link #drawdown} without keeping the curve. */
+  public static double maxDrawdown(double[] equity, int n) {
+    return drawdown(equity, n, new double[n]);
+  }
+
+  /**
+   * Running sums of {@code x - shift} (or its square) with a leading zero,
+   * so any window is one subtraction. Shifting by a value near the series
+   * keeps the sums of squares small enough for the variance not to cancel.
+   */
+  static double[] prefixSums(double[] x, int n, double shift, boolean squared) {
+    double[] sum = new double[n + 1];
+    double acc = 0;
+    for (int i = 0; i < n; i++) {
+      double d = x[i] - shift;
+      acc += squared ? d * d : d;
+      sum[i + 1] = acc;
+    }
+    return sum;
+  }
+
+  private static void checkWindow(int window) {
+    if (window < 1) throw new IllegalArgumentException("window must be at least 1: " + window);
+  }
+
+  /** The kernels in use; tests and benchmarks hold them against {@link ScalarKernels}. */
+  static Kernels kernels() {
+    return KERNELS;
+  }
+
+  private static Kernels load() {
+    if (!Boolean.parseBoolean(System.getProperty("bot.indicator.vector", "true"))
+      || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return new ScalarKernels();
+    }
+    try {
+      return (Kernels) Class.forName("dev.prjbtrad001.indicator.VectorKernels").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return new ScalarKernels();
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package dev.prjbtrad001.indicator;
+
+/**
+ * What {@link IndicatorMath} runs on: {@link ScalarKernels} everywhere, or
+ * {@code VectorKernels} when the vector module is there. The SIMD class is
+ * compiled on its own and loaded by name, so nothing else has to be built
+ * against an incubating module.
+ */
+interface Kernels {
+
+  void scale(double[] x, int n, double k, double[] out);
+
+  void returns(double[] close, int n, double[] out);
+
+  void rollingMean(double[] x, int n, int window, double[] out);
+
+  void rollingVariance(double[] x, int n, int window, double[] out);
+
+  double drawdown(double[] equity, int n, double[] out);
+}
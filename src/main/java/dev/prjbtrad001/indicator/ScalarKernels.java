@@ -0,0 +1,56 @@
+package dev.prjbtrad001.indicator;
+
+/**
+ * The plain-loop versions of {@link IndicatorMath}: what runs when the JVM
+ * was started without the vector module, and the baseline the SIMD kernels
+ * are tested and benchmarked against.
+ */
+final class ScalarKernels implements Kernels {
+
+  ScalarKernels() {
+  }
+
+  @Override
+  public void scale(double[] x, int n, double k, double[] out) {
+    for (int i = 0; i < n; i++) out[i] = x[i] * k;
+  }
+
+  @Override
+  public void returns(double[] close, int n, double[] out) {
+    if (n > 0) out[0] = Double.NaN;
+    for (int i = 1; i < n; i++) out[i] = close[i] / close[i - 1] - 1;
+  }
+
+  @Override
+  public void rollingMean(double[] x, int n, int window, double[] out) {
+    double[] sum = IndicatorMath.prefixSums(x, n, 0, false);
+    int first = Math.min(window - 1, n);
+    for (int i = 0; i < first; i++) out[i] = Double.NaN;
+    for (int i = first; i < n; i++) out[i] = (sum[i + 1] - sum[i + 1 - window]) / window;
+  }
+
+  @Override
+  public void rollingVariance(double[] x, int n, int window, double[] out) {
+    double shift = n > 0 ? x[0] : 0;
+    double[] sum = IndicatorMath.prefixSums(x, n, shift, false);
+    double[] sq = IndicatorMath.prefixSums(x, n, shift, true);
+    int first = Math.min(window - 1, n);
+    for (int i = 0; i < first; i++) out[i] = Double.NaN;
+    for (int i = first; i < n; i++) {
+      double mean = (sum[i + 1] - sum[i + 1 - window]) / window;
+      out[i] = Math.max(0, (sq[i + 1] - sq[i + 1 - window]) / window - mean * mean);
+    }
+  }
+
+  @Override
+  public double drawdown(double[] equity, int n, double[] out) {
+    double peak = Double.NEGATIVE_INFINITY, max = 0;
+    for (int i = 0; i < n; i++) {
+      peak = Math.max(peak, equity[i]);
+      double d = peak > 0 ? (peak - equity[i]) / peak : 0;
+      out[i] = d;
+      max = Math.max(max, d);
+    }
+    return max;
+  }
+}
@@ -0,0 +1,100 @@
+package dev.prjbtrad001.indicator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link IndicatorMath} on SIMD lanes. Only loaded when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, and the only class compiled
+ * with it (see the pom); every method finishes the tail that does not fill a
+ * whole vector with the scalar loop.
+ *
+ * The drawdown's running peak depends on every bar before it, so it is taken
+ * in a scalar pass before the vectorised ratios.
+ */
+final class VectorKernels implements Kernels {
+
+  private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+  private static final int L = S.length();
+
+  VectorKernels() {
+  }
+
+  @Override
+  public void scale(double[] x, int n, double k, double[] out) {
+    int i = 0;
+    for (int bound = S.loopBound(n); i < bound; i += L) {
+      DoubleVector.fromArray(S, x, i).mul(k).intoArray(out, i);
+    }
+    for (; i < n; i++) out[i] = x[i] * k;
+  }
+
+  @Override
+  public void returns(double[] close, int n, double[] out) {
+    if (n == 0) return;
+    out[0] = Double.NaN;
+    int i = 1;
+    for (int bound = 1 + S.loopBound(n - 1); i < bound; i += L) {
+      DoubleVector.fromArray(S, close, i).div(DoubleVector.fromArray(S, close, i - 1)).sub(1).intoArray(out, i);
+    }
+    for (; i < n; i++) out[i] = close[i] / close[i - 1] - 1;
+  }
+
+  @Override
+  public void rollingMean(double[] x, int n, int window, double[] out) {
+    double[] sum = IndicatorMath.prefixSums(x, n, 0, false);
+    int first = Math.min(window - 1, n);
+    for (int i = 0; i < first; i++) out[i] = Double.NaN;
+    int i = first;
+    for (int bound = first + S.loopBound(n - first); i < bound; i += L) {
+      DoubleVector.fromArray(S, sum, i + 1).sub(DoubleVector.fromArray(S, sum, i + 1 - window))
+        .div(window).intoArray(out, i);
+    }
+    for (; i < n; i++) out[i] = (sum[i + 1] - sum[i + 1 - window]) / window;
+  }
+
+  @Override
+  public void rollingVariance(double[] x, int n, int window, double[] out) {
+    double shift = n > 0 ? x[0] : 0;
+    double[] sum = IndicatorMath.prefixSums(x, n, shift, false);
+    double[] sq = IndicatorMath.prefixSums(x, n, shift, true);
+    int first = Math.min(window - 1, n);
+    for (int i = 0; i < first; i++) out[i] = Double.NaN;
+    int i = first;
+    for (int bound = first + S.loopBound(n - first); i < bound; i += L) {
+      DoubleVector mean = DoubleVector.fromArray(S, sum, i + 1).sub(DoubleVector.fromArray(S, sum, i + 1 - window))
+        .div(window);
+      DoubleVector meanSq = DoubleVector.fromArray(S, sq, i + 1).sub(DoubleVector.fromArray(S, sq, i + 1 - window))
+        .div(window);
+      meanSq.sub(mean.mul(mean)).max(0).intoArray(out, i);
+    }
+    for (; i < n; i++) {
+      double mean = (sum[i + 1] - sum[i + 1 - window]) / window;
+      out[i] = Math.max(0, (sq[i + 1] - sq[i + 1 - window]) / window - mean * mean);
+    }
+  }
+
+  @Override
+  public double drawdown(double[] equity, int n, double[] out) {
+    // The running peak is a one-compare-per-bar chain; the ratios are not.
+    double peak = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < n; i++) out[i] = peak = Math.max(peak, equity[i]);
+    DoubleVector worst = DoubleVector.zero(S);
+    int i = 0;
+    for (int bound = S.loopBound(n); i < bound; i += L) {
+      DoubleVector top = DoubleVector.fromArray(S, out, i);
+      DoubleVector d = top.sub(DoubleVector.fromArray(S, equity, i)).div(top)
+        .blend(0, top.compare(VectorOperators.GT, 0).not());
+      d.intoArray(out, i);
+      worst = worst.max(d);
+    }
+    double max = worst.reduceLanes(VectorOperators.MAX);
+    for (; i < n; i++) {
+      double d = out[i] > 0 ? (out[i] - equity[i]) / out[i] : 0;
+      out[i] = d;
+      max = Math.max(max, d);
+    }
+    return max;
+  }
+}
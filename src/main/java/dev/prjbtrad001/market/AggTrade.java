@@ -0,0 +1,16 @@
+package dev.prjbtrad001.market;
+
+/**
+ * One aggregated trade: every fill of a single taker order at one price.
+ * Binance numbers them consecutively per symbol, which is what lets a day of
+ * them be paged through and checked for holes.
+ *
+ * {@code buyerMaker} true means the taker sold.
+ */
+public record AggTrade(long id, double price, double quantity, long time, boolean buyerMaker) {
+
+  /** Traded value in the quote asset (BRL for the pairs the bot trades). */
+  public double notional() {
+    return price * quantity;
+  }
+}
@@ -0,0 +1,128 @@
+package dev.prjbtrad001.market;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes aggregated trades as CSV, one trade per line, streaming: a
+ * busy pair trades millions of times a day, so a file is never held whole.
+ *
+ * Two layouts are read. Binance's public dumps (data.binance.vision) carry
+ * {@code id,price,quantity,firstTradeId,lastTradeId,time,isBuyerMaker,isBestMatch},
+ * sometimes under a header line; the files {@link TradeBars} keeps are the
+ * five fields the bot uses, {@code id,price,quantity,time,isBuyerMaker}. Times
+ * in microseconds (spot dumps since 2025) become milliseconds, and decimals go
+ * through {@link KlineParser#parseDecimal}, so a dump, a stored file and the
+ * REST API give identical doubles for the same trade.
+ */
+public final class AggTradeCsv {
+
+  /** Anything above this is not an epoch-millis time in this millennium. */
+  private static final long MAX_MILLIS = 100_000_000_000_000L;
+  private static final int MAX_FIELDS = 8;
+
+  private AggTradeCsv() {
+  }
+
+  /** Hands every trade in {@code in} to {@code sink}, in file order; returns how many there were. */
+  public static long read(InputStream in, Consumer<AggTrade> sink) throws IOException {
+    byte[] buf = new byte[64 * 1024];
+    char[] chars = new char[64];
+    int[] starts = new int[MAX_FIELDS + 1];
+    int pos = 0, filled = 0, line = 0;
+    long count = 0;
+    boolean eof = false;
+    while (!eof || pos < filled) {
+      int nl = indexOf(buf, pos, filled, (byte) '\n');
+      if (nl < 0 && !eof) {
+        // Only a partial line is left: move it to the front once, then refill behind it.
+        if (pos > 0) {
+          System.arraycopy(buf, pos, buf, 0, filled - pos);
+          filled -= pos;
+          pos = 0;
+        } else if (filled == buf.length) {
+          buf = java.util.Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n = in.read(buf, filled, buf.length - filled);
+        if (n < 0) eof = true;
+        else filled += n;
+        continue;
+      }
+      int end = nl < 0 ? filled : nl;
+      line++;
+      int stop = end > pos && buf[end - 1] == '\r' ? end - 1 : end;
+      if (stop > pos && isDigit(buf[pos])) {
+        sink.accept(parseLine(buf, pos, stop, starts, chars, line));
+        count++;
+      }
+      pos = nl < 0 ? filled : nl + 1;
+    }
+    return count;
+  }
+
+  /** One trade in the stored five-field layout. */
+  public static void write(Writer out, AggTrade t) throws IOException {
+    out.write(Long.toString(t.id()));
+    out.write(',');
+    out.write(Double.toString(t.price()));
+    out.write(',');
+    out.write(Double.toString(t.quantity()));
+    out.write(',');
+    out.write(Long.toString(t.time()));
+    out.write(',');
+    out.write(t.buyerMaker() ? "true" : "false");
+    out.write('\n');
+  }
+
+  private static AggTrade parseLine(byte[] buf, int from, int stop, int[] starts, char[] chars, int line)
+      throws IOException {
+    int fields = 0;
+    starts[fields++] = from;
+    for (int i = from; i < stop && fields <= MAX_FIELDS; i++) {
+      if (buf[i] == ',') starts[fields++] = i + 1;
+    }
+    if (fields != 5 && fields < 7) {
+      throw new IOException("Line " + line + ": expected 5 or 8 fields, got " + fields);
+    }
+    int timeField = fields == 5 ? 3 : 5;
+    long id = parseLong(buf, starts[0], fieldEnd(starts, 0, fields, stop), line);
+    double price = parseDecimal(buf, starts[1], fieldEnd(starts, 1, fields, stop), chars);
+    double qty = parseDecimal(buf, starts[2], fieldEnd(starts, 2, fields, stop), chars);
+    long time = parseLong(buf, starts[timeField], fieldEnd(starts, timeField, fields, stop), line);
+    int m = starts[timeField + 1];
+    boolean maker = m < stop && (buf[m] == 't' || buf[m] == 'T' || buf[m] == '1');
+    return new AggTrade(id, price, qty, time > MAX_MILLIS ? time / 1000 : time, maker);
+  }
+
+  private static int fieldEnd(int[] starts, int f, int fields, int stop) {
+    return f + 1 < fields ? starts[f + 1] - 1 : stop;
+  }
+
+  private static double parseDecimal(byte[] buf, int from, int to, char[] chars) {
+    int len = to - from;
+    if (len > chars.length) chars = new char[len];
+    for (int i = 0; i < len; i++) chars[i] = (char) buf[from + i];
+    return KlineParser.parseDecimal(chars, 0, len);
+  }
+
+  private static long parseLong(byte[] buf, int from, int to, int line) throws IOException {
+    if (to <= from || to - from > 18) throw new IOException("Line " + line + ": bad number");
+    long v = 0;
+    for (int i = from; i < to; i++) {
+      if (!isDigit(buf[i])) throw new IOException("Line " + line + ": bad number");
+      v = v * 10 + (buf[i] - '0');
+    }
+    return v;
+  }
+
+  private static int indexOf(byte[] buf, int from, int to, byte b) {
+    for (int i = from; i < to; i++) if (buf[i] == b) return i;
+    return -1;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+}
@@ -1,79 +1,223 @@
 package dev.prjbtrad001.market;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Fetches candles and prices from Binance's public REST API.
  *
  * These endpoints are unauthenticated, so the bot needs no keys to run in
  * paper mode or to backtest.
+ *
+ * This is the {@link Upstream} client: callers get it through
+ * {@link StoredMarketDataClient}, which only comes here for bars it lacks.
  */
 @JBossLog
+@Upstream
 @ApplicationScoped
 public class BinanceDataClient implements MarketDataClient {
 
-  private static final String BASE_URL = "https://api.binance.com/api/v3";
   private static final int MAX_PER_REQUEST = 1000;
+  private static final JsonFactory JSON = new JsonFactory();
+
+  // Request weights from Binance's API docs.
+  private static final int KLINES_WEIGHT = 2;
+  private static final int PRICE_WEIGHT = 2;
+  private static final int PRICE_LIST_WEIGHT = 4;
+  private static final int EXCHANGE_INFO_WEIGHT = 20;
+  private static final int AGG_TRADES_WEIGHT = 4;
 
+  // HTTP/2 when the exchange offers it: concurrent requests, sync or async,
+  // share one multiplexed connection instead of opening one each.
   private final HttpClient http = HttpClient.newBuilder()
+    .version(HttpClient.Version.HTTP_2)
     .connectTimeout(Duration.ofSeconds(10))
     .build();
   private final ObjectMapper mapper = new ObjectMapper();
 
+  /** Market time, for "the most recent N candles"; the exchange's own when it is simulated. */
+  @Inject
+  Clock clock = Clock.systemUTC();
+
+  /** REST root; pointed at a local stand-in by tests and load runs. */
+  @ConfigProperty(name = "bot.market.rest.url", defaultValue = "https://api.binance.com/api/v3")
+  String baseUrl = "https://api.binance.com/api/v3";
+
+  /** Concurrent pages per range request; Binance weighs each klines call the same. */
+  @ConfigProperty(name = "bot.market.fetch.parallelism", defaultValue = "4")
+  int parallelism;
+
+  // Page fetches block on I/O, which is exactly what virtual threads are for;
+  // the semaphore is the real concurrency limit.
+  private final ExecutorService pageFetcher = Executors.newVirtualThreadPerTaskExecutor();
+  private Semaphore inFlight;
+
+  /**
+   * Binance allows 6000 weight per minute per IP; staying below it leaves room
+   * for anything else on the same address.
+   */
+  @ConfigProperty(name = "bot.market.rate.weight-per-minute", defaultValue = "5000")
+  int weightPerMinute;
+
+  private WeightLimiter limiter;
+
+  @PostConstruct
+  void init() {
+    inFlight = new Semaphore(Math.max(1, parallelism));
+    limiter = new WeightLimiter(weightPerMinute);
+  }
+
+  /** Budget, queue depth and wait times of the request-weight limiter. */
+  public WeightLimiter.Stats limiterStats() {
+    return limiter.stats();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    pageFetcher.shutdownNow();
+  }
+
   @Override
   public List<KlineDto> getCandles(String symbol, String interval, int limit) {
     int capped = Math.min(limit, MAX_PER_REQUEST);
-    String url = BASE_URL + "/klines?symbol=" + symbol + "&interval=" + interval + "&limit=" + capped;
+    String url = baseUrl + "/klines?symbol=" + symbol + "&interval=" + interval + "&limit=" + capped;
     return fetchKlines(url);
   }
 
+  /**
+   * The most recent {@code total} candles, as one time range ending with the
+   * forming candle — so it gets the same parallel fetch as
+   * {@link #getCandlesBetween}. Gaps in exchange history (maintenance halts)
+   * mean slightly fewer candles than asked, never a different window.
+   */
   @Override
   public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
-    List<KlineDto> all = new ArrayList<>();
-    // Binance caps each request at 1000; walk backwards using endTime.
-    Long endTime = null;
-    int remaining = Math.max(total, 1);
-
-    while (remaining > 0) {
-      int batch = Math.min(remaining, MAX_PER_REQUEST);
-      StringBuilder url = new StringBuilder(BASE_URL)
-        .append("/klines?symbol=").append(symbol)
-        .append("&interval=").append(interval)
-        .append("&limit=").append(batch);
-      if (endTime != null) url.append("&endTime=").append(endTime);
-
-      List<KlineDto> page = fetchKlines(url.toString());
-      if (page.isEmpty()) break;
-
-      all.addAll(0, page);               // prepend: pages arrive newest-batch last
-      remaining -= page.size();
-      endTime = page.getFirst().openTime() - 1;   // next page ends just before this one
-
-      if (page.size() < batch) break;    // no more history available
+    long step = Intervals.millis(interval);
+    long to = Intervals.openTimeOf(clock.millis(), interval) + step;
+    return getCandlesBetween(symbol, interval, to - (long) Math.max(total, 1) * step, to);
+  }
+
+  /**
+   * Splits [from, to) into 1000-candle windows from the interval length and
+   * fetches them concurrently, at most {@code parallelism} in flight. Each page
+   * lands in its own slot, and the slots are joined once at the end — no
+   * prepending, so the cost is linear in the number of candles.
+   *
+   * All or nothing: if any window fails the rest are cancelled and the call
+   * throws, because a range with a hole in it looks just like a complete one.
+   */
+  @Override
+  public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+    long step = Intervals.millis(interval);
+    long span = step * MAX_PER_REQUEST;
+    int windows = (int) Math.max(0, (to - from + span - 1) / span);
+    if (windows == 0) return List.of();
+
+    // Pages run on other threads; they queue at the caller's priority.
+    RequestPriority priority = RequestPriority.current();
+    List<Future<CandleColumns>> pages = new ArrayList<>(windows);
+    for (int w = 0; w < windows; w++) {
+      long start = from + w * span;
+      long end = Math.min(to, start + span) - 1;    // Binance's endTime is inclusive
+      String url = baseUrl + "/klines?symbol=" + symbol + "&interval=" + interval
+        + "&startTime=" + start + "&endTime=" + end + "&limit=" + MAX_PER_REQUEST;
+      pages.add(pageFetcher.submit(() -> {
+        inFlight.acquire();
+        try {
+          return fetchPage(url, priority);
+        } finally {
+          inFlight.release();
+        }
+      }));
+    }
+
+    List<CandleColumns> fetched = new ArrayList<>(windows);
+    int count = 0;
+    for (Future<CandleColumns> f : pages) {
+      try {
+        CandleColumns page = f.get();
+        fetched.add(page);
+        count += page.size();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        pages.forEach(p -> p.cancel(true));
+        throw new UncheckedIOException(new InterruptedIOException("Interrupted fetching " + symbol + " " + interval));
+      } catch (ExecutionException e) {
+        pages.forEach(p -> p.cancel(true));
+        log.errorf("Klines window fetch failed: %s", e.getCause().getMessage());
+        throw new UncheckedIOException(new IOException("Could not fetch every " + symbol + " " + interval
+          + " window: " + e.getCause().getMessage(), e.getCause()));
+      }
+    }
+
+    List<KlineDto> all = new ArrayList<>(count);
+    for (CandleColumns page : fetched) {
+      for (int i = 0; i < page.size(); i++) all.add(page.kline(i));
     }
     return all;
   }
 
+  @Override
+  public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+    StringBuilder url = new StringBuilder(baseUrl)
+      .append("/klines?symbol=").append(symbol)
+      .append("&interval=").append(interval)
+      .append("&limit=").append(Math.min(Math.max(limit, 1), MAX_PER_REQUEST));
+    if (startTime != null) url.append("&startTime=").append(startTime);
+    if (endTime != null) url.append("&endTime=").append(endTime);
+    return fetchKlines(url.toString());
+  }
+
   @Override
   public BigDecimal getPrice(String symbol) {
     try {
       HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(BASE_URL + "/ticker/price?symbol=" + symbol))
+        .uri(URI.create(baseUrl + "/ticker/price?symbol=" + symbol))
         .timeout(Duration.ofSeconds(10))
         .GET().build();
-      HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString(), PRICE_WEIGHT,
+        RequestPriority.current());
       if (response.statusCode() == 200) {
         JsonNode node = mapper.readTree(response.body());
         return new BigDecimal(node.get("price").asText());
@@ -85,35 +229,336 @@ public class BinanceDataClient implements MarketDataClient {
     return null;
   }
 
-  private List<KlineDto> fetchKlines(String url) {
-    List<KlineDto> candles = new ArrayList<>();
+  /**
+   * Every wanted price from ONE request: the all-symbols {@code /ticker/price}
+   * list (the whole exchange, a couple of thousand entries) is streamed and
+   * only the asked-for symbols are kept. A dashboard with ten open pairs, or a
+   * tick wave across the fleet, is one round trip instead of one per symbol.
+   */
+  @Override
+  public Map<String, BigDecimal> getPrices(Collection<String> symbols) {
+    Set<String> wanted = Set.copyOf(symbols);
+    if (wanted.isEmpty()) return Map.of();
+    if (wanted.size() == 1) return MarketDataClient.super.getPrices(wanted);
+    try {
+      HttpRequest request = HttpRequest.newBuilder()
+        .uri(URI.create(baseUrl + "/ticker/price"))
+        .timeout(Duration.ofSeconds(10))
+        .header("Accept-Encoding", "gzip")
+        .GET().build();
+      HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream(),
+        PRICE_LIST_WEIGHT, RequestPriority.current());
+      try (InputStream body = decoded(response)) {
+        if (response.statusCode() == 200) return parsePrices(body, wanted);
+        log.warnf("Price list fetch failed: HTTP %d", response.statusCode());
+      }
+    } catch (Exception e) {
+      log.errorf("Price list fetch error: %s", e.getMessage());
+    }
+    return Map.of();
+  }
+
+  /**
+   * The spot {@code /exchangeInfo} document, decompressed, or null on failure.
+   * Heavy (weight 20, a few MB), so {@link SymbolRegistry} fetches it a few
+   * times a day and keeps the last copy on disk.
+   */
+  public byte[] getExchangeInfo() {
+    try {
+      HttpRequest request = HttpRequest.newBuilder()
+        .uri(URI.create(baseUrl + "/exchangeInfo?permissions=SPOT"))
+        .timeout(Duration.ofSeconds(30))
+        .header("Accept-Encoding", "gzip")
+        .GET().build();
+      // A background refresh: it waits behind every tick and page view.
+      HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream(),
+        EXCHANGE_INFO_WEIGHT, RequestPriority.BACKTEST);
+      try (InputStream body = decoded(response)) {
+        if (response.statusCode() == 200) return body.readAllBytes();
+        log.warnf("Exchange info fetch failed: HTTP %d", response.statusCode());
+      }
+    } catch (Exception e) {
+      log.errorf("Exchange info fetch error: %s", e.getMessage());
+    }
+    return null;
+  }
+
+  /**
+   * One page of aggregated trades: from {@code fromId} on, or inside
+   * [{@code startTime}, {@code endTime}] (Binance allows at most an hour
+   * between the two). Null on failure, so a caller writing a day of trades to
+   * disk can tell a failed page from the end of the tape.
+   */
+  public List<AggTrade> getAggTrades(String symbol, Long fromId, Long startTime, Long endTime, int limit) {
+    StringBuilder url = new StringBuilder(baseUrl)
+      .append("/aggTrades?symbol=").append(symbol)
+      .append("&limit=").append(Math.min(Math.max(limit, 1), MAX_PER_REQUEST));
+    if (fromId != null) url.append("&fromId=").append(fromId);
+    if (startTime != null) url.append("&startTime=").append(startTime);
+    if (endTime != null) url.append("&endTime=").append(endTime);
     try {
       HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(url))
+        .uri(URI.create(url.toString()))
         .timeout(Duration.ofSeconds(20))
+        .header("Accept-Encoding", "gzip")
         .GET().build();
-      HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream(),
+        AGG_TRADES_WEIGHT, RequestPriority.current());
+      try (InputStream body = decoded(response)) {
+        if (response.statusCode() == 200) return parseAggTrades(body);
+        log.warnf("Trades fetch failed for %s: HTTP %d - %s", symbol, response.statusCode(),
+          new String(body.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    } catch (Exception e) {
+      log.errorf("Trades fetch error for %s: %s", symbol, e.getMessage());
+    }
+    return null;
+  }
 
-      if (response.statusCode() != 200) {
-        log.warnf("Klines fetch failed: HTTP %d - %s", response.statusCode(), response.body());
-        return candles;
+  /** Reads {@code [{"a":id,"p":"price","q":"qty","f":..,"l":..,"T":time,"m":maker,"M":..}, ...]}. */
+  static List<AggTrade> parseAggTrades(InputStream in) throws IOException {
+    List<AggTrade> trades = new ArrayList<>();
+    try (JsonParser p = JSON.createParser(in)) {
+      if (p.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected a JSON array of trades, got " + p.currentToken());
+      }
+      while (p.nextToken() == JsonToken.START_OBJECT) {
+        long id = -1, time = 0;
+        double price = 0, qty = 0;
+        boolean maker = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String field = p.currentName();
+          p.nextToken();
+          switch (field) {
+            case "a" -> id = p.getLongValue();
+            case "p" -> price = KlineParser.parseDecimal(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            case "q" -> qty = KlineParser.parseDecimal(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            case "T" -> time = p.getLongValue();
+            case "m" -> maker = p.getBooleanValue();
+            default -> p.skipChildren();
+          }
+        }
+        if (id >= 0) trades.add(new AggTrade(id, price, qty, time, maker));
       }
+    }
+    return trades;
+  }
 
-      JsonNode array = mapper.readTree(response.body());
-      for (JsonNode k : array) {
-        candles.add(new KlineDto(
-          k.get(0).asLong(),                       // openTime
-          new BigDecimal(k.get(1).asText()),       // open
-          new BigDecimal(k.get(2).asText()),       // high
-          new BigDecimal(k.get(3).asText()),       // low
-          new BigDecimal(k.get(4).asText()),       // close
-          new BigDecimal(k.get(5).asText()),       // volume
-          k.get(6).asLong()                        // closeTime
-        ));
+  /** Reads {@code [{"symbol":..,"price":..}, ...]}, keeping only {@code wanted}. */
+  static Map<String, BigDecimal> parsePrices(InputStream in, Set<String> wanted) throws IOException {
+    Map<String, BigDecimal> prices = new HashMap<>();
+    try (JsonParser p = JSON.createParser(in)) {
+      if (p.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected a JSON array of prices, got " + p.currentToken());
       }
+      while (p.nextToken() == JsonToken.START_OBJECT) {
+        String symbol = null;
+        String price = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String field = p.currentName();
+          p.nextToken();
+          if ("symbol".equals(field)) symbol = p.getText();
+          else if ("price".equals(field)) price = p.getText();
+          else p.skipChildren();
+        }
+        if (price != null && wanted.contains(symbol)) prices.put(symbol, new BigDecimal(price));
+      }
+    }
+    return prices;
+  }
+
+  // ── non-blocking variants ────────────────────────────────────────
+  //
+  // Built on sendAsync with the body collected as bytes, so no thread waits on
+  // the network: the only blocking step is a turn in the weight limiter, and
+  // that parks a virtual thread. Ranges keep the interface's default, which
+  // runs getCandlesRange and so stays within the parallelism limit.
+
+  @Override
+  public CompletableFuture<List<KlineDto>> getCandlesAsync(String symbol, String interval, int limit,
+                                                           Duration deadline) {
+    int capped = Math.min(limit, MAX_PER_REQUEST);
+    String url = baseUrl + "/klines?symbol=" + symbol + "&interval=" + interval + "&limit=" + capped;
+    return within(fetchColumnsAsync(url, deadline, RequestPriority.current()), deadline)
+      .thenApply(BinanceDataClient::toKlines);
+  }
+
+  @Override
+  public CompletableFuture<BigDecimal> getPriceAsync(String symbol, Duration deadline) {
+    HttpRequest request = HttpRequest.newBuilder()
+      .uri(URI.create(baseUrl + "/ticker/price?symbol=" + symbol))
+      .timeout(deadline)
+      .GET().build();
+    CompletableFuture<BigDecimal> price = sendAsync(request, HttpResponse.BodyHandlers.ofString(), PRICE_WEIGHT,
+      RequestPriority.current(), deadline)
+      .thenApply(response -> {
+        if (response.statusCode() == 200) {
+          try {
+            return new BigDecimal(mapper.readTree(response.body()).get("price").asText());
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        }
+        log.warnf("Price fetch failed for %s: HTTP %d", symbol, response.statusCode());
+        return null;
+      })
+      .exceptionally(e -> {
+        if (isTimeout(e)) throw e instanceof CompletionException c ? c : new CompletionException(e);
+        log.errorf("Price fetch error for %s: %s", symbol, e.getMessage());
+        return null;
+      });
+    return within(price, deadline);
+  }
+
+  @Override
+  public CandleColumns getCandleColumns(String symbol, String interval, int limit) {
+    int capped = Math.min(limit, MAX_PER_REQUEST);
+    String url = baseUrl + "/klines?symbol=" + symbol + "&interval=" + interval + "&limit=" + capped;
+    return fetchColumns(url, RequestPriority.current());
+  }
+
+  private List<KlineDto> fetchKlines(String url) {
+    return toKlines(fetchColumns(url, RequestPriority.current()));
+  }
+
+  private static List<KlineDto> toKlines(CandleColumns columns) {
+    List<KlineDto> candles = new ArrayList<>(columns.size());
+    for (int i = 0; i < columns.size(); i++) candles.add(columns.kline(i));
+    return candles;
+  }
+
+  /** {@link #fetchPage}, empty on failure. */
+  private CandleColumns fetchColumns(String url, RequestPriority priority) {
+    try {
+      return fetchPage(url, priority);
     } catch (Exception e) {
       log.errorf("Klines fetch error: %s", e.getMessage());
     }
-    return candles;
+    return new CandleColumns(0);
+  }
+
+  /**
+   * Streams the response — gzip-compressed on the wire, about a fifth of the
+   * bytes — through {@link KlineParser} without ever holding the body as text.
+   * Throws on any failure, so an empty page always means no candles.
+   */
+  private CandleColumns fetchPage(String url, RequestPriority priority) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder()
+      .uri(URI.create(url))
+      .timeout(Duration.ofSeconds(20))
+      .header("Accept-Encoding", "gzip")
+      .GET().build();
+    HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream(),
+      KLINES_WEIGHT, priority);
+
+    try (InputStream body = decoded(response)) {
+      if (response.statusCode() != 200) {
+        throw new IOException("HTTP " + response.statusCode() + " - "
+          + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      return KlineParser.parse(body);
+    }
+  }
+
+  /** Async twin of {@link #fetchColumns}; a failed page completes empty, like the blocking one. */
+  private CompletableFuture<CandleColumns> fetchColumnsAsync(String url, Duration deadline, RequestPriority priority) {
+    HttpRequest request = HttpRequest.newBuilder()
+      .uri(URI.create(url))
+      .timeout(deadline)
+      .header("Accept-Encoding", "gzip")
+      .GET().build();
+    return sendAsync(request, HttpResponse.BodyHandlers.ofByteArray(), KLINES_WEIGHT, priority, deadline)
+      .thenApply(response -> {
+        try (InputStream body = decoded(response.headers(), new ByteArrayInputStream(response.body()))) {
+          if (response.statusCode() != 200) {
+            log.warnf("Klines fetch failed: HTTP %d - %s", response.statusCode(),
+              new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            return new CandleColumns(0);
+          }
+          return KlineParser.parse(body);
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      })
+      .exceptionally(e -> {
+        if (isTimeout(e)) throw e instanceof CompletionException c ? c : new CompletionException(e);
+        log.errorf("Klines fetch error: %s", e.getMessage());
+        return new CandleColumns(0);
+      });
+  }
+
+  /**
+   * Every request goes through here: it waits its turn in the weight budget,
+   * and the exchange's view of that budget comes back with the response.
+   */
+  private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, int weight,
+                                   RequestPriority priority) throws IOException, InterruptedException {
+    limiter.acquire(weight, priority);
+    return observed(http.send(request, handler));
+  }
+
+  /**
+   * {@link #send} without holding a thread: the limiter wait parks a virtual
+   * thread. The deadline covers that wait too — a call that runs out of time
+   * in the queue, or is granted its weight too late, gives the weight back and
+   * fails without reaching the exchange.
+   */
+  private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                           int weight, RequestPriority priority, Duration deadline) {
+    long expires = System.nanoTime() + deadline.toNanos();
+    return CompletableFuture.runAsync(() -> {
+        try {
+          boolean granted = limiter.tryAcquire(weight, priority, expires - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (granted && System.nanoTime() - expires >= 0) {
+            limiter.release(weight);
+            granted = false;
+          }
+          if (!granted) throw new CompletionException(new TimeoutException("No request weight within " + deadline));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CompletionException(e);
+        }
+      }, pageFetcher)
+      .thenCompose(v -> http.sendAsync(request, handler))
+      .thenApply(this::observed);
+  }
+
+  private <T> HttpResponse<T> observed(HttpResponse<T> response) {
+    int status = response.statusCode();
+    long retryAfter = longHeader(response, "Retry-After");
+    if (status == 429 || status == 418) {
+      log.warnf("Binance rate limit hit (HTTP %d, Retry-After %ds) - pausing all requests", status, retryAfter);
+    }
+    limiter.onResponse(status, longHeader(response, "X-MBX-USED-WEIGHT-1M"), retryAfter);
+    return response;
+  }
+
+  private static <T> CompletableFuture<T> within(CompletableFuture<T> future, Duration deadline) {
+    return future.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private static boolean isTimeout(Throwable e) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause instanceof TimeoutException
+      || cause instanceof HttpTimeoutException;
+  }
+
+  private static long longHeader(HttpResponse<?> response, String name) {
+    try {
+      return response.headers().firstValue(name).map(Long::parseLong).orElse(-1L);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** HttpClient does not decompress on its own. */
+  private static InputStream decoded(HttpResponse<InputStream> response) throws IOException {
+    return decoded(response.headers(), response.body());
+  }
+
+  private static InputStream decoded(HttpHeaders headers, InputStream body) throws IOException {
+    boolean gzip = headers.firstValue("Content-Encoding")
+      .map(v -> v.equalsIgnoreCase("gzip")).orElse(false);
+    return gzip ? new GZIPInputStream(body, 16 * 1024) : body;
   }
 }
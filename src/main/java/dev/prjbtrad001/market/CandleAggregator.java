@@ -0,0 +1,82 @@
+package dev.prjbtrad001.market;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rolls candles of a base interval up into a coarser one, bar by bar.
+ *
+ * A 4h candle is exactly the four 1h candles inside it: first open, highest
+ * high, lowest low, last close, summed volume. Prices and volumes stay
+ * {@code BigDecimal}, so the result is the same bar Binance serves for 4h, not
+ * an approximation of it. Buckets follow {@link Intervals#openTimeOf(long, String)},
+ * the alignment the bot scheduler waits on.
+ *
+ * Base candles are fed oldest → newest. A bucket is complete when the base
+ * candle that ends it arrives, or — after an exchange halt swallowed its tail —
+ * when a candle of a later bucket does. A bucket the feed started in the middle
+ * of is dropped: its open and volume would be wrong.
+ */
+public final class CandleAggregator {
+
+  private final long step;
+  private final String interval;
+
+  private KlineDto bar;
+  private long lastOpen = Long.MIN_VALUE;
+  private long skipUntil = Long.MIN_VALUE;
+
+  public CandleAggregator(String interval) {
+    this.interval = interval;
+    this.step = Intervals.millis(interval);
+  }
+
+  /** Every candle of {@code interval} the base candles make up, the last one possibly still forming. */
+  public static List<KlineDto> aggregate(List<KlineDto> base, String interval) {
+    CandleAggregator a = new CandleAggregator(interval);
+    List<KlineDto> out = new ArrayList<>(base.size() / 2 + 1);
+    for (KlineDto k : base) a.add(k, out::add);
+    if (a.forming() != null) out.add(a.forming());
+    return out;
+  }
+
+  /** Folds in the next base candle, handing each bucket it completes to {@code completed}. */
+  public void add(KlineDto k, Consumer<KlineDto> completed) {
+    if (k.openTime() <= lastOpen) return;   // repeated or out of order
+    long open = Intervals.openTimeOf(k.openTime(), interval);
+    if (lastOpen == Long.MIN_VALUE && k.openTime() != open) skipUntil = open + step;
+    lastOpen = k.openTime();
+    if (k.openTime() < skipUntil) return;
+
+    if (bar != null && bar.openTime() != open) {
+      completed.accept(bar);
+      bar = null;
+    }
+    bar = bar == null
+      ? new KlineDto(open, k.open(), k.high(), k.low(), k.close(), k.volume(), open + step - 1)
+      : new KlineDto(open, bar.open(), bar.high().max(k.high()), bar.low().min(k.low()), k.close(),
+          bar.volume().add(k.volume()), bar.closeTime());
+    if (k.closeTime() >= bar.closeTime()) {
+      completed.accept(bar);
+      bar = null;
+    }
+  }
+
+  /**
+   * An aggregator in the same state that can be fed on its own, for folding
+   * in candles that may still change without committing this one to them.
+   */
+  public CandleAggregator copy() {
+    CandleAggregator c = new CandleAggregator(interval);
+    c.bar = bar;
+    c.lastOpen = lastOpen;
+    c.skipUntil = skipUntil;
+    return c;
+  }
+
+  /** The bucket being filled, or null between buckets. */
+  public KlineDto forming() {
+    return bar;
+  }
+}
@@ -0,0 +1,359 @@
+package dev.prjbtrad001.market;
+
+import java.util.Arrays;
+
+/**
+ * Compact, lossless block encoding for a run of candles.
+ *
+ * Raw columns cost 56 bytes a row and {@link KlineDto} records several hundred.
+ * Candle data is very regular, though, and a block exploits that:
+ *
+ *  - open times are delta-of-delta encoded: on a gap-free series every value
+ *    after the second is a zero, one byte each;
+ *  - close times are stored as their distance from the open time, again as
+ *    differences from the previous row (zero on a regular series);
+ *  - each price column is stored as scaled longs when every value in the block
+ *    is an exact decimal with at most eight places — which exchange prices
+ *    are — and then as deltas between rows, so a move of a few hundred ticks
+ *    takes two or three bytes;
+ *  - a column that is not (NaN, odd binary fractions) falls back to Gorilla
+ *    XOR encoding of the raw double bits, which is exact for any double.
+ *
+ * Integers are written as zig-zag varints. Decoding is a single forward pass
+ * per column straight into primitive arrays, cheap enough to run per scan.
+ *
+ * Exact means bit-for-bit: {@code decode(encode(c))} returns the same doubles
+ * and longs, including {@code -0.0} and NaN payloads.
+ *
+ * {@link CandleSeries} keeps its older rows in this form.
+ */
+public final class CandleBlock {
+
+  private static final byte VERSION = 1;
+  private static final byte SCALED = 0;
+  private static final byte XOR = 1;
+  private static final int MAX_DECIMALS = 8;
+  private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8};
+  private static final long EXACT_MANTISSA = 1L << 53;
+
+  private CandleBlock() {
+  }
+
+  /** Encodes every row of {@code candles}. */
+  public static byte[] encode(CandleColumns candles) {
+    return encode(candles, 0, candles.size());
+  }
+
+  /** Encodes rows [{@code from}, {@code to}) of {@code candles}. */
+  public static byte[] encode(CandleColumns candles, int from, int to) {
+    int n = Math.max(0, to - from);
+    Sink out = new Sink(16 + n * 16);
+    out.put(VERSION);
+    out.putVarint(n);
+    if (n == 0) return out.toArray();
+
+    long prevOpen = 0, prevDelta = 0, prevSpan = 0;
+    for (int i = 0; i < n; i++) {
+      long t = candles.openTime(from + i);
+      long delta = t - prevOpen;
+      out.putSigned(i == 0 ? t : i == 1 ? delta : delta - prevDelta);
+      prevDelta = delta;
+      prevOpen = t;
+    }
+    for (int i = 0; i < n; i++) {
+      long span = candles.closeTime(from + i) - candles.openTime(from + i);
+      out.putSigned(span - prevSpan);
+      prevSpan = span;
+    }
+
+    double[] column = new double[n];
+    for (int field = 0; field < 5; field++) {
+      for (int i = 0; i < n; i++) column[i] = price(candles, field, from + i);
+      encodePrices(column, out);
+    }
+    return out.toArray();
+  }
+
+  /** Decodes a block produced by {@link #encode}. */
+  public static CandleColumns decode(byte[] block) {
+    Source in = new Source(block);
+    if (in.get() != VERSION) throw new IllegalArgumentException("Unknown candle block version");
+    int n = (int) in.getVarint();
+    if (n == 0) return new CandleColumns(0);
+
+    long[] openTime = new long[n];
+    long prev = 0, delta = 0;
+    for (int i = 0; i < n; i++) {
+      long v = in.getSigned();
+      if (i == 0) prev = v;
+      else {
+        delta = i == 1 ? v : delta + v;
+        prev += delta;
+      }
+      openTime[i] = prev;
+    }
+    long[] closeTime = new long[n];
+    long span = 0;
+    for (int i = 0; i < n; i++) {
+      span += in.getSigned();
+      closeTime[i] = openTime[i] + span;
+    }
+
+    double[][] prices = new double[5][];
+    for (int field = 0; field < 5; field++) prices[field] = decodePrices(in, n);
+    return CandleColumns.wrap(openTime, prices[0], prices[1], prices[2], prices[3], prices[4], closeTime, n);
+  }
+
+  // ── price columns ────────────────────────────────────────────────
+
+  private static double price(CandleColumns c, int field, int i) {
+    return switch (field) {
+      case 0 -> c.open(i);
+      case 1 -> c.high(i);
+      case 2 -> c.low(i);
+      case 3 -> c.close(i);
+      default -> c.volume(i);
+    };
+  }
+
+  private static void encodePrices(double[] values, Sink out) {
+    int decimals = decimalsFor(values);
+    if (decimals < 0) {
+      out.put(XOR);
+      encodeXor(values, out);
+      return;
+    }
+    out.put(SCALED);
+    out.put((byte) decimals);
+    double scale = POW10[decimals];
+    long prev = 0;
+    for (double v : values) {
+      long m = Math.round(v * scale);
+      out.putSigned(m - prev);
+      prev = m;
+    }
+  }
+
+  private static double[] decodePrices(Source in, int n) {
+    double[] out = new double[n];
+    byte mode = in.get();
+    if (mode == XOR) {
+      decodeXor(in, out);
+      return out;
+    }
+    double scale = POW10[in.get()];
+    long m = 0;
+    for (int i = 0; i < n; i++) {
+      m += in.getSigned();
+      // m / 10^k is correctly rounded, so it is the very double that was encoded.
+      out[i] = m / scale;
+    }
+    return out;
+  }
+
+  /**
+   * Fewest decimal places at which every value is an exact scaled integer
+   * (round trip bit-identical), or -1 if there is none up to eight.
+   */
+  static int decimalsFor(double[] values) {
+    for (int k = 0; k <= MAX_DECIMALS; k++) {
+      if (exactAt(values, POW10[k])) return k;
+    }
+    return -1;
+  }
+
+  private static boolean exactAt(double[] values, double scale) {
+    for (double v : values) {
+      double scaled = v * scale;
+      if (!(Math.abs(scaled) < EXACT_MANTISSA)) return false;   // also rejects NaN
+      long m = Math.round(scaled);
+      if (Double.doubleToRawLongBits(m / scale) != Double.doubleToRawLongBits(v)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gorilla XOR (Pelkonen et al., 2015): each value's bits are XORed with the
+   * previous value's; an unchanged value is one bit, and otherwise only the
+   * meaningful middle bits are written, reusing the previous window when they
+   * fit in it.
+   */
+  private static void encodeXor(double[] values, Sink out) {
+    BitWriter bits = new BitWriter(values.length * 8 + 8);
+    long prev = 0;
+    int prevLeading = -1, prevTrailing = 0;
+    for (int i = 0; i < values.length; i++) {
+      long v = Double.doubleToRawLongBits(values[i]);
+      if (i == 0) {
+        bits.write(v, 64);
+        prev = v;
+        continue;
+      }
+      long x = v ^ prev;
+      prev = v;
+      if (x == 0) {
+        bits.write(0, 1);
+        continue;
+      }
+      int leading = Math.min(Long.numberOfLeadingZeros(x), 31);
+      int trailing = Long.numberOfTrailingZeros(x);
+      if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+        bits.write(0b10, 2);
+        bits.write(x >>> prevTrailing, 64 - prevLeading - prevTrailing);
+      } else {
+        int length = 64 - leading - trailing;
+        bits.write(0b11, 2);
+        bits.write(leading, 5);
+        bits.write(length & 63, 6);   // 64 is written as 0
+        bits.write(x >>> trailing, length);
+        prevLeading = leading;
+        prevTrailing = trailing;
+      }
+    }
+    byte[] packed = bits.toArray();
+    out.putVarint(packed.length);
+    out.put(packed);
+  }
+
+  private static void decodeXor(Source in, double[] out) {
+    int length = (int) in.getVarint();
+    BitReader bits = new BitReader(in.buf, in.pos);
+    in.pos += length;
+    long prev = 0;
+    int leading = 0, trailing = 0;
+    for (int i = 0; i < out.length; i++) {
+      if (i == 0) {
+        prev = bits.read(64);
+      } else if (bits.read(1) == 1) {
+        if (bits.read(1) == 1) {
+          leading = (int) bits.read(5);
+          int len = (int) bits.read(6);
+          if (len == 0) len = 64;
+          trailing = 64 - leading - len;
+        }
+        prev ^= bits.read(64 - leading - trailing) << trailing;
+      }
+      out[i] = Double.longBitsToDouble(prev);
+    }
+  }
+
+  // ── byte plumbing ────────────────────────────────────────────────
+
+  private static final class Sink {
+
+    private byte[] buf;
+    private int pos;
+
+    Sink(int capacity) {
+      buf = new byte[Math.max(16, capacity)];
+    }
+
+    void put(byte b) {
+      ensure(1);
+      buf[pos++] = b;
+    }
+
+    void put(byte[] bytes) {
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buf, pos, bytes.length);
+      pos += bytes.length;
+    }
+
+    void putSigned(long v) {
+      putVarint((v << 1) ^ (v >> 63));
+    }
+
+    void putVarint(long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[pos++] = (byte) v;
+    }
+
+    byte[] toArray() {
+      return Arrays.copyOf(buf, pos);
+    }
+
+    private void ensure(int n) {
+      if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+  }
+
+  private static final class Source {
+
+    private final byte[] buf;
+    private int pos;
+
+    Source(byte[] buf) {
+      this.buf = buf;
+    }
+
+    byte get() {
+      return buf[pos++];
+    }
+
+    long getSigned() {
+      long v = getVarint();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    long getVarint() {
+      long v = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buf[pos++];
+        v |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return v;
+    }
+  }
+
+  private static final class BitWriter {
+
+    private byte[] buf;
+    private long bitPos;
+
+    BitWriter(int capacity) {
+      buf = new byte[Math.max(8, capacity)];
+    }
+
+    /** Writes the low {@code count} bits of {@code value}, most significant first. */
+    void write(long value, int count) {
+      for (int i = count - 1; i >= 0; i--) {
+        int byteIndex = (int) (bitPos >>> 3);
+        if (byteIndex == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        if (((value >>> i) & 1) != 0) buf[byteIndex] |= (byte) (0x80 >>> (bitPos & 7));
+        bitPos++;
+      }
+    }
+
+    byte[] toArray() {
+      return Arrays.copyOf(buf, (int) ((bitPos + 7) >>> 3));
+    }
+  }
+
+  private static final class BitReader {
+
+    private final byte[] buf;
+    private long bitPos;
+
+    BitReader(byte[] buf, int byteOffset) {
+      this.buf = buf;
+      this.bitPos = (long) byteOffset << 3;
+    }
+
+    long read(int count) {
+      long v = 0;
+      for (int i = 0; i < count; i++) {
+        int bit = (buf[(int) (bitPos >>> 3)] >>> (7 - (bitPos & 7))) & 1;
+        v = (v << 1) | bit;
+        bitPos++;
+      }
+      return v;
+    }
+  }
+}
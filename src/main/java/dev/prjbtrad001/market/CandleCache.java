@@ -0,0 +1,112 @@
+package dev.prjbtrad001.market;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide closed-candle cache for live bots: one {@link CandleRing} per
+ * (symbol, interval), shared by every bot on that pair.
+ *
+ * Twenty bots on BTCBRL/4h used to make twenty identical requests per tick and
+ * hold twenty copies of the same candles. Now the first bot to notice that a
+ * candle has closed fetches just that bar, appends it, and the other nineteen
+ * read the same immutable view. Between closes nothing is fetched at all — the
+ * ring knows when the next bar is due. Upstream traffic and heap therefore grow
+ * with the number of distinct pairs, not the number of bots.
+ */
+@JBossLog
+@ApplicationScoped
+public class CandleCache {
+
+  @Inject
+  MarketDataClient marketData;
+
+  /** Market time: decides which candle has closed. */
+  @Inject
+  Clock clock = Clock.systemUTC();
+
+  private final Map<String, CandleRing> rings = new ConcurrentHashMap<>();
+
+  public static String key(String symbol, String interval) {
+    return symbol + "/" + interval;
+  }
+
+  /**
+   * The newest {@code count} CLOSED candles, oldest → newest. The still-forming
+   * candle is never included. Returns an empty list when a refresh was due but
+   * the exchange could not be reached — acting on a stale picture is worse than
+   * skipping a tick.
+   */
+  public List<KlineDto> closed(String symbol, String interval, int count) {
+    CandleRing ring = rings.computeIfAbsent(key(symbol, interval), k -> new CandleRing(count));
+    ring.lock.lock();
+    try {
+      long now = clock.millis();
+      if (ring.isEmpty() || ring.capacity() < count) {
+        // Cold, or a bot with a longer slow EMA joined: reload at the new size.
+        List<KlineDto> fresh = marketData.getCandles(symbol, interval, count + 1);
+        if (fresh.isEmpty()) return List.of();
+        ring.reset(closedOnly(fresh, now), Math.max(count, ring.capacity()));
+      } else if (isDue(ring.last(), now)) {
+        // At least one candle has closed since the last refresh. Ask only for
+        // the bars missed (normally one) plus the forming one.
+        KlineDto last = ring.last();
+        long period = Math.max(1, last.period().toMillis());
+        int missed = (int) Math.min(ring.capacity(), (now - last.closeTime() - 1) / period);
+        List<KlineDto> fresh = marketData.getCandles(symbol, interval, missed + 1);
+        if (fresh.isEmpty()) return List.of();
+        ring.appendNewer(closedOnly(fresh, now));
+      }
+      return ring.view(count);
+    } finally {
+      ring.lock.unlock();
+    }
+  }
+
+  /**
+   * Drops rings no running bot uses and shrinks the rest to what their most
+   * demanding bot needs. {@code needs} maps {@link #key} → candle count.
+   */
+  public void retain(Map<String, Integer> needs) {
+    // One snapshot of the needs, and keys walked off a copy: a bot starting
+    // meanwhile may add a ring that is in neither. Such a ring is dropped and
+    // simply reloaded on its next read.
+    Map<String, Integer> wanted = new HashMap<>(needs);
+    for (String key : List.copyOf(rings.keySet())) {
+      Integer need = wanted.get(key);
+      if (need == null) {
+        rings.remove(key);
+        continue;
+      }
+      CandleRing ring = rings.get(key);
+      if (ring == null) continue;
+      ring.lock.lock();
+      try {
+        ring.trimTo(need);
+      } finally {
+        ring.lock.unlock();
+      }
+    }
+  }
+
+  /** Number of pairs currently cached. */
+  public int size() {
+    return rings.size();
+  }
+
+  /** True once the candle after {@code last} should have closed. */
+  private static boolean isDue(KlineDto last, long now) {
+    return now > last.closeTime() + last.period().toMillis();
+  }
+
+  private static List<KlineDto> closedOnly(List<KlineDto> candles, long now) {
+    return candles.stream().filter(k -> k.closeTime() < now).toList();
+  }
+}
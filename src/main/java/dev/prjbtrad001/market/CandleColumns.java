@@ -0,0 +1,158 @@
+package dev.prjbtrad001.market;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Candles as primitive columns: one {@code long[]} per timestamp, one
+ * {@code double[]} per price field. A 1000-candle page is seven arrays instead
+ * of a thousand records holding five {@code BigDecimal}s each.
+ *
+ * {@link KlineDto} remains available as a view ({@link #kline}, {@link #asKlines})
+ * for callers that still want records; nothing is converted until asked.
+ */
+public final class CandleColumns {
+
+  private long[] openTime;
+  private double[] open;
+  private double[] high;
+  private double[] low;
+  private double[] close;
+  private double[] volume;
+  private long[] closeTime;
+  private int size;
+
+  public CandleColumns(int initialCapacity) {
+    int cap = Math.max(1, initialCapacity);
+    openTime = new long[cap];
+    open = new double[cap];
+    high = new double[cap];
+    low = new double[cap];
+    close = new double[cap];
+    volume = new double[cap];
+    closeTime = new long[cap];
+  }
+
+  /** Columns copied out of records — the bridge from code that still has a list. */
+  public static CandleColumns of(List<KlineDto> candles) {
+    CandleColumns c = new CandleColumns(candles.size());
+    for (KlineDto k : candles) {
+      c.add(k.openTime(), k.open().doubleValue(), k.high().doubleValue(), k.low().doubleValue(),
+        k.close().doubleValue(), k.volume().doubleValue(), k.closeTime());
+    }
+    return c;
+  }
+
+  /** Adopts decoded arrays without copying; they must not be touched afterwards. */
+  static CandleColumns wrap(long[] openTime, double[] open, double[] high, double[] low, double[] close,
+                            double[] volume, long[] closeTime, int size) {
+    CandleColumns c = new CandleColumns(0);
+    c.openTime = openTime;
+    c.open = open;
+    c.high = high;
+    c.low = low;
+    c.close = close;
+    c.volume = volume;
+    c.closeTime = closeTime;
+    c.size = size;
+    return c;
+  }
+
+  public void add(long openTime, double open, double high, double low, double close, double volume, long closeTime) {
+    if (size == this.openTime.length) grow();
+    this.openTime[size] = openTime;
+    this.open[size] = open;
+    this.high[size] = high;
+    this.low[size] = low;
+    this.close[size] = close;
+    this.volume[size] = volume;
+    this.closeTime[size] = closeTime;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public long openTime(int i) {
+    return openTime[i];
+  }
+
+  public double open(int i) {
+    return open[i];
+  }
+
+  public double high(int i) {
+    return high[i];
+  }
+
+  public double low(int i) {
+    return low[i];
+  }
+
+  public double close(int i) {
+    return close[i];
+  }
+
+  public double volume(int i) {
+    return volume[i];
+  }
+
+  public long closeTime(int i) {
+    return closeTime[i];
+  }
+
+  /** Close prices, trimmed to size — what the indicators actually consume. */
+  public double[] closes() {
+    return Arrays.copyOf(close, size);
+  }
+
+  /** Row {@code i} as a record. Prices go through {@link BigDecimal#valueOf(double)}. */
+  public KlineDto kline(int i) {
+    return new KlineDto(openTime[i],
+      BigDecimal.valueOf(open[i]), BigDecimal.valueOf(high[i]), BigDecimal.valueOf(low[i]),
+      BigDecimal.valueOf(close[i]), BigDecimal.valueOf(volume[i]), closeTime[i]);
+  }
+
+  /**
+   * A read-only list view that builds each record on access. Cheap to create;
+   * copy it ({@code List.copyOf}) if the same rows will be read many times.
+   */
+  public List<KlineDto> asKlines() {
+    return new KlineView();
+  }
+
+  private void grow() {
+    int cap = Math.max(16, openTime.length * 2);
+    openTime = Arrays.copyOf(openTime, cap);
+    open = Arrays.copyOf(open, cap);
+    high = Arrays.copyOf(high, cap);
+    low = Arrays.copyOf(low, cap);
+    close = Arrays.copyOf(close, cap);
+    volume = Arrays.copyOf(volume, cap);
+    closeTime = Arrays.copyOf(closeTime, cap);
+  }
+
+  private final class KlineView extends AbstractList<KlineDto> implements RandomAccess {
+
+    private final int n = size;
+
+    @Override
+    public KlineDto get(int i) {
+      if (i < 0 || i >= n) throw new IndexOutOfBoundsException(i);
+      return kline(i);
+    }
+
+    @Override
+    public int size() {
+      return n;
+    }
+  }
+}
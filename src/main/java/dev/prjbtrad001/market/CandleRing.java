@@ -0,0 +1,125 @@
+package dev.prjbtrad001.market;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent closed candles of one (symbol, interval), in a fixed ring.
+ *
+ * Readers get zero-copy {@link #view views} instead of copies. The trick that
+ * keeps those views immutable is that the ring holds TWICE the requested
+ * capacity: a view of the newest {@code capacity} candles only touches slots
+ * that the next {@code capacity} appends will not overwrite. Appends happen once
+ * per candle close, so a view stays valid for {@code capacity} closes — far
+ * longer than any tick holds on to it.
+ *
+ * Not thread-safe on its own; {@link CandleCache} serialises access per ring
+ * with {@link #lock}.
+ */
+final class CandleRing {
+
+  /**
+   * Held across the refresh fetch. A lock rather than the ring's monitor: a
+   * virtual thread blocked on I/O inside {@code synchronized} pins its carrier.
+   */
+  final ReentrantLock lock = new ReentrantLock();
+
+  private KlineDto[] slots;
+  private int capacity;
+  /** Total candles ever appended; the newest sits at {@code (count - 1) % slots.length}. */
+  private long count;
+
+  CandleRing(int capacity) {
+    this.capacity = Math.max(1, capacity);
+    this.slots = new KlineDto[this.capacity * 2];
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  int size() {
+    return (int) Math.min(count, capacity);
+  }
+
+  boolean isEmpty() {
+    return count == 0;
+  }
+
+  KlineDto last() {
+    return slots[index(count - 1)];
+  }
+
+  void append(KlineDto candle) {
+    slots[index(count)] = candle;
+    count++;
+  }
+
+  /** Appends the candles that open after the newest one held; returns how many. */
+  int appendNewer(List<KlineDto> candles) {
+    long lastOpen = isEmpty() ? Long.MIN_VALUE : last().openTime();
+    int added = 0;
+    for (KlineDto k : candles) {
+      if (k.openTime() <= lastOpen) continue;
+      append(k);
+      lastOpen = k.openTime();
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * Replaces the contents and resizes to {@code newCapacity}. A fresh array is
+   * allocated, so views handed out before stay intact.
+   */
+  void reset(List<KlineDto> candles, int newCapacity) {
+    capacity = Math.max(1, newCapacity);
+    slots = new KlineDto[capacity * 2];
+    count = 0;
+    int from = Math.max(0, candles.size() - capacity);
+    for (int i = from; i < candles.size(); i++) append(candles.get(i));
+  }
+
+  /** Shrinks to {@code newCapacity}, keeping the newest candles. */
+  void trimTo(int newCapacity) {
+    if (newCapacity >= capacity) return;
+    reset(view(size()), newCapacity);
+  }
+
+  /** The newest {@code n} candles (fewer if not held), oldest → newest. */
+  List<KlineDto> view(int n) {
+    int len = Math.min(n, size());
+    return new View(slots, count - len, len);
+  }
+
+  private int index(long seq) {
+    return (int) (seq % slots.length);
+  }
+
+  /** Read-only window over a slot array; any mutator throws. */
+  private static final class View extends AbstractList<KlineDto> implements RandomAccess {
+
+    private final KlineDto[] slots;
+    private final long start;
+    private final int size;
+
+    View(KlineDto[] slots, long start, int size) {
+      this.slots = slots;
+      this.start = start;
+      this.size = size;
+    }
+
+    @Override
+    public KlineDto get(int i) {
+      if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+      return slots[(int) ((start + i) % slots.length)];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,614 @@
+package dev.prjbtrad001.market;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The closed candles of one (symbol, interval), stored column by column in
+ * memory-mapped files:
+ *
+ *   open_time.bin  open.bin  high.bin  low.bin  close.bin  volume.bin  close_time.bin
+ *
+ * Every column is a flat array of 8-byte values (times as longs, prices as
+ * doubles), so row {@code i} lives at byte {@code i * 8} in each file. Rows are
+ * kept sorted and unique by open time, which makes the open-time column its own
+ * index: a range lookup is a binary search, no separate structure to keep in
+ * sync.
+ *
+ * {@code meta.bin} holds the committed row count. It is written only after the
+ * columns, so a crash mid-append leaves trailing bytes that are simply ignored
+ * on the next open.
+ *
+ * Only the newest rows stay in the columns. Older ones are frozen, a block of
+ * rows at a time, into {@code cold.bin} as {@link CandleBlock}s — about 16
+ * bytes a row instead of 56 — behind a small header per block giving its row
+ * count and open-time range, so a lookup decodes a single block. Years of
+ * one-minute history fit in a fraction of the disk and page cache, while the
+ * live path (appends, the tail) never touches a block. Row numbers run across
+ * both: cold rows first, then the columns.
+ *
+ * Only CLOSED candles belong here — they never change, which is what lets the
+ * store be append-only.
+ */
+public final class CandleSeries implements Closeable {
+
+  /** Columns grow in steps of this many rows (32 KB per column). */
+  private static final int GROW_ROWS = 4096;
+
+  /** Slots in meta.bin. */
+  private static final int META_COUNT = 0;
+  private static final int META_FLAGS = 1;
+  private static final int META_COLD_BYTES = 2;
+  private static final long FLAG_HISTORY_COMPLETE = 1;
+
+  /** Per block in cold.bin: encoded length, rows, first and last open time. */
+  private static final int FRAME_HEADER = 24;
+
+  /** Rows kept in the columns before the oldest are frozen into blocks. */
+  int hotRows = 8 * GROW_ROWS;
+  /** Rows per frozen block. */
+  int blockRows = GROW_ROWS;
+
+  private final Column openTime;
+  private final Column open;
+  private final Column high;
+  private final Column low;
+  private final Column close;
+  private final Column volume;
+  private final Column closeTime;
+  private final Column meta;
+  private FileChannel coldFile;
+  private final Path dir;
+
+  /** Frozen blocks, oldest first. */
+  private final List<Frame> frames = new ArrayList<>();
+  /** Rows in {@link #frames}; column row {@code r} is row {@code cold + r}. */
+  private int cold;
+  private long coldBytes;
+  private int size;
+  private long flags;
+
+  /** The last block decoded, as scans and lookups tend to hit the same one. */
+  private Frame decodedFrame;
+  private CandleColumns decodedRows;
+
+  /**
+   * Held by whoever brings the series up to date, across the exchange fetch,
+   * so two callers do not download and append the same bars. The methods
+   * below only guard themselves. A lock rather than the monitor: a virtual
+   * thread blocked on I/O inside {@code synchronized} pins its carrier.
+   */
+  final ReentrantLock sync = new ReentrantLock();
+
+  private CandleSeries(Path dir) throws IOException {
+    this.dir = dir;
+    Files.createDirectories(dir);
+    openTime = new Column(dir.resolve("open_time.bin"));
+    open = new Column(dir.resolve("open.bin"));
+    high = new Column(dir.resolve("high.bin"));
+    low = new Column(dir.resolve("low.bin"));
+    close = new Column(dir.resolve("close.bin"));
+    volume = new Column(dir.resolve("volume.bin"));
+    closeTime = new Column(dir.resolve("close_time.bin"));
+    meta = new Column(dir.resolve("meta.bin"));
+    meta.ensureCapacity(3);
+    coldFile = FileChannel.open(dir.resolve("cold.bin"), CREATE, READ, WRITE);
+
+    long committed = meta.getLong(META_COUNT);
+    int stored = Integer.MAX_VALUE;
+    for (Column c : columns()) stored = Math.min(stored, c.capacity());
+    flags = meta.getLong(META_FLAGS);
+    coldBytes = Math.min(meta.getLong(META_COLD_BYTES), coldFile.size());
+    readFrames();
+    size = cold + (int) Math.max(0, Math.min(committed, stored));
+  }
+
+  /** Opens (or creates) the series stored under {@code dir}. */
+  public static CandleSeries open(Path dir) throws IOException {
+    return new CandleSeries(dir);
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Open time of the oldest stored candle; only valid when not empty. */
+  public synchronized long firstOpenTime() {
+    return cold > 0 ? frames.getFirst().firstOpen() : openTime.getLong(0);
+  }
+
+  /** Open time of the newest stored candle; only valid when not empty. */
+  public synchronized long lastOpenTime() {
+    return size > cold ? openTime.getLong(size - cold - 1) : frames.getLast().lastOpen();
+  }
+
+  /**
+   * True once a backwards fetch came back short, i.e. the store already reaches
+   * the first candle the exchange has. Saves asking again on every backtest.
+   */
+  public synchronized boolean isHistoryComplete() {
+    return (flags & FLAG_HISTORY_COMPLETE) != 0;
+  }
+
+  public synchronized void markHistoryComplete() {
+    flags |= FLAG_HISTORY_COMPLETE;
+    meta.putLong(META_FLAGS, flags);
+  }
+
+  /** Index of the first row with open time ≥ {@code time} ({@link #size()} if none). */
+  public synchronized int lowerBound(long time) {
+    if (cold > 0 && time <= frames.getLast().lastOpen()) {
+      int lo = 0, hi = frames.size() - 1;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (frames.get(mid).lastOpen() < time) lo = mid + 1;
+        else hi = mid;
+      }
+      Frame f = frames.get(lo);
+      CandleColumns rows = decode(f);
+      int i = 0, j = rows.size();
+      while (i < j) {
+        int mid = (i + j) >>> 1;
+        if (rows.openTime(mid) < time) i = mid + 1;
+        else j = mid;
+      }
+      return f.firstRow() + i;
+    }
+    int lo = cold, hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (openTime.getLong(mid - cold) < time) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  /** Rows [{@code from}, {@code to}) as candles, oldest → newest. */
+  public synchronized List<KlineDto> read(int from, int to) {
+    int start = Math.max(0, from);
+    int end = Math.min(size, to);
+    List<KlineDto> out = new ArrayList<>(Math.max(0, end - start));
+    int i = start;
+    while (i < Math.min(end, cold)) {
+      Frame f = frameOf(i);
+      CandleColumns rows = decode(f);
+      for (int stop = Math.min(end, f.firstRow() + f.rows()); i < stop; i++) out.add(rows.kline(i - f.firstRow()));
+    }
+    for (; i < end; i++) {
+      int r = i - cold;
+      out.add(new KlineDto(
+        openTime.getLong(r),
+        BigDecimal.valueOf(open.getDouble(r)),
+        BigDecimal.valueOf(high.getDouble(r)),
+        BigDecimal.valueOf(low.getDouble(r)),
+        BigDecimal.valueOf(close.getDouble(r)),
+        BigDecimal.valueOf(volume.getDouble(r)),
+        closeTime.getLong(r)));
+    }
+    return out;
+  }
+
+  /** Rows [{@code from}, {@code to}) as primitive columns; no records are built. */
+  public synchronized CandleColumns readColumns(int from, int to) {
+    int start = Math.max(0, from);
+    int end = Math.min(size, to);
+    CandleColumns out = new CandleColumns(Math.max(0, end - start));
+    int i = start;
+    while (i < Math.min(end, cold)) {
+      Frame f = frameOf(i);
+      CandleColumns rows = decode(f);
+      for (int stop = Math.min(end, f.firstRow() + f.rows()); i < stop; i++) copy(rows, i - f.firstRow(), out);
+    }
+    for (; i < end; i++) {
+      int r = i - cold;
+      out.add(openTime.getLong(r), open.getDouble(r), high.getDouble(r), low.getDouble(r),
+        close.getDouble(r), volume.getDouble(r), closeTime.getLong(r));
+    }
+    return out;
+  }
+
+  /** The newest {@code count} rows. */
+  public synchronized List<KlineDto> tail(int count) {
+    return read(size - count, size);
+  }
+
+  /**
+   * Appends the candles that are strictly newer than the last stored one.
+   * Anything older or duplicated is skipped, so overlapping pages are harmless.
+   *
+   * @return how many rows were written
+   */
+  public synchronized int append(List<KlineDto> candles) {
+    long last = size == 0 ? Long.MIN_VALUE : lastOpenTime();
+    int added = 0;
+    for (KlineDto k : candles) {
+      if (k.openTime() <= last) continue;
+      ensureCapacity(size - cold + 1);
+      write(size - cold, k);
+      size++;
+      added++;
+      last = k.openTime();
+    }
+    if (added > 0) {
+      commit();
+      freeze();
+    }
+    return added;
+  }
+
+  /**
+   * Inserts candles that are strictly older than the first stored one, for
+   * backfilling deeper history. A few rows are shifted into the columns, more
+   * go straight into blocks ahead of the frozen ones; either way this is O(n)
+   * — fine for the occasional backfill, never on the live path. Unlike
+   * {@link #append}, a crash halfway through can leave the rows out of order;
+   * deleting the series directory makes the next sync rebuild it.
+   *
+   * @return how many rows were written
+   */
+  public synchronized int prepend(List<KlineDto> older) {
+    if (size == 0) return append(older);
+
+    long first = firstOpenTime();
+    List<KlineDto> fresh = new ArrayList<>(older.size());
+    long prev = Long.MIN_VALUE;
+    for (KlineDto k : older) {
+      if (k.openTime() >= first || k.openTime() <= prev) continue;
+      fresh.add(k);
+      prev = k.openTime();
+    }
+    CandleColumns rows = CandleColumns.of(fresh);
+    return insertOlder(rows.size(), (from, to) -> slice(rows, from, to));
+  }
+
+  /**
+   * {@link #append(List)} for primitive columns, as bulk imports produce them:
+   * no records, one capacity check and commit per block of rows, so the
+   * columns never grow past what they keep before freezing.
+   */
+  public synchronized int append(CandleColumns candles) {
+    long last = size == 0 ? Long.MIN_VALUE : lastOpenTime();
+    int added = 0;
+    for (int from = 0; from < candles.size(); from += blockRows) {
+      int to = Math.min(candles.size(), from + blockRows);
+      ensureCapacity(size - cold + to - from);
+      int before = added;
+      for (int i = from; i < to; i++) {
+        if (candles.openTime(i) <= last) continue;
+        write(size - cold, candles, i);
+        size++;
+        added++;
+        last = candles.openTime(i);
+      }
+      if (added > before) {
+        commit();
+        freeze();
+      }
+    }
+    return added;
+  }
+
+  /** {@link #prepend(List)} for primitive columns. */
+  public synchronized int prepend(CandleColumns older) {
+    if (size == 0) return append(older);
+
+    long first = firstOpenTime();
+    CandleColumns rows = new CandleColumns(older.size());
+    long prev = Long.MIN_VALUE;
+    for (int i = 0; i < older.size(); i++) {
+      long t = older.openTime(i);
+      if (t >= first || t <= prev) continue;
+      copy(older, i, rows);
+      prev = t;
+    }
+    return insertOlder(rows.size(), (from, to) -> slice(rows, from, to));
+  }
+
+  /**
+   * {@link #prepend(CandleColumns)} from another series, a block of rows at a
+   * time: an import stages older rows on disk and moves them over without
+   * ever holding them all on the heap. {@code older} must not be in use
+   * elsewhere.
+   */
+  public synchronized int prepend(CandleSeries older) {
+    if (size == 0) {
+      int added = 0;
+      for (int from = 0; from < older.size(); from += blockRows) added += append(older.readColumns(from, from + blockRows));
+      return added;
+    }
+    return insertOlder(older.lowerBound(firstOpenTime()), older::readColumns);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (Column c : columns()) c.close();
+    meta.close();
+    coldFile.close();
+  }
+
+  /**
+   * Puts {@code n} rows, all older than the stored ones, in front. A handful
+   * are shifted into the columns; anything more, or anything once there are
+   * frozen blocks, is encoded into new blocks and written ahead of cold.bin's
+   * current contents, so the columns keep only recent rows.
+   */
+  private int insertOlder(int n, Rows older) {
+    if (n == 0) return 0;
+    if (cold == 0 && n <= blockRows) {
+      CandleColumns rows = older.read(0, n);
+      int hot = size - cold;
+      ensureCapacity(hot + n);
+      for (Column c : columns()) c.shift(hot, n);
+      for (int r = 0; r < n; r++) write(r, rows, r);
+      size += n;
+      commit();
+      freeze();
+      return n;
+    }
+
+    Path rewritten = dir.resolve("cold.tmp");
+    List<Frame> added = new ArrayList<>();
+    try (FileChannel out = FileChannel.open(rewritten, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      long at = 0;
+      for (int from = 0; from < n; from += blockRows) {
+        Frame f = writeFrame(out, at, from, older.read(from, Math.min(n, from + blockRows)));
+        added.add(f);
+        at += FRAME_HEADER + f.bytes();
+      }
+      for (long copied = 0; copied < coldBytes; ) {
+        copied += coldFile.transferTo(copied, coldBytes - copied, out.position(at + copied));
+      }
+      out.force(false);
+      Files.move(rewritten, dir.resolve("cold.bin"), REPLACE_EXISTING, ATOMIC_MOVE);
+      for (Frame f : frames) {
+        added.add(new Frame(f.position() + at, f.bytes(), f.firstRow() + n, f.rows(), f.firstOpen(), f.lastOpen()));
+      }
+      coldBytes += at;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write older candles to " + dir, e);
+    }
+    reopenCold();
+    frames.clear();
+    frames.addAll(added);
+    cold += n;
+    size += n;
+    decodedFrame = null;
+    commit();
+    return n;
+  }
+
+  /**
+   * Moves the oldest column rows into blocks once the columns hold more than
+   * {@link #hotRows} plus a whole block. The blocks are written and forced
+   * before the columns shift down; like {@link #prepend}, a crash during the
+   * shift needs the series directory deleted and rebuilt.
+   */
+  private void freeze() {
+    int n = (size - cold - hotRows) / blockRows * blockRows;
+    if (n <= 0) return;
+    long at = coldBytes;
+    List<Frame> added = new ArrayList<>();
+    try {
+      for (int from = 0; from < n; from += blockRows) {
+        CandleColumns rows = new CandleColumns(blockRows);
+        for (int r = from; r < from + blockRows; r++) {
+          rows.add(openTime.getLong(r), open.getDouble(r), high.getDouble(r), low.getDouble(r),
+            close.getDouble(r), volume.getDouble(r), closeTime.getLong(r));
+        }
+        Frame f = writeFrame(coldFile, at, cold + from, rows);
+        added.add(f);
+        at += FRAME_HEADER + f.bytes();
+      }
+      coldFile.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot freeze candles in " + dir, e);
+    }
+    int hot = size - cold;
+    for (Column c : columns()) c.drop(hot, n);
+    frames.addAll(added);
+    cold += n;
+    coldBytes = at;
+    commit();
+  }
+
+  private static Frame writeFrame(FileChannel out, long at, int firstRow, CandleColumns rows) throws IOException {
+    byte[] block = CandleBlock.encode(rows);
+    ByteBuffer buf = ByteBuffer.allocate(FRAME_HEADER + block.length);
+    long firstOpen = rows.openTime(0), lastOpen = rows.openTime(rows.size() - 1);
+    buf.putInt(block.length).putInt(rows.size()).putLong(firstOpen).putLong(lastOpen).put(block).flip();
+    for (long pos = at; buf.hasRemaining(); ) pos += out.write(buf, pos);
+    return new Frame(at, block.length, firstRow, rows.size(), firstOpen, lastOpen);
+  }
+
+  private void readFrames() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+    for (long at = 0; at < coldBytes; ) {
+      header.clear();
+      while (header.hasRemaining()) {
+        if (coldFile.read(header, at + header.position()) < 0) throw new IOException("Truncated cold.bin in " + dir);
+      }
+      header.flip();
+      Frame f = new Frame(at, header.getInt(), cold, header.getInt(), header.getLong(), header.getLong());
+      frames.add(f);
+      cold += f.rows();
+      at += FRAME_HEADER + f.bytes();
+    }
+  }
+
+  private void reopenCold() {
+    try {
+      coldFile.close();
+      coldFile = FileChannel.open(dir.resolve("cold.bin"), CREATE, READ, WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot reopen " + dir.resolve("cold.bin"), e);
+    }
+  }
+
+  /** The block holding row {@code row}, which must be frozen. */
+  private Frame frameOf(int row) {
+    int lo = 0, hi = frames.size() - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (frames.get(mid).firstRow() <= row) lo = mid;
+      else hi = mid - 1;
+    }
+    return frames.get(lo);
+  }
+
+  private CandleColumns decode(Frame f) {
+    if (f.equals(decodedFrame)) return decodedRows;
+    ByteBuffer buf = ByteBuffer.allocate(f.bytes());
+    try {
+      while (buf.hasRemaining()) {
+        if (coldFile.read(buf, f.position() + FRAME_HEADER + buf.position()) < 0) {
+          throw new IOException("Truncated cold.bin in " + dir);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    decodedRows = CandleBlock.decode(buf.array());
+    decodedFrame = f;
+    return decodedRows;
+  }
+
+  private static CandleColumns slice(CandleColumns c, int from, int to) {
+    CandleColumns out = new CandleColumns(to - from);
+    for (int i = from; i < to; i++) copy(c, i, out);
+    return out;
+  }
+
+  private static void copy(CandleColumns from, int i, CandleColumns to) {
+    to.add(from.openTime(i), from.open(i), from.high(i), from.low(i), from.close(i), from.volume(i), from.closeTime(i));
+  }
+
+  private void write(int row, KlineDto k) {
+    openTime.putLong(row, k.openTime());
+    open.putDouble(row, k.open().doubleValue());
+    high.putDouble(row, k.high().doubleValue());
+    low.putDouble(row, k.low().doubleValue());
+    close.putDouble(row, k.close().doubleValue());
+    volume.putDouble(row, k.volume().doubleValue());
+    closeTime.putLong(row, k.closeTime());
+  }
+
+  private void write(int row, CandleColumns c, int i) {
+    openTime.putLong(row, c.openTime(i));
+    open.putDouble(row, c.open(i));
+    high.putDouble(row, c.high(i));
+    low.putDouble(row, c.low(i));
+    close.putDouble(row, c.close(i));
+    volume.putDouble(row, c.volume(i));
+    closeTime.putLong(row, c.closeTime(i));
+  }
+
+  private void commit() {
+    meta.putLong(META_COLD_BYTES, coldBytes);
+    meta.putLong(META_COUNT, size - cold);
+  }
+
+  /** Column rows, not series rows. */
+  private void ensureCapacity(int rows) {
+    if (rows <= openTime.capacity()) return;
+    int target = ((rows + GROW_ROWS - 1) / GROW_ROWS) * GROW_ROWS;
+    for (Column c : columns()) c.ensureCapacity(target);
+  }
+
+  private Column[] columns() {
+    return new Column[]{openTime, open, high, low, close, volume, closeTime};
+  }
+
+  /** Rows [from, to) of a source of older candles. */
+  @FunctionalInterface
+  private interface Rows {
+    CandleColumns read(int from, int to);
+  }
+
+  /** One block in cold.bin: where it sits and which rows it holds. */
+  private record Frame(long position, int bytes, int firstRow, int rows, long firstOpen, long lastOpen) {
+  }
+
+  /** One column file: a growable memory-mapped array of 8-byte values. */
+  private static final class Column implements Closeable {
+
+    private final FileChannel channel;
+    private MappedByteBuffer buf;
+
+    Column(Path file) throws IOException {
+      channel = FileChannel.open(file, CREATE, READ, WRITE);
+      map(channel.size());
+    }
+
+    int capacity() {
+      return buf.capacity() / 8;
+    }
+
+    long getLong(int row) {
+      return buf.getLong(row * 8);
+    }
+
+    double getDouble(int row) {
+      return buf.getDouble(row * 8);
+    }
+
+    void putLong(int row, long v) {
+      buf.putLong(row * 8, v);
+    }
+
+    void putDouble(int row, double v) {
+      buf.putDouble(row * 8, v);
+    }
+
+    /** Moves rows [0, rows) up by {@code by} positions, last row first. */
+    void shift(int rows, int by) {
+      for (int i = rows - 1; i >= 0; i--) buf.putLong((i + by) * 8, buf.getLong(i * 8));
+    }
+
+    /** Moves rows [by, rows) down to [0, rows - by), first row first. */
+    void drop(int rows, int by) {
+      for (int i = by; i < rows; i++) buf.putLong((i - by) * 8, buf.getLong(i * 8));
+    }
+
+    void ensureCapacity(int rows) {
+      if (rows <= capacity()) return;
+      try {
+        map((long) rows * 8);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void map(long bytes) throws IOException {
+      // Mapping past the end of the file grows it; the old mapping is released
+      // by the GC once nothing references it.
+      buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+      buf.force();
+      channel.close();
+    }
+  }
+}
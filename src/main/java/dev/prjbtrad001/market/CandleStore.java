@@ -0,0 +1,62 @@
+package dev.prjbtrad001.market;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local on-disk candle history, one {@link CandleSeries} per (symbol, interval),
+ * laid out as {@code <dir>/<SYMBOL>/<interval>/}.
+ *
+ * Series are opened lazily and stay mapped for the life of the process; the OS
+ * page cache does the rest, so a warm read costs no syscalls at all.
+ */
+@JBossLog
+@ApplicationScoped
+public class CandleStore {
+
+  @ConfigProperty(name = "bot.market.store.dir", defaultValue = "data/candles")
+  String dir;
+
+  private final Map<String, CandleSeries> series = new ConcurrentHashMap<>();
+
+  public CandleSeries series(String symbol, String interval) {
+    return series.computeIfAbsent(symbol + "/" + interval, k -> {
+      Path path = Path.of(dir, symbol, directoryName(interval));
+      try {
+        CandleSeries s = CandleSeries.open(path);
+        log.debugf("Opened candle store %s (%d candles)", path, s.size());
+        return s;
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot open candle store " + path, e);
+      }
+    });
+  }
+
+  /**
+   * Binance uses "1m" for one minute and "1M" for one month; on a
+   * case-insensitive filesystem those would share a directory.
+   */
+  static String directoryName(String interval) {
+    return interval.endsWith("M") ? interval.substring(0, interval.length() - 1) + "mo" : interval;
+  }
+
+  @PreDestroy
+  void close() {
+    for (CandleSeries s : series.values()) {
+      try {
+        s.close();
+      } catch (IOException e) {
+        log.warnf("Closing candle store failed: %s", e.getMessage());
+      }
+    }
+    series.clear();
+  }
+}
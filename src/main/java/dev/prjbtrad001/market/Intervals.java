@@ -0,0 +1,74 @@
+package dev.prjbtrad001.market;
+
+import java.util.List;
+
+/**
+ * Binance interval strings ("15m", "4h", "1d", "1w") as lengths of time.
+ *
+ * Candles align to the Unix epoch in UTC, so a candle of length L opens at
+ * every multiple of L — except weeks, which Binance opens on Mondays (the
+ * epoch fell on a Thursday). Month candles ("1M") have no fixed length and are
+ * not supported here.
+ */
+public final class Intervals {
+
+  /** The timeframes offered for bots, backtests and the scanner, shortest first. */
+  public static final List<String> SUPPORTED =
+    List.of("15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d", "1w");
+
+  private static final long WEEK_MILLIS = 604_800_000L;
+  /** 1970-01-05, the first Monday: where weekly candles are counted from. */
+  private static final long WEEK_ORIGIN = 4 * 86_400_000L;
+
+  private Intervals() {
+  }
+
+  /** Interval → seconds; malformed input falls back to one hour rather than throwing. */
+  public static long seconds(String interval) {
+    if (interval == null || interval.length() < 2) return 3600;
+    char unit = interval.charAt(interval.length() - 1);
+    long n;
+    try {
+      n = Long.parseLong(interval.substring(0, interval.length() - 1));
+    } catch (NumberFormatException e) {
+      return 3600;
+    }
+    return switch (unit) {
+      case 'm' -> n * 60;
+      case 'h' -> n * 3600;
+      case 'd' -> n * 86400;
+      case 'w' -> n * 604800;
+      default -> 3600;
+    };
+  }
+
+  public static long millis(String interval) {
+    return seconds(interval) * 1000;
+  }
+
+  /** Open time of the candle that contains {@code time}. */
+  public static long openTimeOf(long time, long intervalMillis) {
+    return time - Math.floorMod(time, intervalMillis);
+  }
+
+  /** {@link #openTimeOf(long, long)} with the interval's own alignment, Monday weeks included. */
+  public static long openTimeOf(long time, String interval) {
+    long step = millis(interval);
+    long origin = origin(step);
+    return time - Math.floorMod(time - origin, step);
+  }
+
+  /**
+   * True when every {@code target} candle is made of whole {@code base}
+   * candles: longer, a multiple of it, and starting on one of its boundaries.
+   */
+  public static boolean divides(String base, String target) {
+    if (base.endsWith("M") || target.endsWith("M")) return false;
+    long b = millis(base), t = millis(target);
+    return t > b && t % b == 0 && origin(t) % b == 0;
+  }
+
+  private static long origin(long step) {
+    return step % WEEK_MILLIS == 0 ? WEEK_ORIGIN : 0;
+  }
+}
@@ -0,0 +1,83 @@
+package dev.prjbtrad001.market;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses the kline CSV inside Binance's public data dumps
+ * (data.binance.vision), straight into {@link CandleColumns}.
+ *
+ * Rows are {@code openTime,open,high,low,close,volume,closeTime,...}, the same
+ * fields as the REST response; trailing fields are skipped. Newer files may
+ * carry a header line, which is skipped too. Since 2025 spot dumps give times
+ * in microseconds; those are brought back to the milliseconds used everywhere
+ * else.
+ *
+ * Decimals go through {@link KlineParser#parseDecimal}, so a dump and the REST
+ * API produce bit-identical doubles for the same candle.
+ */
+public final class KlineCsv {
+
+  /** Anything above this is not an epoch-millis time in this millennium. */
+  private static final long MAX_MILLIS = 100_000_000_000_000L;
+
+  private KlineCsv() {
+  }
+
+  public static CandleColumns parse(InputStream in) throws IOException {
+    return parse(in.readAllBytes());
+  }
+
+  static CandleColumns parse(byte[] data) throws IOException {
+    CandleColumns out = new CandleColumns(Math.max(16, data.length / 120));
+    char[] field = new char[64];
+    double[] prices = new double[5];
+    int pos = 0, line = 0;
+    while (pos < data.length) {
+      int end = pos;
+      while (end < data.length && data[end] != '\n') end++;
+      int stop = end > pos && data[end - 1] == '\r' ? end - 1 : end;
+      line++;
+      if (stop > pos && isDigit(data[pos])) {
+        int p = pos;
+        long openTime = 0, closeTime = 0;
+        for (int f = 0; f < 7; f++) {
+          int start = p;
+          while (p < stop && data[p] != ',') p++;
+          if (p == stop && f < 6) throw new IOException("Line " + line + ": expected at least 7 fields");
+          int len = p - start;
+          if (f == 0) openTime = parseLong(data, start, len, line);
+          else if (f == 6) closeTime = parseLong(data, start, len, line);
+          else {
+            if (len > field.length) field = new char[len];
+            for (int i = 0; i < len; i++) field[i] = (char) data[start + i];
+            prices[f - 1] = KlineParser.parseDecimal(field, 0, len);
+          }
+          p++;   // past the comma
+        }
+        out.add(millis(openTime), prices[0], prices[1], prices[2], prices[3], prices[4], millis(closeTime));
+      }
+      pos = end + 1;
+    }
+    return out;
+  }
+
+  private static long millis(long time) {
+    return time > MAX_MILLIS ? time / 1000 : time;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static long parseLong(byte[] data, int off, int len, int line) throws IOException {
+    if (len == 0 || len > 18) throw new IOException("Line " + line + ": bad timestamp");
+    long v = 0;
+    for (int i = off; i < off + len; i++) {
+      byte b = data[i];
+      if (!isDigit(b)) throw new IOException("Line " + line + ": bad timestamp");
+      v = v * 10 + (b - '0');
+    }
+    return v;
+  }
+}
@@ -0,0 +1,292 @@
+package dev.prjbtrad001.market;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Seeds the {@link CandleStore} from Binance's public kline dumps instead of
+ * paging through the REST API.
+ *
+ * Drop the zips as downloaded from data.binance.vision — monthly
+ * ({@code BTCBRL-1m-2023-01.zip}) or daily ({@code BTCBRL-1m-2024-03-15.zip})
+ * — into {@code bot.market.import.dir} and run the import. Files are grouped
+ * by symbol and interval; within a group they are parsed on all cores at once
+ * and written in date order, so memory stays at a few files' worth however
+ * many years are imported.
+ *
+ * Continuity is checked at two levels:
+ *
+ *  - the files themselves must cover consecutive periods; a missing month is
+ *    a hole the store could never notice later, so the group is refused;
+ *  - inside the files, gaps (exchange maintenance) are counted and reported,
+ *    as they exist in the REST history too.
+ *
+ * Rows the store already holds are skipped, so re-running an import, or
+ * importing a range that overlaps what bots have synced, is harmless. Rows
+ * older than the stored history are prepended, newer ones appended — but only
+ * when they join up with it: the next candle after the stored one, or a dump
+ * that itself runs across the boundary. Older rows are staged in a scratch
+ * series on disk and prepended in one shift, so they are never all on the
+ * heap either.
+ */
+@JBossLog
+@ApplicationScoped
+public class KlineImporter {
+
+  private static final Pattern FILE = Pattern.compile("([A-Z0-9]+)-(\\w+)-(\\d{4})-(\\d{2})(?:-(\\d{2}))?\\.zip");
+
+  @Inject
+  CandleStore store;
+
+  @ConfigProperty(name = "bot.market.import.dir", defaultValue = "data/import")
+  String dir;
+
+  int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /** Imports the dumps found under the import directory; all symbols when {@code symbol} is null. */
+  public List<Report> importAll(String symbol) {
+    return importFrom(Path.of(dir), symbol);
+  }
+
+  List<Report> importFrom(Path directory, String symbol) {
+    Map<String, List<DumpFile>> groups = new TreeMap<>();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.filter(Files::isRegularFile).forEach(p -> {
+        DumpFile f = DumpFile.of(p);
+        if (f != null && (symbol == null || symbol.equalsIgnoreCase(f.symbol()))) groups.computeIfAbsent(f.symbol() + "/" + f.interval(), k -> new ArrayList<>()).add(f);
+      });
+    } catch (IOException e) {
+      return List.of(Report.failed("*", "*", 0, "Cannot read " + directory + ": " + e.getMessage()));
+    }
+
+    List<Report> reports = new ArrayList<>();
+    ExecutorService parsers = Executors.newFixedThreadPool(Math.max(1, parallelism));
+    try {
+      for (List<DumpFile> files : groups.values()) {
+        files.sort(Comparator.comparing(DumpFile::from).thenComparing(DumpFile::to));
+        Report r = importGroup(files, parsers);
+        log.infof("Import %s %s: %d files, %d rows read, %d stored, %d already present, %d gaps%s",
+          r.symbol(), r.interval(), r.files(), r.rowsRead(), r.imported(), r.alreadyStored(), r.gaps(),
+          r.error() == null ? "" : " - " + r.error());
+        reports.add(r);
+      }
+    } finally {
+      parsers.shutdownNow();
+    }
+    return reports;
+  }
+
+  private Report importGroup(List<DumpFile> files, ExecutorService parsers) {
+    DumpFile head = files.getFirst();
+    String symbol = head.symbol(), interval = head.interval();
+
+    for (int i = 1; i < files.size(); i++) {
+      if (files.get(i).from().isAfter(files.get(i - 1).to())) {
+        return Report.failed(symbol, interval, files.size(), "missing data between "
+          + files.get(i - 1).path().getFileName() + " and " + files.get(i).path().getFileName());
+      }
+    }
+
+    CandleSeries series = store.series(symbol, interval);
+    // Months are not a fixed length; there is nothing to check between rows.
+    long step = interval.endsWith("M") ? 0 : Intervals.millis(interval);
+    Counts counts = new Counts();
+    long first, last;
+    series.sync.lock();
+    try {
+      first = series.isEmpty() ? Long.MIN_VALUE : series.firstOpenTime();
+      last = series.isEmpty() ? Long.MIN_VALUE : series.lastOpenTime();
+    } finally {
+      series.sync.unlock();
+    }
+
+    Path scratch = null;
+    CandleSeries older = null;
+    // Parse ahead on every core, consume strictly in date order.
+    Deque<Future<CandleColumns>> pending = new ArrayDeque<>();
+    int next = 0;
+    long prev = Long.MIN_VALUE;
+    long lastOlder = Long.MIN_VALUE;
+    boolean reachedStored = false;
+    try {
+      while (next < files.size() || !pending.isEmpty()) {
+        while (next < files.size() && pending.size() <= parallelism) {
+          DumpFile f = files.get(next++);
+          pending.add(parsers.submit(() -> read(f.path())));
+        }
+        CandleColumns page = pending.removeFirst().get();
+        CandleColumns before = new CandleColumns(0);
+        CandleColumns newer = new CandleColumns(page.size());
+        for (int i = 0; i < page.size(); i++) {
+          long t = page.openTime(i);
+          counts.read++;
+          if (t <= prev) {
+            counts.duplicates++;
+            continue;
+          }
+          if (step > 0 && prev != Long.MIN_VALUE && t - prev > step) {
+            counts.gaps++;
+            counts.missing += (t - prev) / step - 1;
+          }
+          if (t < first) {
+            copy(page, i, before);
+            lastOlder = t;
+          } else if (t > last) {
+            // A hole between the stored history and the dump is only a halt
+            // if the dump runs across it; otherwise candles are missing.
+            if (newer.isEmpty() && last != Long.MIN_VALUE && !reachedStored && !joins(last, t, step)) {
+              return counts.report(symbol, interval, files.size(), missing(last, t, step)
+                + " missing between the stored history and the imported data; import the period in between");
+            }
+            copy(page, i, newer);
+            reachedStored = true;
+          } else {
+            counts.alreadyStored++;
+            reachedStored = true;
+          }
+          prev = t;
+        }
+        if (!before.isEmpty()) {
+          if (older == null) {
+            scratch = Files.createTempDirectory("kline-import-");
+            older = CandleSeries.open(scratch);
+          }
+          older.append(before);
+        }
+        if (newer.isEmpty()) continue;
+        series.sync.lock();
+        try {
+          counts.imported += series.append(newer);
+          last = series.lastOpenTime();
+        } finally {
+          series.sync.unlock();
+        }
+      }
+
+      if (older != null) {
+        if (!reachedStored && !joins(lastOlder, first, step)) {
+          return counts.report(symbol, interval, files.size(), missing(lastOlder, first, step)
+            + " missing between the imported data and the stored history; import the period in between");
+        }
+        series.sync.lock();
+        try {
+          counts.imported += series.prepend(older);
+        } finally {
+          series.sync.unlock();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return counts.report(symbol, interval, files.size(), "interrupted");
+    } catch (ExecutionException e) {
+      return counts.report(symbol, interval, files.size(), e.getCause().getMessage());
+    } catch (IOException e) {
+      return counts.report(symbol, interval, files.size(), "Cannot stage the older rows: " + e.getMessage());
+    } finally {
+      pending.forEach(f -> f.cancel(true));
+      discard(older, scratch);
+    }
+    return counts.report(symbol, interval, files.size(), null);
+  }
+
+  /** True when the candle opening at {@code later} is the one right after {@code earlier}. */
+  private static boolean joins(long earlier, long later, long step) {
+    if (step > 0) return later - earlier <= step;
+    return later <= Instant.ofEpochMilli(earlier).atZone(ZoneOffset.UTC).plusMonths(1).toInstant().toEpochMilli();
+  }
+
+  private static String missing(long earlier, long later, long step) {
+    return step > 0 ? (later - earlier) / step - 1 + " candle(s)" : Duration.ofMillis(later - earlier).toDays() + " days";
+  }
+
+  private static void discard(CandleSeries scratchSeries, Path scratch) {
+    if (scratch == null) return;
+    try {
+      if (scratchSeries != null) scratchSeries.close();
+      try (Stream<Path> files = Files.list(scratch)) {
+        for (Path f : files.toList()) Files.deleteIfExists(f);
+      }
+      Files.deleteIfExists(scratch);
+    } catch (IOException e) {
+      log.warnf("Could not remove the import scratch directory %s: %s", scratch, e.getMessage());
+    }
+  }
+
+  private static CandleColumns read(Path zip) throws IOException {
+    try (InputStream raw = Files.newInputStream(zip); ZipInputStream in = new ZipInputStream(raw)) {
+      for (ZipEntry e = in.getNextEntry(); e != null; e = in.getNextEntry()) {
+        if (e.getName().endsWith(".csv")) return KlineCsv.parse(in);
+      }
+    }
+    throw new IOException(zip.getFileName() + " holds no CSV");
+  }
+
+  private static void copy(CandleColumns from, int i, CandleColumns to) {
+    to.add(from.openTime(i), from.open(i), from.high(i), from.low(i), from.close(i), from.volume(i),
+      from.closeTime(i));
+  }
+
+  /** One dump file and the UTC dates [from, to) it covers, read from its name. */
+  private record DumpFile(Path path, String symbol, String interval, LocalDate from, LocalDate to) {
+
+    static DumpFile of(Path path) {
+      Matcher m = FILE.matcher(path.getFileName().toString());
+      if (!m.matches()) return null;
+      int year = Integer.parseInt(m.group(3)), month = Integer.parseInt(m.group(4));
+      LocalDate from = m.group(5) == null
+        ? LocalDate.of(year, month, 1)
+        : LocalDate.of(year, month, Integer.parseInt(m.group(5)));
+      LocalDate to = m.group(5) == null ? from.plusMonths(1) : from.plusDays(1);
+      return new DumpFile(path, m.group(1), m.group(2), from, to);
+    }
+  }
+
+  private static final class Counts {
+    long read, imported, alreadyStored, duplicates, gaps, missing;
+
+    Report report(String symbol, String interval, int files, String error) {
+      return new Report(symbol, interval, files, read, imported, alreadyStored, duplicates, gaps, missing, error);
+    }
+  }
+
+  /**
+   * Outcome for one (symbol, interval). {@code gaps} are holes inside the
+   * dumps, {@code missingCandles} the bars they add up to; {@code error} is
+   * null on success. On failure, rows written before it stay: they are
+   * contiguous with the stored history.
+   */
+  public record Report(String symbol, String interval, int files, long rowsRead, long imported,
+                       long alreadyStored, long duplicates, long gaps, long missingCandles, String error) {
+
+    static Report failed(String symbol, String interval, int files, String error) {
+      return new Report(symbol, interval, files, 0, 0, 0, 0, 0, 0, error);
+    }
+  }
+}
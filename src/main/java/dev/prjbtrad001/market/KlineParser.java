@@ -0,0 +1,129 @@
+package dev.prjbtrad001.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams a Binance {@code /klines} response straight into {@link CandleColumns}.
+ *
+ * The old path buffered the body as one String, built a Jackson tree over it,
+ * then created a {@code BigDecimal} per price field — five per candle, on top of
+ * the tree nodes and their text. Here the tokens are pulled one at a time and
+ * the numeric strings are parsed in place from Jackson's character buffer, so a
+ * page allocates its seven column arrays and very little else.
+ *
+ * Each kline is {@code [openTime, "open", "high", "low", "close", "volume",
+ * closeTime, ...]}; the trailing fields are skipped.
+ */
+public final class KlineParser {
+
+  private static final JsonFactory JSON = new JsonFactory();
+
+  /** Powers of ten that are exact doubles — the range where m / 10^k rounds correctly. */
+  private static final double[] POW10 = new double[23];
+  /** Largest mantissa a double holds exactly (2^53). */
+  private static final long EXACT_MANTISSA = 1L << 53;
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+  }
+
+  private KlineParser() {
+  }
+
+  public static CandleColumns parse(InputStream in) throws IOException {
+    return parse(in, 1000);
+  }
+
+  public static CandleColumns parse(InputStream in, int expected) throws IOException {
+    CandleColumns out = new CandleColumns(expected);
+    try (JsonParser p = JSON.createParser(in)) {
+      if (p.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected a JSON array of klines, got " + p.currentToken());
+      }
+      while (p.nextToken() == JsonToken.START_ARRAY) {
+        p.nextToken();
+        long openTime = p.getLongValue();
+        double open = nextDecimal(p);
+        double high = nextDecimal(p);
+        double low = nextDecimal(p);
+        double close = nextDecimal(p);
+        double volume = nextDecimal(p);
+        p.nextToken();
+        long closeTime = p.getLongValue();
+        // Quote volume, trade count, taker volumes, "ignore": not needed.
+        while (p.nextToken() != JsonToken.END_ARRAY) p.skipChildren();
+        out.add(openTime, open, high, low, close, volume, closeTime);
+      }
+    }
+    return out;
+  }
+
+  /** Reads the next token — a quoted decimal in Binance's format — as a double. */
+  private static double nextDecimal(JsonParser p) throws IOException {
+    JsonToken t = p.nextToken();
+    if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) return p.getDoubleValue();
+    return parseDecimal(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+  }
+
+  /**
+   * Parses a plain decimal ("12345.67800000") without allocating. The digits are
+   * accumulated into a long and divided once by an exact power of ten, which is
+   * correctly rounded — the same double {@link Double#parseDouble} returns. Only
+   * values with more than 15–16 significant digits, signs of an unexpected
+   * format, fall back to the JDK parser.
+   */
+  static double parseDecimal(char[] buf, int off, int len) {
+    long mantissa = 0;
+    int scale = -1;           // digits after the point; -1 until the point is seen
+    int pendingZeros = 0;     // trailing zeros not yet folded into the mantissa
+    boolean negative = false;
+    int i = off, end = off + len;
+    if (i < end && (buf[i] == '-' || buf[i] == '+')) negative = buf[i++] == '-';
+    if (i == end) return fallback(buf, off, len);
+
+    for (; i < end; i++) {
+      char c = buf[i];
+      if (c == '.') {
+        if (scale >= 0) return fallback(buf, off, len);
+        scale = 0;
+        continue;
+      }
+      if (c < '0' || c > '9') return fallback(buf, off, len);
+      if (scale >= 0) scale++;
+      if (c == '0') {
+        pendingZeros++;
+        continue;
+      }
+      for (; pendingZeros > 0; pendingZeros--) mantissa *= 10;
+      mantissa = mantissa * 10 + (c - '0');
+      if (mantissa >= EXACT_MANTISSA) return fallback(buf, off, len);
+    }
+
+    // Zeros after the point don't change the value; drop them from the scale.
+    int exp;
+    if (scale < 0) {
+      exp = pendingZeros;
+    } else {
+      int fractionZeros = Math.min(pendingZeros, scale);
+      scale -= fractionZeros;
+      exp = pendingZeros - fractionZeros - scale;
+    }
+    for (; exp > 0; exp--) {
+      mantissa *= 10;
+      if (mantissa >= EXACT_MANTISSA) return fallback(buf, off, len);
+    }
+    double v = exp == 0 ? mantissa : (-exp < POW10.length ? mantissa / POW10[-exp] : Double.NaN);
+    if (Double.isNaN(v)) return fallback(buf, off, len);
+    return negative ? -v : v;
+  }
+
+  private static double fallback(char[] buf, int off, int len) {
+    return Double.parseDouble(new String(buf, off, len));
+  }
+}
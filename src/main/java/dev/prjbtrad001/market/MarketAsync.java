@@ -0,0 +1,31 @@
+package dev.prjbtrad001.market;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a blocking market-data call as a future. Used by the default async
+ * methods of {@link MarketDataClient} for clients that have no non-blocking
+ * path of their own.
+ *
+ * A virtual thread per call: the blocking part parks a virtual thread, not one
+ * of the caller's pool threads, so thousands of calls in flight cost little.
+ * The caller's {@link RequestPriority} goes along with the call.
+ */
+final class MarketAsync {
+
+  private static final ExecutorService CALLS = Executors.newVirtualThreadPerTaskExecutor();
+
+  private MarketAsync() {
+  }
+
+  static <T> CompletableFuture<T> supply(Supplier<T> call, Duration deadline) {
+    RequestPriority priority = RequestPriority.current();
+    return CompletableFuture.supplyAsync(() -> RequestPriority.call(priority, call), CALLS)
+      .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+  }
+}
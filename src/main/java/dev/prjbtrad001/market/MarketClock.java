@@ -0,0 +1,93 @@
+package dev.prjbtrad001.market;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Market time: which candle is forming, when the next one closes.
+ *
+ * Normally the wall clock. Against a simulated exchange it can run
+ * {@code bot.clock.speed} times faster, counted from {@code bot.clock.origin}
+ * (epoch millis, the moment both clocks agree), so a load test lives through a
+ * day of 1h candles in seconds. Both sides must share origin and speed.
+ *
+ * Only candle timing follows it. Cache lifetimes and request budgets stay on
+ * the real clock: they protect the exchange, which does not speed up.
+ */
+public final class MarketClock extends Clock {
+
+  private static final MarketClock REAL = new MarketClock(0, 1);
+
+  private final long origin;
+  private final double speed;
+
+  public MarketClock(long origin, double speed) {
+    if (!(speed > 0)) throw new IllegalArgumentException("Clock speed must be positive, got " + speed);
+    this.origin = origin;
+    this.speed = speed;
+  }
+
+  public static MarketClock real() {
+    return REAL;
+  }
+
+  public double speed() {
+    return speed;
+  }
+
+  /** Real nanoseconds it takes for {@code marketMillis} to pass. */
+  public long realNanos(long marketMillis) {
+    return (long) (marketMillis * 1_000_000 / speed);
+  }
+
+  /** Real microseconds since the moment this clock read {@code marketMillis}; negative if still ahead. */
+  public long realMicrosSince(long marketMillis) {
+    Instant wall = Instant.now();
+    long wallMicros = wall.getEpochSecond() * 1_000_000 + wall.getNano() / 1_000;
+    double at = speed == 1 ? marketMillis : origin + (marketMillis - origin) / speed;
+    return wallMicros - (long) (at * 1000);
+  }
+
+  @Override
+  public long millis() {
+    long wall = System.currentTimeMillis();
+    return speed == 1 ? wall : origin + (long) ((wall - origin) * speed);
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(millis());
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return ZoneOffset.UTC;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return this;
+  }
+
+  @ApplicationScoped
+  static class Producer {
+
+    @ConfigProperty(name = "bot.clock.speed", defaultValue = "1")
+    double speed;
+    @ConfigProperty(name = "bot.clock.origin", defaultValue = "0")
+    long origin;
+
+    @Produces
+    @Singleton
+    MarketClock marketClock() {
+      return speed == 1 ? REAL : new MarketClock(origin, speed);
+    }
+  }
+}
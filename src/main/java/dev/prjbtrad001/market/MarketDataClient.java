@@ -1,11 +1,23 @@
 package dev.prjbtrad001.market;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Read-only market data. Public Binance endpoints only — no API key needed,
  * because v1 never places real orders.
+ *
+ * The {@code ...Async} variants return at once and complete when the data is
+ * in, so a caller can start several fetches and combine them. Each takes a
+ * deadline covering the whole call, queueing included; past it the future
+ * fails with a {@link java.util.concurrent.TimeoutException}. Other failures
+ * complete the same way the blocking methods return: empty list, null price.
  */
 public interface MarketDataClient {
 
@@ -18,6 +30,78 @@ public interface MarketDataClient {
    */
   List<KlineDto> getCandlesRange(String symbol, String interval, int total);
 
+  /**
+   * Every candle whose open time falls in [{@code from}, {@code to}) (epoch
+   * millis), oldest → newest, however many pages that takes. The way to ask for
+   * "2021 to 2024 on 1h" without guessing a candle count.
+   *
+   * Unlike the other calls this one throws {@link java.io.UncheckedIOException}
+   * when a page cannot be had, rather than returning the range with a hole in
+   * it: callers store what it returns.
+   */
+  List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to);
+
+  /**
+   * A single page (max 1000) of candles whose open time falls inside
+   * [{@code startTime}, {@code endTime}], oldest → newest. Either bound may be
+   * null. This is the primitive the local candle store syncs with: it can ask
+   * for exactly the bars it is missing instead of the most recent N.
+   */
+  List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit);
+
+  /**
+   * The same candles as {@link #getCandles}, as primitive columns. Clients that
+   * parse the wire format directly override this to skip the records entirely.
+   */
+  default CandleColumns getCandleColumns(String symbol, String interval, int limit) {
+    return CandleColumns.of(getCandles(symbol, interval, limit));
+  }
+
+  /**
+   * The pairs the running fleet reads, symbol → intervals, replacing what an
+   * earlier call said. A client holding per-pair state (open streams) keeps
+   * these warm and may let the rest go; the default holds none.
+   */
+  default void follow(Map<String, Set<String>> pairs) {
+  }
+
   /** Latest traded price for the symbol, or null on failure. */
   BigDecimal getPrice(String symbol);
+
+  default CompletableFuture<List<KlineDto>> getCandlesAsync(String symbol, String interval, int limit,
+                                                            Duration deadline) {
+    return MarketAsync.supply(() -> getCandles(symbol, interval, limit), deadline);
+  }
+
+  default CompletableFuture<List<KlineDto>> getCandlesRangeAsync(String symbol, String interval, int total,
+                                                                 Duration deadline) {
+    return MarketAsync.supply(() -> getCandlesRange(symbol, interval, total), deadline);
+  }
+
+  default CompletableFuture<List<KlineDto>> getCandlesBetweenAsync(String symbol, String interval, long from, long to,
+                                                                   Duration deadline) {
+    return MarketAsync.supply(() -> getCandlesBetween(symbol, interval, from, to), deadline);
+  }
+
+  default CompletableFuture<BigDecimal> getPriceAsync(String symbol, Duration deadline) {
+    return MarketAsync.supply(() -> getPrice(symbol), deadline);
+  }
+
+  default CompletableFuture<Map<String, BigDecimal>> getPricesAsync(Collection<String> symbols, Duration deadline) {
+    return MarketAsync.supply(() -> getPrices(symbols), deadline);
+  }
+
+  /**
+   * Latest prices for several symbols at once. Symbols whose price could not be
+   * had are simply absent from the map. The default asks one by one; the
+   * exchange client answers every symbol from a single request.
+   */
+  default Map<String, BigDecimal> getPrices(Collection<String> symbols) {
+    Map<String, BigDecimal> prices = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      BigDecimal price = getPrice(symbol);
+      if (price != null) prices.put(symbol, price);
+    }
+    return prices;
+  }
 }
@@ -0,0 +1,170 @@
+package dev.prjbtrad001.market;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived price cache in front of the exchange, shared by every caller.
+ *
+ * The dashboard, each bot on a pair, and a bot's close-aligned tick and
+ * heartbeat landing together all ask for the same price within a second. Now:
+ *
+ *  - a price younger than {@code ttl} is served as is;
+ *  - one up to {@code max-stale} older than that is served too, while a single
+ *    background fetch replaces it (stale-while-revalidate);
+ *  - callers that need a fetch while one for the same symbol is running wait
+ *    for that one instead of starting their own (single flight).
+ *
+ * Failures are never cached: the next caller tries again. The cache holds at
+ * most {@code max-entries} symbols, dropping the least recently fetched.
+ */
+@ApplicationScoped
+public class PriceCache {
+
+  @Inject
+  @Upstream
+  MarketDataClient upstream;
+
+  @ConfigProperty(name = "bot.market.price.ttl", defaultValue = "1s")
+  Duration ttl;
+
+  @ConfigProperty(name = "bot.market.price.max-stale", defaultValue = "5s")
+  Duration maxStale;
+
+  @ConfigProperty(name = "bot.market.price.max-entries", defaultValue = "1000")
+  int maxEntries;
+
+  Clock clock = Clock.systemUTC();
+
+  private record Entry(BigDecimal price, long fetchedAt) {
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong staleHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /** Price for {@code symbol}, or null when the exchange could not give one. */
+  public BigDecimal get(String symbol) {
+    return getAll(List.of(symbol)).get(symbol);
+  }
+
+  /**
+   * Prices for several symbols. Whatever is not cached is fetched in one
+   * upstream batch; symbols without a price are absent from the result.
+   */
+  public Map<String, BigDecimal> getAll(Collection<String> symbols) {
+    long now = clock.millis();
+    Map<String, BigDecimal> out = new LinkedHashMap<>();
+    List<String> stale = new ArrayList<>();
+    Map<String, CompletableFuture<BigDecimal>> joined = new HashMap<>();
+    Map<String, CompletableFuture<BigDecimal>> mine = new HashMap<>();
+
+    for (String symbol : symbols) {
+      Entry e = entries.get(symbol);
+      long age = e == null ? Long.MAX_VALUE : now - e.fetchedAt();
+      if (age <= ttl.toMillis()) {
+        hits.incrementAndGet();
+        out.put(symbol, e.price());
+      } else if (age <= ttl.toMillis() + maxStale.toMillis()) {
+        staleHits.incrementAndGet();
+        out.put(symbol, e.price());
+        stale.add(symbol);
+      } else {
+        CompletableFuture<BigDecimal> claim = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> running = inFlight.putIfAbsent(symbol, claim);
+        if (running != null) {
+          coalesced.incrementAndGet();
+          joined.put(symbol, running);
+        } else {
+          misses.incrementAndGet();
+          mine.put(symbol, claim);
+        }
+      }
+    }
+
+    if (!stale.isEmpty()) revalidate(stale);
+    if (!mine.isEmpty()) fetch(mine);
+    for (String symbol : symbols) {
+      CompletableFuture<BigDecimal> f = mine.containsKey(symbol) ? mine.get(symbol) : joined.get(symbol);
+      BigDecimal price = f == null ? null : f.join();
+      if (price != null) out.put(symbol, price);
+    }
+    return out;
+  }
+
+  public Stats stats() {
+    return new Stats(entries.size(), hits.get(), staleHits.get(), misses.get(), coalesced.get(),
+      refreshes.get(), evictions.get());
+  }
+
+  /** Replaces stale prices in the background; symbols already being fetched are left alone. */
+  private void revalidate(List<String> symbols) {
+    Map<String, CompletableFuture<BigDecimal>> mine = new HashMap<>();
+    for (String symbol : symbols) {
+      CompletableFuture<BigDecimal> claim = new CompletableFuture<>();
+      if (inFlight.putIfAbsent(symbol, claim) == null) mine.put(symbol, claim);
+    }
+    if (mine.isEmpty()) return;
+    refreshes.addAndGet(mine.size());
+    RequestPriority priority = RequestPriority.current();
+    Thread.startVirtualThread(() -> RequestPriority.call(priority, () -> {
+      fetch(mine);
+      return null;
+    }));
+  }
+
+  /** Fetches the claimed symbols in one call and releases everyone waiting on them. */
+  private void fetch(Map<String, CompletableFuture<BigDecimal>> claims) {
+    Map<String, BigDecimal> fetched = Map.of();
+    try {
+      fetched = upstream.getPrices(claims.keySet());
+      long now = clock.millis();
+      fetched.forEach((symbol, price) -> entries.put(symbol, new Entry(price, now)));
+      evictOverflow();
+    } finally {
+      for (Map.Entry<String, CompletableFuture<BigDecimal>> c : claims.entrySet()) {
+        inFlight.remove(c.getKey(), c.getValue());
+        c.getValue().complete(fetched.get(c.getKey()));
+      }
+    }
+  }
+
+  private void evictOverflow() {
+    while (entries.size() > Math.max(1, maxEntries)) {
+      entries.entrySet().stream()
+        .min((a, b) -> Long.compare(a.getValue().fetchedAt(), b.getValue().fetchedAt()))
+        .ifPresent(oldest -> {
+          if (entries.remove(oldest.getKey(), oldest.getValue())) evictions.incrementAndGet();
+        });
+    }
+  }
+
+  /**
+   * How much upstream traffic the cache saves: {@code hits} and
+   * {@code staleHits} cost nothing, {@code coalesced} rode on another caller's
+   * request, {@code misses} and {@code refreshes} went upstream.
+   */
+  public record Stats(int entries, long hits, long staleHits, long misses, long coalesced,
+                      long refreshes, long evictions) {
+  }
+}
@@ -0,0 +1,39 @@
+package dev.prjbtrad001.market;
+
+import java.util.function.Supplier;
+
+/**
+ * Who is waiting on an exchange request, in the order the {@link WeightLimiter}
+ * serves them when the weight budget runs short.
+ *
+ * The priority travels with the calling thread, so nothing between the caller
+ * and the HTTP client has to pass it along. Unmarked work counts as
+ * {@link #LIVE}: bot ticks and stop-loss checks are the default, and the
+ * callers that can wait (dashboard, backtests) say so.
+ */
+public enum RequestPriority {
+
+  /** Bot ticks: stop-loss checks, closed candles, live fills. */
+  LIVE,
+  /** Pages a person is looking at. */
+  DASHBOARD,
+  /** Bulk history. Waits behind everything else. */
+  BACKTEST;
+
+  private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> LIVE);
+
+  public static RequestPriority current() {
+    return CURRENT.get();
+  }
+
+  /** Runs {@code work} with every exchange request it makes queued at {@code priority}. */
+  public static <T> T call(RequestPriority priority, Supplier<T> work) {
+    RequestPriority previous = CURRENT.get();
+    CURRENT.set(priority);
+    try {
+      return work.get();
+    } finally {
+      CURRENT.set(previous);
+    }
+  }
+}
@@ -0,0 +1,393 @@
+package dev.prjbtrad001.market;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link MarketDataClient} the rest of the app sees: answers from the local
+ * {@link CandleStore} and only asks the exchange for what the store lacks.
+ *
+ * Closed candles never change, so once a (symbol, interval) is warm the only
+ * bar worth downloading is the newest one. Every call therefore:
+ *
+ *  1. fetches the missing tail — everything after the last stored open time,
+ *     which after warm-up is just the still-forming candle (one small request);
+ *  2. appends whatever of that tail has closed;
+ *  3. serves the rest of the window straight from the memory-mapped columns.
+ *
+ * When a caller wants more history than is stored (a backtest, or a bot whose
+ * slow EMA grew), the gap is backfilled once, backwards, and then stays.
+ * The in-progress candle is never stored: it is returned as the last element,
+ * exactly as Binance would, so callers that drop it keep working unchanged.
+ *
+ * Timeframes made of whole base candles (4h, 1d, 1w … from 1h by default) are
+ * not fetched at all: they are rolled up from the base series by
+ * {@link CandleAggregator}. Bots on one symbol across several timeframes then
+ * share a single upstream feed, and comparing timeframes in backtests costs a
+ * single download. Each derived series keeps its aggregator between calls, so
+ * a tick folds in only the base candles that closed since the last one.
+ *
+ * Prices are not stored; they go through the shared {@link PriceCache}.
+ */
+@JBossLog
+@ApplicationScoped
+public class StoredMarketDataClient implements MarketDataClient {
+
+  private static final int PAGE = 1000;
+
+  @Inject
+  @Upstream
+  MarketDataClient upstream;
+  @Inject
+  CandleStore store;
+  @Inject
+  PriceCache prices;
+
+  /** Derived series by "symbol/interval"; see {@link #rollup}. */
+  private final Map<String, Rollup> rollups = new ConcurrentHashMap<>();
+
+  @ConfigProperty(name = "bot.market.store.enabled", defaultValue = "true")
+  boolean enabled;
+  @ConfigProperty(name = "bot.market.aggregate.enabled", defaultValue = "true")
+  boolean aggregate;
+  @ConfigProperty(name = "bot.market.aggregate.base", defaultValue = "1h")
+  String base;
+
+  /** Market time: decides which candles are closed and may be stored. */
+  @Inject
+  Clock clock = Clock.systemUTC();
+
+  @Override
+  public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+    if (derived(interval)) {
+      if (enabled) return rolledUp(symbol, interval, limit, true);
+      return last(aggregate(getCandles(symbol, base, baseCount(interval, limit)), interval), limit);
+    }
+    if (!enabled) return upstream.getCandles(symbol, interval, limit);
+
+    CandleSeries series = store.series(symbol, interval);
+    series.sync.lock();
+    try {
+      List<KlineDto> forming = syncTail(series, symbol, interval, limit);
+      // A live tick must not act on a stale picture. If the exchange could not
+      // be reached we cannot tell whether a newer candle has closed, so report
+      // nothing and let the runner skip the tick, as it did before the store.
+      if (forming == null) return List.of();
+      backfill(series, symbol, interval, limit - forming.size());
+      return window(series, forming, limit);
+    } finally {
+      series.sync.unlock();
+    }
+  }
+
+  @Override
+  public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+    if (derived(interval)) {
+      if (enabled) return rolledUp(symbol, interval, total, false);
+      return last(aggregate(getCandlesRange(symbol, base, baseCount(interval, total)), interval), total);
+    }
+    if (!enabled) return upstream.getCandlesRange(symbol, interval, total);
+
+    CandleSeries series = store.series(symbol, interval);
+    series.sync.lock();
+    try {
+      List<KlineDto> forming = syncTail(series, symbol, interval, total);
+      // History is still useful offline: a backtest over stored data beats an
+      // error page when Binance is unreachable.
+      if (forming == null) forming = List.of();
+      backfill(series, symbol, interval, total - forming.size());
+      return window(series, forming, total);
+    } finally {
+      series.sync.unlock();
+    }
+  }
+
+  /**
+   * A fixed window: whatever the store lacks at either end is fetched (in
+   * parallel windows, by the upstream), the rest is read from disk. Repeating
+   * a backtest over the same dates costs no network at all once the window has
+   * closed.
+   */
+  @Override
+  public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+    if (derived(interval)) {
+      // Whole buckets only: from the first one opening at or after `from`, to
+      // the end of the last one opening before `to`.
+      long step = Intervals.millis(interval);
+      long start = Intervals.openTimeOf(from - 1, interval) + step;
+      long end = Intervals.openTimeOf(to - 1, interval) + step;
+      return aggregate(getCandlesBetween(symbol, base, start, end), interval);
+    }
+    if (!enabled) return upstream.getCandlesBetween(symbol, interval, from, to);
+
+    CandleSeries series = store.series(symbol, interval);
+    series.sync.lock();
+    try {
+      long now = clock.millis();
+      List<KlineDto> forming = List.of();
+      if (series.isEmpty()) {
+        List<KlineDto> seed = upstream.getCandlesBetween(symbol, interval, from, to);
+        series.append(closed(seed, now));
+        forming = forming(seed, now);
+      } else {
+        if (to > series.lastOpenTime() + 1) {
+          List<KlineDto> tail = syncTail(series, symbol, interval, 0);
+          if (tail != null) forming = tail;
+        }
+        backfill(series, symbol, interval, from);
+      }
+
+      List<KlineDto> out = new ArrayList<>(series.read(series.lowerBound(from), series.lowerBound(to)));
+      for (KlineDto k : forming) {
+        if (k.openTime() >= from && k.openTime() < to) out.add(k);
+      }
+      return out;
+    } finally {
+      series.sync.unlock();
+    }
+  }
+
+  @Override
+  public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+    return upstream.getCandlesPage(symbol, interval, startTime, endTime, limit);
+  }
+
+  /** Derived timeframes are read from the base series, so that is what the upstream follows. */
+  @Override
+  public void follow(Map<String, Set<String>> pairs) {
+    Map<String, Set<String>> fetched = new HashMap<>();
+    pairs.forEach((symbol, intervals) -> {
+      Set<String> set = fetched.computeIfAbsent(symbol, s -> new HashSet<>());
+      for (String interval : intervals) set.add(derived(interval) ? base : interval);
+    });
+    upstream.follow(fetched);
+  }
+
+  @Override
+  public BigDecimal getPrice(String symbol) {
+    return prices.get(symbol);
+  }
+
+  @Override
+  public Map<String, BigDecimal> getPrices(Collection<String> symbols) {
+    return prices.getAll(symbols);
+  }
+
+  /** True when {@code interval} is built from the base series rather than fetched. */
+  private boolean derived(String interval) {
+    return aggregate && Intervals.divides(base, interval);
+  }
+
+  /**
+   * Base candles needed for the newest {@code count} candles of {@code interval}:
+   * one extra bucket, because the oldest one is usually entered midway.
+   */
+  private int baseCount(String interval, int count) {
+    long ratio = Intervals.millis(interval) / Intervals.millis(base);
+    return (int) Math.min(Integer.MAX_VALUE, (count + 1L) * ratio);
+  }
+
+  /**
+   * The newest {@code limit} candles of a derived {@code interval}, from the
+   * base series and the {@link Rollup} kept for it. {@code live} callers get
+   * nothing when the tail could not be fetched, as in {@link #getCandles}.
+   */
+  private List<KlineDto> rolledUp(String symbol, String interval, int limit, boolean live) {
+    int needed = baseCount(interval, limit);
+    CandleSeries series = store.series(symbol, base);
+    series.sync.lock();
+    try {
+      List<KlineDto> forming = syncTail(series, symbol, base, needed);
+      if (forming == null) {
+        if (live) return List.of();
+        forming = List.of();
+      }
+      backfill(series, symbol, base, needed - forming.size());
+      Rollup r = rollup(series, symbol, interval, needed, limit);
+
+      // The forming base candles change until they close: fold them into a
+      // copy, never into the kept aggregator.
+      CandleAggregator tip = r.aggregator.copy();
+      List<KlineDto> newest = new ArrayList<>();
+      for (KlineDto k : forming) tip.add(k, newest::add);
+      if (tip.forming() != null) newest.add(tip.forming());
+
+      List<KlineDto> out = new ArrayList<>(limit);
+      out.addAll(last(r.bars, Math.max(0, limit - newest.size())));
+      out.addAll(last(newest, limit));
+      return out;
+    } finally {
+      series.sync.unlock();
+    }
+  }
+
+  /**
+   * Brings the rollup of {@code interval} up to the stored base candles:
+   * only the rows after the last one folded are read. It is rebuilt from the
+   * newest {@code needed} rows when it is new, or when a caller wants more
+   * bars than it holds and the store now has older rows than it started from.
+   * Called under the base series' lock, which guards the rollup too.
+   */
+  private Rollup rollup(CandleSeries series, String symbol, String interval, int needed, int limit) {
+    String key = symbol + "/" + interval;
+    Rollup r = rollups.get(key);
+    int start = Math.max(0, series.size() - needed);
+    if (r == null || (r.bars.size() < limit && series.lowerBound(r.firstBase) > start)) {
+      r = new Rollup(interval);
+      rollups.put(key, r);
+      r.fold(series.read(start, series.size()));
+    } else {
+      r.fold(series.read(series.lowerBound(r.lastBase + 1), series.size()));
+    }
+    r.keep(limit);
+    return r;
+  }
+
+  private static List<KlineDto> aggregate(List<KlineDto> baseCandles, String interval) {
+    return CandleAggregator.aggregate(baseCandles, interval);
+  }
+
+  private static List<KlineDto> last(List<KlineDto> candles, int count) {
+    return candles.size() > count ? candles.subList(candles.size() - count, candles.size()) : candles;
+  }
+
+  /**
+   * Brings the series up to date and returns the candles that are still
+   * forming (normally exactly one), or null when the exchange did not answer
+   * in full. Nothing is stored then: a hole in an append-only store is there
+   * for good.
+   */
+  private List<KlineDto> syncTail(CandleSeries series, String symbol, String interval, int wanted) {
+    try {
+      return fetchTail(series, symbol, interval, wanted);
+    } catch (UncheckedIOException e) {
+      log.warnf("Candle store %s %s: tail fetch failed, nothing stored: %s", symbol, interval, e.getMessage());
+      return null;
+    }
+  }
+
+  private List<KlineDto> fetchTail(CandleSeries series, String symbol, String interval, int wanted) {
+    long now = clock.millis();
+
+    if (series.isEmpty()) {
+      // Cold start: the usual "most recent N" download seeds the store.
+      List<KlineDto> seed = wanted > PAGE
+        ? upstream.getCandlesRange(symbol, interval, wanted)
+        : upstream.getCandles(symbol, interval, wanted);
+      if (seed.isEmpty()) return null;
+      int stored = series.append(closed(seed, now));
+      log.infof("Candle store %s %s seeded with %d candles", symbol, interval, stored);
+      return forming(seed, now);
+    }
+
+    // Everything after the last stored candle, up to and including the forming
+    // one. After warm-up that is a single one-candle page; after downtime the
+    // upstream splits it into parallel windows.
+    long step = Intervals.millis(interval);
+    List<KlineDto> tail = upstream.getCandlesBetween(symbol, interval,
+      series.lastOpenTime() + 1, Intervals.openTimeOf(now, interval) + step);
+    // Binance always returns at least the forming candle, so an empty answer
+    // means the request failed rather than "nothing new".
+    if (tail.isEmpty()) return null;
+    series.append(closed(tail, now));
+    return forming(tail, now);
+  }
+
+  /**
+   * Backfills until {@code needed} candles are stored, when history allows.
+   * Offline, callers make do with what is stored.
+   */
+  private void backfill(CandleSeries series, String symbol, String interval, int needed) {
+    if (series.isEmpty() || series.size() >= needed) return;
+    long step = Intervals.millis(interval);
+    try {
+      backfill(series, symbol, interval, series.firstOpenTime() - (long) (needed - series.size()) * step);
+    } catch (UncheckedIOException e) {
+      log.warnf("Candle store %s %s: backfill failed, nothing stored: %s", symbol, interval, e.getMessage());
+    }
+  }
+
+  /**
+   * Walks the store back so it starts at (or before) {@code from}. Throws
+   * when the exchange fails part-way, before anything is prepended or the
+   * history is taken to be complete, so the next caller asks again.
+   */
+  private void backfill(CandleSeries series, String symbol, String interval, long from) {
+    if (series.isEmpty() || series.isHistoryComplete() || from >= series.firstOpenTime()) return;
+
+    long first = series.firstOpenTime();
+    List<KlineDto> older = upstream.getCandlesBetween(symbol, interval, from, first);
+    series.prepend(older);
+
+    // A whole page-sized stretch with nothing in it is not a maintenance gap —
+    // it is the time before the pair was listed. Remember that, so backtests
+    // reaching further back stop asking.
+    long step = Intervals.millis(interval);
+    long firstFound = older.isEmpty() ? first : older.getFirst().openTime();
+    if (firstFound - from >= PAGE * step) {
+      series.markHistoryComplete();
+      log.infof("Candle store %s %s reaches the start of exchange history", symbol, interval);
+    }
+  }
+
+  /** The newest {@code limit} candles: stored closed ones followed by the forming tail. */
+  private static List<KlineDto> window(CandleSeries series, List<KlineDto> forming, int limit) {
+    int fromStore = Math.max(0, limit - forming.size());
+    List<KlineDto> out = new ArrayList<>(fromStore + forming.size());
+    out.addAll(series.tail(fromStore));
+    out.addAll(forming.size() > limit ? forming.subList(forming.size() - limit, forming.size()) : forming);
+    return out;
+  }
+
+  private static List<KlineDto> closed(List<KlineDto> candles, long now) {
+    return candles.stream().filter(k -> k.closeTime() < now).toList();
+  }
+
+  private static List<KlineDto> forming(List<KlineDto> candles, long now) {
+    return candles.stream().filter(k -> k.closeTime() >= now).toList();
+  }
+
+  /** A derived series: its completed bars so far, and the aggregator that continues it. */
+  private static final class Rollup {
+
+    final CandleAggregator aggregator;
+    final List<KlineDto> bars = new ArrayList<>();
+    /** Open times of the oldest base candle still covered by {@link #bars}, and of the last folded in. */
+    long firstBase = Long.MAX_VALUE;
+    long lastBase = Long.MIN_VALUE;
+    private int keep;
+
+    Rollup(String interval) {
+      aggregator = new CandleAggregator(interval);
+    }
+
+    void fold(List<KlineDto> baseCandles) {
+      if (baseCandles.isEmpty()) return;
+      for (KlineDto k : baseCandles) aggregator.add(k, bars::add);
+      firstBase = Math.min(firstBase, baseCandles.getFirst().openTime());
+      lastBase = baseCandles.getLast().openTime();
+    }
+
+    /** Holds on to at least the newest {@code count} bars, dropping older ones in batches. */
+    void keep(int count) {
+      keep = Math.max(keep, count);
+      if (bars.size() <= 2 * keep) return;
+      bars.subList(0, bars.size() - keep).clear();
+      firstBase = bars.getFirst().openTime();
+    }
+  }
+}
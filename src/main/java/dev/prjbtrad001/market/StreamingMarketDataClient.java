@@ -0,0 +1,540 @@
+package dev.prjbtrad001.market;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Market data pushed over Binance's combined WebSocket stream instead of polled.
+ *
+ * Every pair a live caller asks about gets a {@code <symbol>@kline_<interval>}
+ * and a {@code <symbol>@miniTicker} subscription on one shared connection. The
+ * client keeps the last price and a window of recent candles in memory, so
+ * {@link #getPrice} and recent {@link #getCandles} / {@link #getCandlesBetween}
+ * are answered locally with no I/O at all.
+ *
+ * Local answers are only given while they are provably current: the socket is
+ * up and the forming candle held is the one that should be forming now. Any
+ * other case (cold pair, disconnected, a close not yet received, deep history
+ * for a backtest) falls through to the REST client, so correctness never
+ * depends on the stream.
+ *
+ * Streams stay open while someone reads them. Those of the pairs the running
+ * fleet trades ({@link #follow}) are opened at start-up and kept; any other is
+ * closed once nobody has read it for {@code idle}, so a page looked at once
+ * does not leave its streams running for good.
+ *
+ * Gaps are repaired from REST: whenever a kline event opens further ahead than
+ * the next expected candle — after a reconnect, typically — the missed closed
+ * candles are fetched before the window is trusted again.
+ *
+ * Opt-in ({@code bot.market.stream.enabled}); when off, every call simply goes
+ * to REST.
+ */
+@JBossLog
+@Upstream
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class StreamingMarketDataClient implements MarketDataClient {
+
+  /** Closed candles kept per stream — a full REST page, enough for any bot. */
+  static final int WINDOW = 1000;
+  private static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+
+  @Inject
+  @Upstream
+  BinanceDataClient rest;
+
+  @ConfigProperty(name = "bot.market.stream.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @ConfigProperty(name = "bot.market.stream.url", defaultValue = "wss://stream.binance.com:9443/stream")
+  String url;
+
+  Clock clock = Clock.systemUTC();
+  Duration initialBackoff = Duration.ofSeconds(1);
+  Duration idle = Duration.ofMinutes(10);
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final HttpClient http = HttpClient.newHttpClient();
+  private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "market-stream");
+    t.setDaemon(true);
+    return t;
+  });
+
+  /** Stream name → state, for both kline and ticker streams. */
+  private final Map<String, KlineWindow> klines = new ConcurrentHashMap<>();
+  private final Map<String, BigDecimal> prices = new ConcurrentHashMap<>();
+  private final Set<String> streams = ConcurrentHashMap.newKeySet();
+  /** Stream → when it was last read; what {@link #dropIdle} goes by. */
+  private final Map<String, Long> lastRead = new ConcurrentHashMap<>();
+  /** The running fleet's streams, never dropped as idle. */
+  private volatile Set<String> followed = Set.of();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  private final AtomicBoolean connecting = new AtomicBoolean();
+  private final AtomicInteger requestId = new AtomicInteger();
+  /** One frame at a time; a lock, since callers may be virtual threads waiting on the send. */
+  private final ReentrantLock sending = new ReentrantLock();
+  private volatile WebSocket socket;
+  private volatile boolean closed;
+  private Duration backoff;
+
+  // ── MarketDataClient ─────────────────────────────────────────────
+
+  @Override
+  public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+    if (!enabled) return rest.getCandles(symbol, interval, limit);
+    KlineWindow w = window(symbol, interval);
+    List<KlineDto> local = w.latest(limit, now(), isConnected());
+    return local != null ? local : rest.getCandles(symbol, interval, limit);
+  }
+
+  @Override
+  public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+    // Backtest-sized requests: only answered locally when they happen to fit.
+    if (enabled && total <= WINDOW) {
+      KlineWindow w = klines.get(klineStream(symbol, interval));
+      List<KlineDto> local = w == null ? null : w.latest(total, now(), isConnected());
+      if (local != null) {
+        read(klineStream(symbol, interval));
+        return local;
+      }
+    }
+    return rest.getCandlesRange(symbol, interval, total);
+  }
+
+  @Override
+  public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+    if (enabled) {
+      KlineWindow w = klines.get(klineStream(symbol, interval));
+      List<KlineDto> local = w == null ? null : w.between(from, to, now(), isConnected());
+      if (local != null) {
+        read(klineStream(symbol, interval));
+        return local;
+      }
+    }
+    return rest.getCandlesBetween(symbol, interval, from, to);
+  }
+
+  @Override
+  public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+    return rest.getCandlesPage(symbol, interval, startTime, endTime, limit);
+  }
+
+  @Override
+  public BigDecimal getPrice(String symbol) {
+    if (!enabled) return rest.getPrice(symbol);
+    String stream = tickerStream(symbol);
+    read(stream);
+    subscribe(stream);
+    BigDecimal price = isConnected() ? prices.get(stream) : null;
+    return price != null ? price : rest.getPrice(symbol);
+  }
+
+  @Override
+  public Map<String, BigDecimal> getPrices(Collection<String> symbols) {
+    if (!enabled) return rest.getPrices(symbols);
+    Map<String, BigDecimal> out = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    boolean live = isConnected();
+    for (String symbol : symbols) {
+      String stream = tickerStream(symbol);
+      read(stream);
+      subscribe(stream);
+      BigDecimal price = live ? prices.get(stream) : null;
+      if (price != null) out.put(symbol, price);
+      else missing.add(symbol);
+    }
+    if (!missing.isEmpty()) out.putAll(rest.getPrices(missing));
+    return out;
+  }
+
+  // ── subscriptions ────────────────────────────────────────────────
+
+  /** The pairs currently streamed, e.g. for a status page. */
+  public Set<String> streams() {
+    return Set.copyOf(streams);
+  }
+
+  public boolean isConnected() {
+    return socket != null;
+  }
+
+  /**
+   * Opens the streams of the pairs the running fleet trades, warming their
+   * candle windows in the background so the first tick finds them current,
+   * and closes whatever else has gone idle.
+   */
+  @Override
+  public void follow(Map<String, Set<String>> pairs) {
+    if (!enabled) return;
+    Set<String> wanted = new HashSet<>();
+    pairs.forEach((symbol, intervals) -> {
+      wanted.add(tickerStream(symbol));
+      for (String interval : intervals) wanted.add(klineStream(symbol, interval));
+    });
+    followed = Set.copyOf(wanted);
+    pairs.forEach((symbol, intervals) -> {
+      subscribe(tickerStream(symbol));
+      for (String interval : intervals) maintenance.execute(() -> window(symbol, interval));
+    });
+    dropIdle();
+  }
+
+  /**
+   * Closes the streams that are neither followed nor read within
+   * {@code idle}, and forgets what they held.
+   */
+  void dropIdle() {
+    long cutoff = now() - idle.toMillis();
+    Set<String> keep = followed;
+    List<String> dropped = new ArrayList<>();
+    for (String stream : List.copyOf(streams)) {
+      if (keep.contains(stream) || lastRead.getOrDefault(stream, Long.MIN_VALUE) >= cutoff) continue;
+      streams.remove(stream);
+      klines.remove(stream);
+      prices.remove(stream);
+      lastRead.remove(stream);
+      dropped.add(stream);
+    }
+    if (dropped.isEmpty()) return;
+    log.infof("Market stream: closing %d idle stream(s)", dropped.size());
+    WebSocket ws = socket;
+    if (ws != null) {
+      send(ws, "{\"method\":\"UNSUBSCRIBE\",\"params\":" + toJsonArray(Set.copyOf(dropped)) + ",\"id\":"
+        + requestId.incrementAndGet() + "}");
+    }
+  }
+
+  private void read(String stream) {
+    lastRead.put(stream, now());
+  }
+
+  /** Window for a live pair, seeding it from REST and subscribing on first use. */
+  private KlineWindow window(String symbol, String interval) {
+    String stream = klineStream(symbol, interval);
+    read(stream);
+    KlineWindow w = klines.computeIfAbsent(stream, s -> new KlineWindow(interval));
+    if (w.seeded.compareAndSet(false, true)) {
+      subscribe(stream);
+      // Seed after subscribing: anything that closes in between shows up as a
+      // gap on the first event and is repaired then.
+      w.seed(rest.getCandles(symbol, interval, WINDOW), now());
+    }
+    return w;
+  }
+
+  private void subscribe(String stream) {
+    if (!streams.add(stream)) return;
+    if (sweeping.compareAndSet(false, true)) {
+      maintenance.scheduleWithFixedDelay(this::dropIdle, idle.toMillis(), idle.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    WebSocket ws = socket;
+    if (ws == null) {
+      connect();   // the new connection subscribes to every known stream
+    } else {
+      send(ws, "{\"method\":\"SUBSCRIBE\",\"params\":[\"" + stream + "\"],\"id\":" + requestId.incrementAndGet() + "}");
+    }
+  }
+
+  private void connect() {
+    if (closed || streams.isEmpty() || !connecting.compareAndSet(false, true)) return;
+    URI uri = URI.create(url + "?streams=" + String.join("/", streams));
+    http.newWebSocketBuilder()
+      .connectTimeout(Duration.ofSeconds(10))
+      .buildAsync(uri, new Listener())
+      .whenComplete((ws, err) -> {
+        connecting.set(false);
+        if (err != null) {
+          log.warnf("Market stream connect failed: %s", err.getMessage());
+          scheduleReconnect();
+          return;
+        }
+        socket = ws;
+        backoff = null;
+        log.infof("Market stream connected (%d streams)", streams.size());
+        // Streams added while connecting were not in the URL.
+        send(ws, "{\"method\":\"SUBSCRIBE\",\"params\":" + toJsonArray(streams) + ",\"id\":"
+          + requestId.incrementAndGet() + "}");
+      });
+  }
+
+  private void scheduleReconnect() {
+    if (closed) return;
+    backoff = backoff == null ? initialBackoff : min(backoff.multipliedBy(2), MAX_BACKOFF);
+    maintenance.schedule(this::connect, backoff.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void send(WebSocket ws, String text) {
+    sending.lock();
+    try {
+      ws.sendText(text, true).join();
+    } catch (Exception e) {
+      log.warnf("Market stream send failed: %s", e.getMessage());
+    } finally {
+      sending.unlock();
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    closed = true;
+    WebSocket ws = socket;
+    socket = null;
+    if (ws != null) ws.abort();
+    maintenance.shutdownNow();
+  }
+
+  // ── incoming events ──────────────────────────────────────────────
+
+  void onMessage(String text) {
+    JsonNode root;
+    try {
+      root = mapper.readTree(text);
+    } catch (Exception e) {
+      log.debugf("Unreadable stream message: %s", e.getMessage());
+      return;
+    }
+    JsonNode data = root.get("data");
+    String stream = root.path("stream").asText(null);
+    if (data == null || stream == null) return;   // subscription acks
+
+    switch (data.path("e").asText()) {
+      case "24hrMiniTicker" -> prices.put(stream, new BigDecimal(data.get("c").asText()));
+      case "kline" -> onKline(stream, data.get("k"));
+      default -> {
+      }
+    }
+  }
+
+  private void onKline(String stream, JsonNode k) {
+    KlineWindow w = klines.get(stream);
+    if (w == null) return;
+    KlineDto candle = new KlineDto(
+      k.get("t").asLong(),
+      new BigDecimal(k.get("o").asText()),
+      new BigDecimal(k.get("h").asText()),
+      new BigDecimal(k.get("l").asText()),
+      new BigDecimal(k.get("c").asText()),
+      new BigDecimal(k.get("v").asText()),
+      k.get("T").asLong());
+    Long gapFrom = w.update(candle, k.path("x").asBoolean());
+    if (gapFrom != null) {
+      String symbol = k.get("s").asText();
+      String interval = k.get("i").asText();
+      maintenance.execute(() -> gapFill(w, symbol, interval, gapFrom, candle.openTime()));
+    }
+  }
+
+  /** Fetches the closed candles in [from, to) missed while the stream was away. */
+  private void gapFill(KlineWindow w, String symbol, String interval, long from, long to) {
+    List<KlineDto> missed;
+    try {
+      missed = rest.getCandlesBetween(symbol, interval, from, to);
+    } catch (UncheckedIOException e) {
+      missed = List.of();
+    }
+    if (missed.isEmpty() && to > from) {
+      // REST is down too. Drop the window; the next read re-seeds it.
+      log.warnf("Market stream %s %s: gap fill failed, re-seeding on next read", symbol, interval);
+      w.invalidate();
+      return;
+    }
+    w.fill(missed);
+    log.infof("Market stream %s %s: filled %d missed candle(s) from REST", symbol, interval, missed.size());
+  }
+
+  private final class Listener implements WebSocket.Listener {
+
+    private final StringBuilder partial = new StringBuilder();
+
+    @Override
+    public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+      partial.append(data);
+      if (last) {
+        onMessage(partial.toString());
+        partial.setLength(0);
+      }
+      ws.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket ws, int status, String reason) {
+      log.warnf("Market stream closed (%d %s), reconnecting", status, reason);
+      dropped(ws);
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket ws, Throwable error) {
+      log.warnf("Market stream error: %s, reconnecting", error.getMessage());
+      dropped(ws);
+    }
+  }
+
+  private void dropped(WebSocket ws) {
+    if (socket == ws) socket = null;
+    // A price from before the outage is not a live price; refill from events.
+    prices.clear();
+    scheduleReconnect();
+  }
+
+  // ── helpers ──────────────────────────────────────────────────────
+
+  private long now() {
+    return clock.millis();
+  }
+
+  static String klineStream(String symbol, String interval) {
+    return symbol.toLowerCase(Locale.ROOT) + "@kline_" + interval;
+  }
+
+  static String tickerStream(String symbol) {
+    return symbol.toLowerCase(Locale.ROOT) + "@miniTicker";
+  }
+
+  private static String toJsonArray(Set<String> values) {
+    return values.stream().map(v -> "\"" + v + "\"").reduce((a, b) -> a + "," + b)
+      .map(s -> "[" + s + "]").orElse("[]");
+  }
+
+  private static Duration min(Duration a, Duration b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  /**
+   * Closed candles plus the forming one for a single kline stream. All access
+   * is synchronised on the window; events and readers never block for long.
+   */
+  static final class KlineWindow {
+
+    private final String interval;
+    private final long step;
+    private final ArrayDeque<KlineDto> closed = new ArrayDeque<>();
+    private KlineDto forming;
+    /** Set while a gap is being filled; reads fall back to REST meanwhile. */
+    private boolean gap;
+    private final List<KlineDto> pending = new ArrayList<>();
+    final AtomicBoolean seeded = new AtomicBoolean();
+
+    KlineWindow(String interval) {
+      this.interval = interval;
+      this.step = Intervals.millis(interval);
+    }
+
+    synchronized void seed(List<KlineDto> candles, long now) {
+      for (KlineDto k : candles) {
+        if (k.closeTime() < now) addClosed(k);
+        else forming = k;
+      }
+    }
+
+    /**
+     * Applies a kline event. Returns the open time from which closed candles
+     * are missing, or null when the event follows on from what is held.
+     */
+    synchronized Long update(KlineDto candle, boolean isClosed) {
+      Long gapFrom = null;
+      if (!gap && !closed.isEmpty() && candle.openTime() > closed.getLast().openTime() + step) {
+        // The forming candle we held (if any) closed while we were not looking,
+        // and maybe more after it. Flag the hole; reads go to REST until filled.
+        gap = true;
+        gapFrom = closed.getLast().openTime() + step;
+      }
+      if (isClosed) {
+        if (gap) pending.add(candle);
+        else addClosed(candle);
+        forming = null;
+      } else {
+        forming = candle;
+      }
+      return gapFrom;
+    }
+
+    /** Adds the candles fetched for a gap, then whatever closed while fetching. */
+    synchronized void fill(List<KlineDto> missed) {
+      missed.forEach(this::addClosed);
+      pending.forEach(this::addClosed);
+      pending.clear();
+      gap = false;
+    }
+
+    synchronized void invalidate() {
+      closed.clear();
+      pending.clear();
+      forming = null;
+      gap = false;
+      seeded.set(false);
+    }
+
+    /** The newest {@code limit} candles ending with the forming one, or null if not current. */
+    synchronized List<KlineDto> latest(int limit, long now, boolean live) {
+      if (!isCurrent(now, live) || closed.size() < limit - 1) return null;
+      List<KlineDto> out = new ArrayList<>(limit);
+      int skip = closed.size() - (limit - 1);
+      int i = 0;
+      for (KlineDto k : closed) {
+        if (i++ >= skip) out.add(k);
+      }
+      out.add(forming);
+      return out;
+    }
+
+    /** Candles opening in [from, to), or null when the window cannot vouch for all of them. */
+    synchronized List<KlineDto> between(long from, long to, long now, boolean live) {
+      if (!isCurrent(now, live) || closed.isEmpty() || from < closed.getFirst().openTime()) return null;
+      List<KlineDto> out = new ArrayList<>();
+      for (KlineDto k : closed) {
+        if (k.openTime() >= from && k.openTime() < to) out.add(k);
+      }
+      if (forming.openTime() >= from && forming.openTime() < to) out.add(forming);
+      return out;
+    }
+
+    private boolean isCurrent(long now, boolean live) {
+      return live && !gap && forming != null && forming.openTime() == Intervals.openTimeOf(now, interval)
+        && (closed.isEmpty() || closed.getLast().openTime() + step == forming.openTime());
+    }
+
+    private void addClosed(KlineDto k) {
+      if (!closed.isEmpty() && k.openTime() <= closed.getLast().openTime()) return;
+      closed.addLast(k);
+      if (closed.size() > WINDOW) closed.removeFirst();
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package dev.prjbtrad001.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tradable universe, read from Binance's {@code exchangeInfo} instead of
+ * a hard-coded list, with a dense {@code int} id per symbol.
+ *
+ * Ids are handed out 0, 1, 2 … as symbols are first seen and never reused or
+ * renumbered, so anything per symbol — a price table, a cache index — can be
+ * a plain array indexed by id and only ever has to grow. A symbol that is
+ * delisted keeps its id and is just no longer {@linkplain Symbol#trading()
+ * trading}. Ids live as long as the process; what is persisted is the name.
+ *
+ * The last snapshot is kept in {@code bot.market.symbols.file}, so a restart
+ * (or an exchange outage) starts from the known universe at once, and is
+ * refreshed in the background every {@code bot.market.symbols.refresh}. Before
+ * the first snapshot ever succeeds, {@code bot.market.symbols.fallback} is the
+ * universe.
+ */
+@JBossLog
+@ApplicationScoped
+public class SymbolRegistry {
+
+  private static final JsonFactory JSON = new JsonFactory();
+
+  @Inject
+  @Upstream
+  BinanceDataClient binance;
+
+  @ConfigProperty(name = "bot.market.symbols.file", defaultValue = "data/exchange-info.json")
+  String file;
+  /** Quote assets offered for trading; the paper wallet is in BRL. */
+  @ConfigProperty(name = "bot.market.symbols.quotes", defaultValue = "BRL")
+  List<String> quotes = List.of("BRL");
+  @ConfigProperty(name = "bot.market.symbols.refresh", defaultValue = "6h")
+  Duration refresh;
+  @ConfigProperty(name = "bot.market.symbols.fallback", defaultValue = "BTCBRL")
+  List<String> fallback = List.of();
+
+  Clock clock = Clock.systemUTC();
+
+  private volatile Table table = Table.EMPTY;
+  private ScheduledExecutorService refresher;
+
+  /** One exchange symbol. {@code baseAsset}/{@code quoteAsset} are null for names seen only in our own data. */
+  public record Symbol(int id, String name, String baseAsset, String quoteAsset, boolean trading) {
+  }
+
+  /** A symbol as listed in a snapshot, before it has an id. */
+  record Listing(String name, String baseAsset, String quoteAsset, boolean trading) {
+  }
+
+  void onStart(@Observes StartupEvent ev) {
+    load();
+    refresher = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("symbol-refresh").factory());
+    refresher.scheduleWithFixedDelay(this::refreshQuietly, initialDelay(), refresh.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (refresher != null) refresher.shutdownNow();
+  }
+
+  /** Reads the cached snapshot, or falls back to the configured list. */
+  void load() {
+    Path path = Path.of(file);
+    if (Files.exists(path)) {
+      try (InputStream in = Files.newInputStream(path)) {
+        apply(parse(in));
+        log.infof("Symbol registry: %d symbols from %s", size(), path);
+        return;
+      } catch (IOException e) {
+        log.warnf("Cannot read symbol snapshot %s: %s", path, e.getMessage());
+      }
+    }
+    apply(fallback.stream().map(this::guess).toList());
+    log.infof("Symbol registry: no snapshot yet, starting with %d configured symbols", size());
+  }
+
+  /** Fetches a fresh snapshot and stores it; false when the exchange did not answer. */
+  public boolean refresh() throws IOException {
+    byte[] info = binance.getExchangeInfo();
+    if (info == null) return false;
+    apply(parse(new ByteArrayInputStream(info)));
+
+    Path path = Path.of(file);
+    if (path.getParent() != null) Files.createDirectories(path.getParent());
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    Files.write(tmp, info);
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    log.infof("Symbol registry refreshed: %d symbols, %d tradable", size(), tradable().size());
+    return true;
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (Exception e) {
+      log.warnf("Symbol registry refresh failed: %s", e.getMessage());
+    }
+  }
+
+  /** Refresh at once when the snapshot is missing or stale, otherwise when it comes due. */
+  private long initialDelay() {
+    try {
+      long age = clock.millis() - Files.getLastModifiedTime(Path.of(file)).toMillis();
+      return Math.max(0, refresh.toMillis() - age);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  // ── lookups ──────────────────────────────────────────────────────
+
+  /**
+   * The id of {@code symbol}. A name the exchange never listed (an old bot's
+   * pair, a typo in a URL) still gets one, so callers can index arrays without
+   * a special case; it is simply never {@linkplain #isTradable tradable}.
+   */
+  public int id(String symbol) {
+    Integer id = table.ids.get(symbol);
+    return id != null ? id : register(symbol);
+  }
+
+  public String name(int id) {
+    return table.symbols[id].name();
+  }
+
+  public Symbol get(int id) {
+    return table.symbols[id];
+  }
+
+  /** Ids handed out so far; every id is below this. */
+  public int size() {
+    return table.symbols.length;
+  }
+
+  public boolean isTradable(String symbol) {
+    Integer id = table.ids.get(symbol);
+    return id != null && isTradable(table.symbols[id]);
+  }
+
+  /** Names trading now in one of the configured quote assets, sorted: what the forms offer. */
+  public List<String> tradable() {
+    return table.tradable;
+  }
+
+  private boolean isTradable(Symbol s) {
+    return s.trading() && s.quoteAsset() != null && quotes.contains(s.quoteAsset());
+  }
+
+  // ── updates ──────────────────────────────────────────────────────
+
+  private synchronized int register(String symbol) {
+    Integer id = table.ids.get(symbol);
+    if (id != null) return id;
+    Table t = table;
+    Symbol[] symbols = Arrays.copyOf(t.symbols, t.symbols.length + 1);
+    symbols[t.symbols.length] = new Symbol(t.symbols.length, symbol, null, null, false);
+    table = build(symbols);
+    return t.symbols.length;
+  }
+
+  /** Merges a snapshot: known names keep their id, new ones are appended, missing ones stop trading. */
+  synchronized void apply(List<Listing> listings) {
+    Table t = table;
+    Map<String, Listing> byName = new HashMap<>();
+    for (Listing l : listings) byName.put(l.name(), l);
+
+    List<Symbol> symbols = new ArrayList<>(Math.max(t.symbols.length, listings.size()));
+    for (Symbol s : t.symbols) {
+      Listing l = byName.remove(s.name());
+      symbols.add(l == null
+        ? new Symbol(s.id(), s.name(), s.baseAsset(), s.quoteAsset(), false)
+        : new Symbol(s.id(), s.name(), l.baseAsset(), l.quoteAsset(), l.trading()));
+    }
+    for (Listing l : listings) {
+      if (byName.remove(l.name()) == null) continue;   // already placed above, or a duplicate
+      symbols.add(new Symbol(symbols.size(), l.name(), l.baseAsset(), l.quoteAsset(), l.trading()));
+    }
+    table = build(symbols.toArray(Symbol[]::new));
+  }
+
+  private Table build(Symbol[] symbols) {
+    Map<String, Integer> ids = new HashMap<>(symbols.length * 2);
+    List<String> tradable = new ArrayList<>();
+    for (Symbol s : symbols) {
+      ids.put(s.name(), s.id());
+      if (isTradable(s)) tradable.add(s.name());
+    }
+    tradable.sort(null);
+    return new Table(symbols, ids, List.copyOf(tradable));
+  }
+
+  /** A configured name like "BTCBRL", split on whichever configured quote it ends with. */
+  private Listing guess(String name) {
+    for (String q : quotes) {
+      if (name.endsWith(q) && name.length() > q.length()) {
+        return new Listing(name, name.substring(0, name.length() - q.length()), q, true);
+      }
+    }
+    return new Listing(name, null, null, true);
+  }
+
+  /**
+   * Streams the {@code symbols} array out of an exchangeInfo document. Each
+   * entry carries dozens of filters and permissions; only the name, status and
+   * the two assets are kept.
+   */
+  static List<Listing> parse(InputStream in) throws IOException {
+    List<Listing> out = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    try (JsonParser p = JSON.createParser(in)) {
+      if (p.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Expected an exchangeInfo object, got " + p.currentToken());
+      }
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String field = p.currentName();
+        if (p.nextToken() != JsonToken.START_ARRAY || !"symbols".equals(field)) {
+          p.skipChildren();
+          continue;
+        }
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+          String name = null, status = null, base = null, quote = null;
+          while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            p.nextToken();
+            switch (f) {
+              case "symbol" -> name = p.getText();
+              case "status" -> status = p.getText();
+              case "baseAsset" -> base = p.getText();
+              case "quoteAsset" -> quote = p.getText();
+              default -> p.skipChildren();
+            }
+          }
+          if (name != null && seen.add(name)) out.add(new Listing(name, base, quote, "TRADING".equals(status)));
+        }
+      }
+    }
+    return out;
+  }
+
+  private record Table(Symbol[] symbols, Map<String, Integer> ids, List<String> tradable) {
+    static final Table EMPTY = new Table(new Symbol[0], Map.of(), List.of());
+  }
+}
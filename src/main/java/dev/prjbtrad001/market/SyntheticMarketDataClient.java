@@ -0,0 +1,357 @@
+package dev.prjbtrad001.market;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A market that exists only in memory: every symbol is a seeded random walk,
+ * so the bots, the store and the backtest can be run at any size with no
+ * network and get the same candles on every run.
+ *
+ * Each symbol has one price path on the {@code base} grid (1m by default),
+ * starting at {@code start}. Candles of any interval made of whole base steps
+ * are cut from that path, so a 4h candle is exactly its sixteen 15m candles and
+ * {@link #getPrice} lies inside the forming candle of every timeframe. The path
+ * follows one of three models:
+ *
+ *  - {@link Model#GBM}: geometric Brownian motion, constant drift and volatility;
+ *  - {@link Model#JUMP}: GBM plus Poisson-timed jumps of normal log size (Merton);
+ *  - {@link Model#REGIME}: GBM whose volatility switches between a calm and a
+ *    turbulent state, each lasting {@code regime-days} on average.
+ *
+ * Nothing is stored but a checkpoint every {@value #BLOCK} base steps. Every
+ * random number is a hash of (seed, symbol, step), so any stretch of history
+ * is generated on demand from the checkpoint before it; years of 1m candles
+ * take well under a second the first time, and far history costs no memory.
+ *
+ * Now is {@link MarketClock} time, so with {@code bot.clock.speed} above 1 a
+ * load test lives through days of candles in minutes.
+ *
+ * Opt-in at build time ({@code bot.market.synthetic.enabled}); when built in,
+ * it replaces the exchange for everything that reads market data. Point the
+ * candle store at its own directory so synthetic bars never mix with real ones.
+ */
+@JBossLog
+@Upstream
+@Alternative
+@Priority(2)
+@ApplicationScoped
+@IfBuildProperty(name = "bot.market.synthetic.enabled", stringValue = "true")
+public class SyntheticMarketDataClient implements MarketDataClient {
+
+  public enum Model {
+    GBM, JUMP, REGIME
+  }
+
+  /** Base steps between stored checkpoints: the most any random access replays. */
+  static final int BLOCK = 1024;
+  private static final int MAX_PER_REQUEST = 1000;
+  private static final double YEAR_MILLIS = 365.0 * 86_400_000L;
+  private static final double CALM = 0.6, STORM = 2.0;
+
+  // Independent random streams per step.
+  private static final long DIFFUSION = 1, JUMP_AT = 2, JUMP_SIZE = 3, SWITCH = 4, HIGH = 5, LOW = 6, VOLUME = 7,
+    INTRA = 8;
+
+  @ConfigProperty(name = "bot.market.synthetic.model", defaultValue = "GBM")
+  Model model = Model.GBM;
+  @ConfigProperty(name = "bot.market.synthetic.seed", defaultValue = "1")
+  long seed = 1;
+  @ConfigProperty(name = "bot.market.synthetic.base", defaultValue = "1m")
+  String base = "1m";
+  @ConfigProperty(name = "bot.market.synthetic.start", defaultValue = "2017-01-01T00:00:00Z")
+  Instant start = Instant.parse("2017-01-01T00:00:00Z");
+  @ConfigProperty(name = "bot.market.synthetic.initial-price", defaultValue = "100")
+  double initialPrice = 100;
+  /** Per year, as fractions: 0.6 is 60% annualised volatility. */
+  @ConfigProperty(name = "bot.market.synthetic.drift", defaultValue = "0")
+  double drift;
+  @ConfigProperty(name = "bot.market.synthetic.volatility", defaultValue = "0.6")
+  double volatility = 0.6;
+  @ConfigProperty(name = "bot.market.synthetic.jumps-per-year", defaultValue = "12")
+  double jumpsPerYear = 12;
+  @ConfigProperty(name = "bot.market.synthetic.jump-mean", defaultValue = "-0.01")
+  double jumpMean = -0.01;
+  @ConfigProperty(name = "bot.market.synthetic.jump-stdev", defaultValue = "0.05")
+  double jumpStdev = 0.05;
+  @ConfigProperty(name = "bot.market.synthetic.regime-days", defaultValue = "30")
+  double regimeDays = 30;
+  /** Base asset traded per day at typical volatility. */
+  @ConfigProperty(name = "bot.market.synthetic.volume-per-day", defaultValue = "1000")
+  double volumePerDay = 1000;
+
+  @Inject
+  Clock clock = Clock.systemUTC();
+
+  private final Map<String, Path> paths = new ConcurrentHashMap<>();
+  private long origin, dt;
+  private double stepYears, switchChance, jumpChance, jumpDrift, stepVolume;
+
+  @PostConstruct
+  void init() {
+    dt = Intervals.millis(base);
+    origin = Intervals.openTimeOf(start.toEpochMilli() + dt - 1, dt);
+    stepYears = dt / YEAR_MILLIS;
+    switchChance = model == Model.REGIME ? 1 - Math.exp(-dt / (regimeDays * 86_400_000L)) : 0;
+    jumpChance = model == Model.JUMP ? 1 - Math.exp(-jumpsPerYear * stepYears) : 0;
+    // Keeps the expected price growth at `drift` with jumps included.
+    jumpDrift = model == Model.JUMP
+      ? jumpsPerYear * (Math.exp(jumpMean + jumpStdev * jumpStdev / 2) - 1) * stepYears : 0;
+    stepVolume = volumePerDay * dt / 86_400_000.0;
+    paths.clear();
+    log.infof("Synthetic market: %s, seed %d, %s steps from %s", model, seed, base, start);
+  }
+
+  private long now() {
+    return clock.millis();
+  }
+
+  // ── MarketDataClient ─────────────────────────────────────────────
+
+  @Override
+  public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+    return getCandleColumns(symbol, interval, limit).asKlines();
+  }
+
+  @Override
+  public CandleColumns getCandleColumns(String symbol, String interval, int limit) {
+    return latest(symbol, interval, Math.min(limit, MAX_PER_REQUEST));
+  }
+
+  @Override
+  public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+    return latest(symbol, interval, total).asKlines();
+  }
+
+  @Override
+  public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+    return columns(symbol, interval, from, to, Integer.MAX_VALUE).asKlines();
+  }
+
+  @Override
+  public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+    int capped = Math.min(Math.max(limit, 1), MAX_PER_REQUEST);
+    long step = Intervals.millis(interval);
+    long to = endTime != null ? endTime + 1 : Intervals.openTimeOf(now(), interval) + step;
+    long from = startTime != null ? startTime : to - capped * step;
+    return columns(symbol, interval, from, to, capped).asKlines();
+  }
+
+  @Override
+  public BigDecimal getPrice(String symbol) {
+    long now = now();
+    if (now < origin) return null;
+    Walker w = walkerAt(path(symbol), (now - origin) / dt);
+    w.step(true);
+    return BigDecimal.valueOf(round(w.priceWithin((now - origin) % dt)));
+  }
+
+  // ── Generation ───────────────────────────────────────────────────
+
+  private CandleColumns latest(String symbol, String interval, int count) {
+    long step = Intervals.millis(interval);
+    long to = Intervals.openTimeOf(now(), interval) + step;
+    return columns(symbol, interval, to - (long) Math.max(count, 1) * step, to, count);
+  }
+
+  /**
+   * Candles opening in [{@code from}, {@code to}), at most {@code max}, the
+   * last one forming if it contains now. Intervals that are not whole base
+   * steps, and anything before the start, yield nothing.
+   */
+  CandleColumns columns(String symbol, String interval, long from, long to, int max) {
+    long step = Intervals.millis(interval);
+    if (step != dt && !Intervals.divides(base, interval)) {
+      log.warnf("Synthetic market cannot make %s candles from %s steps", interval, base);
+      return new CandleColumns(0);
+    }
+    long now = now();
+    long first = Math.max(Intervals.openTimeOf(from + step - 1, interval),
+      Intervals.openTimeOf(origin + step - 1, interval));
+    long last = Math.min(Intervals.openTimeOf(to - 1, interval), Intervals.openTimeOf(now, interval));
+    if (last < first) return new CandleColumns(0);
+    int n = (int) Math.min(max, (last - first) / step + 1);
+
+    CandleColumns out = new CandleColumns(n);
+    int perCandle = (int) (step / dt);
+    Walker w = walkerAt(path(symbol), (first - origin) / dt);
+    for (int c = 0; c < n; c++) {
+      long open = first + c * step;
+      double o = 0, h = Double.NEGATIVE_INFINITY, l = Double.POSITIVE_INFINITY, cl = 0, v = 0;
+      for (int s = 0; s < perCandle; s++) {
+        long stepOpen = open + s * dt;
+        if (stepOpen > now) break;
+        w.step(true);
+        if (s == 0) o = w.open;
+        if (stepOpen + dt <= now) {
+          h = Math.max(h, w.high);
+          l = Math.min(l, w.low);
+          cl = w.close;
+          v += w.volume;
+        } else {
+          // The step now is in: only what has happened so far.
+          double p = w.priceWithin(now - stepOpen);
+          h = Math.max(h, Math.max(w.open, p));
+          l = Math.min(l, Math.min(w.open, p));
+          cl = p;
+          v += w.volume * (now - stepOpen) / dt;
+        }
+      }
+      if (perCandle > 0) w.skipTo((open + step - origin) / dt);
+      out.add(open, round(o), round(h), round(l), round(cl), v, open + step - 1);
+    }
+    return out;
+  }
+
+  private Path path(String symbol) {
+    return paths.computeIfAbsent(symbol, Path::new);
+  }
+
+  private Walker walkerAt(Path p, long k) {
+    int c = (int) (k / BLOCK);
+    Walker w = new Walker(p);
+    synchronized (p) {
+      p.ensure(c);
+      w.k = (long) c * BLOCK;
+      w.x = p.logAt[c];
+      w.regime = p.regimeAt[c];
+    }
+    w.skipTo(k);
+    return w;
+  }
+
+  private static double round(double price) {
+    return Math.round(price * 1e8) / 1e8;
+  }
+
+  /** A symbol's checkpoints: log price and regime at every {@value #BLOCK}th base step. */
+  private final class Path {
+    final long salt;
+    double[] logAt = new double[16];
+    byte[] regimeAt = new byte[16];
+    int checkpoints = 1;
+
+    Path(String symbol) {
+      salt = mix(seed ^ mix(symbol.hashCode()));
+      logAt[0] = Math.log(initialPrice);
+    }
+
+    /** Extends the checkpoints through {@code c}; caller holds the lock. */
+    void ensure(int c) {
+      if (c < checkpoints) return;
+      if (c >= logAt.length) {
+        int cap = Math.max(c + 1, logAt.length * 2);
+        logAt = java.util.Arrays.copyOf(logAt, cap);
+        regimeAt = java.util.Arrays.copyOf(regimeAt, cap);
+      }
+      Walker w = new Walker(this);
+      w.k = (long) (checkpoints - 1) * BLOCK;
+      w.x = logAt[checkpoints - 1];
+      w.regime = regimeAt[checkpoints - 1];
+      for (; checkpoints <= c; checkpoints++) {
+        w.skipTo((long) checkpoints * BLOCK);
+        logAt[checkpoints] = w.x;
+        regimeAt[checkpoints] = (byte) w.regime;
+      }
+    }
+  }
+
+  /**
+   * Walks a path one base step at a time. After {@link #step(boolean)} with
+   * detail, {@code open..volume} describe the step just taken.
+   */
+  private final class Walker {
+    final Path path;
+    long k;
+    double x;
+    int regime;
+    double open, high, low, close, volume;
+    private double sigmaStep, diffusion, jump;
+
+    Walker(Path path) {
+      this.path = path;
+    }
+
+    void skipTo(long target) {
+      while (k < target) step(false);
+    }
+
+    void step(boolean detail) {
+      if (switchChance > 0 && unit(SWITCH) < switchChance) regime ^= 1;
+      double sigma = volatility * (model == Model.REGIME ? (regime == 0 ? CALM : STORM) : 1);
+      sigmaStep = sigma * Math.sqrt(stepYears);
+      diffusion = (drift - sigma * sigma / 2) * stepYears - jumpDrift + sigmaStep * gauss(DIFFUSION);
+      jump = jumpChance > 0 && unit(JUMP_AT) < jumpChance ? jumpMean + jumpStdev * gauss(JUMP_SIZE) : 0;
+      if (detail) {
+        // Exact extremes of a Brownian bridge from 0 to the diffusion move; a jump lands at the close.
+        double var = sigmaStep * sigmaStep;
+        double up = (diffusion + Math.sqrt(diffusion * diffusion - 2 * var * Math.log(unitOpen(HIGH)))) / 2;
+        double down = (diffusion - Math.sqrt(diffusion * diffusion - 2 * var * Math.log(unitOpen(LOW)))) / 2;
+        double end = diffusion + jump;
+        open = Math.exp(x);
+        close = Math.exp(x + end);
+        high = Math.exp(x + Math.max(up, end));
+        low = Math.exp(x + Math.min(down, end));
+        // Busier when the price moves: volume scales with the size of the step.
+        volume = stepVolume * Math.exp(0.5 * gauss(VOLUME) - 0.125)
+          * (0.5 + Math.abs(end) / (sigmaStep * 1.2533));
+        volume = Math.round(volume * 1e8) / 1e8;
+      }
+      x += diffusion + jump;
+      k++;
+    }
+
+    /**
+     * Price {@code elapsed} millis into the step just taken: a bridge point
+     * between its open and close, kept inside its high and low. Drawn per
+     * second, so a price holds for a second of simulated time.
+     */
+    double priceWithin(long elapsed) {
+      double f = (double) elapsed / dt;
+      double start = Math.log(open);
+      double mid = start + f * diffusion + sigmaStep * Math.sqrt(f * (1 - f))
+        * gauss(mix(INTRA + (k - 1) * 31 + elapsed / 1000));
+      return Math.min(high, Math.max(low, Math.exp(mid)));
+    }
+
+    private long bits(long stream) {
+      return mix(path.salt + (k + 1) * 0x9E3779B97F4A7C15L + mix(stream));
+    }
+
+    private double unit(long stream) {
+      return (bits(stream) >>> 11) * 0x1.0p-53;
+    }
+
+    /** Uniform in (0, 1]: safe to take the log of. */
+    private double unitOpen(long stream) {
+      return ((bits(stream) >>> 11) + 1) * 0x1.0p-53;
+    }
+
+    private double gauss(long stream) {
+      long b = bits(stream);
+      double u1 = ((b >>> 40) + 1) * 0x1.0p-24;
+      double u2 = (b & 0xFF_FFFFL) * 0x1.0p-24;
+      return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+  }
+
+  /** SplitMix64's finaliser: a cheap, well-mixed hash of a counter. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
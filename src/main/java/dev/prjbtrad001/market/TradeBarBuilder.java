@@ -0,0 +1,123 @@
+package dev.prjbtrad001.market;
+
+/**
+ * Samples a stream of trades into bars in one pass, holding only the bar being
+ * filled.
+ *
+ * Besides clock bars, a bar can close once the market has done a fixed amount
+ * of business: so many trades ({@link Kind#TICK}), so much base asset
+ * ({@link Kind#VOLUME}) or so much quote-asset value ({@link Kind#DOLLAR}, BRL
+ * for the pairs the bot trades). Busy hours then produce many bars and quiet
+ * ones few, instead of the other way round.
+ *
+ * Trades are fed oldest → newest. A threshold bar closes on the trade that
+ * reaches the threshold, which it keeps whole: one large fill can overshoot,
+ * trades are never split. A bar only closes after the previous one's last
+ * millisecond, so close times stay strictly increasing, as a ta4j series
+ * requires. Time bars follow {@link Intervals#openTimeOf(long, String)}, like
+ * the exchange's klines; an interval without trades yields no bar.
+ *
+ * Bars come out as rows of a {@link CandleColumns}: open time is the first
+ * trade's, close time the last trade's (the bucket end for time bars).
+ */
+public final class TradeBarBuilder {
+
+  public enum Kind {
+    TIME, TICK, VOLUME, DOLLAR
+  }
+
+  private final Kind kind;
+  private final double threshold;
+  private final String interval;
+  private final long step;
+
+  private long lastId = Long.MIN_VALUE;
+  private long lastClose = Long.MIN_VALUE;
+
+  private boolean forming;
+  private long openTime, closeTime;
+  private double open, high, low, close, volume, notional;
+  private long trades;
+
+  private TradeBarBuilder(Kind kind, double threshold, String interval) {
+    this.kind = kind;
+    this.threshold = threshold;
+    this.interval = interval;
+    this.step = interval == null ? 0 : Intervals.millis(interval);
+  }
+
+  /** Bars of one Binance interval ("1m", "4h", ...). */
+  public static TradeBarBuilder time(String interval) {
+    return new TradeBarBuilder(Kind.TIME, 0, interval);
+  }
+
+  /** Bars of at least {@code size} trades, base asset, or quote value, per {@code kind}. */
+  public static TradeBarBuilder of(Kind kind, double size) {
+    if (kind == Kind.TIME) throw new IllegalArgumentException("Time bars take an interval, not a size");
+    if (!(size > 0)) throw new IllegalArgumentException("Bar size must be positive, got " + size);
+    return new TradeBarBuilder(kind, size, null);
+  }
+
+  /** Folds in the next trade, appending each bar it completes to {@code out}. */
+  public void add(AggTrade t, CandleColumns out) {
+    if (t.id() <= lastId) return;   // repeated or out of order, e.g. overlapping files
+    lastId = t.id();
+
+    if (kind == Kind.TIME) {
+      long bucket = Intervals.openTimeOf(t.time(), interval);
+      if (forming && bucket != openTime) flush(out);
+      if (!forming) start(t, bucket);
+      else extend(t);
+      closeTime = bucket + step - 1;
+      return;
+    }
+
+    if (!forming) start(t, t.time());
+    else extend(t);
+    closeTime = t.time();
+    if (reached() && closeTime > lastClose) flush(out);
+  }
+
+  /** Whatever is left when the stream ends: the forming bar, if any, as a last row. */
+  public void finish(CandleColumns out) {
+    if (forming) flush(out);
+  }
+
+  /** Trades in the bar being filled; 0 between bars. */
+  public long formingTrades() {
+    return forming ? trades : 0;
+  }
+
+  private boolean reached() {
+    return switch (kind) {
+      case TICK -> trades >= threshold;
+      case VOLUME -> volume >= threshold;
+      case DOLLAR -> notional >= threshold;
+      case TIME -> false;
+    };
+  }
+
+  private void start(AggTrade t, long openTime) {
+    forming = true;
+    this.openTime = openTime;
+    open = high = low = close = t.price();
+    volume = t.quantity();
+    notional = t.notional();
+    trades = 1;
+  }
+
+  private void extend(AggTrade t) {
+    if (t.price() > high) high = t.price();
+    if (t.price() < low) low = t.price();
+    close = t.price();
+    volume += t.quantity();
+    notional += t.notional();
+    trades++;
+  }
+
+  private void flush(CandleColumns out) {
+    out.add(openTime, open, high, low, close, volume, closeTime);
+    lastClose = closeTime;
+    forming = false;
+  }
+}
@@ -0,0 +1,226 @@
+package dev.prjbtrad001.market;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Aggregated trades kept on disk, and the bars sampled from them.
+ *
+ * A UTC day of trades is one file under {@code bot.market.trades.dir}: either
+ * recorded here from the REST API ({@code BTCBRL-aggTrades-2024-03-15.csv}) or
+ * dropped in as downloaded from data.binance.vision — daily
+ * ({@code BTCBRL-aggTrades-2024-03-15.zip}) or monthly
+ * ({@code BTCBRL-aggTrades-2024-03.zip}). Replaying a range streams the files
+ * in date order through a {@link TradeBarBuilder}, so memory is the bars plus
+ * one read buffer however many millions of trades go past.
+ *
+ * The bars are ordinary candles ({@link CandleColumns#asKlines()}), so the
+ * strategy and the backtest take them as they take klines.
+ */
+@JBossLog
+@ApplicationScoped
+public class TradeBars {
+
+  private static final long DAY = 86_400_000L;
+  private static final long HOUR = 3_600_000L;
+  private static final int PAGE = 1000;
+  /** Same ceiling as a kline backtest; a bar size far too small for the range is refused, not buffered. */
+  static final int MAX_BARS = 100_000;
+
+  @Inject
+  @Upstream
+  BinanceDataClient binance;
+
+  @ConfigProperty(name = "bot.market.trades.dir", defaultValue = "data/trades")
+  String dir;
+
+  /**
+   * What a backtest asks for instead of a timeframe: {@code tick:1000},
+   * {@code volume:2.5}, {@code dollar:500000} or {@code time:15m}.
+   */
+  public record Spec(TradeBarBuilder.Kind kind, double size, String interval) {
+
+    /** Null when {@code text} is a plain timeframe rather than a trade-bar spec. */
+    public static Spec parse(String text) {
+      int colon = text == null ? -1 : text.indexOf(':');
+      if (colon < 0) return null;
+      TradeBarBuilder.Kind kind;
+      try {
+        kind = TradeBarBuilder.Kind.valueOf(text.substring(0, colon).trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown bar type in '" + text + "'; use tick, volume, dollar or time");
+      }
+      String arg = text.substring(colon + 1).trim();
+      if (kind == TradeBarBuilder.Kind.TIME) {
+        Intervals.millis(arg);   // rejects what Binance would not accept
+        return new Spec(kind, 0, arg);
+      }
+      try {
+        return new Spec(kind, Double.parseDouble(arg), null);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Bar size must be a number in '" + text + "'");
+      }
+    }
+
+    public TradeBarBuilder builder() {
+      return kind == TradeBarBuilder.Kind.TIME ? TradeBarBuilder.time(interval) : TradeBarBuilder.of(kind, size);
+    }
+  }
+
+  /**
+   * Bars of the trades in [{@code from}, {@code to}] (UTC dates, inclusive).
+   * Every day must be on disk; the last bar may be one the range cut short.
+   */
+  public CandleColumns bars(String symbol, LocalDate from, LocalDate to, TradeBarBuilder builder) throws IOException {
+    return replay(Path.of(dir), symbol, from, to, builder);
+  }
+
+  static CandleColumns replay(Path directory, String symbol, LocalDate from, LocalDate to,
+                              TradeBarBuilder builder) throws IOException {
+    long start = millis(from), end = millis(to.plusDays(1));
+    CandleColumns out = new CandleColumns(256);
+    LocalDate day = from;
+    while (!day.isAfter(to)) {
+      Path file = dayFile(directory, symbol, day);
+      LocalDate next = day.plusDays(1);
+      if (file == null) {
+        file = directory.resolve(symbol + "-aggTrades-" + month(day) + ".zip");
+        if (!Files.isRegularFile(file)) {
+          throw new IOException("No trades on disk for " + symbol + " on " + day + "; record or import that day first");
+        }
+        next = day.withDayOfMonth(1).plusMonths(1);
+      }
+      try (InputStream in = open(file)) {
+        AggTradeCsv.read(in, t -> {
+          if (t.time() < start || t.time() >= end) return;
+          builder.add(t, out);
+          if (out.size() > MAX_BARS) {
+            throw new UncheckedIOException(new IOException("More than " + MAX_BARS
+              + " bars in that period. Pick a larger bar size or a shorter period."));
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      day = next;
+    }
+    builder.finish(out);
+    return out;
+  }
+
+  /**
+   * Downloads one finished UTC day of {@code symbol}'s trades into the trades
+   * directory, unless it is there already. Trade ids must run without a hole;
+   * nothing is kept from a day that could not be fetched whole.
+   */
+  public Report record(String symbol, LocalDate day) {
+    return RequestPriority.call(RequestPriority.BACKTEST, () -> recordInto(Path.of(dir), symbol, day));
+  }
+
+  Report recordInto(Path directory, String symbol, LocalDate day) {
+    Path target = directory.resolve(symbol + "-aggTrades-" + day + ".csv");
+    if (dayFile(directory, symbol, day) != null) return new Report(symbol, day, 0, null);
+    long start = millis(day), end = start + DAY;
+    if (end > System.currentTimeMillis()) return Report.failed(symbol, day, "the day is not over yet");
+
+    // Binance only searches by time an hour at a time; find the day's first trade id, then page by id.
+    Long fromId = null;
+    for (long t = start; fromId == null && t < end; t += HOUR) {
+      List<AggTrade> first = binance.getAggTrades(symbol, null, t, t + HOUR - 1, 1);
+      if (first == null) return Report.failed(symbol, day, "exchange did not answer");
+      if (!first.isEmpty()) fromId = first.getFirst().id();
+    }
+    if (fromId == null) return Report.failed(symbol, day, "no trades that day");
+
+    Path tmp = target.resolveSibling(target.getFileName() + ".part");
+    long count = 0;
+    try {
+      Files.createDirectories(directory);
+      try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        long expected = fromId;
+        boolean done = false;
+        while (!done) {
+          List<AggTrade> page = binance.getAggTrades(symbol, expected, null, null, PAGE);
+          if (page == null) return Report.failed(symbol, day, "exchange did not answer after " + count + " trades");
+          for (AggTrade t : page) {
+            if (t.time() >= end) {
+              done = true;
+              break;
+            }
+            if (t.id() != expected) {
+              return Report.failed(symbol, day, "trade ids jump from " + (expected - 1) + " to " + t.id());
+            }
+            AggTradeCsv.write(out, t);
+            expected++;
+            count++;
+          }
+          if (page.size() < PAGE) done = true;
+        }
+      }
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      return Report.failed(symbol, day, "cannot write " + target + ": " + e.getMessage());
+    } finally {
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException ignored) {
+        // a stale .part file is overwritten by the next attempt
+      }
+    }
+    log.infof("Recorded %d %s trades for %s", count, symbol, day);
+    return new Report(symbol, day, count, null);
+  }
+
+  /** A day's own file, recorded or dumped; null when only a monthly dump could hold it. */
+  private static Path dayFile(Path directory, String symbol, LocalDate day) {
+    for (String ext : new String[]{".csv", ".zip"}) {
+      Path p = directory.resolve(symbol + "-aggTrades-" + day + ext);
+      if (Files.isRegularFile(p)) return p;
+    }
+    return null;
+  }
+
+  private static InputStream open(Path file) throws IOException {
+    InputStream raw = Files.newInputStream(file);
+    if (!file.getFileName().toString().endsWith(".zip")) return raw;
+    ZipInputStream zip = new ZipInputStream(raw);
+    for (ZipEntry e = zip.getNextEntry(); e != null; e = zip.getNextEntry()) {
+      if (e.getName().endsWith(".csv")) return zip;
+    }
+    zip.close();
+    throw new IOException(file.getFileName() + " holds no CSV");
+  }
+
+  private static long millis(LocalDate day) {
+    return day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+  }
+
+  private static String month(LocalDate day) {
+    return String.format("%04d-%02d", day.getYear(), day.getMonthValue());
+  }
+
+  /** Outcome of recording one day; {@code error} is null on success, {@code trades} 0 when it was already there. */
+  public record Report(String symbol, LocalDate day, long trades, String error) {
+
+    static Report failed(String symbol, LocalDate day, String error) {
+      return new Report(symbol, day, 0, error);
+    }
+  }
+}
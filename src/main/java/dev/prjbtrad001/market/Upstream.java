@@ -0,0 +1,20 @@
+package dev.prjbtrad001.market;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the {@link MarketDataClient} that actually talks to the exchange.
+ *
+ * Everything else injects the unqualified client, which sits in front of this
+ * one and answers from local data whenever it can.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+public @interface Upstream {
+}
@@ -0,0 +1,188 @@
+package dev.prjbtrad001.market;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps exchange traffic inside Binance's per-minute request-weight budget.
+ *
+ * A token bucket holds the budget: {@code weightPerMinute} tokens, refilled
+ * continuously, and every request takes its weight out before it is sent. The
+ * bucket is our estimate; the exchange's own count comes back on every
+ * response as {@code X-MBX-USED-WEIGHT-1M}, and the bucket is pulled down to it
+ * whenever the exchange has seen more than we thought (another process on the
+ * same IP, a restart mid-minute). A 429 or 418 stops everything until its
+ * {@code Retry-After} has passed — a second offence is how a ban gets longer.
+ *
+ * When tokens run short, requests queue by {@link RequestPriority}: the oldest
+ * waiter of the most urgent class is served first, and nothing of a lower class
+ * overtakes it. A backtest pulling years of history therefore slows down
+ * instead of starving a stop-loss check.
+ */
+public final class WeightLimiter {
+
+  /** Pause after a 429/418 that came without a Retry-After. */
+  private static final long DEFAULT_PAUSE_SECONDS = 60;
+
+  private final int capacity;
+  private final double tokensPerNano;
+
+  private final ReentrantLock lock = new ReentrantLock(true);
+  private final Condition changed = lock.newCondition();
+  private final Map<RequestPriority, ArrayDeque<Object>> queues = new EnumMap<>(RequestPriority.class);
+  private final Map<RequestPriority, long[]> waits = new EnumMap<>(RequestPriority.class);
+
+  private double tokens;
+  private long refilledAt = System.nanoTime();
+  private long pausedUntil = refilledAt;
+  private long lastUsedWeight = -1;
+
+  public WeightLimiter(int weightPerMinute) {
+    this.capacity = Math.max(1, weightPerMinute);
+    this.tokensPerNano = capacity / (double) TimeUnit.MINUTES.toNanos(1);
+    this.tokens = capacity;
+    for (RequestPriority p : RequestPriority.values()) {
+      queues.put(p, new ArrayDeque<>());
+      waits.put(p, new long[3]);   // granted, total wait nanos, max wait nanos
+    }
+  }
+
+  /**
+   * Blocks until {@code weight} may be spent, then spends it. Requests heavier
+   * than the whole budget are charged the budget, so they still get through.
+   */
+  public void acquire(int weight, RequestPriority priority) throws InterruptedException {
+    acquire(weight, priority, false, 0);
+  }
+
+  /**
+   * {@link #acquire} that gives up once {@code timeout} has passed, leaving the
+   * queue without spending anything.
+   *
+   * @return whether the weight was spent
+   */
+  public boolean tryAcquire(int weight, RequestPriority priority, long timeout, TimeUnit unit)
+    throws InterruptedException {
+    return acquire(weight, priority, true, System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /** Gives back weight that was acquired but never sent. */
+  public void release(int weight) {
+    lock.lock();
+    try {
+      refill(System.nanoTime());
+      tokens = Math.min(capacity, tokens + Math.min(Math.max(weight, 1), capacity));
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean acquire(int weight, RequestPriority priority, boolean timed, long deadline)
+    throws InterruptedException {
+    int cost = Math.min(Math.max(weight, 1), capacity);
+    Object me = new Object();
+    long enqueued = System.nanoTime();
+    lock.lock();
+    try {
+      ArrayDeque<Object> queue = queues.get(priority);
+      queue.addLast(me);
+      try {
+        while (true) {
+          long now = System.nanoTime();
+          refill(now);
+          long delay = head() != me ? Long.MAX_VALUE
+            : Math.max(pausedUntil - now, (long) Math.ceil((cost - tokens) / tokensPerNano));
+          if (delay <= 0) break;
+          long left = timed ? deadline - now : Long.MAX_VALUE;
+          if (left <= 0) return false;
+          if (delay == Long.MAX_VALUE && !timed) changed.await();
+          else changed.awaitNanos(Math.min(delay, left));
+        }
+        tokens -= cost;
+      } finally {
+        queue.remove(me);
+        changed.signalAll();
+      }
+      long waited = System.nanoTime() - enqueued;
+      long[] w = waits.get(priority);
+      w[0]++;
+      w[1] += waited;
+      w[2] = Math.max(w[2], waited);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Folds a response into the budget: the exchange's used weight for the
+   * current minute (or -1 when absent), and on 429/418 its Retry-After in
+   * seconds (-1 when absent).
+   */
+  public void onResponse(int status, long usedWeight, long retryAfterSeconds) {
+    lock.lock();
+    try {
+      long now = System.nanoTime();
+      refill(now);
+      if (usedWeight >= 0) {
+        lastUsedWeight = usedWeight;
+        tokens = Math.min(tokens, capacity - usedWeight);
+      }
+      if (status == 429 || status == 418) {
+        long pause = retryAfterSeconds > 0 ? retryAfterSeconds : DEFAULT_PAUSE_SECONDS;
+        pausedUntil = Math.max(pausedUntil, now + TimeUnit.SECONDS.toNanos(pause));
+        tokens = Math.min(tokens, 0);
+      }
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Stats stats() {
+    lock.lock();
+    try {
+      long now = System.nanoTime();
+      refill(now);
+      Map<RequestPriority, ClassStats> byPriority = new EnumMap<>(RequestPriority.class);
+      for (RequestPriority p : RequestPriority.values()) {
+        long[] w = waits.get(p);
+        byPriority.put(p, new ClassStats(queues.get(p).size(), w[0],
+          w[0] == 0 ? 0 : w[1] / 1e6 / w[0], TimeUnit.NANOSECONDS.toMillis(w[2])));
+      }
+      return new Stats(capacity, Math.floor(tokens), lastUsedWeight,
+        TimeUnit.NANOSECONDS.toMillis(Math.max(0, pausedUntil - now)), byPriority);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+    refilledAt = now;
+  }
+
+  private Object head() {
+    for (ArrayDeque<Object> queue : queues.values()) {
+      if (!queue.isEmpty()) return queue.peekFirst();
+    }
+    return null;
+  }
+
+  /**
+   * A point-in-time view: the budget, what is left of it, the exchange's last
+   * reported usage, how long a ban pause still has to run, and per class how
+   * many requests are queued and how long granted ones waited.
+   */
+  public record Stats(int weightPerMinute, double available, long lastUsedWeight, long pausedMillis,
+                      Map<RequestPriority, ClassStats> byPriority) {
+  }
+
+  public record ClassStats(int queued, long granted, double avgWaitMillis, long maxWaitMillis) {
+  }
+}
@@ -0,0 +1,370 @@
+package dev.prjbtrad001.scanner;
+
+import dev.prjbtrad001.bot.BotRunner;
+import dev.prjbtrad001.domain.bot.EmaState;
+import dev.prjbtrad001.market.CandleCache;
+import dev.prjbtrad001.market.Intervals;
+import dev.prjbtrad001.market.KlineDto;
+import dev.prjbtrad001.market.MarketClock;
+import dev.prjbtrad001.market.MarketDataClient;
+import dev.prjbtrad001.market.RequestPriority;
+import dev.prjbtrad001.market.SymbolRegistry;
+import dev.prjbtrad001.strategy.EmaCrossStrategy;
+import dev.prjbtrad001.strategy.Signal;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Market-wide signal scanner: at every candle close, each configured signal
+ * on every tradable symbol and every timeframe that just closed, ranked in
+ * one in-memory table — which pairs are worth a bot, without trying
+ * backtests one at a time.
+ *
+ * Signals are EMA crosses, {@code bot.scanner.ema-crosses} ("9x21,12x26"),
+ * computed exactly as a bot computes them ({@link EmaCrossStrategy}). Each
+ * (symbol, timeframe) keeps its EMAs between closes, so a close costs the
+ * newest candle per pair: one short fetch and one fold per signal. A pair
+ * seen for the first time, or one that missed candles, is rebuilt from the
+ * same history a bot would read.
+ *
+ * Symbols are scanned in parallel on virtual threads, at most
+ * {@code bot.scanner.parallelism} at a time; a symbol's timeframes run in
+ * order, shortest first, so coarser ones rolled up from the candle store
+ * find their base candles already synced. Nobody waits on a sweep — the page
+ * only reads its results — so its requests queue as
+ * {@link RequestPriority#BACKTEST}, behind live bots and the pages people have
+ * open.
+ *
+ * Off unless {@code bot.scanner.enabled}: a full sweep asks the exchange
+ * about every pair.
+ */
+@JBossLog
+@ApplicationScoped
+public class MarketScanner {
+
+  /** Seconds to wait after a candle closes before scanning, so the API has it. */
+  private static final long CLOSE_BUFFER_SECONDS = 20;
+
+  /** Freshest crosses first, then the widest gap between the averages. */
+  static final Comparator<Hit> RANK = Comparator
+    .comparingInt((Hit h) -> h.barsSinceCross() < 0 ? Integer.MAX_VALUE : h.barsSinceCross())
+    .thenComparing(Comparator.comparingDouble((Hit h) -> Math.abs(h.spreadPercent())).reversed())
+    .thenComparing(Hit::symbol)
+    .thenComparing(Hit::timeframe)
+    .thenComparing(Hit::definition);
+
+  @Inject
+  MarketDataClient marketData;
+  @Inject
+  SymbolRegistry symbols;
+  @Inject
+  MarketClock clock;
+
+  @ConfigProperty(name = "bot.scanner.enabled", defaultValue = "false")
+  boolean enabled;
+  @ConfigProperty(name = "bot.scanner.ema-crosses", defaultValue = "9x21")
+  List<String> emaCrosses = List.of("9x21");
+  @ConfigProperty(name = "bot.scanner.timeframes", defaultValue = "15m,30m,1h,2h,4h,6h,8h,12h,1d,3d,1w")
+  List<String> timeframes = Intervals.SUPPORTED;
+  @ConfigProperty(name = "bot.scanner.parallelism", defaultValue = "32")
+  int parallelism = 32;
+
+  private final Map<String, Pair> pairs = new ConcurrentHashMap<>();
+  private final LongAdder scans = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+  private ScheduledExecutorService scheduler;
+  private List<Definition> definitions;
+  private int window;
+  private volatile Sweep lastSweep;
+
+  /** One signal to scan for: an EMA cross. */
+  public record Definition(String name, int fast, int slow) {
+
+    /** "9x21" (or "9×21") → EMA 9 crossing EMA 21. */
+    static Definition parse(String text) {
+      String[] parts = text.strip().split("[x×]");
+      try {
+        if (parts.length == 2) {
+          int fast = Integer.parseInt(parts[0].strip()), slow = Integer.parseInt(parts[1].strip());
+          if (fast >= 1 && fast < slow) return new Definition("EMA " + fast + "×" + slow, fast, slow);
+        }
+      } catch (NumberFormatException ignored) {
+        // reported below
+      }
+      throw new IllegalArgumentException("Scanner EMA cross must read FASTxSLOW with FAST below SLOW, got '" + text + "'");
+    }
+  }
+
+  /**
+   * Where one signal stands on one pair after its newest closed candle.
+   * {@code signal} is what a bot would do there: ENTER on an up cross, EXIT on
+   * a down cross. {@code trend} is 1 while the fast average is above the
+   * slow one, -1 below; {@code barsSinceCross} is -1 when no cross is in view.
+   */
+  public record Hit(String symbol, String timeframe, String definition, Signal signal, int trend,
+                    int barsSinceCross, double spreadPercent, double close, Instant closeTime) {
+  }
+
+  /** One scan: when it ran, over what, and how long it took. */
+  public record Sweep(Instant at, List<String> timeframes, int symbols, long millis) {
+  }
+
+  public record Stats(boolean enabled, List<String> definitions, int pairs, long scans, long failures, Sweep last) {
+  }
+
+  @PostConstruct
+  void init() {
+    definitions = emaCrosses.stream().map(Definition::parse).toList();
+    timeframes = timeframes.stream().sorted(Comparator.comparingLong(Intervals::millis)).toList();
+    window = BotRunner.candlesFor(definitions.stream().mapToInt(Definition::slow).max().orElse(1));
+  }
+
+  void onStart(@Observes StartupEvent ev) {
+    if (!enabled || timeframes.isEmpty()) return;
+    scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("market-scanner").factory());
+    // A full sweep first, so the table is filled before the next close.
+    scheduler.execute(() -> scanQuietly(timeframes));
+    scheduleNext();
+    log.infof("Market scanner: %s on %s", definitions.stream().map(Definition::name).toList(), timeframes);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (scheduler != null) scheduler.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  /**
+   * The table, ranked: fresh crosses first. {@code timeframe} and
+   * {@code signal} filter when given; at most {@code limit} rows.
+   */
+  public List<Hit> ranked(String timeframe, Signal signal, int limit) {
+    List<Hit> hits = new ArrayList<>();
+    for (Pair pair : pairs.values()) {
+      if (timeframe != null && !timeframe.equals(pair.timeframe)) continue;
+      for (Hit hit : pair.hits) {
+        if (signal == null || hit.signal() == signal) hits.add(hit);
+      }
+    }
+    hits.sort(RANK);
+    return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+  }
+
+  public Stats stats() {
+    return new Stats(enabled, definitions.stream().map(Definition::name).toList(), pairs.size(), scans.sum(),
+      failures.sum(), lastSweep);
+  }
+
+  /** Waits for the next close of any scanned timeframe, scans what closed, and waits again. */
+  private void scheduleNext() {
+    long now = clock.millis();
+    long close = nextClose(now);
+    scheduler.schedule(() -> {
+      scanQuietly(dueAt(close));
+      scheduleNext();
+    }, clock.realNanos(close - now + CLOSE_BUFFER_SECONDS * 1000), TimeUnit.NANOSECONDS);
+  }
+
+  private void scanQuietly(List<String> due) {
+    try {
+      scan(symbols.tradable(), due, clock.millis());
+    } catch (Exception e) {
+      log.errorf("Market scan of %s failed: %s", due, e.getMessage());
+    }
+  }
+
+  /** The first candle close of a scanned timeframe after {@code now}. */
+  long nextClose(long now) {
+    long next = Long.MAX_VALUE;
+    for (String tf : timeframes) next = Math.min(next, Intervals.openTimeOf(now, tf) + Intervals.millis(tf));
+    return next;
+  }
+
+  /** Scanned timeframes with a candle closing at {@code close}. */
+  List<String> dueAt(long close) {
+    return timeframes.stream().filter(tf -> Intervals.openTimeOf(close, tf) == close).toList();
+  }
+
+  /**
+   * Brings every (symbol, timeframe) up to the candles closed by {@code now}
+   * and drops pairs whose symbol is no longer in {@code universe}.
+   */
+  void scan(Collection<String> universe, List<String> due, long now) {
+    long started = System.nanoTime();
+    Semaphore permits = new Semaphore(Math.max(1, parallelism));
+    List<Future<?>> tasks = new ArrayList<>(universe.size());
+    for (String symbol : universe) {
+      tasks.add(workers.submit(() -> {
+        permits.acquireUninterruptibly();
+        try {
+          for (String tf : due) scanPair(symbol, tf, now);
+        } finally {
+          permits.release();
+        }
+      }));
+    }
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        failures.increment();
+        log.warnf("Scan task failed: %s", e.getCause().getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    Set<String> listed = new HashSet<>(universe);
+    pairs.values().removeIf(pair -> !listed.contains(pair.symbol));
+    scans.increment();
+    lastSweep = new Sweep(Instant.ofEpochMilli(now), due, universe.size(),
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    log.debugf("Scanned %s across %d symbols in %d ms", due, universe.size(), lastSweep.millis());
+  }
+
+  /**
+   * One pair: folds in what closed since its last scan — usually one candle —
+   * or rebuilds it from a full window when it is new or candles went missing.
+   */
+  private void scanPair(String symbol, String timeframe, long now) {
+    Pair pair = pairs.computeIfAbsent(CandleCache.key(symbol, timeframe), k -> new Pair(symbol, timeframe, definitions));
+    boolean warm = pair.last != null;
+    List<KlineDto> closed = closed(symbol, timeframe, warm ? pair.missed(now) : window, now);
+    if (!closed.isEmpty() && pair.advance(closed)) return;
+    if (warm && !closed.isEmpty()) {
+      log.debugf("[%s %s] candles missed since the last scan — rebuilding", symbol, timeframe);
+      closed = closed(symbol, timeframe, window, now);
+    }
+    if (closed.isEmpty()) {
+      failures.increment();
+      return;
+    }
+    pair.rebuild(closed);
+  }
+
+  /** The newest {@code count} candles closed by {@code now}, oldest first; empty when the exchange did not answer. */
+  private List<KlineDto> closed(String symbol, String timeframe, int count, long now) {
+    List<KlineDto> candles = RequestPriority.call(RequestPriority.BACKTEST,
+      () -> marketData.getCandles(symbol, timeframe, count + 1));
+    return candles.stream().filter(k -> k.closeTime() < now).toList();
+  }
+
+  /**
+   * Every signal on one (symbol, timeframe), at the same newest candle. Only
+   * the scan writes it, one pair per task; readers see {@link #hits}, replaced
+   * whole after each change.
+   */
+  private final class Pair {
+    final String symbol;
+    final String timeframe;
+    final List<Track> tracks;
+    /** Close time and price of the newest candle folded; null before the first. */
+    Long last;
+    double close;
+    volatile List<Hit> hits = List.of();
+
+    Pair(String symbol, String timeframe, List<Definition> definitions) {
+      this.symbol = symbol;
+      this.timeframe = timeframe;
+      this.tracks = definitions.stream().map(Track::new).toList();
+    }
+
+    /** Candles to ask for to cover every close since {@link #last}, and one already folded to check continuity against. */
+    int missed(long now) {
+      return (int) Math.min(window, Math.max(2, (now - last) / Intervals.millis(timeframe) + 1));
+    }
+
+    /** Folds the candles newer than {@link #last}; false when they do not continue it. */
+    boolean advance(List<KlineDto> closed) {
+      if (last == null) return false;
+      int from = closed.size();
+      while (from > 0 && closed.get(from - 1).closeTime() > last) from--;
+      for (int i = from; i < closed.size(); i++) {
+        if (closed.get(i).openTime() != (i == from ? last : closed.get(i - 1).closeTime()) + 1) return false;
+      }
+      for (int i = from; i < closed.size(); i++) fold(closed.get(i));
+      publish();
+      return true;
+    }
+
+    void rebuild(List<KlineDto> closed) {
+      tracks.forEach(Track::reset);
+      last = null;
+      closed.forEach(this::fold);
+      publish();
+    }
+
+    private void publish() {
+      hits = tracks.stream().map(t -> t.hit(this)).filter(Objects::nonNull).toList();
+    }
+
+    private void fold(KlineDto k) {
+      for (Track t : tracks) t.fold(k);
+      last = k.closeTime();
+      close = k.close().doubleValue();
+    }
+  }
+
+  /** One signal's running EMAs on one pair, and how long ago they last crossed. */
+  private static final class Track {
+    final Definition definition;
+    final EmaState ema = new EmaState();
+    int sinceCross = -1;
+
+    Track(Definition definition) {
+      this.definition = definition;
+      reset();
+    }
+
+    void reset() {
+      EmaCrossStrategy.resync(ema, List.of(), definition.fast(), definition.slow());
+      sinceCross = -1;
+    }
+
+    void fold(KlineDto k) {
+      int bars = ema.getBars();
+      double close = k.close().doubleValue();
+      EmaCrossStrategy.cross(ema,
+        EmaCrossStrategy.ema(ema.getFast(), close, bars, definition.fast()),
+        EmaCrossStrategy.ema(ema.getSlow(), close, bars, definition.slow()),
+        bars + 1, k.closeTime());
+      if (ema.getCross() != 0) sinceCross = 0;
+      else if (sinceCross >= 0) sinceCross++;
+    }
+
+    /** Null until both averages are defined. */
+    Hit hit(Pair pair) {
+      if (ema.getFast() == null || ema.getSlow() == null) return null;
+      // A flat bot enters on an up cross, a long one exits on a down cross.
+      Signal signal = EmaCrossStrategy.evaluate(ema, ema.getCross() < 0);
+      return new Hit(pair.symbol, pair.timeframe, definition.name(), signal, ema.getSide(), sinceCross,
+        (ema.getFast() - ema.getSlow()) / ema.getSlow() * 100, pair.close, Instant.ofEpochMilli(pair.last));
+    }
+  }
+}
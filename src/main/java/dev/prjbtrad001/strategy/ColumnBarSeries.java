@@ -0,0 +1,237 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.CandleColumns;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BarBuilder;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.bars.TimeBarBuilder;
+import org.ta4j.core.num.DoubleNum;
+import org.ta4j.core.num.DoubleNumFactory;
+import org.ta4j.core.num.Num;
+import org.ta4j.core.num.NumFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A ta4j {@link BarSeries} that is a read-only view over {@link CandleColumns}:
+ * no bar objects are kept, each {@link #getBar} is a small row handle that
+ * reads the columns when asked, in {@link DoubleNum}s.
+ *
+ * Creating one is O(1) and copies nothing, so any number of strategies can
+ * share the same columns. A view made with {@link #of} follows the columns:
+ * a candle appended with {@link CandleColumns#add} is the view's new last bar,
+ * and indicators already built on it carry on from their caches, as they do on
+ * a growing {@code BaseBarSeries}. Appending while another thread reads is the
+ * caller's to coordinate. {@link #getSubSeries} views are fixed ranges.
+ *
+ * Each bar ends at the candle's close time and lasts its open-to-close
+ * period, like {@link dev.prjbtrad001.market.KlineDto#period}. Every mutator throws
+ * {@link UnsupportedOperationException}; append to the columns instead.
+ */
+public final class ColumnBarSeries implements BarSeries {
+
+  private final String name;
+  private final CandleColumns columns;
+  private final int from;
+  // Exclusive; -1 follows the columns.
+  private final int to;
+
+  private ColumnBarSeries(String name, CandleColumns columns, int from, int to) {
+    this.name = name;
+    this.columns = columns;
+    this.from = from;
+    this.to = to;
+  }
+
+  /** A view of all of {@code columns}, present and appended. */
+  public static ColumnBarSeries of(CandleColumns columns, String name) {
+    return new ColumnBarSeries(name, columns, 0, -1);
+  }
+
+  @Override
+  public NumFactory numFactory() {
+    return DoubleNumFactory.getInstance();
+  }
+
+  /** A builder for bars in this series' numbers; its {@code add()} throws, the view being read-only. */
+  @Override
+  public BarBuilder barBuilder() {
+    return new TimeBarBuilder(numFactory()).bindTo(this);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Bar getBar(int i) {
+    if (i < 0 || i >= getBarCount()) {
+      throw new IndexOutOfBoundsException("Bar " + i + " of " + getBarCount() + " in series " + name);
+    }
+    return new Row(from + i);
+  }
+
+  @Override
+  public int getBarCount() {
+    return (to < 0 ? columns.size() : to) - from;
+  }
+
+  @Override
+  public List<Bar> getBarData() {
+    return new Bars();
+  }
+
+  @Override
+  public int getBeginIndex() {
+    return isEmpty() ? -1 : 0;
+  }
+
+  @Override
+  public int getEndIndex() {
+    return getBarCount() - 1;
+  }
+
+  @Override
+  public int getMaximumBarCount() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public void setMaximumBarCount(int maximumBarCount) {
+    throw readOnly();
+  }
+
+  @Override
+  public int getRemovedBarsCount() {
+    return 0;
+  }
+
+  @Override
+  public void addBar(Bar bar, boolean replace) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addTrade(Num tradeVolume, Num tradePrice) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addPrice(Num price) {
+    throw readOnly();
+  }
+
+  /** Bars {@code startIndex} (inclusive) to {@code endIndex} (exclusive, clamped to the end) as a fixed view, re-indexed from 0. */
+  @Override
+  public ColumnBarSeries getSubSeries(int startIndex, int endIndex) {
+    if (startIndex < 0) throw new IllegalArgumentException("the startIndex: " + startIndex + " must not be negative");
+    if (startIndex >= endIndex) {
+      throw new IllegalArgumentException("the endIndex: " + endIndex + " must be greater than startIndex: " + startIndex);
+    }
+    int count = getBarCount();
+    return new ColumnBarSeries(name, columns, from + Math.min(startIndex, count), from + Math.min(endIndex, count));
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("ColumnBarSeries is a read-only view; append to its CandleColumns");
+  }
+
+  /** Row {@code i} of the columns. */
+  private final class Row implements Bar {
+
+    private final int i;
+
+    Row(int i) {
+      this.i = i;
+    }
+
+    @Override
+    public Duration getTimePeriod() {
+      long millis = columns.closeTime(i) - columns.openTime(i) + 1;
+      return Duration.ofMillis(millis > 0 ? millis : 1);
+    }
+
+    @Override
+    public Instant getBeginTime() {
+      return getEndTime().minus(getTimePeriod());
+    }
+
+    @Override
+    public Instant getEndTime() {
+      return Instant.ofEpochMilli(columns.closeTime(i));
+    }
+
+    @Override
+    public Num getOpenPrice() {
+      return DoubleNum.valueOf(columns.open(i));
+    }
+
+    @Override
+    public Num getHighPrice() {
+      return DoubleNum.valueOf(columns.high(i));
+    }
+
+    @Override
+    public Num getLowPrice() {
+      return DoubleNum.valueOf(columns.low(i));
+    }
+
+    @Override
+    public Num getClosePrice() {
+      return DoubleNum.valueOf(columns.close(i));
+    }
+
+    @Override
+    public Num getVolume() {
+      return DoubleNum.valueOf(columns.volume(i));
+    }
+
+    /** Close times volume, as ta4j's bar builder fills it in when not given. */
+    @Override
+    public Num getAmount() {
+      return getClosePrice().multipliedBy(getVolume());
+    }
+
+    @Override
+    public long getTrades() {
+      return 0;
+    }
+
+    @Override
+    public void addTrade(Num tradeVolume, Num tradePrice) {
+      throw readOnly();
+    }
+
+    @Override
+    public void addPrice(Num price) {
+      throw readOnly();
+    }
+
+    @Override
+    public String toString() {
+      return "{end time: " + getEndTime() + ", close price: " + columns.close(i) + ", open price: " + columns.open(i)
+        + ", low price: " + columns.low(i) + ", high price: " + columns.high(i) + ", volume: " + columns.volume(i) + "}";
+    }
+  }
+
+  private final class Bars extends AbstractList<Bar> implements RandomAccess {
+
+    private final int n = getBarCount();
+
+    @Override
+    public Bar get(int i) {
+      if (i < 0 || i >= n) throw new IndexOutOfBoundsException(i);
+      return new Row(from + i);
+    }
+
+    @Override
+    public int size() {
+      return n;
+    }
+  }
+}
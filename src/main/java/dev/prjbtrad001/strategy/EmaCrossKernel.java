@@ -0,0 +1,185 @@
+package dev.prjbtrad001.strategy;
+
+/**
+ * The EMA-cross strategy on plain {@code double[]} columns: a few
+ * multiply-adds per bar, no objects, nothing allocated — callers pass the
+ * output arrays and can reuse them across runs.
+ *
+ * It is ta4j's strategy, not a lookalike, and the tests hold it to that:
+ *
+ *  - EMAs as EMAIndicator: undefined (NaN) for the first {@code period} bars,
+ *    seeded with the close of bar {@code period}, then moved by
+ *    {@code 2 / (period + 1)} of the gap each bar;
+ *  - crosses as CrossIndicator: fast strictly past slow where, at the last
+ *    bar the two differed, it was strictly on the other side;
+ *  - trades as BarSeriesManager's default: the signal on a bar's close fills
+ *    at the next bar's open, so a signal on the last bar never fills; the
+ *    stop-loss compares each close with that fill price.
+ *
+ * Computed in doubles where ta4j defaults to decimals, so the two can only
+ * disagree when the averages are equal to the last digits.
+ */
+public final class EmaCrossKernel {
+
+  private EmaCrossKernel() {
+  }
+
+  /** EMA of the first {@code n} closes into {@code out}. */
+  public static void ema(double[] close, int n, int period, double[] out) {
+    double alpha = 2.0 / (period + 1), e = Double.NaN;
+    for (int i = 0; i < n; i++) {
+      e = next(e, close[i], i, period, alpha);
+      out[i] = e;
+    }
+  }
+
+  /** Cross at bar {@code i}: 1 fast crossed above slow, -1 below, 0 neither. */
+  public static int crossAt(double[] fast, double[] slow, int i) {
+    if (i <= 0 || Double.isNaN(fast[i]) || Double.isNaN(slow[i]) || fast[i] == slow[i]) return 0;
+    int side = fast[i] > slow[i] ? 1 : -1;
+    int j = i - 1;
+    while (j > 0 && fast[j] == slow[j]) j--;
+    if (fast[j] > slow[j]) return side < 0 ? -1 : 0;
+    if (fast[j] < slow[j]) return side > 0 ? 1 : 0;
+    return 0;
+  }
+
+  /**
+   * Runs the strategy over the first {@code n} bars, filling both EMAs and
+   * the fill bar of every position: {@code entries[k]} and {@code exits[k]},
+   * {@code -1} for a position still open at the end. Returns the number of
+   * positions; the index arrays need room for {@code n / 2 + 1}.
+   */
+  public static int backtest(double[] open, double[] close, int n, int emaFast, int emaSlow, double stopLossPercent,
+                             double[] fast, double[] slow, int[] entries, int[] exits) {
+    double alphaFast = 2.0 / (emaFast + 1), alphaSlow = 2.0 / (emaSlow + 1);
+    double f = Double.NaN, s = Double.NaN, stop = 0;
+    int side = 0, positions = 0;
+    boolean holding = false, enter = false, exit = false;
+
+    for (int i = 0; i < n; i++) {
+      // Orders decided on the last close fill at this bar's open.
+      if (enter) {
+        entries[positions] = i;
+        exits[positions] = -1;
+        stop = open[i] * (100 - stopLossPercent) / 100;
+        holding = true;
+        enter = false;
+      } else if (exit) {
+        exits[positions++] = i;
+        holding = false;
+        exit = false;
+      }
+
+      double c = close[i];
+      f = next(f, c, i, emaFast, alphaFast);
+      s = next(s, c, i, emaSlow, alphaSlow);
+      fast[i] = f;
+      slow[i] = s;
+
+      int cross = 0;
+      if (Double.isNaN(f) || Double.isNaN(s)) {
+        side = 0;
+      } else if (f > s) {
+        if (side < 0) cross = 1;
+        side = 1;
+      } else if (f < s) {
+        if (side > 0) cross = -1;
+        side = -1;
+      }
+
+      if (i + 1 < n) {
+        if (!holding) enter = cross > 0;
+        else exit = cross < 0 || c <= stop;
+      }
+    }
+    return holding ? positions + 1 : positions;
+  }
+
+  /**
+   * The signals {@link #backtest} trades on, from EMAs computed elsewhere:
+   * {@code enter[i]} where fast crossed above slow at bar i, {@code leave[i]}
+   * where it crossed below. Feeding them to {@link #trade} is the backtest.
+   */
+  public static void crosses(double[] fast, double[] slow, int n, boolean[] enter, boolean[] leave) {
+    crosses(fast, slow, 0, n, enter, leave);
+  }
+
+  /**
+   * {@link #crosses} for bars {@code from} to {@code to - 1} only, with the
+   * EMAs running from bar 0: a cross at {@code from} counts against the side
+   * the averages were on before it.
+   */
+  public static void crosses(double[] fast, double[] slow, int from, int to, boolean[] enter, boolean[] leave) {
+    int side = 0;
+    for (int j = from - 1; j >= 0; j--) {
+      if (Double.isNaN(fast[j]) || Double.isNaN(slow[j])) break;
+      if (fast[j] != slow[j]) {
+        side = fast[j] > slow[j] ? 1 : -1;
+        break;
+      }
+    }
+    for (int i = from; i < to; i++) {
+      double f = fast[i], s = slow[i];
+      int cross = 0;
+      if (Double.isNaN(f) || Double.isNaN(s)) {
+        side = 0;
+      } else if (f > s) {
+        if (side < 0) cross = 1;
+        side = 1;
+      } else if (f < s) {
+        if (side > 0) cross = -1;
+        side = -1;
+      }
+      enter[i] = cross > 0;
+      leave[i] = cross < 0;
+    }
+  }
+
+  /**
+   * The trading half of {@link #backtest} for any entry and exit signals:
+   * a signal on a bar's close fills at the next open, and a close at or
+   * below the stop exits too.
+   */
+  public static int trade(double[] open, double[] close, int n, boolean[] enter, boolean[] leave,
+                          double stopLossPercent, int[] entries, int[] exits) {
+    return trade(open, close, 0, n, enter, leave, stopLossPercent, entries, exits);
+  }
+
+  /**
+   * {@link #trade} from flat at bar {@code from} to bar {@code to - 1}. Fill
+   * bars are absolute; the index arrays need room for
+   * {@code (to - from) / 2 + 1}.
+   */
+  public static int trade(double[] open, double[] close, int from, int to, boolean[] enter, boolean[] leave,
+                          double stopLossPercent, int[] entries, int[] exits) {
+    double stop = 0;
+    int positions = 0;
+    boolean holding = false, buy = false, sell = false;
+    for (int i = from; i < to; i++) {
+      if (buy) {
+        entries[positions] = i;
+        exits[positions] = -1;
+        stop = open[i] * (100 - stopLossPercent) / 100;
+        holding = true;
+        buy = false;
+      } else if (sell) {
+        exits[positions++] = i;
+        holding = false;
+        sell = false;
+      }
+      if (i + 1 < to) {
+        if (!holding) buy = enter[i];
+        else sell = leave[i] || close[i] <= stop;
+      }
+    }
+    return holding ? positions + 1 : positions;
+  }
+
+  /** One EMA step for bar {@code index}. */
+  static double next(double previous, double close, int index, int period, double alpha) {
+    if (index < period) return Double.NaN;
+    if (index == period) return close;
+    return previous + (close - previous) * alpha;
+  }
+}
@@ -1,8 +1,9 @@
 package dev.prjbtrad001.strategy;
 
+import dev.prjbtrad001.domain.bot.EmaState;
+import dev.prjbtrad001.market.CandleColumns;
 import dev.prjbtrad001.market.KlineDto;
 import org.ta4j.core.BarSeries;
-import org.ta4j.core.BaseBarSeriesBuilder;
 import org.ta4j.core.BaseStrategy;
 import org.ta4j.core.Rule;
 import org.ta4j.core.Strategy;
@@ -21,10 +22,15 @@ import java.util.List;
  *   Entry : fast EMA crosses ABOVE slow EMA
  *   Exit  : fast EMA crosses BELOW slow EMA, OR the stop-loss trips
  *
- * The exact same rules drive both the backtest ({@link #buildStrategy}) and the
- * live paper loop ({@link #evaluateLast}). Live evaluation only looks at the
- * cross rules; the stop-loss is enforced by the runner against the bot's real
- * fill price, which is more faithful than a synthetic trading record.
+ * The exact same rules drive both the backtest and the live paper loop
+ * ({@link #evaluateLast}), run by {@link EmaCrossKernel} on plain arrays;
+ * {@link #buildStrategy} is the same strategy as ta4j objects, the reference
+ * the kernel is tested against. Live evaluation only looks at the cross
+ * rules; the stop-loss is enforced by the runner against the bot's real fill
+ * price, which is more faithful than a synthetic trading record.
+ *
+ * Live bots run the same EMAs incrementally ({@link #advance}, {@link #evaluate}):
+ * ta4j's recurrence, seed and cross rule, one candle at a time, in doubles.
  */
 public final class EmaCrossStrategy {
 
@@ -34,21 +40,11 @@ public final class EmaCrossStrategy {
   /**
    * Builds a ta4j series from candles. Each bar ends at the candle's close time,
    * so only closed candles should be passed in (no lookahead / repainting).
+   * The candles are copied once into columns; callers that already have
+   * {@link CandleColumns} should take a {@link ColumnBarSeries} view instead.
    */
   public static BarSeries buildSeries(List<KlineDto> candles, String name) {
-    BarSeries series = new BaseBarSeriesBuilder().withName(name).build();
-    for (KlineDto k : candles) {
-      series.barBuilder()
-        .timePeriod(k.period())
-        .endTime(k.closeInstant())
-        .openPrice(k.open().doubleValue())
-        .highPrice(k.high().doubleValue())
-        .lowPrice(k.low().doubleValue())
-        .closePrice(k.close().doubleValue())
-        .volume(k.volume().doubleValue())
-        .add();
-    }
-    return series;
+    return ColumnBarSeries.of(CandleColumns.of(candles), name);
   }
 
   /**
@@ -72,18 +68,110 @@ public final class EmaCrossStrategy {
    * Returns HOLD when there is not enough history to be meaningful.
    */
   public static Signal evaluateLast(BarSeries series, int emaFast, int emaSlow, boolean currentlyOpen) {
-    if (series.getBarCount() <= emaSlow + 1) return Signal.HOLD;
+    int n = series.getBarCount();
+    double[] close = new double[n];
+    for (int i = 0; i < n; i++) close[i] = series.getBar(series.getBeginIndex() + i).getClosePrice().doubleValue();
+    return evaluateLast(close, n, emaFast, emaSlow, currentlyOpen);
+  }
 
-    ClosePriceIndicator close = new ClosePriceIndicator(series);
-    EMAIndicator fast = new EMAIndicator(close, emaFast);
-    EMAIndicator slow = new EMAIndicator(close, emaSlow);
+  /** {@link #evaluateLast(BarSeries, int, int, boolean)} on the first {@code n} closes, via {@link EmaCrossKernel}. */
+  public static Signal evaluateLast(double[] close, int n, int emaFast, int emaSlow, boolean currentlyOpen) {
+    if (n <= emaSlow + 1) return Signal.HOLD;
 
-    int end = series.getEndIndex();
-    Rule crossUp = new CrossedUpIndicatorRule(fast, slow);
-    Rule crossDown = new CrossedDownIndicatorRule(fast, slow);
+    double[] fast = new double[n], slow = new double[n];
+    EmaCrossKernel.ema(close, n, emaFast, fast);
+    EmaCrossKernel.ema(close, n, emaSlow, slow);
+    int cross = EmaCrossKernel.crossAt(fast, slow, n - 1);
 
-    if (!currentlyOpen && crossUp.isSatisfied(end)) return Signal.ENTER;
-    if (currentlyOpen && crossDown.isSatisfied(end)) return Signal.EXIT;
+    if (!currentlyOpen && cross > 0) return Signal.ENTER;
+    if (currentlyOpen && cross < 0) return Signal.EXIT;
     return Signal.HOLD;
   }
+
+  // ── incremental ──────────────────────────────────────────────────
+
+  /**
+   * Folds the closed candles newer than the state into it, O(1) each; ones
+   * already folded are skipped. False — nothing folded — when they do not
+   * continue it: no state yet, other EMA lengths, or a candle missing between
+   * the state and the first new one. Then {@link #resync} from full history.
+   */
+  public static boolean advance(EmaState state, List<KlineDto> closed, int emaFast, int emaSlow) {
+    if (!state.isWarm(emaFast, emaSlow)) return false;
+    long last = state.getLastCloseTime();
+    int from = closed.size();
+    while (from > 0 && closed.get(from - 1).closeTime() > last) from--;
+    for (int i = from; i < closed.size(); i++) {
+      if (closed.get(i).openTime() != (i == from ? last : closed.get(i - 1).closeTime()) + 1) return false;
+    }
+    for (int i = from; i < closed.size(); i++) fold(state, closed.get(i));
+    return true;
+  }
+
+  /** Starts the state over from {@code closed}: afterwards it holds what ta4j computes on that series. */
+  public static void resync(EmaState state, List<KlineDto> closed, int emaFast, int emaSlow) {
+    state.setFastPeriod(emaFast);
+    state.setSlowPeriod(emaSlow);
+    state.setBars(0);
+    state.setLastCloseTime(null);
+    state.setFast(null);
+    state.setSlow(null);
+    state.setSide(0);
+    state.setCross(0);
+    for (KlineDto k : closed) fold(state, k);
+  }
+
+  /** {@link #evaluateLast} on the state: the same answer for the series it was built from. */
+  public static Signal evaluate(EmaState state, boolean currentlyOpen) {
+    if (state.getBars() == null || state.getBars() <= state.getSlowPeriod() + 1) return Signal.HOLD;
+    int cross = state.getCross();
+    if (!currentlyOpen && cross > 0) return Signal.ENTER;
+    if (currentlyOpen && cross < 0) return Signal.EXIT;
+    return Signal.HOLD;
+  }
+
+  /**
+   * One candle. Like ta4j's EMAIndicator, an average is undefined for its
+   * first {@code period} bars, starts at the close of bar {@code period}, then
+   * moves by {@code 2 / (period + 1)} of the gap each bar. A cross is the fast
+   * average strictly past the slow one where, at the last bar the two
+   * differed, it was strictly on the other side — as in ta4j's CrossIndicator.
+   */
+  private static void fold(EmaState s, KlineDto k) {
+    int index = s.getBars();
+    double close = k.close().doubleValue();
+    cross(s, ema(s.getFast(), close, index, s.getFastPeriod()), ema(s.getSlow(), close, index, s.getSlowPeriod()),
+      index + 1, k.closeTime());
+  }
+
+  /**
+   * The cross half of a step: records the averages at the candle closing at
+   * {@code closeTime}, the {@code bars}-th folded, and whether fast crossed
+   * slow there. Null averages are undefined ones.
+   */
+  public static void cross(EmaState s, Double fast, Double slow, int bars, long closeTime) {
+    int side = s.getSide(), cross = 0;
+    if (fast == null || slow == null) {
+      side = 0;
+    } else if (fast > slow) {
+      if (side < 0) cross = 1;
+      side = 1;
+    } else if (fast < slow) {
+      if (side > 0) cross = -1;
+      side = -1;
+    }
+
+    s.setFast(fast);
+    s.setSlow(slow);
+    s.setSide(side);
+    s.setCross(cross);
+    s.setBars(bars);
+    s.setLastCloseTime(closeTime);
+  }
+
+  /** One EMA step for the {@code index}-th candle; null while the average is undefined. */
+  public static Double ema(Double previous, double close, int index, int period) {
+    double next = EmaCrossKernel.next(previous == null ? Double.NaN : previous, close, index, period, 2.0 / (period + 1));
+    return Double.isNaN(next) ? null : next;
+  }
 }
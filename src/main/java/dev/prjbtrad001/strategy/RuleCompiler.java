@@ -0,0 +1,398 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.strategy.RuleProgram.Op;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dev.prjbtrad001.strategy.RuleProgram.*;
+
+/**
+ * Compiles entry and exit rules written as expressions into a {@link RuleProgram}:
+ *
+ *   ema(close, 9) crossesAbove ema(close, 21) and rsi(close, 14) &lt; 70
+ *
+ * Series: {@code open high low close volume}. Indicators: {@code ema(x, n)},
+ * {@code sma(x, n)}, {@code rsi(x, n)}, {@code macd(x, fast, slow)}, where
+ * {@code x} is any series or expression and the periods are whole numbers.
+ * Arithmetic {@code + - * /}, comparisons {@code < <= > >=}, crosses
+ * {@code crossesAbove crossesBelow}, and {@code and or not} with the usual
+ * precedence; keywords and names ignore case.
+ *
+ * Both rules go into one program, and every operation is entered once:
+ * repeated subexpressions, in one rule or across both, become a single column
+ * computed once. Literals are folded. Compiled programs are cached by their
+ * text, so a fleet on the same rules compiles them once.
+ *
+ * Syntax and type errors are {@link IllegalArgumentException}s that name the
+ * position, ready to show to the user.
+ */
+public final class RuleCompiler {
+
+  private static final int MAX_CACHED = 1024;
+  private static final Map<List<String>, RuleProgram> CACHE = new ConcurrentHashMap<>();
+
+  private RuleCompiler() {
+  }
+
+  public static RuleProgram compile(String entry, String exit) {
+    if (entry == null || entry.isBlank()) throw new IllegalArgumentException("The entry rule is empty.");
+    if (exit == null || exit.isBlank()) throw new IllegalArgumentException("The exit rule is empty.");
+    List<String> key = List.of(entry.strip(), exit.strip());
+    RuleProgram cached = CACHE.get(key);
+    if (cached != null) return cached;
+
+    Builder b = new Builder();
+    int in = b.rule(key.get(0), "entry");
+    int out = b.rule(key.get(1), "exit");
+    RuleProgram program = new RuleProgram(key.get(0), key.get(1), b.ops, in, out,
+      b.warmUp.stream().mapToInt(Integer::intValue).toArray());
+    if (CACHE.size() < MAX_CACHED) CACHE.put(key, program);
+    return program;
+  }
+
+  /** The classic strategy as rules: enter when fast crosses above slow, leave when it crosses below. */
+  public static RuleProgram emaCross(int fast, int slow) {
+    String f = "ema(close, " + fast + ")", s = "ema(close, " + slow + ")";
+    return compile(f + " crossesAbove " + s, f + " crossesBelow " + s);
+  }
+
+  /** An operand: an operation's column, or a literal when {@code ref} is {@link RuleProgram#CONST}. */
+  private record Val(int ref, double k, boolean bool) {
+
+    boolean isConst() {
+      return ref == CONST;
+    }
+  }
+
+  /** Collects the operations of both rules, entering each distinct one once. */
+  private static final class Builder {
+    final List<Op> ops = new ArrayList<>();
+    final List<Integer> warmUp = new ArrayList<>();
+    final Map<Op, Integer> index = new HashMap<>();
+
+    int rule(String text, String which) {
+      Parser p = new Parser(this, text, which);
+      Val v = p.or();
+      p.expectEnd();
+      if (!v.bool()) throw p.error("The " + which + " rule must be a condition, not a number");
+      return v.ref();
+    }
+
+    Val emit(Op op, int warm) {
+      Integer at = index.get(op);
+      if (at == null) {
+        at = ops.size();
+        ops.add(op);
+        warmUp.add(warm);
+        index.put(op, at);
+      }
+      return new Val(at, 0, op.isBoolean());
+    }
+
+    int warm(Val v) {
+      return v.isConst() ? 0 : warmUp.get(v.ref());
+    }
+
+    Val unary(int code, Val a, int p, int q, int warm) {
+      return emit(new Op(code, a.ref(), CONST, p, q, 0, 0), warm);
+    }
+
+    Val binary(int code, Val a, Val b, int warm) {
+      // Commutative operations in one order, so a + b and b + a are one column.
+      if ((code == ADD || code == MUL || code == AND || code == OR) && !a.isConst() && !b.isConst()
+        && b.ref() < a.ref()) {
+        Val t = a;
+        a = b;
+        b = t;
+      }
+      return emit(new Op(code, a.ref(), b.ref(), 0, 0, a.k(), b.k()), warm);
+    }
+
+    Val literal(double k) {
+      return emit(new Op(LITERAL, CONST, CONST, 0, 0, k, 0), 0);
+    }
+  }
+
+  private record Token(String text, int at, boolean number) {
+  }
+
+  /** Recursive descent over one rule, emitting into the shared builder. */
+  private static final class Parser {
+    private final Builder b;
+    private final String text, which;
+    private final List<Token> tokens = new ArrayList<>();
+    private int pos;
+
+    Parser(Builder b, String text, String which) {
+      this.b = b;
+      this.text = text;
+      this.which = which;
+      tokenize();
+    }
+
+    private void tokenize() {
+      int i = 0;
+      while (i < text.length()) {
+        char c = text.charAt(i);
+        int start = i;
+        if (Character.isWhitespace(c)) {
+          i++;
+          continue;
+        }
+        if (Character.isDigit(c) || c == '.') {
+          while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) i++;
+          tokens.add(new Token(text.substring(start, i), start, true));
+        } else if (Character.isLetter(c)) {
+          while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) i++;
+          tokens.add(new Token(text.substring(start, i).toLowerCase(Locale.ROOT), start, false));
+        } else if ((c == '<' || c == '>') && i + 1 < text.length() && text.charAt(i + 1) == '=') {
+          i += 2;
+          tokens.add(new Token(text.substring(start, i), start, false));
+        } else if ("<>+-*/(),".indexOf(c) >= 0) {
+          i++;
+          tokens.add(new Token(String.valueOf(c), start, false));
+        } else {
+          throw error("Unexpected '" + c + "'", start);
+        }
+      }
+    }
+
+    Val or() {
+      Val l = and();
+      while (accept("or")) l = logic(OR, l, and());
+      return l;
+    }
+
+    private Val and() {
+      Val l = not();
+      while (accept("and")) l = logic(AND, l, not());
+      return l;
+    }
+
+    private Val not() {
+      if (accept("not")) {
+        Val v = not();
+        requireBool(v, "not");
+        return b.unary(NOT, v, 0, 0, b.warm(v));
+      }
+      return comparison();
+    }
+
+    private Val comparison() {
+      Val l = sum();
+      String op = peek();
+      int code = switch (op == null ? "" : op) {
+        case "<" -> LT;
+        case "<=" -> LE;
+        case ">" -> GT;
+        case ">=" -> GE;
+        case "crossesabove" -> CROSS_ABOVE;
+        case "crossesbelow" -> CROSS_BELOW;
+        default -> 0;
+      };
+      if (code == 0) return l;
+      pos++;
+      Val r = sum();
+      requireNum(l, op);
+      requireNum(r, op);
+      if (l.isConst() && r.isConst()) throw error("'" + op + "' compares two numbers");
+      int warm = Math.max(b.warm(l), b.warm(r));
+      if (code == CROSS_ABOVE || code == CROSS_BELOW) {
+        return b.binary(code, materialize(l), materialize(r), warm + 1);
+      }
+      if (l.isConst()) {
+        // Literal on the right, so 70 > rsi and rsi < 70 are one column.
+        code = switch (code) {
+          case LT -> GT;
+          case LE -> GE;
+          case GT -> LT;
+          default -> LE;
+        };
+        Val t = l;
+        l = r;
+        r = t;
+      }
+      return b.binary(code, l, r, warm);
+    }
+
+    private Val sum() {
+      Val l = product();
+      while (true) {
+        if (accept("+")) l = arithmetic(ADD, l, product());
+        else if (accept("-")) l = arithmetic(SUB, l, product());
+        else return l;
+      }
+    }
+
+    private Val product() {
+      Val l = unary();
+      while (true) {
+        if (accept("*")) l = arithmetic(MUL, l, unary());
+        else if (accept("/")) l = arithmetic(DIV, l, unary());
+        else return l;
+      }
+    }
+
+    private Val unary() {
+      if (accept("-")) {
+        Val v = unary();
+        requireNum(v, "-");
+        return v.isConst() ? new Val(CONST, -v.k(), false) : b.unary(NEG, v, 0, 0, b.warm(v));
+      }
+      return atom();
+    }
+
+    private Val atom() {
+      Token t = next("a value");
+      if (t.number()) return new Val(CONST, number(t), false);
+      if (t.text().equals("(")) {
+        Val v = or();
+        expect(")");
+        return v;
+      }
+      return switch (t.text()) {
+        case "close" -> b.emit(new Op(CLOSE, CONST, CONST, 0, 0, 0, 0), 0);
+        case "open" -> b.emit(new Op(OPEN, CONST, CONST, 0, 0, 0, 0), 0);
+        case "high" -> b.emit(new Op(HIGH, CONST, CONST, 0, 0, 0, 0), 0);
+        case "low" -> b.emit(new Op(LOW, CONST, CONST, 0, 0, 0, 0), 0);
+        case "volume" -> b.emit(new Op(VOLUME, CONST, CONST, 0, 0, 0, 0), 0);
+        case "ema", "sma", "rsi" -> {
+          expect("(");
+          Val x = series(t.text());
+          expect(",");
+          int n = period();
+          expect(")");
+          int code = t.text().equals("ema") ? EMA : t.text().equals("sma") ? SMA : RSI;
+          yield b.unary(code, x, n, 0, b.warm(x) + (code == SMA ? n - 1 : n));
+        }
+        case "macd" -> {
+          expect("(");
+          Val x = series("macd");
+          expect(",");
+          int fast = period();
+          expect(",");
+          int slow = period();
+          expect(")");
+          if (fast >= slow) throw error("macd needs the fast period below the slow one");
+          yield b.unary(MACD, x, fast, slow, b.warm(x) + slow);
+        }
+        default -> {
+          pos--;
+          throw error("Unknown name '" + t.text() + "'");
+        }
+      };
+    }
+
+    /** An indicator's input: a column, never a bare literal. */
+    private Val series(String fn) {
+      Val x = sum();
+      requireNum(x, fn);
+      if (x.isConst()) throw error(fn + " needs a series, not a number");
+      return x;
+    }
+
+    private int period() {
+      Token t = next("a period");
+      if (!t.number() || t.text().contains(".")) {
+        pos--;
+        throw error("A period must be a whole number");
+      }
+      int n;
+      try {
+        n = Integer.parseInt(t.text());
+      } catch (NumberFormatException e) {
+        n = 0;
+      }
+      if (n < 1 || n > 10_000) {
+        pos--;
+        throw error("A period must be between 1 and 10000");
+      }
+      return n;
+    }
+
+    private Val arithmetic(int code, Val l, Val r) {
+      String op = switch (code) {
+        case ADD -> "+";
+        case SUB -> "-";
+        case MUL -> "*";
+        default -> "/";
+      };
+      requireNum(l, op);
+      requireNum(r, op);
+      if (l.isConst() && r.isConst()) {
+        double v = switch (code) {
+          case ADD -> l.k() + r.k();
+          case SUB -> l.k() - r.k();
+          case MUL -> l.k() * r.k();
+          default -> l.k() / r.k();
+        };
+        return new Val(CONST, v, false);
+      }
+      return b.binary(code, l, r, Math.max(b.warm(l), b.warm(r)));
+    }
+
+    private Val logic(int code, Val l, Val r) {
+      String op = code == AND ? "and" : "or";
+      requireBool(l, op);
+      requireBool(r, op);
+      return b.binary(code, l, r, Math.max(b.warm(l), b.warm(r)));
+    }
+
+    private Val materialize(Val v) {
+      return v.isConst() ? b.literal(v.k()) : v;
+    }
+
+    private double number(Token t) {
+      try {
+        return Double.parseDouble(t.text());
+      } catch (NumberFormatException e) {
+        pos--;
+        throw error("'" + t.text() + "' is not a number");
+      }
+    }
+
+    private void requireNum(Val v, String op) {
+      if (v.bool()) throw error("'" + op + "' needs a number, not a condition");
+    }
+
+    private void requireBool(Val v, String op) {
+      if (!v.bool()) throw error("'" + op + "' needs a condition, not a number");
+    }
+
+    private String peek() {
+      return pos < tokens.size() ? tokens.get(pos).text() : null;
+    }
+
+    private boolean accept(String s) {
+      if (!s.equals(peek())) return false;
+      pos++;
+      return true;
+    }
+
+    private void expect(String s) {
+      if (!accept(s)) throw error("Expected '" + s + "'");
+    }
+
+    private Token next(String what) {
+      if (pos >= tokens.size()) throw error("Expected " + what);
+      return tokens.get(pos++);
+    }
+
+    void expectEnd() {
+      if (pos < tokens.size()) throw error("Unexpected '" + peek() + "'");
+    }
+
+    IllegalArgumentException error(String message) {
+      return error(message, pos < tokens.size() ? tokens.get(pos).at() : text.length());
+    }
+
+    private IllegalArgumentException error(String message, int at) {
+      return new IllegalArgumentException(message + " at position " + (at + 1) + " of the " + which + " rule: " + text);
+    }
+  }
+}
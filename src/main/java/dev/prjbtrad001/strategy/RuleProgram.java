@@ -0,0 +1,293 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.CandleColumns;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An entry and an exit rule compiled by {@link RuleCompiler}: a straight list
+ * of column operations, each a plain loop over {@code double[]} or
+ * {@code boolean[]}, run once per evaluation in order. Subexpressions the two
+ * rules share — {@code ema(close, 9)} in both, say — are one operation, so
+ * they are computed once.
+ *
+ * Indicators are ta4j's, in doubles: EMA, SMA, RSI (Wilder's) and MACD warm
+ * up and seed as EMAIndicator, SMAIndicator, RSIIndicator and MACDIndicator
+ * do, comparisons with an undefined (NaN) value are false, and the crosses
+ * are CrossedUpIndicatorRule and CrossedDownIndicatorRule.
+ *
+ * Immutable, so one program serves every bot and backtest with the same rules.
+ */
+public final class RuleProgram {
+
+  static final int CLOSE = 0, OPEN = 1, HIGH = 2, LOW = 3, VOLUME = 4, LITERAL = 5;
+  static final int EMA = 10, SMA = 11, RSI = 12, MACD = 13;
+  static final int ADD = 20, SUB = 21, MUL = 22, DIV = 23, NEG = 24;
+  static final int LT = 30, LE = 31, GT = 32, GE = 33, CROSS_ABOVE = 34, CROSS_BELOW = 35;
+  static final int AND = 40, OR = 41, NOT = 42;
+
+  /** An operand that is a literal, not an operation. */
+  static final int CONST = -1;
+
+  /**
+   * One operation: {@code a} and {@code b} index earlier operations, or are
+   * {@link #CONST} with the value in {@code ka} / {@code kb}; {@code p} and
+   * {@code q} are periods. A record, so equal operations compare equal —
+   * that is how the compiler finds shared subexpressions.
+   */
+  record Op(int code, int a, int b, int p, int q, double ka, double kb) {
+
+    boolean isBoolean() {
+      return code >= LT;
+    }
+  }
+
+  private final String entryText, exitText;
+  private final Op[] ops;
+  private final int entry, exit;
+  private final int[] warmUp;
+
+  RuleProgram(String entryText, String exitText, List<Op> ops, int entry, int exit, int[] warmUp) {
+    this.entryText = entryText;
+    this.exitText = exitText;
+    this.ops = ops.toArray(Op[]::new);
+    this.entry = entry;
+    this.exit = exit;
+    this.warmUp = warmUp;
+  }
+
+  public String entryRule() {
+    return entryText;
+  }
+
+  public String exitRule() {
+    return exitText;
+  }
+
+  /** Operations after sharing: what one evaluation actually computes. */
+  public int size() {
+    return ops.length;
+  }
+
+  /** Bars before both rules can first be true; a live decision on fewer is a HOLD. */
+  public int lookback() {
+    return Math.max(warmUp[entry], warmUp[exit]);
+  }
+
+  /**
+   * Both rules on every one of the first {@code n} bars, into {@code enter}
+   * and {@code leave}.
+   */
+  public void run(CandleColumns bars, int n, boolean[] enter, boolean[] leave) {
+    Object[] cols = new Object[ops.length];
+    for (int k = 0; k < ops.length; k++) cols[k] = compute(ops[k], cols, bars, n);
+    System.arraycopy((boolean[]) cols[entry], 0, enter, 0, n);
+    System.arraycopy((boolean[]) cols[exit], 0, leave, 0, n);
+  }
+
+  /** The live decision at the last of the first {@code n} bars, as {@link EmaCrossStrategy#evaluateLast}. */
+  public Signal evaluateLast(CandleColumns bars, int n, boolean currentlyOpen) {
+    if (n <= lookback()) return Signal.HOLD;
+    boolean[] enter = new boolean[n], leave = new boolean[n];
+    run(bars, n, enter, leave);
+    if (!currentlyOpen && enter[n - 1]) return Signal.ENTER;
+    if (currentlyOpen && leave[n - 1]) return Signal.EXIT;
+    return Signal.HOLD;
+  }
+
+  /**
+   * The rules as a strategy with a stop-loss, timed as
+   * {@link EmaCrossKernel#backtest} and returning the same: the fill bar of
+   * every position, {@code -1} exit for one still open.
+   */
+  public int backtest(CandleColumns bars, int n, double stopLossPercent, int[] entries, int[] exits) {
+    boolean[] enter = new boolean[n], leave = new boolean[n];
+    run(bars, n, enter, leave);
+    return EmaCrossKernel.trade(field(OPEN, bars, n), field(CLOSE, bars, n), n, enter, leave, stopLossPercent,
+      entries, exits);
+  }
+
+  private static Object compute(Op op, Object[] cols, CandleColumns bars, int n) {
+    return switch (op.code()) {
+      case CLOSE, OPEN, HIGH, LOW, VOLUME -> field(op.code(), bars, n);
+      case LITERAL -> {
+        double[] out = new double[n];
+        Arrays.fill(out, op.ka());
+        yield out;
+      }
+      case EMA -> ema(num(cols, op.a()), n, op.p(), 2.0 / (op.p() + 1));
+      case SMA -> sma(num(cols, op.a()), n, op.p());
+      case RSI -> rsi(num(cols, op.a()), n, op.p());
+      case MACD -> macd(num(cols, op.a()), n, op.p(), op.q());
+      case ADD, SUB, MUL, DIV -> arithmetic(op, cols, n);
+      case NEG -> {
+        double[] x = num(cols, op.a()), out = new double[n];
+        for (int i = 0; i < n; i++) out[i] = -x[i];
+        yield out;
+      }
+      case LT, LE, GT, GE -> compare(op, cols, n);
+      case CROSS_ABOVE, CROSS_BELOW -> {
+        double[] x = num(cols, op.a()), y = num(cols, op.b());
+        int want = op.code() == CROSS_ABOVE ? 1 : -1;
+        boolean[] out = new boolean[n];
+        for (int i = 0; i < n; i++) out[i] = EmaCrossKernel.crossAt(x, y, i) == want;
+        yield out;
+      }
+      case AND, OR -> {
+        boolean[] x = (boolean[]) cols[op.a()], y = (boolean[]) cols[op.b()], out = new boolean[n];
+        if (op.code() == AND) for (int i = 0; i < n; i++) out[i] = x[i] && y[i];
+        else for (int i = 0; i < n; i++) out[i] = x[i] || y[i];
+        yield out;
+      }
+      case NOT -> {
+        boolean[] x = (boolean[]) cols[op.a()], out = new boolean[n];
+        for (int i = 0; i < n; i++) out[i] = !x[i];
+        yield out;
+      }
+      default -> throw new IllegalStateException("Unknown operation " + op.code());
+    };
+  }
+
+  private static double[] num(Object[] cols, int ref) {
+    return (double[]) cols[ref];
+  }
+
+  private static double[] field(int code, CandleColumns bars, int n) {
+    double[] out = new double[n];
+    for (int i = 0; i < n; i++) {
+      out[i] = switch (code) {
+        case OPEN -> bars.open(i);
+        case HIGH -> bars.high(i);
+        case LOW -> bars.low(i);
+        case VOLUME -> bars.volume(i);
+        default -> bars.close(i);
+      };
+    }
+    return out;
+  }
+
+  /**
+   * AbstractEMAIndicator: undefined for the first {@code period} bars and
+   * wherever the input is, restarting from the input after an undefined
+   * value, otherwise moving by {@code alpha} of the gap.
+   */
+  static double[] ema(double[] x, int n, int period, double alpha) {
+    double[] out = new double[n];
+    double e = Double.NaN;
+    for (int i = 0; i < n; i++) {
+      double v = x[i];
+      if (i < period || Double.isNaN(v)) e = Double.NaN;
+      else if (Double.isNaN(e)) e = v;
+      else e = e + (v - e) * alpha;
+      out[i] = e;
+    }
+    return out;
+  }
+
+  /**
+   * SMAIndicator: a running total over the last {@code period} values, over
+   * fewer at the start. ta4j's total stays undefined forever once it has
+   * seen one; here a window is undefined only while it holds one.
+   */
+  static double[] sma(double[] x, int n, int period) {
+    double[] out = new double[n];
+    double sum = 0;
+    int lastNaN = -1;
+    for (int i = 0; i < n; i++) {
+      if (Double.isNaN(x[i])) lastNaN = i;
+      if (lastNaN >= 0 && lastNaN > i - period) {
+        out[i] = Double.NaN;
+        continue;
+      }
+      if (lastNaN >= 0 && lastNaN == i - period) {
+        sum = 0;
+        for (int j = i - period + 1; j <= i; j++) sum += x[j];
+      } else {
+        sum = sum + x[i];
+        if (i >= period) sum = sum - x[i - period];
+      }
+      out[i] = sum / Math.min(period, i + 1);
+    }
+    return out;
+  }
+
+  /** RSIIndicator: Wilder's averages of gains and losses, undefined for the first {@code period} bars. */
+  static double[] rsi(double[] x, int n, int period) {
+    double[] gain = new double[n], loss = new double[n];
+    for (int i = 1; i < n; i++) {
+      gain[i] = x[i] > x[i - 1] ? x[i] - x[i - 1] : 0;
+      loss[i] = x[i] < x[i - 1] ? x[i - 1] - x[i] : 0;
+    }
+    double[] g = ema(gain, n, period, 1.0 / period), l = ema(loss, n, period, 1.0 / period);
+    double[] out = new double[n];
+    for (int i = 0; i < n; i++) {
+      if (i < period) out[i] = Double.NaN;
+      else if (l[i] == 0) out[i] = g[i] == 0 ? 0 : 100;
+      else out[i] = 100 - 100 / (1 + g[i] / l[i]);
+    }
+    return out;
+  }
+
+  private static double[] macd(double[] x, int n, int fast, int slow) {
+    double[] f = ema(x, n, fast, 2.0 / (fast + 1)), s = ema(x, n, slow, 2.0 / (slow + 1));
+    for (int i = 0; i < n; i++) f[i] = f[i] - s[i];
+    return f;
+  }
+
+  private static double[] arithmetic(Op op, Object[] cols, int n) {
+    double[] out = new double[n];
+    if (op.a() == CONST) {
+      double k = op.ka();
+      double[] y = num(cols, op.b());
+      switch (op.code()) {
+        case ADD -> { for (int i = 0; i < n; i++) out[i] = k + y[i]; }
+        case SUB -> { for (int i = 0; i < n; i++) out[i] = k - y[i]; }
+        case MUL -> { for (int i = 0; i < n; i++) out[i] = k * y[i]; }
+        default -> { for (int i = 0; i < n; i++) out[i] = k / y[i]; }
+      }
+    } else if (op.b() == CONST) {
+      double[] x = num(cols, op.a());
+      double k = op.kb();
+      switch (op.code()) {
+        case ADD -> { for (int i = 0; i < n; i++) out[i] = x[i] + k; }
+        case SUB -> { for (int i = 0; i < n; i++) out[i] = x[i] - k; }
+        case MUL -> { for (int i = 0; i < n; i++) out[i] = x[i] * k; }
+        default -> { for (int i = 0; i < n; i++) out[i] = x[i] / k; }
+      }
+    } else {
+      double[] x = num(cols, op.a()), y = num(cols, op.b());
+      switch (op.code()) {
+        case ADD -> { for (int i = 0; i < n; i++) out[i] = x[i] + y[i]; }
+        case SUB -> { for (int i = 0; i < n; i++) out[i] = x[i] - y[i]; }
+        case MUL -> { for (int i = 0; i < n; i++) out[i] = x[i] * y[i]; }
+        default -> { for (int i = 0; i < n; i++) out[i] = x[i] / y[i]; }
+      }
+    }
+    return out;
+  }
+
+  /** Comparisons arrive with any literal on the right: the compiler flips {@code 70 > rsi} to {@code rsi < 70}. */
+  private static boolean[] compare(Op op, Object[] cols, int n) {
+    boolean[] out = new boolean[n];
+    double[] x = num(cols, op.a());
+    if (op.b() == CONST) {
+      double k = op.kb();
+      switch (op.code()) {
+        case LT -> { for (int i = 0; i < n; i++) out[i] = x[i] < k; }
+        case LE -> { for (int i = 0; i < n; i++) out[i] = x[i] <= k; }
+        case GT -> { for (int i = 0; i < n; i++) out[i] = x[i] > k; }
+        default -> { for (int i = 0; i < n; i++) out[i] = x[i] >= k; }
+      }
+    } else {
+      double[] y = num(cols, op.b());
+      switch (op.code()) {
+        case LT -> { for (int i = 0; i < n; i++) out[i] = x[i] < y[i]; }
+        case LE -> { for (int i = 0; i < n; i++) out[i] = x[i] <= y[i]; }
+        case GT -> { for (int i = 0; i < n; i++) out[i] = x[i] > y[i]; }
+        default -> { for (int i = 0; i < n; i++) out[i] = x[i] >= y[i]; }
+      }
+    }
+    return out;
+  }
+}
@@ -4,18 +4,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.prjbtrad001.backtest.BacktestEngine;
 import dev.prjbtrad001.backtest.BacktestRequest;
 import dev.prjbtrad001.backtest.BacktestResult;
+import dev.prjbtrad001.backtest.SweepRequest;
+import dev.prjbtrad001.backtest.SweepResult;
+import dev.prjbtrad001.backtest.WalkForwardRequest;
+import dev.prjbtrad001.backtest.WalkForwardResult;
+import dev.prjbtrad001.market.SymbolRegistry;
 import io.quarkus.qute.TemplateInstance;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
- * The backtest page: a form and, after running, the equity curve + metrics.
+ * The backtest page: a form and, after running, the equity curve + metrics;
+ * after a sweep, a heatmap of every combination in the ranges; after a
+ * walk-forward, the out-of-sample curve and each window's choice.
  */
 @Path("/backtest")
 public class BacktestResource {
@@ -28,9 +37,9 @@ public class BacktestResource {
   BacktestEngine engine;
   @Inject
   ObjectMapper mapper;
+  @Inject
+  SymbolRegistry symbols;
 
-  @ConfigProperty(name = "bot.symbol.list")
-  List<String> symbols;
   @ConfigProperty(name = "bot.paper.fee-rate")
   BigDecimal feeRate;
   @ConfigProperty(name = "bot.strategy.defaults.timeframe")
@@ -44,7 +53,7 @@ public class BacktestResource {
 
   @GET
   public TemplateInstance page() {
-    return base(null, null, defaults());
+    return base(null, null, null, null, null, defaults());
   }
 
   @POST
@@ -57,11 +66,100 @@ public class BacktestResource {
     @FormParam("emaSlow") int emaSlow,
     @FormParam("stopLossPercent") BigDecimal stop,
     @FormParam("candles") int candles,
-    @FormParam("feePercent") BigDecimal feePercent) {
+    @FormParam("feePercent") BigDecimal feePercent,
+    @FormParam("from") String from,
+    @FormParam("to") String to,
+    @FormParam("entryRule") String entryRule,
+    @FormParam("exitRule") String exitRule,
+    @BeanParam SweepForm ranges) {
 
-    BacktestRequest req = new BacktestRequest(symbol, timeframe, emaFast, emaSlow, stop, candles, feePercent);
+    LocalDate fromDate = date(from);
+    LocalDate toDate = date(to);
+    BacktestRequest req = new BacktestRequest(symbol, timeframe, emaFast, emaSlow, stop, candles, feePercent,
+      fromDate, toDate, entryRule, exitRule);
     BacktestResult result = engine.run(req);
 
+    String chartJson = result.ok()
+      ? buildChartJson(result.equityCurve(), result.buyHoldCurve(), result.times()) : null;
+    return base(result, chartJson, null, null, null, submitted(symbol, timeframe, emaFast, emaSlow, stop, candles,
+      feePercent, fromDate, toDate, entryRule, exitRule, ranges));
+  }
+
+  /** The same history, every combination of the sweep ranges. */
+  @POST
+  @Path("/sweep")
+  @Consumes("application/x-www-form-urlencoded")
+  public TemplateInstance sweep(
+    @FormParam("symbol") String symbol,
+    @FormParam("timeframe") String timeframe,
+    @FormParam("emaFast") int emaFast,
+    @FormParam("emaSlow") int emaSlow,
+    @FormParam("stopLossPercent") BigDecimal stop,
+    @FormParam("candles") int candles,
+    @FormParam("feePercent") BigDecimal feePercent,
+    @FormParam("from") String from,
+    @FormParam("to") String to,
+    @FormParam("entryRule") String entryRule,
+    @FormParam("exitRule") String exitRule,
+    @BeanParam SweepForm ranges) {
+
+    LocalDate fromDate = date(from);
+    LocalDate toDate = date(to);
+    SweepResult result;
+    if (!isBlank(entryRule) || !isBlank(exitRule)) {
+      result = SweepResult.error("The sweep varies the EMA cross only; clear the entry and exit rules.");
+    } else if (!ranges.complete()) {
+      result = SweepResult.error("Fill in every sweep range and step.");
+    } else {
+      result = engine.sweep(ranges.request(symbol, timeframe, candles, feePercent, fromDate, toDate));
+    }
+
+    String heatmapJson = result.ok() ? buildHeatmapJson(result) : "null";
+    return base(null, null, result, heatmapJson, null, submitted(symbol, timeframe, emaFast, emaSlow, stop,
+      candles, feePercent, fromDate, toDate, entryRule, exitRule, ranges));
+  }
+
+  /** The sweep ranges optimised window by window, judged on the windows after. */
+  @POST
+  @Path("/walk-forward")
+  @Consumes("application/x-www-form-urlencoded")
+  public TemplateInstance walkForward(
+    @FormParam("symbol") String symbol,
+    @FormParam("timeframe") String timeframe,
+    @FormParam("emaFast") int emaFast,
+    @FormParam("emaSlow") int emaSlow,
+    @FormParam("stopLossPercent") BigDecimal stop,
+    @FormParam("candles") int candles,
+    @FormParam("feePercent") BigDecimal feePercent,
+    @FormParam("from") String from,
+    @FormParam("to") String to,
+    @FormParam("entryRule") String entryRule,
+    @FormParam("exitRule") String exitRule,
+    @BeanParam SweepForm ranges) {
+
+    LocalDate fromDate = date(from);
+    LocalDate toDate = date(to);
+    WalkForwardResult result;
+    if (!isBlank(entryRule) || !isBlank(exitRule)) {
+      result = WalkForwardResult.error("The walk-forward varies the EMA cross only; clear the entry and exit rules.");
+    } else if (!ranges.complete() || ranges.trainBars == null || ranges.testBars == null) {
+      result = WalkForwardResult.error("Fill in every sweep range and step, and both window sizes.");
+    } else {
+      result = engine.walkForward(new WalkForwardRequest(
+        ranges.request(symbol, timeframe, candles, feePercent, fromDate, toDate),
+        ranges.trainBars, ranges.testBars, Boolean.TRUE.equals(ranges.anchored)));
+    }
+
+    String chartJson = result.ok()
+      ? buildChartJson(result.equityCurve(), result.buyHoldCurve(), result.times()) : null;
+    return base(null, chartJson, null, null, result, submitted(symbol, timeframe, emaFast, emaSlow, stop,
+      candles, feePercent, fromDate, toDate, entryRule, exitRule, ranges));
+  }
+
+  private static Map<String, Object> submitted(String symbol, String timeframe, int emaFast, int emaSlow,
+                                               BigDecimal stop, int candles, BigDecimal feePercent,
+                                               LocalDate fromDate, LocalDate toDate,
+                                               String entryRule, String exitRule, SweepForm ranges) {
     Map<String, Object> submitted = new HashMap<>();
     submitted.put("symbol", symbol);
     submitted.put("timeframe", timeframe);
@@ -70,24 +168,32 @@ public class BacktestResource {
     submitted.put("stop", stop);
     submitted.put("candles", candles);
     submitted.put("feePercent", feePercent);
-
-    String chartJson = result.ok() ? buildChartJson(result) : "null";
-    return base(result, chartJson, submitted);
+    submitted.put("from", fromDate == null ? "" : fromDate.toString());
+    submitted.put("to", toDate == null ? "" : toDate.toString());
+    submitted.put("entryRule", entryRule == null ? "" : entryRule);
+    submitted.put("exitRule", exitRule == null ? "" : exitRule);
+    ranges.putInto(submitted);
+    return submitted;
   }
 
-  private TemplateInstance base(BacktestResult result, String chartJson, Map<String, Object> submitted) {
+  private TemplateInstance base(BacktestResult result, String chartJson, SweepResult sweep, String heatmapJson,
+                                WalkForwardResult walk, Map<String, Object> submitted) {
     return Templates.backtest()
       .data("pageTitle", "Backtest")
-      .data("symbols", symbols)
+      .data("symbols", symbols.tradable())
       .data("timeframes", BotResource.TIMEFRAMES)
       .data("result", result)
       .data("chartJson", chartJson)
+      .data("sweep", sweep)
+      .data("heatmapJson", heatmapJson)
+      .data("walk", walk)
       .data("form", submitted);
   }
 
   private Map<String, Object> defaults() {
     Map<String, Object> m = new HashMap<>();
-    m.put("symbol", symbols.isEmpty() ? "BTCBRL" : symbols.getFirst());
+    m.put("symbol", symbols.tradable().contains("BTCBRL") || symbols.tradable().isEmpty()
+      ? "BTCBRL" : symbols.tradable().getFirst());
     m.put("timeframe", defTimeframe);
     m.put("emaFast", defEmaFast);
     m.put("emaSlow", defEmaSlow);
@@ -95,14 +201,40 @@ public class BacktestResource {
     m.put("candles", 500);
     // fee-rate is a fraction (0.001); the form takes a percentage (0.1)
     m.put("feePercent", feeRate.movePointRight(2));
+    m.put("from", "");
+    m.put("to", "");
+    m.put("entryRule", "");
+    m.put("exitRule", "");
+    m.put("sweepFastFrom", 5);
+    m.put("sweepFastTo", 30);
+    m.put("sweepSlowFrom", 20);
+    m.put("sweepSlowTo", 60);
+    m.put("sweepEmaStep", 1);
+    m.put("sweepStopFrom", 2);
+    m.put("sweepStopTo", 10);
+    m.put("sweepStopStep", 2);
+    m.put("wfTrain", 2000);
+    m.put("wfTest", 500);
+    m.put("wfAnchored", false);
     return m;
   }
 
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  /** HTML date inputs post "yyyy-MM-dd", or nothing when left blank. */
+  private static LocalDate date(String value) {
+    if (value == null || value.isBlank()) return null;
+    try {
+      return LocalDate.parse(value.trim());
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
   /** Serialises a down-sampled equity/buy-hold series for Chart.js. */
-  private String buildChartJson(BacktestResult r) {
-    List<Double> equity = r.equityCurve();
-    List<Double> buyHold = r.buyHoldCurve();
-    List<Long> times = r.times();
+  private String buildChartJson(List<Double> equity, List<Double> buyHold, List<Long> times) {
     int n = equity.size();
     int step = Math.max(1, n / MAX_CHART_POINTS);
 
@@ -131,4 +263,97 @@ public class BacktestResource {
       return "null";
     }
   }
+
+  /**
+   * The sweep grid for the heatmap: one flat array per metric in
+   * {@link SweepResult#cells} order, null where there is no cell. An
+   * unbounded profit factor is sent as 999999, which the page shows as ∞.
+   */
+  private String buildHeatmapJson(SweepResult r) {
+    int size = r.cells().size();
+    List<Double> returns = new ArrayList<>(size);
+    List<Double> drawdowns = new ArrayList<>(size);
+    List<Double> profitFactors = new ArrayList<>(size);
+    List<Integer> trades = new ArrayList<>(size);
+    for (SweepResult.Cell c : r.cells()) {
+      returns.add(c == null ? null : c.netReturnPct());
+      drawdowns.add(c == null ? null : c.maxDrawdownPct());
+      profitFactors.add(c == null ? null : Double.isInfinite(c.profitFactor()) ? 999_999 : c.profitFactor());
+      trades.add(c == null ? null : c.numTrades());
+    }
+
+    Map<String, Object> heatmap = new LinkedHashMap<>();
+    heatmap.put("fasts", r.fasts());
+    heatmap.put("slows", r.slows());
+    heatmap.put("stops", r.stops());
+    heatmap.put("returns", returns);
+    heatmap.put("drawdowns", drawdowns);
+    heatmap.put("profitFactors", profitFactors);
+    heatmap.put("trades", trades);
+    try {
+      return mapper.writeValueAsString(heatmap);
+    } catch (Exception e) {
+      return "null";
+    }
+  }
+
+  /**
+   * The sweep ranges, and the windows of a walk-forward over them. Posted
+   * with every submission so the page keeps them; boxed because a single run
+   * does not need them filled in.
+   */
+  public static class SweepForm {
+
+    @FormParam("sweepFastFrom")
+    Integer fastFrom;
+    @FormParam("sweepFastTo")
+    Integer fastTo;
+    @FormParam("sweepSlowFrom")
+    Integer slowFrom;
+    @FormParam("sweepSlowTo")
+    Integer slowTo;
+    @FormParam("sweepEmaStep")
+    Integer emaStep;
+    @FormParam("sweepStopFrom")
+    BigDecimal stopFrom;
+    @FormParam("sweepStopTo")
+    BigDecimal stopTo;
+    @FormParam("sweepStopStep")
+    BigDecimal stopStep;
+    @FormParam("wfTrain")
+    Integer trainBars;
+    @FormParam("wfTest")
+    Integer testBars;
+    @FormParam("wfAnchored")
+    Boolean anchored;
+
+    boolean complete() {
+      return fastFrom != null && fastTo != null && slowFrom != null && slowTo != null && emaStep != null
+        && stopFrom != null && stopTo != null && stopStep != null;
+    }
+
+    SweepRequest request(String symbol, String timeframe, int candles, BigDecimal feePercent,
+                         LocalDate from, LocalDate to) {
+      return new SweepRequest(symbol, timeframe, fastFrom, fastTo, slowFrom, slowTo, emaStep,
+        stopFrom, stopTo, stopStep, candles, feePercent, from, to);
+    }
+
+    void putInto(Map<String, Object> form) {
+      form.put("sweepFastFrom", orBlank(fastFrom));
+      form.put("sweepFastTo", orBlank(fastTo));
+      form.put("sweepSlowFrom", orBlank(slowFrom));
+      form.put("sweepSlowTo", orBlank(slowTo));
+      form.put("sweepEmaStep", orBlank(emaStep));
+      form.put("sweepStopFrom", orBlank(stopFrom));
+      form.put("sweepStopTo", orBlank(stopTo));
+      form.put("sweepStopStep", orBlank(stopStep));
+      form.put("wfTrain", orBlank(trainBars));
+      form.put("wfTest", orBlank(testBars));
+      form.put("wfAnchored", Boolean.TRUE.equals(anchored));
+    }
+
+    private static Object orBlank(Object value) {
+      return value == null ? "" : value;
+    }
+  }
 }
@@ -1,8 +1,10 @@
 package dev.prjbtrad001.web;
 
 import dev.prjbtrad001.bot.BotOrchestrator;
-import dev.prjbtrad001.domain.bot.BotType;
 import dev.prjbtrad001.domain.bot.TradeBot;
+import dev.prjbtrad001.market.Intervals;
+import dev.prjbtrad001.market.SymbolRegistry;
+import dev.prjbtrad001.strategy.RuleCompiler;
 import io.quarkus.qute.TemplateInstance;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -24,16 +26,14 @@ import java.util.*;
 public class BotResource {
 
   /** Candle intervals offered in the form; must match TradeBot's @Pattern. */
-  static final List<String> TIMEFRAMES =
-    List.of("15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d", "1w");
+  static final List<String> TIMEFRAMES = Intervals.SUPPORTED;
 
   @Inject
   Validator validator;
   @Inject
   BotOrchestrator orchestrator;
-
-  @ConfigProperty(name = "bot.symbol.list")
-  List<String> symbols;
+  @Inject
+  SymbolRegistry symbols;
 
   @ConfigProperty(name = "bot.strategy.defaults.timeframe")
   String defTimeframe;
@@ -46,10 +46,29 @@ public class BotResource {
   @ConfigProperty(name = "bot.strategy.defaults.order-size-brl")
   BigDecimal defOrderSize;
 
+  /**
+   * The empty form, or one prefilled from the query, as the walk-forward's
+   * link to its last window does.
+   */
   @GET
   @Path("/create")
-  public TemplateInstance create() {
-    return form(null, null, null);
+  public TemplateInstance create(
+    @QueryParam("symbol") String symbol,
+    @QueryParam("timeframe") String timeframe,
+    @QueryParam("emaFast") Integer emaFast,
+    @QueryParam("emaSlow") Integer emaSlow,
+    @QueryParam("stopLossPercent") BigDecimal stopLossPercent) {
+
+    if (symbol == null && timeframe == null && emaFast == null && emaSlow == null && stopLossPercent == null) {
+      return form(null, null, null);
+    }
+    TradeBot bot = new TradeBot();
+    bot.setSymbol(blankToNull(symbol));
+    bot.setTimeframe(blankToNull(timeframe));
+    if (emaFast != null) bot.setEmaFast(emaFast);
+    if (emaSlow != null) bot.setEmaSlow(emaSlow);
+    bot.setStopLossPercent(stopLossPercent);
+    return form(bot, null, null);
   }
 
   @GET
@@ -71,9 +90,23 @@ public class BotResource {
     for (ConstraintViolation<TradeBot> v : validator.validate(input)) {
       errors.add(v.getMessage());
     }
+    if (input.getSymbol() != null && !symbols.isTradable(input.getSymbol())) {
+      errors.add(input.getSymbol() + " is not a tradable pair.");
+    }
     if (!input.hasValidEmaOrder()) {
       errors.add("Fast EMA must be smaller than slow EMA.");
     }
+    input.setEntryRule(blankToNull(input.getEntryRule()));
+    input.setExitRule(blankToNull(input.getExitRule()));
+    if ((input.getEntryRule() == null) != (input.getExitRule() == null)) {
+      errors.add("Give both an entry and an exit rule, or neither.");
+    } else if (input.hasRules()) {
+      try {
+        RuleCompiler.compile(input.getEntryRule(), input.getExitRule());
+      } catch (IllegalArgumentException e) {
+        errors.add(e.getMessage());
+      }
+    }
     if (!errors.isEmpty()) {
       return form(input, botId, errors);
     }
@@ -81,12 +114,18 @@ public class BotResource {
     if (botId != null) {
       TradeBot bot = TradeBot.findById(botId);
       if (bot != null) {
+        // The EMAs were folded from the old pair's closes.
+        if (!input.getSymbol().equals(bot.getSymbol()) || !input.getTimeframe().equals(bot.getTimeframe())) {
+          bot.setEma(null);
+        }
         bot.setSymbol(input.getSymbol());
         bot.setTimeframe(input.getTimeframe());
         bot.setEmaFast(input.getEmaFast());
         bot.setEmaSlow(input.getEmaSlow());
         bot.setStopLossPercent(input.getStopLossPercent());
         bot.setOrderSizeBrl(input.getOrderSizeBrl());
+        bot.setEntryRule(input.getEntryRule());
+        bot.setExitRule(input.getExitRule());
       }
       return redirect("Bot updated.");
     }
@@ -125,7 +164,7 @@ public class BotResource {
    */
   private TemplateInstance form(TradeBot bot, UUID botId, List<String> errors) {
     Map<String, Object> v = new HashMap<>();
-    v.put("symbol", bot != null && bot.getSymbol() != null ? bot.getSymbol().name() : null);
+    v.put("symbol", bot != null ? bot.getSymbol() : null);
     v.put("timeframe", bot != null && bot.getTimeframe() != null ? bot.getTimeframe() : defTimeframe);
     v.put("emaFast", bot != null && bot.getEmaFast() > 0 ? bot.getEmaFast() : defEmaFast);
     v.put("emaSlow", bot != null && bot.getEmaSlow() > 0 ? bot.getEmaSlow() : defEmaSlow);
@@ -133,17 +172,22 @@ public class BotResource {
       ? bot.getStopLossPercent().stripTrailingZeros().toPlainString() : defStop.toPlainString());
     v.put("orderSize", bot != null && bot.getOrderSizeBrl() != null
       ? bot.getOrderSizeBrl().stripTrailingZeros().toPlainString() : defOrderSize.toPlainString());
+    v.put("entryRule", bot != null && bot.getEntryRule() != null ? bot.getEntryRule() : "");
+    v.put("exitRule", bot != null && bot.getExitRule() != null ? bot.getExitRule() : "");
 
     return Templates.botForm()
       .data("pageTitle", botId != null ? "Edit Bot" : "Create Bot")
-      .data("symbols", symbols)
-      .data("types", BotType.values())
+      .data("symbols", symbols.tradable())
       .data("timeframes", TIMEFRAMES)
       .data("botId", botId)
       .data("v", v)
       .data("errors", errors);
   }
 
+  private static String blankToNull(String s) {
+    return s == null || s.isBlank() ? null : s.strip();
+  }
+
   private Response redirect(String message) {
     return Response.seeOther(
       UriBuilder.fromPath("/").queryParam("message", message).build()).build();
@@ -2,6 +2,7 @@ package dev.prjbtrad001.web;
 
 import dev.prjbtrad001.domain.bot.TradeBot;
 import dev.prjbtrad001.market.MarketDataClient;
+import dev.prjbtrad001.market.RequestPriority;
 import dev.prjbtrad001.paper.PaperWallet;
 import io.quarkus.qute.TemplateInstance;
 import jakarta.inject.Inject;
@@ -11,7 +12,9 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.QueryParam;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The landing page: a dashboard of every bot plus a paper-account summary.
@@ -21,6 +24,8 @@ import java.util.*;
 @Path("/")
 public class DashboardResource {
 
+  private static final Duration PRICE_DEADLINE = Duration.ofSeconds(5);
+
   @Inject
   PaperWallet wallet;
   @Inject
@@ -33,17 +38,25 @@ public class DashboardResource {
       .sorted(Comparator
         .comparing((TradeBot b) -> !b.isRunning())
         .thenComparing(b -> !b.getStatus().isOpen())
-        .thenComparing(b -> b.getSymbol().name()))
+        .thenComparing(TradeBot::getSymbol))
       .toList();
 
-    // Price cache for the distinct symbols of open bots only.
-    Map<String, BigDecimal> priceCache = new HashMap<>();
+    // Prices for the distinct symbols of open bots only, in one request.
+    Set<String> openSymbols = new HashSet<>();
     for (TradeBot b : bots) {
-      if (b.getStatus().isOpen()) {
-        priceCache.computeIfAbsent(b.getSymbol().name(), marketData::getPrice);
-      }
+      if (b.getStatus().isOpen()) openSymbols.add(b.getSymbol());
     }
+    // Started now, joined once the rest of the page is assembled. A slow
+    // exchange renders the page without live prices instead of hanging it.
+    CompletableFuture<Map<String, BigDecimal>> priceFetch = RequestPriority.call(RequestPriority.DASHBOARD,
+      () -> marketData.getPricesAsync(openSymbols, PRICE_DEADLINE));
+
+    Map<String, Object> summary = new HashMap<>();
+    summary.put("total", bots.size());
+    summary.put("balance", wallet.getBalance());
+    summary.put("fees", wallet.getTotalFees());
 
+    Map<String, BigDecimal> priceCache = priceFetch.exceptionally(e -> Map.of()).join();
     List<BotView> views = new ArrayList<>();
     BigDecimal realizedTotal = BigDecimal.ZERO;
     BigDecimal unrealizedTotal = BigDecimal.ZERO;
@@ -53,19 +66,15 @@ public class DashboardResource {
       realizedTotal = realizedTotal.add(nz(b.getStatus().getRealizedProfit()));
       if (b.isRunning()) running++;
 
-      BigDecimal price = b.getStatus().isOpen() ? priceCache.get(b.getSymbol().name()) : null;
+      BigDecimal price = b.getStatus().isOpen() ? priceCache.get(b.getSymbol()) : null;
       BigDecimal unreal = price == null ? null : b.getStatus().unrealizedProfit(price);
       if (unreal != null) unrealizedTotal = unrealizedTotal.add(unreal);
       views.add(new BotView(b, price, unreal));
     }
 
-    Map<String, Object> summary = new HashMap<>();
-    summary.put("total", bots.size());
     summary.put("running", running);
     summary.put("realized", realizedTotal);
     summary.put("unrealized", unrealizedTotal);
-    summary.put("balance", wallet.getBalance());
-    summary.put("fees", wallet.getTotalFees());
 
     return Templates.dashboard()
       .data("pageTitle", "Dashboard")
@@ -0,0 +1,99 @@
+package dev.prjbtrad001.web;
+
+import dev.prjbtrad001.market.BinanceDataClient;
+import dev.prjbtrad001.market.KlineImporter;
+import dev.prjbtrad001.market.PriceCache;
+import dev.prjbtrad001.market.TradeBars;
+import dev.prjbtrad001.market.Upstream;
+import dev.prjbtrad001.market.WeightLimiter;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operational view of the exchange connection, for monitoring rather than
+ * people: how much of the request-weight budget is left, who is waiting, and
+ * how many price requests the cache absorbed. Also the trigger for seeding
+ * the candle store from Binance's bulk dumps, and for recording the trades
+ * that volume, dollar and tick bars are sampled from.
+ */
+@Path("/market")
+public class MarketResource {
+
+  @Inject
+  @Upstream
+  BinanceDataClient binance;
+  @Inject
+  PriceCache priceCache;
+  @Inject
+  KlineImporter importer;
+  @Inject
+  TradeBars tradeBars;
+
+  @GET
+  @Path("/limiter")
+  @Produces(MediaType.APPLICATION_JSON)
+  public WeightLimiter.Stats limiter() {
+    return binance.limiterStats();
+  }
+
+  @GET
+  @Path("/prices")
+  @Produces(MediaType.APPLICATION_JSON)
+  public PriceCache.Stats prices() {
+    return priceCache.stats();
+  }
+
+  /**
+   * Imports the dump zips waiting in {@code bot.market.import.dir}, or only
+   * those of {@code symbol}. Blocks until done; safe to repeat.
+   */
+  @POST
+  @Path("/import")
+  @Produces(MediaType.APPLICATION_JSON)
+  public List<KlineImporter.Report> importDumps(@QueryParam("symbol") String symbol) {
+    return importer.importAll(symbol);
+  }
+
+  /**
+   * Records {@code symbol}'s aggregated trades for the UTC days
+   * [{@code from}, {@code to}] into {@code bot.market.trades.dir}. Days already
+   * there are skipped; stops at the first day that fails.
+   */
+  @POST
+  @Path("/trades/record")
+  @Produces(MediaType.APPLICATION_JSON)
+  public List<TradeBars.Report> recordTrades(@QueryParam("symbol") String symbol,
+                                             @QueryParam("from") String from,
+                                             @QueryParam("to") String to) {
+    if (symbol == null || symbol.isBlank()) throw new BadRequestException("symbol is required");
+    if (from == null || from.isBlank()) throw new BadRequestException("from is required (yyyy-MM-dd)");
+    LocalDate first = day("from", from);
+    LocalDate last = to == null || to.isBlank() ? first : day("to", to);
+    List<TradeBars.Report> reports = new ArrayList<>();
+    for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+      TradeBars.Report r = tradeBars.record(symbol, day);
+      reports.add(r);
+      if (r.error() != null) break;
+    }
+    return reports;
+  }
+
+  private static LocalDate day(String name, String value) {
+    try {
+      return LocalDate.parse(value.trim());
+    } catch (DateTimeParseException e) {
+      throw new BadRequestException(name + " is not a date (yyyy-MM-dd): " + value);
+    }
+  }
+}
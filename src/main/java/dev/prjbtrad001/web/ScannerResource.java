@@ -0,0 +1,42 @@
+package dev.prjbtrad001.web;
+
+import dev.prjbtrad001.scanner.MarketScanner;
+import dev.prjbtrad001.strategy.Signal;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * The market scanner's ranked table: every configured signal on every
+ * tradable pair, freshest crosses first. {@code signal=ENTER} lists the pairs
+ * where a bot would just have bought.
+ */
+@Path("/scanner")
+public class ScannerResource {
+
+  private static final int MAX_LIMIT = 5000;
+
+  @Inject
+  MarketScanner scanner;
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public List<MarketScanner.Hit> ranked(@QueryParam("timeframe") String timeframe,
+                                        @QueryParam("signal") Signal signal,
+                                        @QueryParam("limit") Integer limit) {
+    int max = limit == null ? 100 : Math.min(Math.max(limit, 1), MAX_LIMIT);
+    return scanner.ranked(timeframe == null || timeframe.isBlank() ? null : timeframe, signal, max);
+  }
+
+  @GET
+  @Path("/stats")
+  @Produces(MediaType.APPLICATION_JSON)
+  public MarketScanner.Stats stats() {
+    return scanner.stats();
+  }
+}
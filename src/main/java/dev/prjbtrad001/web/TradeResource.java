@@ -36,7 +36,7 @@ public class TradeResource {
     var query = botId != null
       ? TradeRecord.<TradeRecord>find("botId", newest, botId)
       : symbol != null
-      ? TradeRecord.<TradeRecord>find("symbol", newest, Enum.valueOf(dev.prjbtrad001.domain.bot.BotType.class, symbol))
+      ? TradeRecord.<TradeRecord>find("symbol", newest, symbol)
       : TradeRecord.<TradeRecord>findAll(newest);
 
     return query.page(0, max).list();
@@ -0,0 +1,107 @@
+package dev.prjbtrad001.backtest;
+
+import dev.prjbtrad001.market.KlineDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every cell of a sweep must be what a single backtest with its parameters
+ * reports, and a heatmap-sized grid must come back in seconds.
+ */
+class ParameterSweepTest {
+
+  private static final BigDecimal FEE = new BigDecimal("0.1");
+
+  @Test
+  void cellsAreSingleRuns() {
+    BacktestEngine engine = BacktestFixtures.engine();
+    for (long seed = 0; seed < 4; seed++) {
+      List<KlineDto> candles = BacktestFixtures.candles(seed, 1500);
+      SweepResult sweep = engine.sweep(request(3, 15, 8, 40, 4, "1", "7", "1.5"), candles);
+      assertTrue(sweep.ok(), sweep.message());
+
+      int cells = 0;
+      for (SweepResult.Cell c : sweep.cells()) {
+        if (c == null) continue;
+        cells++;
+        BacktestResult run = engine.run(new BacktestRequest("T", "1h", c.emaFast(), c.emaSlow(),
+          BigDecimal.valueOf(c.stopLossPercent()), candles.size(), FEE), candles);
+        String where = "seed " + seed + " " + c;
+        assertEquals(run.netReturnPct(), c.netReturnPct(), where);
+        assertEquals(run.maxDrawdownPct(), c.maxDrawdownPct(), where);
+        assertEquals(run.profitFactor(), c.profitFactor(), where);
+        assertEquals(run.numTrades(), c.numTrades(), where);
+        assertEquals(run.winRatePct(), c.winRatePct(), where);
+      }
+      assertEquals(sweep.runs(), cells);
+      assertEquals(run(engine, candles).buyHoldReturnPct(), sweep.buyHoldReturnPct());
+    }
+  }
+
+  @Test
+  void theGridIsLaidOutForAHeatmap() {
+    SweepResult sweep = BacktestFixtures.engine()
+      .sweep(request(5, 20, 10, 30, 5, "0.5", "2", "0.5"), BacktestFixtures.candles(7, 800));
+
+    assertEquals(List.of(5, 10, 15, 20), sweep.fasts());
+    assertEquals(List.of(10, 15, 20, 25, 30), sweep.slows());
+    assertEquals(List.of(0.5, 1.0, 1.5, 2.0), sweep.stops());
+    assertEquals(4 * 5 * 4, sweep.cells().size());
+    assertEquals((1 + 2 + 3 + 4 + 4) * 4, sweep.runs(), "fast below slow only");
+    for (int t = 0; t < 4; t++) {
+      for (int s = 0; s < 5; s++) {
+        for (int f = 0; f < 4; f++) {
+          SweepResult.Cell c = sweep.cell(f, s, t);
+          if (sweep.fasts().get(f) >= sweep.slows().get(s)) {
+            assertNull(c);
+            continue;
+          }
+          assertEquals(sweep.fasts().get(f), c.emaFast());
+          assertEquals(sweep.slows().get(s), c.emaSlow());
+          assertEquals(sweep.stops().get(t), c.stopLossPercent());
+          assertTrue(c.netReturnPct() <= sweep.best().netReturnPct());
+        }
+      }
+    }
+  }
+
+  @Test
+  void badRangesAreRefused() {
+    BacktestEngine engine = BacktestFixtures.engine();
+    List<KlineDto> candles = BacktestFixtures.candles(1, 500);
+    assertFalse(engine.sweep(request(10, 5, 20, 30, 1, "1", "2", "1"), candles).ok());
+    assertFalse(engine.sweep(request(30, 40, 10, 20, 1, "1", "2", "1"), candles).ok());
+    SweepResult skipped = engine.sweep(request(10, 10, 5, 14, 5, "1", "2", "1"), candles);
+    assertFalse(skipped.ok(), "the step skips slow 14, leaving slows 5 and 10");
+    assertEquals("No fast EMA in that range is smaller than a slow one.", skipped.message());
+    assertFalse(engine.sweep(request(5, 10, 20, 30, 0, "1", "2", "1"), candles).ok());
+    assertFalse(engine.sweep(request(5, 10, 20, 30, 1, "1", "2", "0"), candles).ok());
+    assertFalse(engine.sweep(request(5, 10, 20, 600, 1, "1", "2", "1"), candles).ok(), "not enough candles");
+    assertFalse(engine.sweep(request(1, 200, 2, 300, 1, "0.1", "20", "0.1"), BacktestFixtures.candles(2, 5000)).ok(),
+      "too large");
+  }
+
+  @Test
+  void fiftyByFiftyByTenOverTwentyThousandBars() {
+    List<KlineDto> candles = BacktestFixtures.candles(3, 20_000);
+    SweepResult sweep = BacktestFixtures.engine().sweep(request(5, 54, 60, 109, 1, "1", "10", "1"), candles);
+
+    assertTrue(sweep.ok(), sweep.message());
+    assertEquals(25_000, sweep.runs());
+    assertTrue(sweep.millis() < 10_000, "the sweep took " + sweep.millis() + " ms");
+  }
+
+  private static BacktestResult run(BacktestEngine engine, List<KlineDto> candles) {
+    return engine.run(new BacktestRequest("T", "1h", 9, 21, BigDecimal.ONE, candles.size(), FEE), candles);
+  }
+
+  private static SweepRequest request(int fastFrom, int fastTo, int slowFrom, int slowTo, int emaStep,
+                                      String stopFrom, String stopTo, String stopStep) {
+    return new SweepRequest("T", "1h", fastFrom, fastTo, slowFrom, slowTo, emaStep,
+      new BigDecimal(stopFrom), new BigDecimal(stopTo), new BigDecimal(stopStep), 0, FEE, null, null);
+  }
+}
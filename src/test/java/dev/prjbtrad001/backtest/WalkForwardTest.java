@@ -0,0 +1,145 @@
+package dev.prjbtrad001.backtest;
+
+import dev.prjbtrad001.market.KlineDto;
+import dev.prjbtrad001.strategy.EmaCrossKernel;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Each window must pick what a sweep of its training bars picks, trade it
+ * on the test bars as the strategy would with the history behind it, and
+ * hand its money to the next; and a long history must walk in seconds.
+ */
+class WalkForwardTest {
+
+  private static final BigDecimal FEE = new BigDecimal("0.1");
+
+  @Test
+  void windowsPickTheTrainingSweepsBest() {
+    BacktestEngine engine = BacktestFixtures.engine();
+    List<KlineDto> candles = BacktestFixtures.candles(11, 3_000);
+    SweepRequest ranges = ranges(4, 16, 20, 60, 4, "2", "8", "3");
+
+    WalkForwardResult anchored = engine.walkForward(new WalkForwardRequest(ranges, 1_000, 500, true), candles);
+    assertTrue(anchored.ok(), anchored.message());
+    assertEquals(4, anchored.windows().size());
+    for (int k = 0; k < 4; k++) {
+      SweepResult train = engine.sweep(ranges, candles.subList(0, 1_000 + k * 500));
+      WalkForwardResult.Window w = anchored.windows().get(k);
+      assertEquals(train.best().emaFast(), w.emaFast(), "window " + k);
+      assertEquals(train.best().emaSlow(), w.emaSlow(), "window " + k);
+      assertEquals(train.best().stopLossPercent(), w.stopLossPercent(), "window " + k);
+      assertEquals(train.best().netReturnPct(), w.inSampleReturnPct(), "window " + k);
+    }
+
+    WalkForwardResult rolling = engine.walkForward(new WalkForwardRequest(ranges, 1_000, 500, false), candles);
+    assertEquals(anchored.windows().getFirst(), rolling.windows().getFirst(), "the first windows are the same");
+    assertEquals(engine.sweep(ranges, candles.subList(0, 1_000)).runs(), rolling.runsPerWindow());
+  }
+
+  @Test
+  void testWindowsTradeWithTheHistoryBehindThem() {
+    BacktestEngine engine = BacktestFixtures.engine();
+    for (long seed = 0; seed < 4; seed++) {
+      List<KlineDto> candles = BacktestFixtures.candles(seed, 2_400);
+      WalkForwardResult walk = engine.walkForward(
+        new WalkForwardRequest(ranges(3, 12, 15, 40, 3, "1", "5", "2"), 600, 450, false), candles);
+      assertTrue(walk.ok(), walk.message());
+      assertEquals(4, walk.windows().size(), "the last test window is short");
+      assertEquals(2_400 - 600, walk.equityCurve().size());
+      assertEquals(walk.equityCurve().size(), walk.buyHoldCurve().size());
+      assertEquals(candles.get(600).closeTime(), walk.times().getFirst());
+
+      double money = 1_000;
+      int trades = 0;
+      for (int k = 0; k < walk.windows().size(); k++) {
+        WalkForwardResult.Window w = walk.windows().get(k);
+        int from = 600 + k * 450, to = Math.min(from + 450, candles.size());
+        double end = reference(candles, w, from, to);
+        assertEquals(Math.round((end - 1) * 10_000) / 100.0, w.outOfSampleReturnPct(), 1e-9, "seed " + seed + " " + w);
+        money *= end;
+        trades += w.numTrades();
+        assertEquals(Math.round(money * 100) / 100.0, walk.equityCurve().get(to - 1 - 600), 0.011,
+          "each window starts with the money the last one left");
+      }
+      assertEquals(trades, walk.numTrades());
+      assertEquals(walk.finalEquity(), walk.equityCurve().getLast());
+    }
+  }
+
+  @Test
+  void badWindowsAreRefused() {
+    BacktestEngine engine = BacktestFixtures.engine();
+    List<KlineDto> candles = BacktestFixtures.candles(5, 1_000);
+    SweepRequest ranges = ranges(5, 10, 20, 30, 1, "1", "2", "1");
+    assertFalse(engine.walkForward(new WalkForwardRequest(ranges, 35, 100, false), candles).ok(), "shorter than the slow EMA");
+    assertFalse(engine.walkForward(new WalkForwardRequest(ranges, 300, 5, false), candles).ok(), "tiny test windows");
+    assertFalse(engine.walkForward(new WalkForwardRequest(ranges, 900, 200, false), candles).ok(), "no room to test");
+    assertFalse(engine.walkForward(new WalkForwardRequest(ranges(10, 5, 20, 30, 1, "1", "2", "1"), 300, 100, false),
+      candles).ok());
+    WalkForwardResult empty = engine.walkForward(
+      new WalkForwardRequest(ranges(10, 10, 5, 14, 5, "1", "2", "1"), 300, 100, false), candles);
+    assertFalse(empty.ok(), "the step leaves slows 5 and 10, none above the fast 10");
+    assertEquals("No fast EMA in that range is smaller than a slow one.", empty.message());
+  }
+
+  @Test
+  void twentyThousandBarsWalkInSeconds() {
+    List<KlineDto> candles = BacktestFixtures.candles(3, 20_000);
+    WalkForwardResult walk = BacktestFixtures.engine().walkForward(
+      new WalkForwardRequest(ranges(5, 30, 20, 60, 1, "2", "10", "2"), 4_000, 1_000, false), candles);
+
+    assertTrue(walk.ok(), walk.message());
+    assertEquals(16, walk.windows().size());
+    assertTrue(walk.millis() < 10_000, "the walk took " + walk.millis() + " ms");
+  }
+
+  /**
+   * The window's parameters traded from flat at {@code from} with EMAs and
+   * crosses from bar 0, per unit of money: fills at the next open, the stop
+   * against it, money at the fill bar's close, closed out on the last bar.
+   */
+  private static double reference(List<KlineDto> candles, WalkForwardResult.Window w, int from, int to) {
+    int n = candles.size();
+    double[] open = new double[n], close = new double[n], fast = new double[n], slow = new double[n];
+    for (int i = 0; i < n; i++) {
+      open[i] = candles.get(i).open().doubleValue();
+      close[i] = candles.get(i).close().doubleValue();
+    }
+    EmaCrossKernel.ema(close, n, w.emaFast(), fast);
+    EmaCrossKernel.ema(close, n, w.emaSlow(), slow);
+
+    double fee = FEE.doubleValue() / 100, money = 1, units = 0, stop = 0;
+    boolean holding = false, buy = false, sell = false;
+    for (int i = from; i < to; i++) {
+      if (buy && i + 1 < to) {
+        units = (money - money * fee) / close[i];
+        stop = open[i] * (100 - w.stopLossPercent()) / 100;
+        holding = true;
+      } else if (sell) {
+        double proceeds = units * close[i];
+        money = proceeds - proceeds * fee;
+        holding = false;
+      }
+      buy = sell = false;
+      int cross = EmaCrossKernel.crossAt(fast, slow, i);
+      if (!holding) buy = cross > 0;
+      else sell = cross < 0 || close[i] <= stop;
+    }
+    if (holding) {
+      double proceeds = units * close[to - 1];
+      money = proceeds - proceeds * fee;
+    }
+    return money;
+  }
+
+  private static SweepRequest ranges(int fastFrom, int fastTo, int slowFrom, int slowTo, int emaStep,
+                                     String stopFrom, String stopTo, String stopStep) {
+    return new SweepRequest("T", "1h", fastFrom, fastTo, slowFrom, slowTo, emaStep,
+      new BigDecimal(stopFrom), new BigDecimal(stopTo), new BigDecimal(stopStep), 0, FEE, null, null);
+  }
+}
@@ -1,5 +1,6 @@
 package dev.prjbtrad001.bot;
 
+import dev.prjbtrad001.market.MarketClock;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,10 +38,28 @@ class BotOrchestratorTest {
    */
   @Test
   void nextCloseIsAlwaysWithinOneCandle() {
-    for (long tf : new long[]{900, 3600, 14400, 86400}) {
-      long s = BotOrchestrator.secondsUntilNextClose(tf);
+    long now = System.currentTimeMillis();
+    for (String tf : new String[]{"15m", "1h", "4h", "1d", "1w"}) {
+      long s = BotOrchestrator.secondsUntilNextClose(tf, now);
       assertTrue(s > 0, "must be in the future for tf=" + tf + ", got " + s);
-      assertTrue(s <= tf, "must not exceed one candle for tf=" + tf + ", got " + s);
+      assertTrue(s <= BotOrchestrator.timeframeSeconds(tf), "must not exceed one candle for tf=" + tf + ", got " + s);
     }
   }
+
+  /** On a closing boundary the next close is a whole candle away, not zero. */
+  @Test
+  void exactlyOnACloseWaitsForTheNextOne() {
+    long close = 1_710_460_800_000L;   // 2024-03-15T00:00Z
+    assertEquals(3600, BotOrchestrator.secondsUntilNextClose("1h", close));
+    assertEquals(1, BotOrchestrator.secondsUntilNextClose("1h", close - 1));
+  }
+
+  /** A fast market clock shortens every delay by its speed, so the fleet ticks in step with it. */
+  @Test
+  void fastClockScalesDelays() {
+    MarketClock clock = new MarketClock(System.currentTimeMillis(), 3600);
+    assertEquals(1_000_000_000L, clock.realNanos(3_600_000));
+    assertEquals(250_000L, clock.realNanos(900));
+    assertEquals(900_000_000_000L, MarketClock.real().realNanos(900_000));
+  }
 }
@@ -0,0 +1,188 @@
+package dev.prjbtrad001.bot;
+
+import dev.prjbtrad001.domain.bot.TradeBot;
+import dev.prjbtrad001.market.FakeExchange;
+import dev.prjbtrad001.market.MarketClock;
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A whole fleet against a fake exchange on a compressed clock: N bots over a
+ * mix of symbols and timeframes, through the real scheduler, cache, database
+ * and HTTP client, with nothing leaving the machine.
+ *
+ * Reports ticks per second, close-to-decision latency percentiles, how long
+ * ticks waited for a database connection, and heap and CPU. Only runs in the
+ * perf profile:
+ *
+ *   ./mvnw -Pperf test -Dtest=FleetLoadTest -Dfleet.bots=500 -Dfleet.speed=3600
+ *
+ * {@code fleet.speed} is market seconds per real second (900 closes a 15m
+ * candle every second); {@code fleet.latency}/{@code fleet.jitter} (ms),
+ * {@code fleet.errors} and {@code fleet.throttle} (fractions) shape the fake.
+ */
+@QuarkusTest
+@Tag("perf")
+@TestProfile(FleetLoadTest.Fleet.class)
+class FleetLoadTest {
+
+  private static final int BOTS = Integer.getInteger("fleet.bots", 200);
+  private static final List<String> SYMBOLS = list("fleet.symbols", "BTCBRL,ETHBRL,SOLBRL,BNBBRL,XRPBRL");
+  private static final List<String> TIMEFRAMES = list("fleet.timeframes", "15m,1h,4h");
+  private static final double SPEED = Double.parseDouble(System.getProperty("fleet.speed", "900"));
+  private static final int SECONDS = Integer.getInteger("fleet.seconds", 60);
+
+  @Inject
+  BotOrchestrator orchestrator;
+  @Inject
+  AgroalDataSource dataSource;
+
+  @Test
+  void fleetKeepsUpWithTheClock() throws InterruptedException {
+    List<UUID> ids = QuarkusTransaction.requiringNew().call(() -> {
+      List<UUID> created = new ArrayList<>(BOTS);
+      for (int i = 0; i < BOTS; i++) {
+        // Spread EMA lengths too, so bots on one pair do not all read the same window.
+        int fast = 5 + i % 10, slow = fast + 10 + i % 20;
+        TradeBot bot = new TradeBot(SYMBOLS.get(i % SYMBOLS.size()), TIMEFRAMES.get(i / SYMBOLS.size() % TIMEFRAMES.size()),
+          fast, slow, new BigDecimal("5"), new BigDecimal("100"));
+        bot.persist();
+        created.add(bot.getId());
+      }
+      return created;
+    });
+
+    List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+      .filter(p -> p.getType() == MemoryType.HEAP).toList();
+    heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+    var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    AgroalDataSourceMetrics db = dataSource.getMetrics();
+    db.reset();
+    long cpu0 = os.getProcessCpuTime(), gc0 = gcMillis(), t0 = System.nanoTime();
+
+    ids.forEach(orchestrator::start);
+    Thread.sleep(SECONDS * 1000L);
+    ids.forEach(orchestrator::stop);
+
+    double elapsed = (System.nanoTime() - t0) / 1e9;
+    TickStats stats = orchestrator.stats();
+    long peakHeap = heap.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+    System.out.printf("""
+
+        Fleet: %d bots, %s × %s, %.0fx clock, %.0f s
+          ticks          %,d (%.1f/s), %d failed
+          close→decision p50 %.1f ms  p95 %.1f ms  p99 %.1f ms  max %.1f ms  (%d decisions)
+          db connection  wait avg %d ms  max %d ms  total %d ms, %d acquired, peak %d in use
+          heap           peak %d MB (sum of pool peaks)
+          cpu            %.1f s process (%.0f%% of one core), %d ms in GC
+        %n""",
+      BOTS, SYMBOLS, TIMEFRAMES, SPEED, elapsed,
+      stats.ticks(), stats.ticks() / elapsed, stats.failures(),
+      stats.percentileMicros(50) / 1e3, stats.percentileMicros(95) / 1e3, stats.percentileMicros(99) / 1e3,
+      stats.maxMicros() / 1e3, stats.decisions(),
+      db.blockingTimeAverage().toMillis(), db.blockingTimeMax().toMillis(), db.blockingTimeTotal().toMillis(),
+      db.acquireCount(), db.maxUsedCount(),
+      peakHeap >> 20,
+      (os.getProcessCpuTime() - cpu0) / 1e9, (os.getProcessCpuTime() - cpu0) / 1e7 / elapsed, gcMillis() - gc0);
+
+    assertTrue(stats.ticks() >= BOTS, "every bot ticked at least once");
+    assertTrue(stats.decisions() > 0, "some candle closed during the run");
+  }
+
+  private static long gcMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+      .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+  }
+
+  private static List<String> list(String property, String defaults) {
+    return Arrays.stream(System.getProperty(property, defaults).split(",")).map(String::trim).toList();
+  }
+
+  /** In-memory H2, scratch directories, and the market clock shared with the fake exchange. */
+  public static class Fleet implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      try {
+        var scratch = Files.createTempDirectory("fleet");
+        Map<String, String> config = new HashMap<>();
+        config.put("quarkus.datasource.db-kind", "h2");
+        config.put("quarkus.datasource.username", "sa");
+        config.put("quarkus.datasource.password", "");
+        config.put("quarkus.datasource.jdbc.url", "jdbc:h2:mem:fleet;DB_CLOSE_DELAY=-1");
+        config.put("quarkus.datasource.jdbc.enable-metrics", "true");
+        config.put("quarkus.hibernate-orm.database.generation", "drop-and-create");
+        config.put("quarkus.http.test-port", "0");
+        config.put("quarkus.log.category.\"dev.prjbtrad001\".level", "WARN");
+        config.put("bot.market.store.dir", scratch.resolve("candles").toString());
+        config.put("bot.market.symbols.file", scratch.resolve("exchange-info.json").toString());
+        config.put("bot.market.symbols.fallback", String.join(",", SYMBOLS));
+        config.put("bot.market.stream.enabled", "false");
+        return config;
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public List<TestResourceEntry> testResources() {
+      return List.of(new TestResourceEntry(Exchange.class));
+    }
+  }
+
+  /** Starts the fake exchange before the application and points it there. */
+  public static class Exchange implements QuarkusTestResourceLifecycleManager {
+
+    private FakeExchange exchange;
+
+    @Override
+    public Map<String, String> start() {
+      long origin = System.currentTimeMillis();
+      exchange = FakeExchange.synthetic(new MarketClock(origin, SPEED), 1, SYMBOLS)
+        .latency(Long.getLong("fleet.latency", 50), Long.getLong("fleet.jitter", 20))
+        .errors(Double.parseDouble(System.getProperty("fleet.errors", "0.01")),
+          Double.parseDouble(System.getProperty("fleet.throttle", "0")));
+      try {
+        return Map.of(
+          "bot.market.rest.url", exchange.start(),
+          "bot.clock.origin", String.valueOf(origin),
+          "bot.clock.speed", String.valueOf(SPEED));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (exchange != null) {
+        System.out.printf("Fake exchange: %,d requests, %,d failed%n", exchange.requests(), exchange.failures());
+        exchange.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package dev.prjbtrad001.bot;
+
+import dev.prjbtrad001.domain.bot.EmaState;
+import dev.prjbtrad001.domain.bot.TradeBot;
+import dev.prjbtrad001.market.KlineDto;
+import dev.prjbtrad001.strategy.CandleFixtures;
+import dev.prjbtrad001.strategy.EmaCrossStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A cloned fleet must cost one computation per distinct indicator per close,
+ * and every bot must still hold exactly what it would have computed alone.
+ */
+class IndicatorRegistryTest {
+
+  @Test
+  void clonedBotsShareEveryComputation() {
+    List<KlineDto> candles = CandleFixtures.walk(1, 400);
+    IndicatorRegistry registry = new IndicatorRegistry();
+    List<TradeBot> fleet = new ArrayList<>();
+    for (int i = 0; i < 10; i++) fleet.add(bot("ETHBRL", i % 3 == 1 ? 12 : 9, i % 3 == 1 ? 26 : 21));
+
+    List<KlineDto> history = candles.subList(0, 200);
+    for (TradeBot bot : fleet) {
+      if (!registry.advance(bot, history.subList(198, 200))) registry.resync(bot, history);
+    }
+    assertEquals(6, registry.keys().size(), "EMA 9, 21, 12, 26 and two crosses");
+
+    for (int i = 200; i < candles.size(); i++) {
+      long before = registry.folds();
+      for (TradeBot bot : fleet) {
+        assertTrue(registry.isWarm(bot));
+        assertTrue(registry.advance(bot, candles.subList(i - 1, i + 1)));
+      }
+      assertEquals(4, registry.folds() - before, "one step per distinct EMA, bar " + i);
+    }
+
+    for (TradeBot bot : fleet) {
+      EmaState alone = new EmaState();
+      EmaCrossStrategy.resync(alone, history, bot.getEmaFast(), bot.getEmaSlow());
+      assertTrue(EmaCrossStrategy.advance(alone, candles, bot.getEmaFast(), bot.getEmaSlow()));
+      assertEquals(alone.getFast(), bot.getEma().getFast());
+      assertEquals(alone.getSlow(), bot.getEma().getSlow());
+      assertEquals(alone.getCross(), bot.getEma().getCross());
+      assertEquals(alone.getBars(), bot.getEma().getBars());
+      assertEquals(alone.getLastCloseTime(), bot.getEma().getLastCloseTime());
+    }
+  }
+
+  @Test
+  void aRestartContinuesFromTheBotsPersistedState() {
+    List<KlineDto> candles = CandleFixtures.walk(2, 300);
+    TradeBot bot = bot("BTCBRL", 9, 21);
+    IndicatorRegistry before = new IndicatorRegistry();
+    before.resync(bot, candles.subList(0, 250));
+
+    IndicatorRegistry after = new IndicatorRegistry();
+    assertTrue(after.isWarm(bot));
+    for (int i = 250; i < candles.size(); i++) assertTrue(after.advance(bot, candles.subList(i - 1, i + 1)));
+    assertEquals(100, after.folds(), "two EMAs, fifty candles, no rebuild");
+
+    EmaState alone = new EmaState();
+    EmaCrossStrategy.resync(alone, candles.subList(0, 250), 9, 21);
+    EmaCrossStrategy.advance(alone, candles, 9, 21);
+    assertEquals(alone.getSlow(), bot.getEma().getSlow());
+  }
+
+  @Test
+  void aGapAsksForARebuild() {
+    List<KlineDto> candles = CandleFixtures.walk(3, 100);
+    TradeBot bot = bot("BTCBRL", 9, 21);
+    IndicatorRegistry registry = new IndicatorRegistry();
+    registry.resync(bot, candles.subList(0, 50));
+
+    assertFalse(registry.advance(bot, candles.subList(60, 62)));
+    registry.resync(bot, candles.subList(0, 62));
+    assertEquals(candles.get(61).closeTime(), bot.getEma().getLastCloseTime());
+    assertTrue(registry.advance(bot, candles.subList(61, 63)));
+  }
+
+  @Test
+  void aBotMovedToAnotherPairRebuilds() {
+    List<KlineDto> candles = CandleFixtures.walk(5, 100);
+    TradeBot bot = bot("BTCBRL", 9, 21);
+    new IndicatorRegistry().resync(bot, candles.subList(0, 50));
+
+    bot.setSymbol("ETHBRL");
+    IndicatorRegistry registry = new IndicatorRegistry();
+    assertFalse(registry.isWarm(bot), "the EMAs are BTCBRL's");
+    assertFalse(registry.advance(bot, candles.subList(49, 51)));
+    bot.setSymbol("BTCBRL");
+    bot.setTimeframe("4h");
+    assertFalse(registry.isWarm(bot));
+
+    registry.resync(bot, candles.subList(0, 51));
+    assertEquals("4h", bot.getEma().getTimeframe());
+    assertTrue(registry.isWarm(bot));
+  }
+
+  @Test
+  void aRebuildKeepsTheOtherConfigurationsOnTheSharedEma() {
+    List<KlineDto> candles = CandleFixtures.walk(6, 200);
+    TradeBot a = bot("ETHBRL", 9, 21), b = bot("ETHBRL", 9, 50);
+    IndicatorRegistry registry = new IndicatorRegistry();
+    registry.resync(a, candles.subList(0, 100));
+    registry.resync(b, candles.subList(0, 100));
+    for (int i = 100; i < 150; i++) {
+      assertTrue(registry.advance(a, candles.subList(i - 1, i + 1)));
+      assertTrue(registry.advance(b, candles.subList(i - 1, i + 1)));
+    }
+
+    registry.resync(a, candles.subList(0, 150));
+    for (int i = 150; i < candles.size(); i++) assertTrue(registry.advance(b, candles.subList(i - 1, i + 1)));
+
+    EmaState alone = new EmaState();
+    EmaCrossStrategy.resync(alone, candles, 9, 50);
+    assertEquals(alone.getFast(), b.getEma().getFast());
+    assertEquals(alone.getSlow(), b.getEma().getSlow());
+    assertEquals(alone.getCross(), b.getEma().getCross());
+  }
+
+  @Test
+  void aStaleSeedIsNeverShared() {
+    List<KlineDto> candles = CandleFixtures.walk(7, 100);
+    TradeBot stale = bot("BTCBRL", 9, 21), other = bot("ETHBRL", 9, 21);
+    new IndicatorRegistry().resync(stale, candles.subList(0, 50));
+    stale.setSymbol("ETHBRL");
+
+    IndicatorRegistry registry = new IndicatorRegistry();
+    assertFalse(registry.advance(stale, candles.subList(49, 51)), "folded from BTCBRL");
+    assertTrue(registry.keys().isEmpty(), "nothing seeded from it");
+    registry.resync(other, candles.subList(0, 51));
+    assertTrue(registry.advance(stale, candles.subList(50, 52)), "takes the pair's own state instead");
+    assertEquals("ETHBRL", stale.getEma().getSymbol());
+  }
+
+  @Test
+  void computationsNobodyRunsAreDropped() {
+    List<KlineDto> candles = CandleFixtures.walk(4, 100);
+    IndicatorRegistry registry = new IndicatorRegistry();
+    TradeBot a = bot("ETHBRL", 9, 21), b = bot("ETHBRL", 9, 50), c = bot("SOLBRL", 9, 21);
+    for (TradeBot bot : List.of(a, b, c)) registry.resync(bot, candles);
+    assertEquals(8, registry.keys().size());
+
+    registry.retain(List.of(b));
+    assertEquals(List.of(9, 50), registry.keys().stream()
+      .filter(k -> k.indicator().equals(IndicatorRegistry.EMA)).map(k -> k.params().getFirst()).sorted().toList());
+    assertEquals(3, registry.keys().size());
+
+    registry.retain(List.of());
+    assertTrue(registry.keys().isEmpty());
+  }
+
+  private static TradeBot bot(String symbol, int fast, int slow) {
+    TradeBot bot = new TradeBot();
+    bot.setSymbol(symbol);
+    bot.setTimeframe("1h");
+    bot.setEmaFast(fast);
+    bot.setEmaSlow(slow);
+    return bot;
+  }
+
+}
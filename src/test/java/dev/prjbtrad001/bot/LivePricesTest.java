@@ -0,0 +1,144 @@
+package dev.prjbtrad001.bot;
+
+import dev.prjbtrad001.market.KlineDto;
+import dev.prjbtrad001.market.MarketDataClient;
+import dev.prjbtrad001.market.SymbolRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** A tick wave must cost one price request, however many bots are in it. */
+class LivePricesTest {
+
+  private BatchClient client;
+  private LivePrices prices;
+
+  @BeforeEach
+  void setUp() {
+    client = new BatchClient();
+    prices = new LivePrices();
+    prices.marketData = client;
+    prices.symbols = new SymbolRegistry();
+  }
+
+  @Test
+  void aWaveOfBotsSharesOneRequest() throws Exception {
+    String[] symbols = {"BTCBRL", "ETHBRL", "SOLBRL", "BNBBRL"};
+    for (int i = 0; i < 200; i++) prices.track(UUID.randomUUID(), symbols[i % symbols.length]);
+
+    List<BigDecimal> got = wave(200, i -> symbols[i % symbols.length]);
+    assertTrue(got.stream().allMatch(BigDecimal.TEN::equals));
+    assertEquals(1, client.calls.get());
+    assertEquals(4, client.lastAsked);
+  }
+
+  @Test
+  void nothingIsReusedOnceTheBatchIsDone() {
+    prices.get("BTCBRL");
+    prices.get("BTCBRL");
+    assertEquals(2, client.calls.get(), "how fresh a price may be is up to the cache behind the client");
+  }
+
+  @Test
+  void anUntrackedSymbolIsFetchedRatherThanMissed() {
+    prices.track(UUID.randomUUID(), "BTCBRL");
+    prices.get("BTCBRL");
+    assertNotNull(prices.get("XRPBRL"));
+    assertEquals(List.of("BTCBRL", "XRPBRL"), client.asked.stream().sorted().toList());
+  }
+
+  @Test
+  void anOutageCostsOneRequestPerWave() throws Exception {
+    client.down = true;
+    assertTrue(wave(50, i -> "BTCBRL").stream().allMatch(Objects::isNull));
+    assertEquals(1, client.calls.get());
+  }
+
+  /**
+   * {@code n} bots asking at once. The exchange answers only when every one
+   * of them is parked, either in the fetch or waiting on someone else's.
+   */
+  private List<BigDecimal> wave(int n, IntFunction<String> symbolOf) throws Exception {
+    client.release = new CountDownLatch(1);
+    List<CompletableFuture<BigDecimal>> results = new ArrayList<>();
+    List<Thread> bots = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+      String symbol = symbolOf.apply(i);
+      bots.add(Thread.startVirtualThread(() -> result.complete(prices.get(symbol))));
+      results.add(result);
+    }
+    while (client.calls.get() == 0 || !bots.stream().allMatch(t -> t.getState() == Thread.State.WAITING)) {
+      Thread.sleep(1);
+    }
+    client.release.countDown();
+    List<BigDecimal> out = new ArrayList<>();
+    for (CompletableFuture<BigDecimal> r : results) out.add(r.get(5, TimeUnit.SECONDS));
+    return out;
+  }
+
+  private static class BatchClient implements MarketDataClient {
+
+    final AtomicInteger calls = new AtomicInteger();
+    /** Set by {@link #wave}: holds every fetch until the whole wave is parked. */
+    volatile CountDownLatch release = new CountDownLatch(0);
+    volatile int lastAsked;
+    volatile Collection<String> asked = List.of();
+    volatile boolean down;
+
+    @Override
+    public Map<String, BigDecimal> getPrices(Collection<String> symbols) {
+      calls.incrementAndGet();
+      lastAsked = symbols.size();
+      asked = symbols;
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      Map<String, BigDecimal> out = new HashMap<>();
+      if (!down) symbols.forEach(s -> out.put(s, BigDecimal.TEN));
+      return out;
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      throw new UnsupportedOperationException("prices must be batched");
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
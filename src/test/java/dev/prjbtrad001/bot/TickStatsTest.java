@@ -0,0 +1,38 @@
+package dev.prjbtrad001.bot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStatsTest {
+
+  @Test
+  void percentilesAreWithinOneBucket() {
+    TickStats stats = new TickStats();
+    for (long us = 1; us <= 10_000; us++) stats.decided(us);
+
+    assertEquals(10_000, stats.decisions());
+    assertEquals(10_000, stats.maxMicros());
+    assertEquals(5_000, stats.percentileMicros(50), 5_000 * 0.13);
+    assertEquals(9_900, stats.percentileMicros(99), 9_900 * 0.13);
+    assertEquals(10_000, stats.percentileMicros(100), "never above the largest seen");
+    assertTrue(stats.percentileMicros(50) >= 5_000, "an upper bound");
+  }
+
+  @Test
+  void bucketsCoverEveryValueOnce() {
+    for (long v : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE}) {
+      int b = TickStats.bucket(v);
+      assertTrue(v <= TickStats.upper(b), "value " + v);
+      assertTrue(b == 0 || v > TickStats.upper(b - 1), "value " + v);
+    }
+  }
+
+  @Test
+  void emptyReadsZero() {
+    TickStats stats = new TickStats();
+    stats.tick(true);
+    assertEquals(1, stats.failures());
+    assertEquals(0, stats.percentileMicros(99));
+  }
+}
@@ -0,0 +1,80 @@
+package dev.prjbtrad001.indicator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar loops against SIMD kernels over 100k bars — element-wise, windowed
+ * and running max:
+ *
+ *   ./mvnw -Pperf test-compile exec:exec -Djmh.args="IndicatorMath"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class IndicatorMathBenchmark {
+
+  private static final int BARS = 100_000;
+
+  private final Kernels scalar = new ScalarKernels();
+  private final Kernels vector = IndicatorMath.kernels();
+  private double[] close, out;
+
+  @Setup
+  public void setUp() {
+    Random rnd = new Random(42);
+    close = IndicatorMathTest.prices(rnd, BARS);
+    out = new double[BARS];
+  }
+
+  @Benchmark
+  public double[] scaleScalar() {
+    scalar.scale(close, BARS, 1.5, out);
+    return out;
+  }
+
+  @Benchmark
+  public double[] scaleVector() {
+    vector.scale(close, BARS, 1.5, out);
+    return out;
+  }
+
+  @Benchmark
+  public double[] returnsScalar() {
+    scalar.returns(close, BARS, out);
+    return out;
+  }
+
+  @Benchmark
+  public double[] returnsVector() {
+    vector.returns(close, BARS, out);
+    return out;
+  }
+
+  @Benchmark
+  public double[] varianceScalar() {
+    scalar.rollingVariance(close, BARS, 20, out);
+    return out;
+  }
+
+  @Benchmark
+  public double[] varianceVector() {
+    vector.rollingVariance(close, BARS, 20, out);
+    return out;
+  }
+
+  @Benchmark
+  public double drawdownScalar() {
+    return scalar.drawdown(close, BARS, out);
+  }
+
+  @Benchmark
+  public double drawdownVector() {
+    return vector.drawdown(close, BARS, out);
+  }
+}
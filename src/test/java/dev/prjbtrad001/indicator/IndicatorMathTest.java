@@ -0,0 +1,101 @@
+package dev.prjbtrad001.indicator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Every kernel against the obvious loop, over lengths that leave every
+ * possible tail after the last full vector; the SIMD kernels additionally
+ * against the scalar ones when the vector module is present.
+ */
+class IndicatorMathTest {
+
+  private static final int CASES = 100;
+
+  @Test
+  void elementWiseAndWindowedMatchTheNaiveLoop() {
+    Random rnd = new Random(1);
+    for (int c = 0; c < CASES; c++) {
+      int n = rnd.nextInt(300);
+      double[] x = prices(rnd, n);
+      int window = 1 + rnd.nextInt(40);
+      double k = rnd.nextDouble() * 3;
+
+      double[] out = new double[n];
+      IndicatorMath.scale(x, n, k, out);
+      for (int i = 0; i < n; i++) assertEquals(x[i] * k, out[i], 0.0, "scale " + i);
+
+      IndicatorMath.returns(x, n, out);
+      for (int i = 0; i < n; i++) assertEquals(i == 0 ? Double.NaN : x[i] / x[i - 1] - 1, out[i], 1e-12, "return " + i);
+
+      IndicatorMath.rollingMean(x, n, window, out);
+      for (int i = 0; i < n; i++) assertEquals(naiveMoment(x, i, window, false), out[i], 1e-9, "mean " + i);
+
+      IndicatorMath.rollingVariance(x, n, window, out);
+      for (int i = 0; i < n; i++) assertEquals(naiveMoment(x, i, window, true), out[i], 1e-6, "variance " + i);
+      for (int i = window - 1; i < n; i++) assertTrue(out[i] >= 0);
+    }
+  }
+
+  @Test
+  void drawdownFollowsTheRunningPeak() {
+    Random rnd = new Random(2);
+    for (int c = 0; c < CASES; c++) {
+      int n = rnd.nextInt(300);
+      double[] equity = prices(rnd, n);
+      if (n > 3 && rnd.nextBoolean()) equity[rnd.nextInt(n)] = 0;   // a wiped-out account
+
+      double[] out = new double[n];
+      double max = IndicatorMath.drawdown(equity, n, out);
+      double peak = Double.NEGATIVE_INFINITY, expectedMax = 0;
+      for (int i = 0; i < n; i++) {
+        peak = Math.max(peak, equity[i]);
+        double d = peak > 0 ? (peak - equity[i]) / peak : 0;
+        assertEquals(d, out[i], 0.0, "case " + c + " bar " + i);
+        expectedMax = Math.max(expectedMax, d);
+      }
+      assertEquals(expectedMax, max, 0.0);
+      assertEquals(expectedMax, IndicatorMath.maxDrawdown(equity, n), 0.0);
+    }
+  }
+
+  @Test
+  void vectorKernelsAgreeWithScalarOnes() {
+    assumeTrue(IndicatorMath.vectorized(), "run with --add-modules jdk.incubator.vector");
+    Kernels scalar = new ScalarKernels(), vector = IndicatorMath.kernels();
+    Random rnd = new Random(4);
+    for (int c = 0; c < CASES; c++) {
+      int n = rnd.nextInt(500), window = 1 + rnd.nextInt(50);
+      double[] x = prices(rnd, n), a = new double[n], b = new double[n];
+
+      scalar.rollingVariance(x, n, window, a);
+      vector.rollingVariance(x, n, window, b);
+      assertArrayEquals(a, b, 0.0);
+      assertEquals(scalar.drawdown(x, n, a), vector.drawdown(x, n, b), 0.0);
+      assertArrayEquals(a, b, 0.0);
+    }
+  }
+
+  private static double naiveMoment(double[] x, int i, int window, boolean variance) {
+    if (i < window - 1) return Double.NaN;
+    double sum = 0;
+    for (int j = i - window + 1; j <= i; j++) sum += x[j];
+    double mean = sum / window;
+    if (!variance) return mean;
+    double sq = 0;
+    for (int j = i - window + 1; j <= i; j++) sq += (x[j] - mean) * (x[j] - mean);
+    return sq / window;
+  }
+
+  /** A random walk around a random level, like a price or an equity curve. */
+  static double[] prices(Random rnd, int n) {
+    double[] out = new double[n];
+    double p = 10 + rnd.nextDouble() * 1000, vol = 0.001 + rnd.nextDouble() * 0.03;
+    for (int i = 0; i < n; i++) out[i] = p *= Math.exp(rnd.nextGaussian() * vol);
+    return out;
+  }
+}
@@ -0,0 +1,76 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinanceDataClientTest {
+
+  /** The all-symbols list is the whole exchange; only the asked-for pairs come back. */
+  @Test
+  void keepsOnlyWantedSymbolsFromThePriceList() throws Exception {
+    String body = """
+      [{"symbol":"ETHBTC","price":"0.03450000"},
+       {"symbol":"BTCBRL","price":"345678.90000000"},
+       {"symbol":"LTCBTC","price":"0.00120000","extra":{"ignored":[1,2]}},
+       {"symbol":"SOLBRL","price":"812.34000000"}]
+      """;
+    Map<String, BigDecimal> prices = BinanceDataClient.parsePrices(
+      new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), Set.of("BTCBRL", "SOLBRL", "XRPBRL"));
+
+    assertEquals(Map.of("BTCBRL", new BigDecimal("345678.90000000"), "SOLBRL", new BigDecimal("812.34000000")), prices);
+  }
+
+  /** A range with a failed window must not come back looking complete. */
+  @Test
+  void aFailedWindowFailsTheWholeRange() throws Exception {
+    long hour = 3_600_000L, to = Intervals.openTimeOf(System.currentTimeMillis(), "1h");
+    try (FakeExchange exchange = FakeExchange.synthetic(MarketClock.real(), 7, List.of("BTCBRL"))) {
+      BinanceDataClient binance = new BinanceDataClient();
+      binance.baseUrl = exchange.start();
+      binance.parallelism = 2;
+      binance.weightPerMinute = 6000;
+      binance.init();
+
+      assertEquals(2_500, binance.getCandlesBetween("BTCBRL", "1h", to - 2_500 * hour, to).size());
+      exchange.errors(1, 0);
+      assertThrows(UncheckedIOException.class,
+        () -> binance.getCandlesBetween("BTCBRL", "1h", to - 2_500 * hour, to));
+      assertTrue(binance.getCandles("BTCBRL", "1h", 10).isEmpty(), "the single-page calls still answer empty");
+    }
+  }
+
+  /** A call whose deadline runs out in the limiter queue must not be sent late. */
+  @Test
+  void aDeadlineShorterThanTheLimiterWaitNeverReachesTheExchange() throws Exception {
+    try (FakeExchange exchange = FakeExchange.synthetic(MarketClock.real(), 7, List.of("BTCBRL"))) {
+      BinanceDataClient binance = new BinanceDataClient();
+      binance.baseUrl = exchange.start();
+      binance.weightPerMinute = 2;   // one price call a minute
+      binance.init();
+
+      assertNotNull(binance.getPrice("BTCBRL"));
+      long sent = exchange.requests();
+
+      CompletableFuture<BigDecimal> late = binance.getPriceAsync("BTCBRL", Duration.ofMillis(100));
+      CompletionException e = assertThrows(CompletionException.class, late::join);
+      assertInstanceOf(TimeoutException.class, e.getCause());
+
+      Thread.sleep(300);
+      assertEquals(sent, exchange.requests());
+      assertEquals(0, binance.limiterStats().byPriority().get(RequestPriority.current()).queued());
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A derived candle has to be the one Binance would have served for that
+ * timeframe, or bots on 4h would trade on different bars than before.
+ */
+class CandleAggregatorTest {
+
+  private static final long H = 3_600_000L;
+
+  @Test
+  void rollsUpOhlcvExactly() {
+    List<KlineDto> hours = hours(0, 48, new Random(7));
+    List<KlineDto> fourHours = CandleAggregator.aggregate(hours, "4h");
+
+    assertEquals(12, fourHours.size());
+    for (int b = 0; b < 12; b++) {
+      List<KlineDto> slice = hours.subList(b * 4, b * 4 + 4);
+      KlineDto bar = fourHours.get(b);
+      assertEquals(b * 4 * H, bar.openTime());
+      assertEquals((b + 1) * 4 * H - 1, bar.closeTime());
+      assertEquals(slice.getFirst().open(), bar.open());
+      assertEquals(slice.getLast().close(), bar.close());
+      assertEquals(slice.stream().map(KlineDto::high).reduce(BigDecimal::max).orElseThrow(), bar.high());
+      assertEquals(slice.stream().map(KlineDto::low).reduce(BigDecimal::min).orElseThrow(), bar.low());
+      assertEquals(slice.stream().map(KlineDto::volume).reduce(BigDecimal::add).orElseThrow(), bar.volume());
+    }
+  }
+
+  @Test
+  void emitsEachBucketAsItsLastBaseCandleArrives() {
+    CandleAggregator a = new CandleAggregator("4h");
+    List<KlineDto> done = new ArrayList<>();
+    List<KlineDto> hours = hours(0, 8, new Random(1));
+
+    for (int i = 0; i < 3; i++) a.add(hours.get(i), done::add);
+    assertTrue(done.isEmpty());
+    assertEquals(2 * H + H - 1, hours.get(2).closeTime());
+    assertEquals(0, a.forming().openTime());
+
+    a.add(hours.get(3), done::add);
+    assertEquals(1, done.size());
+    assertNull(a.forming());
+
+    a.add(hours.get(3), done::add);
+    assertEquals(1, done.size(), "a repeated candle changes nothing");
+  }
+
+  @Test
+  void dropsThePartialFirstBucketAndClosesBucketsAcrossGaps() {
+    List<KlineDto> hours = new ArrayList<>(hours(2, 12, new Random(3)));
+    hours.removeIf(k -> k.openTime() == 7 * H);   // exchange halt: bucket [4h, 8h) lacks its last hour
+
+    List<KlineDto> bars = CandleAggregator.aggregate(hours, "4h");
+
+    assertEquals(List.of(4 * H, 8 * H), bars.stream().map(KlineDto::openTime).toList());
+    assertEquals(hours.get(4).close(), bars.getFirst().close(), "closes on the last hour that traded");
+  }
+
+  @Test
+  void weeksOpenOnMondayLikeBinance() {
+    long wednesday = LocalDate.of(2024, 1, 10).atTime(15, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+    long monday = LocalDate.of(2024, 1, 8).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    assertEquals(monday, Intervals.openTimeOf(wednesday, "1w"));
+    assertEquals(wednesday - 15 * H, Intervals.openTimeOf(wednesday, "1d"));
+
+    assertTrue(Intervals.divides("1h", "1w"));
+    assertTrue(Intervals.divides("15m", "3d"));
+    assertFalse(Intervals.divides("4h", "6h"));
+    assertFalse(Intervals.divides("1h", "1h"));
+    assertFalse(Intervals.divides("1h", "1M"));
+  }
+
+  private static List<KlineDto> hours(int from, int to, Random rnd) {
+    List<KlineDto> out = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      BigDecimal open = BigDecimal.valueOf(10_000 + rnd.nextInt(500), 2);
+      BigDecimal close = BigDecimal.valueOf(10_000 + rnd.nextInt(500), 2);
+      BigDecimal high = open.max(close).add(BigDecimal.valueOf(rnd.nextInt(100), 2));
+      BigDecimal low = open.min(close).subtract(BigDecimal.valueOf(rnd.nextInt(100), 2));
+      BigDecimal volume = BigDecimal.valueOf(rnd.nextInt(1_000_000), 8);
+      out.add(new KlineDto(i * H, open, high, low, close, volume, (i + 1) * H - 1));
+    }
+    return out;
+  }
+}
@@ -0,0 +1,43 @@
+package dev.prjbtrad001.market;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding one 1000-candle block. Decode speed is what matters:
+ * a backtest over frozen history decodes every block it reads.
+ *
+ *   ./mvnw -Pperf test-compile exec:exec -Djmh.args="CandleBlock"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandleBlockBenchmark {
+
+  private CandleColumns page;
+  private byte[] block;
+
+  @Setup
+  public void setUp() throws IOException {
+    byte[] json = KlineFixtures.klinesJson(1000, 42).getBytes(StandardCharsets.UTF_8);
+    page = KlineParser.parse(new ByteArrayInputStream(json));
+    block = CandleBlock.encode(page);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return CandleBlock.encode(page);
+  }
+
+  @Benchmark
+  public CandleColumns decode() {
+    return CandleBlock.decode(block);
+  }
+}
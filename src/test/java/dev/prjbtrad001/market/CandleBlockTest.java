@@ -0,0 +1,88 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A block must give back the exact bits it was given: a rounding slip in the
+ * store would make a backtest disagree with the exchange's own history.
+ */
+class CandleBlockTest {
+
+  @Test
+  void roundTripsExchangeCandlesExactlyAndSmall() throws Exception {
+    String json = KlineFixtures.klinesJson(1000, 7);
+    CandleColumns page = KlineParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+    byte[] block = CandleBlock.encode(page);
+    assertSameBits(page, CandleBlock.decode(block));
+
+    double bytesPerRow = block.length / (double) page.size();
+    assertTrue(bytesPerRow * 3 < 56, "expected well under raw columns' 56 B/row, got " + bytesPerRow);
+  }
+
+  @Test
+  void arbitraryDoublesFallBackToXorAndStayExact() {
+    Random rnd = new Random(11);
+    CandleColumns c = new CandleColumns(500);
+    long t = 1_600_000_000_000L;
+    double p = Math.PI;
+    for (int i = 0; i < 500; i++) {
+      p *= 1 + rnd.nextGaussian() * 1e-3;
+      c.add(t, p, p * 1.001, p / 1.001, i % 7 == 0 ? p : rnd.nextDouble(), rnd.nextDouble() * 1e-9, t + 59_999);
+      t += 60_000 * (1 + rnd.nextInt(3));   // irregular gaps
+    }
+    assertEquals(-1, CandleBlock.decimalsFor(new double[]{Math.PI}));
+    assertSameBits(c, CandleBlock.decode(CandleBlock.encode(c)));
+  }
+
+  @Test
+  void edgeValuesSurvive() {
+    CandleColumns c = new CandleColumns(6);
+    c.add(0, -0.0, 0.0, Double.NaN, Double.MIN_VALUE, Double.MAX_VALUE, -1);
+    c.add(Long.MAX_VALUE - 5, 1e-8, 123456789.12345678, Double.POSITIVE_INFINITY, -5.5, 0.1, Long.MIN_VALUE);
+    c.add(Long.MIN_VALUE, 9_007_199_254_740_991.0, -1e300, Double.NEGATIVE_INFINITY, 2.5, 0.2, 42);
+    assertSameBits(c, CandleBlock.decode(CandleBlock.encode(c)));
+  }
+
+  @Test
+  void emptyAndSingleRowBlocks() {
+    assertEquals(0, CandleBlock.decode(CandleBlock.encode(new CandleColumns(0))).size());
+    CandleColumns one = new CandleColumns(1);
+    one.add(1_700_000_000_000L, 1.5, 2.25, 1.0, 2.0, 10.125, 1_700_000_059_999L);
+    assertSameBits(one, CandleBlock.decode(CandleBlock.encode(one)));
+  }
+
+  @Test
+  void encodesASliceOfRows() {
+    CandleColumns c = new CandleColumns(10);
+    for (int i = 0; i < 10; i++) c.add(i * 60_000L, i, i + 1, i - 1, i + 0.5, 1, i * 60_000L + 59_999);
+    CandleColumns slice = CandleBlock.decode(CandleBlock.encode(c, 3, 7));
+    assertEquals(4, slice.size());
+    assertEquals(3 * 60_000L, slice.openTime(0));
+    assertEquals(6.5, slice.close(3));
+  }
+
+  private static void assertSameBits(CandleColumns expected, CandleColumns actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.openTime(i), actual.openTime(i), "openTime @" + i);
+      assertEquals(expected.closeTime(i), actual.closeTime(i), "closeTime @" + i);
+      assertBits(expected.open(i), actual.open(i), i);
+      assertBits(expected.high(i), actual.high(i), i);
+      assertBits(expected.low(i), actual.low(i), i);
+      assertBits(expected.close(i), actual.close(i), i);
+      assertBits(expected.volume(i), actual.volume(i), i);
+    }
+  }
+
+  private static void assertBits(double expected, double actual, int row) {
+    assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+      "row " + row + ": " + expected + " vs " + actual);
+  }
+}
@@ -0,0 +1,180 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The point of the shared cache is that a fleet on one pair costs what one bot
+ * costs. If a tick wave ever goes back to one request per bot, or a bot can see
+ * the forming candle, these fail.
+ */
+class CandleCacheTest {
+
+  private static final long H = 3_600_000L;
+
+  private CountingClient upstream;
+  private CandleCache cache;
+
+  @BeforeEach
+  void setUp() {
+    upstream = new CountingClient(500);
+    cache = new CandleCache();
+    cache.marketData = upstream;
+    at(500 * H - H / 2);   // halfway through candle #499
+  }
+
+  private void at(long millis) {
+    cache.clock = Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+  }
+
+  @Test
+  void aFleetOnOnePairMakesOneRequestPerClose() {
+    for (int bot = 0; bot < 50; bot++) cache.closed("BTCBRL", "1h", 83);
+    assertEquals(1, upstream.calls, "cold fleet should share one download");
+
+    at(500 * H + 20_000);   // 20 s after #499 closed
+    upstream.count = 501;
+    for (int bot = 0; bot < 50; bot++) cache.closed("BTCBRL", "1h", 83);
+    assertEquals(2, upstream.calls, "one request per candle close, not per bot");
+    assertEquals(2, upstream.lastLimit, "only the new bar plus the forming one");
+  }
+
+  @Test
+  void neverReturnsTheFormingCandle() {
+    List<KlineDto> closed = cache.closed("BTCBRL", "1h", 100);
+    assertEquals(100, closed.size());
+    assertEquals(498 * H, closed.getLast().openTime(), "#499 is still forming");
+  }
+
+  @Test
+  void viewsAreImmutableAndSurviveLaterCloses() {
+    List<KlineDto> before = cache.closed("BTCBRL", "1h", 100);
+    List<Long> snapshot = before.stream().map(KlineDto::openTime).toList();
+
+    at(500 * H + 20_000);
+    upstream.count = 501;
+    List<KlineDto> after = cache.closed("BTCBRL", "1h", 100);
+
+    assertEquals(snapshot, before.stream().map(KlineDto::openTime).toList(), "old view must not shift");
+    assertEquals(499 * H, after.getLast().openTime());
+    assertThrows(UnsupportedOperationException.class, () -> before.add(before.getFirst()));
+  }
+
+  @Test
+  void growsForABiggerBotAndShrinksWhenItStops() {
+    cache.closed("BTCBRL", "1h", 80);
+    assertEquals(200, cache.closed("BTCBRL", "1h", 200).size());
+
+    cache.retain(Map.of(CandleCache.key("BTCBRL", "1h"), 80));
+    assertEquals(80, cache.closed("BTCBRL", "1h", 80).size());
+
+    cache.retain(Map.of());
+    assertEquals(0, cache.size(), "pairs nobody trades are dropped");
+  }
+
+  @Test
+  void failedRefreshSkipsRatherThanServingStaleData() {
+    cache.closed("BTCBRL", "1h", 50);
+    at(501 * H);
+    upstream.down = true;
+    assertTrue(cache.closed("BTCBRL", "1h", 50).isEmpty());
+  }
+
+  /**
+   * Ticks are virtual threads, and the exchange client waits on fetches that
+   * run on virtual threads too. If the refresh held a monitor, a wave over
+   * more pairs than carriers would pin them all and never finish.
+   */
+  @Test
+  void aWaveOverManyPairsDoesNotPinTheCarriers() throws Exception {
+    upstream.handOff = true;
+    int pairs = 4 * Runtime.getRuntime().availableProcessors() + 4;
+    ExecutorService ticks = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      List<Future<List<KlineDto>>> wave = new ArrayList<>();
+      for (int p = 0; p < pairs; p++) {
+        String symbol = "PAIR" + p;
+        wave.add(ticks.submit(() -> cache.closed(symbol, "1h", 50)));
+      }
+      for (Future<List<KlineDto>> tick : wave) assertEquals(50, tick.get(10, TimeUnit.SECONDS).size());
+    } finally {
+      ticks.shutdownNow();
+    }
+  }
+
+  /** 1h candles #0..#(count-1); the newest is the forming one. */
+  private static final class CountingClient implements MarketDataClient {
+
+    int count;
+    volatile int calls;
+    volatile int lastLimit;
+    boolean down;
+    /** Fetch on another virtual thread and wait for it, as the exchange client does. */
+    boolean handOff;
+
+    CountingClient(int count) {
+      this.count = count;
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      if (handOff) {
+        try (ExecutorService pages = Executors.newVirtualThreadPerTaskExecutor()) {
+          return pages.submit(() -> {
+            Thread.sleep(50);
+            return candles(limit);
+          }).get();
+        } catch (Exception e) {
+          return List.of();
+        }
+      }
+      return candles(limit);
+    }
+
+    private List<KlineDto> candles(int limit) {
+      calls++;
+      lastLimit = limit;
+      if (down) return List.of();
+      List<KlineDto> out = new ArrayList<>();
+      for (int i = Math.max(0, count - limit); i < count; i++) {
+        BigDecimal p = BigDecimal.valueOf(100 + i);
+        out.add(new KlineDto(i * H, p, p, p, p, BigDecimal.ONE, (i + 1) * H - 1));
+      }
+      return out;
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      return getCandles(symbol, interval, total);
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      return null;
+    }
+  }
+}
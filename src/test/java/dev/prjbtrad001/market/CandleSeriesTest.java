@@ -0,0 +1,105 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rows frozen into compressed blocks must read back exactly as they were
+ * written, wherever a range starts or ends, and survive a reopen.
+ */
+class CandleSeriesTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void oldRowsAreFrozenIntoBlocksAndReadBackExactly() throws Exception {
+    CandleColumns all = page(5000, 3);
+    try (CandleSeries s = small(dir)) {
+      s.append(slice(all, 0, 3000));
+      for (int i = 3000; i < 3100; i++) s.append(List.of(all.kline(i)));
+      s.append(slice(all, 3100, 5000));
+      assertMatches(all, s);
+      assertTrue(Files.size(dir.resolve("cold.bin")) > 0);
+    }
+    try (CandleSeries s = small(dir)) {
+      assertMatches(all, s);
+    }
+  }
+
+  @Test
+  void frozenHistoryTakesAFractionOfTheColumns() throws Exception {
+    CandleColumns all = page(20_000, 5);
+    try (CandleSeries s = small(dir)) {
+      s.append(all);
+    }
+    long cold = Files.size(dir.resolve("cold.bin"));
+    long column = Files.size(dir.resolve("close.bin"));
+    assertTrue(cold < 20_000 * 56 / 3, "cold.bin is " + cold + " bytes");
+    assertTrue(column <= 8 * 4096, "columns grew to " + column / 8 + " rows");
+  }
+
+  @Test
+  void olderRowsGoAheadOfTheFrozenBlocks() throws Exception {
+    CandleColumns all = page(6000, 9);
+    try (CandleSeries s = small(dir)) {
+      s.append(slice(all, 4000, 6000));
+      s.prepend(slice(all, 3990, 4000).asKlines());
+      try (CandleSeries staged = small(dir.resolve("staged"))) {
+        staged.append(slice(all, 0, 3990));
+        assertEquals(3990, s.prepend(staged));
+      }
+      assertMatches(all, s);
+    }
+    try (CandleSeries s = small(dir)) {
+      assertMatches(all, s);
+      assertEquals(0, s.prepend(slice(all, 0, 100)), "nothing older than the first row");
+    }
+  }
+
+  /** Small tiers so a few thousand rows cross several blocks. */
+  private static CandleSeries small(Path dir) throws Exception {
+    CandleSeries s = CandleSeries.open(dir);
+    s.hotRows = 1024;
+    s.blockRows = 512;
+    return s;
+  }
+
+  private static CandleColumns page(int count, long seed) throws Exception {
+    byte[] json = KlineFixtures.klinesJson(count, seed).getBytes(StandardCharsets.UTF_8);
+    return KlineParser.parse(new ByteArrayInputStream(json));
+  }
+
+  private static CandleColumns slice(CandleColumns c, int from, int to) {
+    CandleColumns out = new CandleColumns(to - from);
+    for (int i = from; i < to; i++) {
+      out.add(c.openTime(i), c.open(i), c.high(i), c.low(i), c.close(i), c.volume(i), c.closeTime(i));
+    }
+    return out;
+  }
+
+  private static void assertMatches(CandleColumns expected, CandleSeries s) {
+    int n = expected.size();
+    assertEquals(n, s.size());
+    assertEquals(expected.openTime(0), s.firstOpenTime());
+    assertEquals(expected.openTime(n - 1), s.lastOpenTime());
+    assertEquals(expected.asKlines(), s.read(0, n));
+    assertEquals(expected.asKlines().subList(1000, 1700), s.read(1000, 1700));
+    CandleColumns cols = s.readColumns(0, n);
+    for (int i = 0; i < n; i += 97) {
+      assertEquals(Double.doubleToRawLongBits(expected.close(i)), Double.doubleToRawLongBits(cols.close(i)));
+      assertEquals(i, s.lowerBound(expected.openTime(i)));
+      assertEquals(i, s.lowerBound(expected.openTime(i) - 1));
+    }
+    assertEquals(n, s.lowerBound(expected.openTime(n - 1) + 1));
+    assertEquals(expected.asKlines().subList(n - 5, n), s.tail(5));
+  }
+}
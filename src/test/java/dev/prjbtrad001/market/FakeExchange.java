@@ -0,0 +1,235 @@
+package dev.prjbtrad001.market;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local stand-in for the Binance REST endpoints the bots use —
+ * {@code /klines}, {@code /ticker/price} (one symbol or all) and
+ * {@code /exchangeInfo} — serving a {@link SyntheticMarketDataClient}.
+ *
+ * It misbehaves on purpose, the ways the real one does: every answer is
+ * delayed by {@code latencyMillis} ± {@code jitterMillis}, a share of requests
+ * fail with 500 ({@code errorRate}) or 429 with {@code Retry-After}
+ * ({@code throttleRate}), and each response reports the request weight used
+ * this minute in {@code X-MBX-USED-WEIGHT-1M}, going 429 past
+ * {@code weightPerMinute} just like the exchange.
+ */
+public final class FakeExchange implements AutoCloseable {
+
+  final SyntheticMarketDataClient market;
+  final List<String> symbols;
+
+  volatile long latencyMillis;
+  volatile long jitterMillis;
+  volatile double errorRate;
+  volatile double throttleRate;
+  volatile int weightPerMinute = 6000;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final AtomicLong minute = new AtomicLong();
+  private final AtomicLong weight = new AtomicLong();
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public FakeExchange(SyntheticMarketDataClient market, List<String> symbols) {
+    this.market = market;
+    this.symbols = List.copyOf(symbols);
+  }
+
+  /** A GBM market on {@code clock}, for harnesses outside this package. */
+  public static FakeExchange synthetic(MarketClock clock, long seed, List<String> symbols) {
+    SyntheticMarketDataClient market = new SyntheticMarketDataClient();
+    market.seed = seed;
+    market.initialPrice = 350_000;
+    market.clock = clock;
+    market.init();
+    return new FakeExchange(market, symbols);
+  }
+
+  public FakeExchange latency(long millis, long jitter) {
+    latencyMillis = millis;
+    jitterMillis = jitter;
+    return this;
+  }
+
+  public FakeExchange errors(double errorRate, double throttleRate) {
+    this.errorRate = errorRate;
+    this.throttleRate = throttleRate;
+    return this;
+  }
+
+  /** Starts on a free port; returns the REST root to point {@code bot.market.rest.url} at. */
+  public String start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext("/api/v3/klines", ex -> serve(ex, this::klines));
+    server.createContext("/api/v3/ticker/price", ex -> serve(ex, this::prices));
+    server.createContext("/api/v3/exchangeInfo", ex -> serve(ex, q -> new Answer(20, exchangeInfo())));
+    server.start();
+    return "http://localhost:" + server.getAddress().getPort() + "/api/v3";
+  }
+
+  public long requests() {
+    return requests.sum();
+  }
+
+  /** Requests answered with an error status, injected or over the weight limit. */
+  public long failures() {
+    return failures.sum();
+  }
+
+  @Override
+  public void close() {
+    if (server != null) server.stop(0);
+    if (executor != null) executor.shutdownNow();
+  }
+
+  private record Answer(int weight, String body) {
+  }
+
+  private interface Endpoint {
+    Answer answer(Map<String, String> query);
+  }
+
+  private void serve(HttpExchange ex, Endpoint endpoint) throws IOException {
+    requests.increment();
+    try (ex) {
+      delay();
+      Map<String, String> q = query(ex.getRequestURI().getRawQuery());
+      ThreadLocalRandom rnd = ThreadLocalRandom.current();
+      if (rnd.nextDouble() < errorRate) {
+        send(ex, 500, usedWeight(0), "{\"code\":-1000,\"msg\":\"An unknown error occurred.\"}");
+        return;
+      }
+      Answer answer;
+      try {
+        answer = endpoint.answer(q);
+      } catch (RuntimeException e) {
+        send(ex, 400, usedWeight(1), "{\"code\":-1100,\"msg\":\"" + e.getMessage() + "\"}");
+        return;
+      }
+      long used = usedWeight(answer.weight());
+      if (used > weightPerMinute || rnd.nextDouble() < throttleRate) {
+        ex.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, 60 - secondOfMinute())));
+        send(ex, 429, used, "{\"code\":-1003,\"msg\":\"Too many requests.\"}");
+        return;
+      }
+      send(ex, 200, used, answer.body());
+    }
+  }
+
+  private Answer klines(Map<String, String> q) {
+    int limit = Math.min(Integer.parseInt(q.getOrDefault("limit", "500")), 1000);
+    List<KlineDto> page = market.getCandlesPage(required(q, "symbol"), required(q, "interval"),
+      q.containsKey("startTime") ? Long.valueOf(q.get("startTime")) : null,
+      q.containsKey("endTime") ? Long.valueOf(q.get("endTime")) : null, limit);
+    StringBuilder sb = new StringBuilder(page.size() * 160).append('[');
+    for (KlineDto k : page) {
+      if (sb.length() > 1) sb.append(',');
+      sb.append('[').append(k.openTime())
+        .append(",\"").append(k.open().toPlainString())
+        .append("\",\"").append(k.high().toPlainString())
+        .append("\",\"").append(k.low().toPlainString())
+        .append("\",\"").append(k.close().toPlainString())
+        .append("\",\"").append(k.volume().toPlainString())
+        .append("\",").append(k.closeTime())
+        .append(",\"0\",0,\"0\",\"0\",\"0\"]");
+    }
+    // Binance's weight steps by limit.
+    int weight = limit < 100 ? 1 : limit < 500 ? 2 : 5;
+    return new Answer(weight, sb.append(']').toString());
+  }
+
+  private Answer prices(Map<String, String> q) {
+    String symbol = q.get("symbol");
+    if (symbol != null) return new Answer(2, price(symbol));
+    StringBuilder sb = new StringBuilder("[");
+    for (String s : symbols) {
+      if (sb.length() > 1) sb.append(',');
+      sb.append(price(s));
+    }
+    return new Answer(4, sb.append(']').toString());
+  }
+
+  private String price(String symbol) {
+    BigDecimal p = market.getPrice(symbol);
+    return "{\"symbol\":\"" + symbol + "\",\"price\":\"" + p.toPlainString() + "\"}";
+  }
+
+  private String exchangeInfo() {
+    StringBuilder sb = new StringBuilder("{\"timezone\":\"UTC\",\"symbols\":[");
+    for (int i = 0; i < symbols.size(); i++) {
+      String s = symbols.get(i);
+      if (i > 0) sb.append(',');
+      sb.append("{\"symbol\":\"").append(s).append("\",\"status\":\"TRADING\",\"baseAsset\":\"")
+        .append(s, 0, s.length() - 3).append("\",\"quoteAsset\":\"").append(s.substring(s.length() - 3))
+        .append("\"}");
+    }
+    return sb.append("]}").toString();
+  }
+
+  private void delay() {
+    long ms = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1) : 0);
+    if (ms <= 0) return;
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Adds {@code w} to this real minute's weight and returns the total. */
+  private long usedWeight(int w) {
+    long now = System.currentTimeMillis() / 60_000;
+    long seen = minute.get();
+    if (seen != now && minute.compareAndSet(seen, now)) weight.set(0);
+    return weight.addAndGet(w);
+  }
+
+  private static long secondOfMinute() {
+    return System.currentTimeMillis() / 1000 % 60;
+  }
+
+  private static void send(HttpExchange ex, int status, long usedWeight, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    ex.getResponseHeaders().set("Content-Type", "application/json");
+    ex.getResponseHeaders().set("X-MBX-USED-WEIGHT-1M", String.valueOf(usedWeight));
+    ex.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static Map<String, String> query(String raw) {
+    Map<String, String> q = new HashMap<>();
+    if (raw == null) return q;
+    for (String kv : raw.split("&")) {
+      int eq = kv.indexOf('=');
+      if (eq > 0) q.put(kv.substring(0, eq), kv.substring(eq + 1));
+    }
+    return q;
+  }
+
+  private static String required(Map<String, String> q, String name) {
+    String v = q.get(name);
+    if (v == null) throw new IllegalArgumentException("Mandatory parameter '" + name + "' was not sent");
+    return v;
+  }
+}
@@ -0,0 +1,47 @@
+package dev.prjbtrad001.market;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds {@code /klines} responses byte-for-byte in Binance's format: twelve
+ * fields per kline, prices and volumes as quoted 8-decimal strings. Seeded, so
+ * every run parses the same text.
+ */
+final class KlineFixtures {
+
+  private KlineFixtures() {
+  }
+
+  /** A BTCBRL-like 4h page: prices around R$ 350k, volumes with many digits. */
+  static String klinesJson(int count, long seed) {
+    Random rnd = new Random(seed);
+    long step = 4 * 3_600_000L;
+    long t = 1_700_000_000_000L / step * step;
+    double price = 350_000;
+    StringBuilder sb = new StringBuilder(count * 190).append('[');
+    for (int i = 0; i < count; i++) {
+      double open = price;
+      double close = Math.max(1, open * (1 + rnd.nextGaussian() * 0.01));
+      double high = Math.max(open, close) * (1 + rnd.nextDouble() * 0.005);
+      double low = Math.min(open, close) * (1 - rnd.nextDouble() * 0.005);
+      double volume = rnd.nextDouble() * 50;
+      if (i > 0) sb.append(',');
+      sb.append('[').append(t)
+        .append(",\"").append(fmt(open)).append("\",\"").append(fmt(high))
+        .append("\",\"").append(fmt(low)).append("\",\"").append(fmt(close))
+        .append("\",\"").append(fmt(volume)).append("\",").append(t + step - 1)
+        .append(",\"").append(fmt(volume * close)).append("\",").append(rnd.nextInt(5000))
+        .append(",\"").append(fmt(volume / 2)).append("\",\"").append(fmt(volume * close / 2))
+        .append("\",\"0\"]");
+      t += step;
+      price = close;
+    }
+    return sb.append(']').toString();
+  }
+
+  private static String fmt(double v) {
+    // Binance quotes BRL pairs to the cent, padded to eight decimals.
+    return String.format(Locale.ROOT, "%.2f000000", v);
+  }
+}
@@ -0,0 +1,242 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports zips shaped like data.binance.vision's into a real store. What must
+ * hold: the stored rows are exactly the dump's rows, in order, joined to what
+ * was already there; nothing is imported twice; and a missing file is refused
+ * rather than leaving a silent hole.
+ */
+class KlineImporterTest {
+
+  private static final long H = 3_600_000L;
+
+  @TempDir
+  Path dir;
+
+  private Path dumps;
+  private CandleStore store;
+  private KlineImporter importer;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dumps = Files.createDirectories(dir.resolve("import"));
+    store = new CandleStore();
+    store.dir = dir.resolve("candles").toString();
+    importer = new KlineImporter();
+    importer.store = store;
+    importer.parallelism = 2;
+  }
+
+  @AfterEach
+  void tearDown() {
+    store.close();
+  }
+
+  @Test
+  void importsConsecutiveMonthsInOrder() throws IOException {
+    month("BTCBRL", 2024, 1, t -> true, false);
+    month("BTCBRL", 2024, 2, t -> true, true);   // microseconds, with header
+
+    KlineImporter.Report r = only(importer.importFrom(dumps, null));
+
+    assertNull(r.error());
+    long hours = (31 + 29) * 24;
+    assertEquals(hours, r.rowsRead());
+    assertEquals(hours, r.imported());
+    assertEquals(0, r.gaps());
+
+    CandleSeries s = store.series("BTCBRL", "1h");
+    assertEquals(hours, s.size());
+    assertEquals(start(2024, 1), s.firstOpenTime());
+    List<KlineDto> rows = s.read(0, s.size());
+    for (int i = 0; i < rows.size(); i++) {
+      KlineDto k = rows.get(i);
+      assertEquals(start(2024, 1) + i * H, k.openTime());
+      assertEquals(k.openTime() + H - 1, k.closeTime(), "micro close times brought back to millis");
+      assertEquals(0, price(k.openTime()).compareTo(k.close()));
+    }
+  }
+
+  @Test
+  void reportsGapsInsideTheDumps() throws IOException {
+    long halt = start(2024, 1) + 100 * H;
+    month("BTCBRL", 2024, 1, t -> t < halt || t >= halt + 3 * H, false);
+
+    KlineImporter.Report r = only(importer.importFrom(dumps, null));
+
+    assertNull(r.error());
+    assertEquals(1, r.gaps());
+    assertEquals(3, r.missingCandles());
+    assertEquals(31 * 24 - 3, store.series("BTCBRL", "1h").size());
+  }
+
+  @Test
+  void joinsExistingHistoryOnBothSidesWithoutDuplicates() throws IOException {
+    CandleSeries s = store.series("BTCBRL", "1h");
+    long from = start(2024, 2), to = start(2024, 3);
+    s.append(range(from, to));
+
+    month("BTCBRL", 2024, 1, t -> true, false);
+    month("BTCBRL", 2024, 2, t -> true, false);
+    month("BTCBRL", 2024, 3, t -> true, false);
+
+    KlineImporter.Report r = only(importer.importFrom(dumps, null));
+
+    assertNull(r.error());
+    assertEquals(29 * 24, r.alreadyStored());
+    assertEquals((31 + 31) * 24, r.imported());
+    assertEquals(start(2024, 1), s.firstOpenTime());
+    assertEquals(start(2024, 4) - H, s.lastOpenTime());
+    assertEquals((31 + 29 + 31) * 24, s.size());
+
+    KlineImporter.Report again = only(importer.importFrom(dumps, null));
+    assertEquals(0, again.imported(), "re-running is a no-op");
+    assertEquals((31 + 29 + 31) * 24, s.size());
+  }
+
+  @Test
+  void refusesToJoinAcrossMissingCandles() throws IOException {
+    CandleSeries s = store.series("BTCBRL", "1h");
+    long feb = start(2024, 2), mar = start(2024, 3);
+    s.append(range(feb, mar));
+
+    month("BTCBRL", 2024, 1, t -> t < feb - 3 * H, false);
+    KlineImporter.Report before = only(importer.importFrom(dumps, null));
+    assertNotNull(before.error());
+    assertTrue(before.error().startsWith("3 candle(s) missing"), before.error());
+
+    Files.delete(dumps.resolve("BTCBRL-1h-2024-01.zip"));
+    month("BTCBRL", 2024, 3, t -> t >= mar + 2 * H, false);
+    KlineImporter.Report after = only(importer.importFrom(dumps, null));
+    assertTrue(after.error().startsWith("2 candle(s) missing"), after.error());
+
+    assertEquals(feb, s.firstOpenTime());
+    assertEquals(29 * 24, s.size(), "nothing joined across the hole");
+  }
+
+  @Test
+  void aHaltTheDumpRunsAcrossStillJoins() throws IOException {
+    CandleSeries s = store.series("BTCBRL", "1h");
+    long feb = start(2024, 2), mar = start(2024, 3);
+    s.append(range(feb, mar));
+
+    month("BTCBRL", 2024, 2, t -> true, false);
+    month("BTCBRL", 2024, 3, t -> t >= mar + 2 * H, false);
+    KlineImporter.Report r = only(importer.importFrom(dumps, null));
+
+    assertNull(r.error());
+    assertEquals(1, r.gaps());
+    assertEquals(mar + 2 * H, s.read(29 * 24, 29 * 24 + 1).getFirst().openTime());
+  }
+
+  @Test
+  void refusesAMissingMonth() throws IOException {
+    month("BTCBRL", 2024, 1, t -> true, false);
+    month("BTCBRL", 2024, 3, t -> true, false);
+
+    KlineImporter.Report r = only(importer.importFrom(dumps, null));
+
+    assertNotNull(r.error());
+    assertTrue(r.error().contains("BTCBRL-1h-2024-01.zip"), r.error());
+    assertTrue(store.series("BTCBRL", "1h").isEmpty());
+  }
+
+  @Test
+  void filtersBySymbolAndAcceptsDailyFiles() throws IOException {
+    month("BTCBRL", 2024, 1, t -> true, false);
+    day("ETHBRL", LocalDate.of(2024, 1, 1));
+    day("ETHBRL", LocalDate.of(2024, 1, 2));
+
+    KlineImporter.Report r = only(importer.importFrom(dumps, "ethbrl"));
+
+    assertEquals("ETHBRL", r.symbol());
+    assertEquals(2, r.files());
+    assertEquals(48, r.imported());
+    assertTrue(store.series("BTCBRL", "1h").isEmpty());
+  }
+
+  @Test
+  void csvSkipsHeaderAndRejectsMalformedRows() throws IOException {
+    String csv = "open_time,open,high,low,close,volume,close_time,quote_volume,count\r\n"
+      + "1704067200000000,1.5,2,1,1.75,10,1704070799999999,0,0\r\n";
+    CandleColumns c = KlineCsv.parse(csv.getBytes(StandardCharsets.US_ASCII));
+    assertEquals(1, c.size());
+    assertEquals(1_704_067_200_000L, c.openTime(0));
+    assertEquals(1.75, c.close(0));
+
+    assertThrows(IOException.class, () -> KlineCsv.parse("1704067200000,1,2\n".getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  // ── helpers ──────────────────────────────────────────────────────
+
+  private static KlineImporter.Report only(List<KlineImporter.Report> reports) {
+    assertEquals(1, reports.size(), reports.toString());
+    return reports.getFirst();
+  }
+
+  private static long start(int year, int month) {
+    return LocalDate.of(year, month, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  private static BigDecimal price(long openTime) {
+    return BigDecimal.valueOf(openTime / H % 1000 + 100).movePointLeft(2);
+  }
+
+  private static List<KlineDto> range(long from, long to) {
+    List<KlineDto> out = new ArrayList<>();
+    for (long t = from; t < to; t += H) {
+      out.add(new KlineDto(t, price(t), price(t), price(t), price(t), BigDecimal.ONE, t + H - 1));
+    }
+    return out;
+  }
+
+  private void month(String symbol, int year, int month, LongPredicate keep, boolean micros) throws IOException {
+    String name = String.format("%s-1h-%d-%02d", symbol, year, month);
+    LocalDate next = LocalDate.of(year, month, 1).plusMonths(1);
+    write(name, start(year, month), start(next.getYear(), next.getMonthValue()), keep, micros);
+  }
+
+  private void day(String symbol, LocalDate date) throws IOException {
+    long from = date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    write(symbol + "-1h-" + date, from, from + 24 * H, t -> true, false);
+  }
+
+  private void write(String name, long from, long to, LongPredicate keep, boolean micros) throws IOException {
+    StringBuilder csv = new StringBuilder();
+    if (micros) csv.append("open_time,open,high,low,close,volume,close_time,quote_volume,count,taker_buy_volume,taker_buy_quote_volume,ignore\n");
+    long unit = micros ? 1000 : 1;
+    for (long t = from; t < to; t += H) {
+      if (!keep.test(t)) continue;
+      String p = price(t).toPlainString();
+      csv.append(t * unit).append(',').append(p).append(',').append(p).append(',').append(p).append(',')
+        .append(p).append(",1.00000000,").append((t + H) * unit - 1).append(",0,1,0,0,0\n");
+    }
+    try (OutputStream out = Files.newOutputStream(dumps.resolve(name + ".zip"));
+         ZipOutputStream zip = new ZipOutputStream(out)) {
+      zip.putNextEntry(new ZipEntry(name + ".csv"));
+      zip.write(csv.toString().getBytes(StandardCharsets.US_ASCII));
+      zip.closeEntry();
+    }
+  }
+}
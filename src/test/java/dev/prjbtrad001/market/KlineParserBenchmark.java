@@ -0,0 +1,59 @@
+package dev.prjbtrad001.market;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Old tree + BigDecimal parsing vs. the streaming column parser, on one
+ * 1000-candle page. Run with {@code -prof gc} to see the allocation side too:
+ *
+ *   ./mvnw -Pperf test-compile exec:exec -Djmh.args="KlineParser -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KlineParserBenchmark {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private byte[] page;
+
+  @Setup
+  public void setUp() {
+    page = KlineFixtures.klinesJson(1000, 42).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** What {@code BinanceDataClient.fetchKlines} did before: String → tree → BigDecimal. */
+  @Benchmark
+  public List<KlineDto> treeWithBigDecimal() throws IOException {
+    JsonNode array = mapper.readTree(new String(page, StandardCharsets.UTF_8));
+    List<KlineDto> candles = new ArrayList<>();
+    for (JsonNode k : array) {
+      candles.add(new KlineDto(
+        k.get(0).asLong(),
+        new BigDecimal(k.get(1).asText()),
+        new BigDecimal(k.get(2).asText()),
+        new BigDecimal(k.get(3).asText()),
+        new BigDecimal(k.get(4).asText()),
+        new BigDecimal(k.get(5).asText()),
+        k.get(6).asLong()));
+    }
+    return candles;
+  }
+
+  @Benchmark
+  public CandleColumns streamingColumns() throws IOException {
+    return KlineParser.parse(new ByteArrayInputStream(page));
+  }
+}
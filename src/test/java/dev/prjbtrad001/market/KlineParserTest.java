@@ -0,0 +1,76 @@
+package dev.prjbtrad001.market;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The streaming parser must produce exactly what the old tree + BigDecimal path
+ * produced once converted to double — a single rounding difference would make
+ * live signals and backtests quietly disagree with history.
+ */
+class KlineParserTest {
+
+  @Test
+  void matchesTheTreeParserOnAFullPage() throws Exception {
+    String json = KlineFixtures.klinesJson(1000, 42);
+    CandleColumns cols = KlineParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+    JsonNode tree = new ObjectMapper().readTree(json);
+    assertEquals(tree.size(), cols.size());
+    for (int i = 0; i < cols.size(); i++) {
+      JsonNode k = tree.get(i);
+      assertEquals(k.get(0).asLong(), cols.openTime(i));
+      assertEquals(new BigDecimal(k.get(1).asText()).doubleValue(), cols.open(i));
+      assertEquals(new BigDecimal(k.get(2).asText()).doubleValue(), cols.high(i));
+      assertEquals(new BigDecimal(k.get(3).asText()).doubleValue(), cols.low(i));
+      assertEquals(new BigDecimal(k.get(4).asText()).doubleValue(), cols.close(i));
+      assertEquals(new BigDecimal(k.get(5).asText()).doubleValue(), cols.volume(i));
+      assertEquals(k.get(6).asLong(), cols.closeTime(i));
+    }
+  }
+
+  @Test
+  void readsAGzippedStream() throws Exception {
+    String json = KlineFixtures.klinesJson(50, 7);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+      gz.write(json.getBytes(StandardCharsets.UTF_8));
+    }
+    CandleColumns cols = KlineParser.parse(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(50, cols.size());
+  }
+
+  @Test
+  void decimalParsingAgreesWithTheJdk() {
+    for (String s : new String[]{
+      "0", "0.00000000", "1", "100", "350123.45000000", "0.00012340", "12300.45",
+      "-42.50", "9007199254740993", "123456789.12345678", "1e5", "00012.0"}) {
+      char[] c = s.toCharArray();
+      assertEquals(Double.parseDouble(s), KlineParser.parseDecimal(c, 0, c.length), s);
+    }
+  }
+
+  @Test
+  void emptyPageIsEmpty() throws Exception {
+    assertTrue(KlineParser.parse(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8))).isEmpty());
+  }
+
+  @Test
+  void recordViewMatchesTheColumns() throws Exception {
+    CandleColumns cols = KlineParser.parse(new ByteArrayInputStream(
+      KlineFixtures.klinesJson(3, 1).getBytes(StandardCharsets.UTF_8)));
+    KlineDto k = cols.asKlines().get(2);
+    assertEquals(cols.close(2), k.close().doubleValue());
+    assertEquals(cols.closeTime(2), k.closeTime());
+  }
+}
@@ -0,0 +1,93 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The async defaults: fetches overlap, deadlines hold, priority travels along. */
+class MarketAsyncTest {
+
+  private static final Duration DEADLINE = Duration.ofSeconds(5);
+
+  @Test
+  void severalFetchesOverlap() {
+    SlowClient client = new SlowClient(300);
+    long start = System.nanoTime();
+    CompletableFuture<List<KlineDto>> candles = client.getCandlesAsync("BTCBRL", "1h", 10, DEADLINE);
+    CompletableFuture<List<KlineDto>> history = client.getCandlesRangeAsync("BTCBRL", "1d", 10, DEADLINE);
+    CompletableFuture<BigDecimal> price = client.getPriceAsync("BTCBRL", DEADLINE);
+    CompletableFuture.allOf(candles, history, price).join();
+
+    assertTrue(System.nanoTime() - start < 800_000_000L, "three 300 ms calls should overlap");
+    assertEquals(BigDecimal.TEN, price.join());
+  }
+
+  @Test
+  void aMissedDeadlineFailsTheFuture() {
+    SlowClient client = new SlowClient(2000);
+    CompletableFuture<BigDecimal> price = client.getPriceAsync("BTCBRL", Duration.ofMillis(100));
+    CompletionException e = assertThrows(CompletionException.class, price::join);
+    assertInstanceOf(TimeoutException.class, e.getCause());
+  }
+
+  @Test
+  void theCallersPriorityGoesAlong() {
+    SlowClient client = new SlowClient(0);
+    RequestPriority.call(RequestPriority.BACKTEST, () -> client.getCandlesAsync("BTCBRL", "1h", 10, DEADLINE)).join();
+    assertEquals(RequestPriority.BACKTEST, client.seen);
+  }
+
+  private static class SlowClient implements MarketDataClient {
+
+    private final long millis;
+    volatile RequestPriority seen;
+
+    SlowClient(long millis) {
+      this.millis = millis;
+    }
+
+    private void work() {
+      seen = RequestPriority.current();
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      work();
+      return List.of();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      work();
+      return List.of();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      work();
+      return BigDecimal.TEN;
+    }
+  }
+}
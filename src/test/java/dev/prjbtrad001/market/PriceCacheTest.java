@@ -0,0 +1,158 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Same-second price requests must cost one upstream call, never one each. */
+class PriceCacheTest {
+
+  private SlowPrices upstream;
+  private PriceCache cache;
+
+  @BeforeEach
+  void setUp() {
+    upstream = new SlowPrices();
+    cache = new PriceCache();
+    cache.upstream = upstream;
+    cache.ttl = Duration.ofSeconds(1);
+    cache.maxStale = Duration.ofSeconds(5);
+    cache.maxEntries = 100;
+    at(1_000_000);
+  }
+
+  private void at(long millis) {
+    cache.clock = Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+  }
+
+  @Test
+  void freshPricesAreServedFromCache() {
+    assertEquals(BigDecimal.ONE, cache.get("BTCBRL"));
+    at(1_000_900);
+    assertEquals(BigDecimal.ONE, cache.get("BTCBRL"));
+    assertEquals(1, upstream.calls.get());
+    assertEquals(1, cache.stats().hits());
+    assertEquals(1, cache.stats().misses());
+  }
+
+  @Test
+  void concurrentCallersShareOneFetch() throws Exception {
+    upstream.gate = new CountDownLatch(1);
+    List<Thread> callers = new ArrayList<>();
+    for (int i = 0; i < 50; i++) callers.add(Thread.startVirtualThread(() -> cache.get("BTCBRL")));
+    while (cache.stats().misses() + cache.stats().coalesced() < 50) Thread.sleep(1);
+    upstream.gate.countDown();
+    for (Thread t : callers) t.join();
+
+    assertEquals(1, upstream.calls.get());
+    assertEquals(1, cache.stats().misses());
+    assertEquals(49, cache.stats().coalesced());
+  }
+
+  @Test
+  void stalePriceIsServedWhileOneRefreshRuns() throws Exception {
+    cache.get("BTCBRL");
+    upstream.price = BigDecimal.TWO;
+    at(1_003_000);   // past ttl, inside max-stale
+
+    assertEquals(BigDecimal.ONE, cache.get("BTCBRL"), "stale value, no waiting");
+    while (upstream.calls.get() < 2 || !BigDecimal.TWO.equals(cache.get("BTCBRL"))) Thread.sleep(1);
+    assertEquals(2, upstream.calls.get(), "one background refresh");
+
+    at(1_010_000);   // beyond max-stale: the caller has to wait for a fetch
+    upstream.price = BigDecimal.TEN;
+    assertEquals(BigDecimal.TEN, cache.get("BTCBRL"));
+  }
+
+  @Test
+  void batchFetchesOnlyWhatIsMissing() {
+    cache.get("BTCBRL");
+    Map<String, BigDecimal> prices = cache.getAll(List.of("BTCBRL", "ETHBRL", "SOLBRL"));
+    assertEquals(3, prices.size());
+    assertEquals(List.of("ETHBRL", "SOLBRL"), upstream.lastAsked.stream().sorted().toList());
+  }
+
+  @Test
+  void failuresAreNotCached() {
+    upstream.down = true;
+    assertNull(cache.get("BTCBRL"));
+    upstream.down = false;
+    assertEquals(BigDecimal.ONE, cache.get("BTCBRL"));
+    assertEquals(2, upstream.calls.get());
+  }
+
+  @Test
+  void staysWithinTheEntryBound() {
+    cache.maxEntries = 10;
+    for (int i = 0; i < 25; i++) {
+      at(1_000_000 + i);
+      cache.get("SYM" + i);
+    }
+    assertEquals(10, cache.stats().entries());
+    assertEquals(15, cache.stats().evictions());
+    cache.get("SYM24");
+    assertEquals(25, upstream.calls.get(), "the newest survive");
+  }
+
+  private static class SlowPrices implements MarketDataClient {
+
+    final AtomicInteger calls = new AtomicInteger();
+    volatile CountDownLatch gate;
+    volatile BigDecimal price = BigDecimal.ONE;
+    volatile boolean down;
+    volatile Collection<String> lastAsked;
+
+    @Override
+    public Map<String, BigDecimal> getPrices(Collection<String> symbols) {
+      calls.incrementAndGet();
+      lastAsked = List.copyOf(symbols);
+      try {
+        if (gate != null) gate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      Map<String, BigDecimal> out = new HashMap<>();
+      if (!down) symbols.forEach(s -> out.put(s, price));
+      return out;
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      throw new UnsupportedOperationException("the cache always batches");
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The store only pays off if a warm (symbol, interval) costs one small request
+ * per call — and only if what it serves is identical to what Binance would have
+ * returned. Both halves are checked here against a scripted exchange.
+ */
+class StoredMarketDataClientTest {
+
+  private static final long H = 3_600_000L;
+  /** "Now" sits halfway through candle #999, so #0..#998 are closed. */
+  private static final long NOW = 999 * H + H / 2;
+
+  @TempDir
+  Path dir;
+
+  private FakeExchange exchange;
+  private CandleStore store;
+  private StoredMarketDataClient client;
+
+  @BeforeEach
+  void setUp() {
+    exchange = new FakeExchange(1000);
+    store = new CandleStore();
+    store.dir = dir.toString();
+    client = newClient(store);
+  }
+
+  @AfterEach
+  void tearDown() {
+    store.close();
+  }
+
+  private StoredMarketDataClient newClient(CandleStore s) {
+    StoredMarketDataClient c = new StoredMarketDataClient();
+    c.upstream = exchange;
+    c.store = s;
+    c.enabled = true;
+    c.clock = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+    return c;
+  }
+
+  @Test
+  void warmCallOnlyFetchesTheTail() {
+    List<KlineDto> cold = client.getCandles("BTCBRL", "1h", 200);
+    int coldCandles = exchange.candlesServed;
+
+    List<KlineDto> warm = client.getCandles("BTCBRL", "1h", 200);
+
+    assertEquals(cold, warm, "warm answer must match the cold one");
+    assertEquals(1, exchange.candlesServed - coldCandles, "warm call should download only the forming bar");
+    assertEquals(999 * H, warm.getLast().openTime(), "last element is still the in-progress candle");
+  }
+
+  @Test
+  void matchesWhatTheExchangeWouldReturn() {
+    client.getCandles("BTCBRL", "1h", 50);
+    assertEquals(exchange.latest(120), client.getCandles("BTCBRL", "1h", 120).stream().map(KlineDto::openTime).toList());
+  }
+
+  @Test
+  void backfillsOlderHistoryOnceThenServesLocally() {
+    client.getCandles("BTCBRL", "1h", 100);
+    List<KlineDto> range = client.getCandlesRange("BTCBRL", "1h", 800);
+
+    assertEquals(800, range.size());
+    assertEquals(exchange.latest(800), range.stream().map(KlineDto::openTime).toList());
+
+    int before = exchange.candlesServed;
+    client.getCandlesRange("BTCBRL", "1h", 800);
+    assertEquals(1, exchange.candlesServed - before);
+  }
+
+  @Test
+  void newlyClosedCandlesAreAppended() {
+    client.getCandles("BTCBRL", "1h", 100);
+    exchange.advance(3);
+    client.clock = Clock.fixed(Instant.ofEpochMilli(NOW + 3 * H), ZoneOffset.UTC);
+
+    List<KlineDto> after = client.getCandles("BTCBRL", "1h", 100);
+
+    assertEquals(1002 * H, after.getLast().openTime());
+    assertEquals(exchange.latest(100), after.stream().map(KlineDto::openTime).toList());
+  }
+
+  @Test
+  void dateRangeIsServedFromTheStoreOnceClosed() {
+    List<KlineDto> first = client.getCandlesBetween("BTCBRL", "1h", 100 * H, 400 * H);
+    assertEquals(300, first.size());
+    assertEquals(100 * H, first.getFirst().openTime());
+    assertEquals(399 * H, first.getLast().openTime());
+
+    // A wider window only needs the two missing ends.
+    int before = exchange.candlesServed;
+    List<KlineDto> wider = client.getCandlesBetween("BTCBRL", "1h", 50 * H, 400 * H);
+    assertEquals(350, wider.size());
+    assertEquals(50 + 600, exchange.candlesServed - before, "older 50 plus the tail up to the forming bar");
+
+    before = exchange.candlesServed;
+    assertEquals(wider, client.getCandlesBetween("BTCBRL", "1h", 50 * H, 400 * H));
+    assertEquals(0, exchange.candlesServed - before, "a window that has closed costs no network");
+  }
+
+  @Test
+  void survivesARestart() {
+    client.getCandles("BTCBRL", "1h", 300);
+    store.close();
+
+    CandleStore reopened = new CandleStore();
+    reopened.dir = dir.toString();
+    CandleSeries series = reopened.series("BTCBRL", "1h");
+    assertEquals(299, series.size(), "closed candles persist; the forming one does not");
+    assertEquals(series.size() - 10, series.lowerBound(989 * H));
+    reopened.close();
+  }
+
+  @Test
+  void failedTailFetchSkipsTheLiveTick() {
+    client.getCandles("BTCBRL", "1h", 100);
+    exchange.down = true;
+    assertTrue(client.getCandles("BTCBRL", "1h", 100).isEmpty());
+  }
+
+  @Test
+  void aFailedBackfillStoresNothingAndIsNotTheStartOfHistory() {
+    client.getCandles("BTCBRL", "1h", 100);
+    CandleSeries series = store.series("BTCBRL", "1h");
+    int stored = series.size();
+
+    exchange.failBetween = true;
+    assertThrows(UncheckedIOException.class, () -> client.getCandlesBetween("BTCBRL", "1h", 0, 500 * H));
+    assertEquals(stored, client.getCandlesRange("BTCBRL", "1h", 900).size(), "served from the store meanwhile");
+    assertEquals(stored, series.size(), "nothing stored past the failure");
+    assertFalse(series.isHistoryComplete());
+
+    exchange.failBetween = false;
+    assertEquals(500, client.getCandlesBetween("BTCBRL", "1h", 0, 500 * H).size());
+    assertEquals(0, series.firstOpenTime());
+  }
+
+  @Test
+  void coarserTimeframesAreBuiltFromTheBaseFeed() {
+    client.aggregate = true;
+    client.base = "1h";
+
+    List<KlineDto> fourHours = client.getCandles("BTCBRL", "4h", 50);
+    List<KlineDto> days = client.getCandles("BTCBRL", "1d", 10);
+
+    assertEquals(Set.of("1h"), exchange.intervals, "only the base interval is ever fetched");
+    List<KlineDto> expected4h = CandleAggregator.aggregate(client.getCandlesRange("BTCBRL", "1h", 1000), "4h");
+    assertEquals(expected4h.subList(expected4h.size() - 50, expected4h.size()), fourHours);
+    assertEquals(996 * H, fourHours.getLast().openTime(), "forming 4h bar last, as Binance returns it");
+    assertEquals(984 * H, days.getLast().openTime());
+    assertEquals(768 * H, days.getFirst().openTime());
+
+    List<KlineDto> between = client.getCandlesBetween("BTCBRL", "4h", 101 * H, 121 * H);
+    assertEquals(List.of(104 * H, 108 * H, 112 * H, 116 * H, 120 * H), between.stream().map(KlineDto::openTime).toList());
+    assertEquals(expected4h.get(26), between.getFirst());
+  }
+
+  @Test
+  void coarserTimeframesFollowTheBaseFeedAcrossTicks() {
+    client.aggregate = true;
+    client.base = "1h";
+    client.getCandles("BTCBRL", "4h", 20);
+
+    // Through a bucket boundary, one base candle at a time, then a longer window.
+    for (int step = 1; step <= 6; step++) {
+      exchange.advance(1);
+      client.clock = Clock.fixed(Instant.ofEpochMilli(NOW + step * H), ZoneOffset.UTC);
+      List<KlineDto> expected = CandleAggregator.aggregate(client.getCandlesRange("BTCBRL", "1h", 1000 + step), "4h");
+      assertEquals(expected.subList(expected.size() - 20, expected.size()), client.getCandles("BTCBRL", "4h", 20));
+    }
+    List<KlineDto> expected = CandleAggregator.aggregate(client.getCandlesRange("BTCBRL", "1h", 1006), "4h");
+    assertEquals(expected.subList(expected.size() - 200, expected.size()), client.getCandles("BTCBRL", "4h", 200));
+  }
+
+  /** A 1h market with candles #0..#(n-1); the last one is still forming. */
+  private static final class FakeExchange implements MarketDataClient {
+
+    private int count;
+    int candlesServed;
+    boolean down;
+    /** Ranges fail part-way, the way {@link BinanceDataClient} reports a lost window. */
+    boolean failBetween;
+    final Set<String> intervals = new HashSet<>();
+
+    FakeExchange(int count) {
+      this.count = count;
+    }
+
+    void advance(int bars) {
+      count += bars;
+    }
+
+    List<Long> latest(int n) {
+      List<Long> out = new ArrayList<>();
+      for (int i = Math.max(0, count - n); i < count; i++) out.add(i * H);
+      return out;
+    }
+
+    private static KlineDto candle(int i) {
+      BigDecimal p = BigDecimal.valueOf(100 + i % 17 * 0.25);
+      return new KlineDto(i * H, p, p.add(BigDecimal.ONE), p.subtract(BigDecimal.ONE), p, BigDecimal.TEN, (i + 1) * H - 1);
+    }
+
+    private List<KlineDto> serve(int from, int to) {
+      if (down) return List.of();
+      List<KlineDto> out = new ArrayList<>();
+      for (int i = Math.max(0, from); i < Math.min(count, to); i++) out.add(candle(i));
+      candlesServed += out.size();
+      return out;
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      intervals.add(interval);
+      return serve(count - Math.min(limit, 1000), count);
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      intervals.add(interval);
+      return serve(count - total, count);
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      intervals.add(interval);
+      if (failBetween) throw new UncheckedIOException(new IOException("window failed"));
+      return serve((int) ((from + H - 1) / H), (int) ((to + H - 1) / H));
+    }
+
+    @Override
+    public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+      intervals.add(interval);
+      if (startTime != null) {
+        int from = (int) ((startTime + H - 1) / H);
+        return serve(from, from + limit);
+      }
+      int to = (int) (endTime / H) + 1;
+      return serve(to - limit, to);
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      return BigDecimal.ONE;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package dev.prjbtrad001.market;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.ServerWebSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the streaming client against a local stand-in for Binance's combined
+ * stream. What must hold: pushed data answers reads with no REST call, and a
+ * dropped connection comes back and repairs the candles it missed.
+ */
+class StreamingMarketDataClientTest {
+
+  private static final long H = 3_600_000L;
+
+  private Vertx vertx;
+  private final List<ServerWebSocket> sockets = new CopyOnWriteArrayList<>();
+  private final List<String> received = new CopyOnWriteArrayList<>();
+  private FakeRest rest;
+  private StreamingMarketDataClient client;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    HttpServer server = vertx.createHttpServer()
+      .webSocketHandler(ws -> {
+        ws.textMessageHandler(received::add);
+        sockets.add(ws);
+      })
+      .listen(0).toCompletionStage().toCompletableFuture().get();
+
+    rest = new FakeRest(500);
+    client = new StreamingMarketDataClient();
+    client.rest = rest;
+    client.enabled = true;
+    client.url = "ws://localhost:" + server.actualPort() + "/stream";
+    client.initialBackoff = Duration.ofMillis(20);
+    at(500 * H - H / 2);   // halfway through candle #499
+  }
+
+  @AfterEach
+  void tearDown() {
+    client.shutdown();
+    vertx.close();
+  }
+
+  private void at(long millis) {
+    client.clock = Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+  }
+
+  @Test
+  void pushedPriceIsServedWithoutRest() {
+    assertEquals(0, new BigDecimal("499").compareTo(client.getPrice("BTCBRL")), "cold: REST");
+    await(() -> client.isConnected() && !received.isEmpty());
+    assertTrue(received.getLast().contains("btcbrl@miniTicker"));
+
+    push("{\"stream\":\"btcbrl@miniTicker\",\"data\":{\"e\":\"24hrMiniTicker\",\"s\":\"BTCBRL\",\"c\":\"512.25\"}}");
+    await(() -> new BigDecimal("512.25").equals(client.getPrice("BTCBRL")));
+    int calls = rest.priceCalls;
+    client.getPrice("BTCBRL");
+    assertEquals(calls, rest.priceCalls);
+  }
+
+  @Test
+  void klineEventsKeepCandlesCurrentWithoutRest() {
+    List<KlineDto> seeded = client.getCandles("BTCBRL", "1h", 100);
+    assertEquals(rest.getCandles("BTCBRL", "1h", 100), seeded);
+    await(client::isConnected);
+    int calls = rest.calls;
+
+    assertEquals(seeded, client.getCandles("BTCBRL", "1h", 100), "warm read is local");
+    assertEquals(calls, rest.calls);
+
+    // #499 closes, #500 opens; both arrive as events.
+    at(500 * H + 20_000);
+    push(kline(499, "777", true));
+    push(kline(500, "778", false));
+    await(() -> client.getCandles("BTCBRL", "1h", 2).getFirst().close().equals(new BigDecimal("777")));
+
+    int after = rest.calls;
+    List<KlineDto> latest = client.getCandles("BTCBRL", "1h", 2);
+    assertEquals(after, rest.calls, "nothing fetched for a pushed close");
+    assertEquals(500 * H, latest.getLast().openTime());
+    assertEquals(new BigDecimal("777"), latest.getFirst().close());
+    assertEquals(List.of(latest.getFirst()), client.getCandlesBetween("BTCBRL", "1h", 499 * H, 500 * H));
+  }
+
+  @Test
+  void reconnectsAndFillsTheGapFromRest() {
+    client.getCandles("BTCBRL", "1h", 10);
+    await(client::isConnected);
+    sockets.getFirst().close();
+    await(() -> !client.isConnected());
+
+    // Three candles close while the stream is down.
+    at(503 * H + 60_000);
+    rest.count = 504;
+    await(() -> sockets.size() == 2 && client.isConnected());
+    int before = rest.calls;
+    client.getCandles("BTCBRL", "1h", 5);
+    assertEquals(before + 1, rest.calls, "stale until repaired: REST answers");
+
+    push(kline(503, "603", false));
+    await(() -> rest.betweenCalls == 1);
+    await(() -> client.getCandles("BTCBRL", "1h", 6).getLast().close().equals(new BigDecimal("603")));
+
+    int calls = rest.calls;
+    List<Long> openTimes = client.getCandles("BTCBRL", "1h", 6).stream().map(KlineDto::openTime).toList();
+    assertEquals(List.of(498 * H, 499 * H, 500 * H, 501 * H, 502 * H, 503 * H), openTimes);
+    assertEquals(calls, rest.calls, "served from the repaired window");
+  }
+
+  @Test
+  void theFleetsPairsAreStreamedBeforeTheirFirstRead() {
+    client.follow(Map.of("BTCBRL", Set.of("1h")));
+    await(() -> client.isConnected() && client.streams().size() == 2);
+    await(() -> rest.calls == 1);   // the window is seeded in the background
+    assertEquals(Set.of("btcbrl@miniTicker", "btcbrl@kline_1h"), client.streams());
+
+    assertEquals(rest.getCandles("BTCBRL", "1h", 10), client.getCandles("BTCBRL", "1h", 10));
+    assertEquals(2, rest.calls, "the first read is already local");
+  }
+
+  @Test
+  void streamsNobodyReadsAreClosed() {
+    client.getPrice("ETHBRL");
+    client.follow(Map.of("BTCBRL", Set.of("1h")));
+    await(() -> client.isConnected() && client.streams().size() == 3);
+
+    at(500 * H - H / 2 + client.idle.toMillis() / 2);
+    client.dropIdle();
+    assertEquals(3, client.streams().size(), "read recently");
+
+    at(500 * H - H / 2 + client.idle.toMillis() + 1);
+    client.dropIdle();
+    assertEquals(Set.of("btcbrl@miniTicker", "btcbrl@kline_1h"), client.streams(), "followed streams stay");
+    await(() -> received.stream().anyMatch(m -> m.contains("UNSUBSCRIBE")));
+    String unsubscribe = received.stream().filter(m -> m.contains("UNSUBSCRIBE")).findFirst().orElseThrow();
+    assertTrue(unsubscribe.contains("ethbrl@miniTicker") && !unsubscribe.contains("btcbrl"), unsubscribe);
+
+    client.follow(Map.of());
+    assertEquals(Set.of(), client.streams(), "no longer followed and idle");
+  }
+
+  // ── helpers ──────────────────────────────────────────────────────
+
+  private void push(String json) {
+    sockets.getLast().writeTextMessage(json);
+  }
+
+  private static String kline(int i, String close, boolean closed) {
+    return "{\"stream\":\"btcbrl@kline_1h\",\"data\":{\"e\":\"kline\",\"s\":\"BTCBRL\",\"k\":{"
+      + "\"t\":" + i * H + ",\"T\":" + ((i + 1) * H - 1) + ",\"s\":\"BTCBRL\",\"i\":\"1h\","
+      + "\"o\":\"" + close + "\",\"c\":\"" + close + "\",\"h\":\"" + close + "\",\"l\":\"" + close + "\","
+      + "\"v\":\"1\",\"x\":" + closed + "}}}";
+  }
+
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) fail("condition not met within 5 s");
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail(e);
+      }
+    }
+  }
+
+  /** Hourly candles #0 … #{@code count - 1}; the last one is the forming candle. */
+  static class FakeRest extends BinanceDataClient {
+
+    volatile int count;
+    volatile int calls;
+    volatile int betweenCalls;
+    volatile int priceCalls;
+
+    FakeRest(int count) {
+      this.count = count;
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      calls++;
+      return candles(Math.max(0, count - limit), count);
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      return getCandles(symbol, interval, total);
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      calls++;
+      betweenCalls++;
+      return candles((int) Math.ceilDiv(from, H), (int) Math.min(count, Math.ceilDiv(to, H)));
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      priceCalls++;
+      return BigDecimal.valueOf(count - 1);
+    }
+
+    private static List<KlineDto> candles(int from, int to) {
+      List<KlineDto> out = new ArrayList<>();
+      for (int i = from; i < to; i++) {
+        BigDecimal p = BigDecimal.valueOf(100 + i);
+        out.add(new KlineDto(i * H, p, p, p, p, BigDecimal.ONE, (i + 1) * H - 1));
+      }
+      return out;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ids index arrays all over the app, so they must stay put: refreshing the
+ * universe may add symbols and retire others, never move one.
+ */
+class SymbolRegistryTest {
+
+  @TempDir
+  Path dir;
+
+  private FakeBinance binance;
+  private SymbolRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    binance = new FakeBinance();
+    registry = new SymbolRegistry();
+    registry.binance = binance;
+    registry.file = dir.resolve("exchange-info.json").toString();
+    registry.quotes = List.of("BRL", "USDT");
+    registry.fallback = List.of("BTCBRL", "ETHBRL");
+  }
+
+  @Test
+  void snapshotGivesDenseIdsAndTheTradableList() throws IOException {
+    binance.info = info(
+      symbol("BTCBRL", "TRADING", "BTC", "BRL"),
+      symbol("ETHBTC", "TRADING", "ETH", "BTC"),
+      symbol("SOLUSDT", "TRADING", "SOL", "USDT"),
+      symbol("LUNABRL", "BREAK", "LUNA", "BRL"));
+
+    assertTrue(registry.refresh());
+
+    assertEquals(4, registry.size());
+    assertEquals(List.of(0, 1, 2, 3), List.of(registry.id("BTCBRL"), registry.id("ETHBTC"),
+      registry.id("SOLUSDT"), registry.id("LUNABRL")));
+    assertEquals("SOLUSDT", registry.name(2));
+    assertEquals("SOL", registry.get(2).baseAsset());
+    assertEquals(List.of("BTCBRL", "SOLUSDT"), registry.tradable(), "trading, in a configured quote");
+    assertFalse(registry.isTradable("LUNABRL"));
+    assertFalse(registry.isTradable("ETHBTC"));
+  }
+
+  @Test
+  void refreshKeepsIdsAndRetiresDelistedSymbols() throws IOException {
+    binance.info = info(symbol("BTCBRL", "TRADING", "BTC", "BRL"), symbol("XRPBRL", "TRADING", "XRP", "BRL"));
+    registry.refresh();
+    int btc = registry.id("BTCBRL"), xrp = registry.id("XRPBRL");
+
+    binance.info = info(symbol("ADABRL", "TRADING", "ADA", "BRL"), symbol("BTCBRL", "TRADING", "BTC", "BRL"));
+    registry.refresh();
+
+    assertEquals(btc, registry.id("BTCBRL"));
+    assertEquals(xrp, registry.id("XRPBRL"));
+    assertEquals(2, registry.id("ADABRL"), "new symbols are appended");
+    assertFalse(registry.get(xrp).trading());
+    assertEquals(List.of("ADABRL", "BTCBRL"), registry.tradable());
+  }
+
+  @Test
+  void unknownNamesStillGetAnId() {
+    registry.load();
+    int id = registry.id("OLDBRL");
+    assertEquals(registry.size() - 1, id);
+    assertEquals(id, registry.id("OLDBRL"));
+    assertFalse(registry.isTradable("OLDBRL"));
+  }
+
+  @Test
+  void startsFromTheCachedSnapshotThenTheFallback() throws IOException {
+    registry.load();
+    assertEquals(List.of("BTCBRL", "ETHBRL"), registry.tradable(), "no snapshot yet: configured list");
+    assertEquals("ETH", registry.get(registry.id("ETHBRL")).baseAsset());
+
+    binance.info = info(symbol("SOLBRL", "TRADING", "SOL", "BRL"));
+    registry.refresh();
+
+    SymbolRegistry restarted = new SymbolRegistry();
+    restarted.file = registry.file;
+    restarted.quotes = registry.quotes;
+    restarted.load();
+    assertEquals(List.of("SOLBRL"), restarted.tradable(), "the snapshot written by refresh is read back");
+  }
+
+  @Test
+  void failedFetchKeepsTheCurrentUniverse() throws IOException {
+    registry.load();
+    binance.info = null;
+    assertFalse(registry.refresh());
+    assertEquals(List.of("BTCBRL", "ETHBRL"), registry.tradable());
+    assertFalse(Files.exists(Path.of(registry.file)));
+  }
+
+  // ── helpers ──────────────────────────────────────────────────────
+
+  private static String symbol(String name, String status, String base, String quote) {
+    return "{\"symbol\":\"" + name + "\",\"status\":\"" + status + "\",\"baseAsset\":\"" + base + "\","
+      + "\"baseAssetPrecision\":8,\"quoteAsset\":\"" + quote + "\",\"orderTypes\":[\"LIMIT\",\"MARKET\"],"
+      + "\"filters\":[{\"filterType\":\"PRICE_FILTER\",\"minPrice\":\"0.01\"}],\"permissionSets\":[[\"SPOT\"]]}";
+  }
+
+  private static byte[] info(String... symbols) {
+    return ("{\"timezone\":\"UTC\",\"serverTime\":1,\"rateLimits\":[{\"rateLimitType\":\"REQUEST_WEIGHT\"}],"
+      + "\"exchangeFilters\":[],\"symbols\":[" + String.join(",", symbols) + "]}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  static class FakeBinance extends BinanceDataClient {
+    byte[] info;
+
+    @Override
+    public byte[] getExchangeInfo() {
+      return info;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The synthetic market has to behave like one exchange, not a pile of random
+ * numbers: the same seed gives the same history however it is asked for,
+ * every timeframe is cut from one path, and the price sits in the forming
+ * candle and moves as simulated time passes.
+ */
+class SyntheticMarketDataClientTest {
+
+  private static final long H = 3_600_000L;
+  private static final long NOW = Instant.parse("2024-06-01T10:17:23Z").toEpochMilli();
+
+  private static SyntheticMarketDataClient client(SyntheticMarketDataClient.Model model, long seed, long now) {
+    SyntheticMarketDataClient c = new SyntheticMarketDataClient();
+    c.model = model;
+    c.seed = seed;
+    c.initialPrice = 350_000;
+    c.clock = Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC);
+    c.init();
+    return c;
+  }
+
+  @Test
+  void sameSeedSameHistory() {
+    List<KlineDto> a = client(SyntheticMarketDataClient.Model.GBM, 42, NOW).getCandles("BTCBRL", "1h", 500);
+    List<KlineDto> b = client(SyntheticMarketDataClient.Model.GBM, 42, NOW).getCandles("BTCBRL", "1h", 500);
+    List<KlineDto> other = client(SyntheticMarketDataClient.Model.GBM, 43, NOW).getCandles("BTCBRL", "1h", 500);
+
+    assertEquals(500, a.size());
+    assertEquals(List.copyOf(a), List.copyOf(b));
+    assertNotEquals(a.getLast().close(), other.getLast().close());
+    assertEquals(Intervals.openTimeOf(NOW, "1h"), a.getLast().openTime(), "ends with the forming candle");
+  }
+
+  @Test
+  void historyIsTheSameHoweverItIsAskedFor() {
+    SyntheticMarketDataClient c = client(SyntheticMarketDataClient.Model.REGIME, 7, NOW);
+    long from = NOW - 3000 * H, mid = NOW - 1234 * H, to = NOW - 10 * H;
+
+    List<KlineDto> whole = c.getCandlesBetween("ETHBRL", "1h", from, to);
+    List<KlineDto> later = c.getCandlesBetween("ETHBRL", "1h", mid, to);
+    List<KlineDto> earlier = c.getCandlesBetween("ETHBRL", "1h", from, mid);
+
+    assertEquals(whole.size(), earlier.size() + later.size());
+    for (int i = 0; i < later.size(); i++) assertEquals(whole.get(earlier.size() + i), later.get(i));
+    for (int i = 1; i < whole.size(); i++) {
+      assertEquals(whole.get(i - 1).close(), whole.get(i).open(), "each candle opens where the last closed");
+    }
+  }
+
+  @Test
+  void coarseCandlesAreTheFineOnesRolledUp() {
+    SyntheticMarketDataClient c = client(SyntheticMarketDataClient.Model.JUMP, 3, NOW);
+    long from = Intervals.openTimeOf(NOW, "1d") - 30 * 24 * H;
+
+    List<KlineDto> fourHours = c.getCandlesBetween("SOLBRL", "4h", from, NOW);
+    List<KlineDto> rolled = CandleAggregator.aggregate(c.getCandlesBetween("SOLBRL", "15m", from, NOW), "4h");
+
+    assertEquals(fourHours.size(), rolled.size());
+    for (int i = 0; i < rolled.size(); i++) {
+      KlineDto a = fourHours.get(i), b = rolled.get(i);
+      assertEquals(a.openTime(), b.openTime());
+      assertEquals(0, a.open().compareTo(b.open()));
+      assertEquals(0, a.high().compareTo(b.high()));
+      assertEquals(0, a.low().compareTo(b.low()));
+      assertEquals(0, a.close().compareTo(b.close()));
+      assertEquals(a.volume().doubleValue(), b.volume().doubleValue(), 1e-6);
+    }
+  }
+
+  @Test
+  void priceIsTheFormingCloseAndMovesWithTime() {
+    SyntheticMarketDataClient c = client(SyntheticMarketDataClient.Model.GBM, 5, NOW);
+    KlineDto forming = c.getCandles("BTCBRL", "4h", 1).getFirst();
+    BigDecimal price = c.getPrice("BTCBRL");
+
+    assertEquals(0, price.compareTo(forming.close()));
+    assertTrue(price.compareTo(forming.high()) <= 0 && price.compareTo(forming.low()) >= 0);
+
+    SyntheticMarketDataClient later = client(SyntheticMarketDataClient.Model.GBM, 5, NOW + 90_000);
+    assertNotEquals(price, later.getPrice("BTCBRL"));
+    KlineDto closed = later.getCandlesPage("BTCBRL", "1m", NOW - 60_000, NOW, 10).getFirst();
+    assertTrue(closed.high().compareTo(price) >= 0 && closed.low().compareTo(price) <= 0,
+      "a price seen mid-minute stays inside that minute's candle once it closes");
+  }
+
+  @Test
+  void millionsOfBarsWithoutIo() {
+    SyntheticMarketDataClient c = client(SyntheticMarketDataClient.Model.REGIME, 11, NOW);
+    List<KlineDto> bars = c.getCandlesRange("BTCBRL", "1m", 1_000_000);
+
+    assertEquals(1_000_000, bars.size());
+    for (int i = 1; i < bars.size(); i += 997) {
+      assertEquals(bars.get(i - 1).openTime() + 60_000, bars.get(i).openTime());
+      assertTrue(bars.get(i).low().signum() > 0);
+    }
+  }
+
+  @Test
+  void jumpsFattenTheTails() {
+    long from = NOW - 200_000 * 60_000L;
+    double gbm = kurtosis(client(SyntheticMarketDataClient.Model.GBM, 9, NOW)
+      .getCandlesBetween("BTCBRL", "1m", from, NOW));
+    double jump = kurtosis(client(SyntheticMarketDataClient.Model.JUMP, 9, NOW)
+      .getCandlesBetween("BTCBRL", "1m", from, NOW));
+
+    assertEquals(3, gbm, 0.3, "normal returns");
+    assertTrue(jump > 10, "jumps: " + jump);
+  }
+
+  @Test
+  void nothingBeforeTheStartOrOffTheGrid() {
+    SyntheticMarketDataClient c = client(SyntheticMarketDataClient.Model.GBM, 1, NOW);
+    long start = c.start.toEpochMilli();
+
+    assertTrue(c.getCandlesBetween("BTCBRL", "1h", start - 100 * H, start).isEmpty());
+    assertEquals(start, c.getCandlesBetween("BTCBRL", "1h", start - 100 * H, start + 5 * H).getFirst().openTime());
+
+    c.base = "1h";
+    c.init();
+    assertTrue(c.getCandles("BTCBRL", "30m", 10).isEmpty());
+  }
+
+  private static double kurtosis(List<KlineDto> bars) {
+    int n = bars.size() - 1;
+    double[] r = new double[n];
+    double mean = 0;
+    for (int i = 0; i < n; i++) {
+      r[i] = Math.log(bars.get(i + 1).close().doubleValue() / bars.get(i).close().doubleValue());
+      mean += r[i] / n;
+    }
+    double m2 = 0, m4 = 0;
+    for (double x : r) {
+      double d = x - mean;
+      m2 += d * d / n;
+      m4 += d * d * d * d / n;
+    }
+    return m4 / (m2 * m2);
+  }
+}
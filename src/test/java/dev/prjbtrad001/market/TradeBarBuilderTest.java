@@ -0,0 +1,130 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Samples a short recorded tape into each kind of bar. What must hold: every
+ * trade lands in exactly one bar, a bar closes on the trade that reaches its
+ * size, and close times strictly increase even when trades share a millisecond.
+ */
+class TradeBarBuilderTest {
+
+  private static final long T0 = 1_710_460_800_000L;   // 2024-03-15T00:00Z
+
+  /** Binance dump layout: id,price,qty,firstId,lastId,time,buyerMaker,bestMatch. */
+  private static final String TAPE = """
+    agg_trade_id,price,quantity,first_trade_id,last_trade_id,transact_time,is_buyer_maker,is_best_match
+    100,350000.00,0.010,500,500,1710460800000,true,true
+    101,350100.00,0.020,501,502,1710460830000,false,true
+    102,349900.00,0.500,503,503,1710460859000,true,true
+    103,350200.00,0.005,504,504,1710460860000,false,true
+    104,350300.00,0.005,505,505,1710460860000,false,true
+    105,350250.00,0.300,506,507,1710460920500,true,true
+    """;
+
+  @Test
+  void readsDumpAndStoredLayoutsAlike() throws Exception {
+    List<AggTrade> dump = read(TAPE);
+    assertEquals(6, dump.size());
+    assertEquals(new AggTrade(101, 350100.00, 0.020, T0 + 30_000, false), dump.get(1));
+
+    StringWriter stored = new StringWriter();
+    for (AggTrade t : dump) AggTradeCsv.write(stored, t);
+    assertEquals(dump, read(stored.toString()));
+  }
+
+  @Test
+  void microsecondTimesBecomeMillis() throws Exception {
+    List<AggTrade> t = read("7,1.5,2,9,9,1710460800123456,false,true\n");
+    assertEquals(T0 + 123, t.getFirst().time());
+  }
+
+  @Test
+  void tickBarsCloseEveryNTrades() throws Exception {
+    CandleColumns bars = sample(TradeBarBuilder.of(TradeBarBuilder.Kind.TICK, 2));
+
+    assertEquals(3, bars.size());
+    assertEquals(T0, bars.openTime(0));
+    assertEquals(T0 + 30_000, bars.closeTime(0));
+    assertEquals(350000.00, bars.open(0));
+    assertEquals(350100.00, bars.high(0));
+    assertEquals(350100.00, bars.close(0));
+    assertEquals(0.030, bars.volume(0), 1e-12);
+    // 103 and 104 share a millisecond; 103 closes the bar, 104 opens the next.
+    assertEquals(T0 + 60_000, bars.closeTime(1));
+    assertEquals(349900.00, bars.low(1));
+  }
+
+  @Test
+  void volumeBarKeepsTheTradeThatOvershoots() throws Exception {
+    CandleColumns bars = sample(TradeBarBuilder.of(TradeBarBuilder.Kind.VOLUME, 0.1));
+
+    assertEquals(2, bars.size());
+    assertEquals(0.530, bars.volume(0), 1e-12, "0.5 is not split across bars");
+    assertEquals(T0 + 59_000, bars.closeTime(0));
+    assertEquals(0.310, bars.volume(1), 1e-12);
+  }
+
+  @Test
+  void barsNeverCloseTwiceInOneMillisecond() throws Exception {
+    CandleColumns bars = sample(TradeBarBuilder.of(TradeBarBuilder.Kind.TICK, 1));
+
+    assertEquals(5, bars.size(), "104 cannot close in 103's millisecond, so it shares a bar with 105");
+    for (int i = 1; i < bars.size(); i++) assertTrue(bars.closeTime(i) > bars.closeTime(i - 1));
+    double volume = 0;
+    for (int i = 0; i < bars.size(); i++) volume += bars.volume(i);
+    assertEquals(0.840, volume, 1e-12);
+  }
+
+  @Test
+  void dollarBarsCountQuoteValue() throws Exception {
+    CandleColumns bars = sample(TradeBarBuilder.of(TradeBarBuilder.Kind.DOLLAR, 100_000));
+
+    assertEquals(2, bars.size());
+    assertEquals(T0 + 59_000, bars.closeTime(0));   // 3.5k + 7k + 175k BRL
+    assertEquals(T0 + 60_000, bars.openTime(1));
+  }
+
+  @Test
+  void timeBarsMatchKlineBuckets() throws Exception {
+    CandleColumns bars = sample(TradeBarBuilder.time("1m"));
+
+    assertEquals(3, bars.size());
+    assertEquals(T0, bars.openTime(0));
+    assertEquals(T0 + 59_999, bars.closeTime(0));
+    assertEquals(349900.00, bars.close(0));
+    assertEquals(T0 + 60_000, bars.openTime(1));
+    assertEquals(350300.00, bars.high(1));
+    assertEquals(T0 + 120_000, bars.openTime(2));
+  }
+
+  @Test
+  void repeatedTradesAreIgnored() throws Exception {
+    TradeBarBuilder b = TradeBarBuilder.of(TradeBarBuilder.Kind.TICK, 100);
+    CandleColumns out = new CandleColumns(4);
+    for (AggTrade t : read(TAPE)) b.add(t, out);
+    for (AggTrade t : read(TAPE)) b.add(t, out);   // an overlapping second file
+    assertEquals(6, b.formingTrades());
+  }
+
+  private static CandleColumns sample(TradeBarBuilder builder) throws Exception {
+    CandleColumns out = new CandleColumns(4);
+    for (AggTrade t : read(TAPE)) builder.add(t, out);
+    builder.finish(out);
+    return out;
+  }
+
+  private static List<AggTrade> read(String csv) throws Exception {
+    List<AggTrade> trades = new ArrayList<>();
+    AggTradeCsv.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), trades::add);
+    return trades;
+  }
+}
@@ -0,0 +1,213 @@
+package dev.prjbtrad001.market;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.prjbtrad001.strategy.ColumnBarSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ta4j.core.BarSeries;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records days of trades from a local stand-in for {@code /aggTrades} and
+ * replays them into bars. What must hold: a recorded day is exactly the
+ * exchange's tape for that day, a hole in it keeps nothing, and stored files
+ * and Binance's dumps replay into the same bars a strategy can run on.
+ */
+class TradeBarsTest {
+
+  private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+  private static final long D0 = DAY.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+  @TempDir
+  Path dir;
+
+  private final List<AggTrade> tape = new ArrayList<>();
+  private final AtomicInteger calls = new AtomicInteger();
+  private HttpServer server;
+  private TradeBars bars;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    // Two days and a bit, ~5 trades a minute, a quiet first hour on day one.
+    Random rnd = new Random(7);
+    long id = 1_000, t = D0 + 3_600_000L;
+    double price = 350_000;
+    while (t < D0 + 2 * 86_400_000L + 600_000) {
+      price *= 1 + rnd.nextGaussian() * 0.0005;
+      tape.add(new AggTrade(id++, Math.round(price * 100) / 100.0, (1 + rnd.nextInt(500)) / 1000.0, t,
+        rnd.nextBoolean()));
+      t += 1 + rnd.nextInt(24_000);
+    }
+
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/v3/aggTrades", ex -> {
+      calls.incrementAndGet();
+      Map<String, String> q = new HashMap<>();
+      for (String kv : ex.getRequestURI().getQuery().split("&")) {
+        q.put(kv.substring(0, kv.indexOf('=')), kv.substring(kv.indexOf('=') + 1));
+      }
+      byte[] body = page(q).getBytes(StandardCharsets.UTF_8);
+      ex.sendResponseHeaders(200, body.length);
+      try (OutputStream out = ex.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+
+    BinanceDataClient binance = new BinanceDataClient();
+    binance.baseUrl = "http://localhost:" + server.getAddress().getPort() + "/api/v3";
+    binance.parallelism = 2;
+    binance.weightPerMinute = 6000;
+    binance.init();
+    bars = new TradeBars();
+    bars.binance = binance;
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  void recordsExactlyOneDayOfTheTape() throws IOException {
+    TradeBars.Report r = bars.recordInto(dir, "BTCBRL", DAY);
+
+    assertNull(r.error());
+    List<AggTrade> day = day(DAY);
+    assertEquals(day.size(), r.trades());
+    List<AggTrade> stored = new ArrayList<>();
+    try (var in = Files.newInputStream(dir.resolve("BTCBRL-aggTrades-2024-03-15.csv"))) {
+      AggTradeCsv.read(in, stored::add);
+    }
+    assertEquals(day, stored);
+
+    int before = calls.get();
+    assertEquals(0, bars.recordInto(dir, "BTCBRL", DAY).trades(), "already on disk");
+    assertEquals(before, calls.get());
+  }
+
+  @Test
+  void holeInTheTapeKeepsNothing() {
+    tape.remove(tape.size() / 3);
+
+    TradeBars.Report r = bars.recordInto(dir, "BTCBRL", DAY);
+
+    assertNotNull(r.error());
+    assertFalse(Files.exists(dir.resolve("BTCBRL-aggTrades-2024-03-15.csv")));
+    assertFalse(Files.exists(dir.resolve("BTCBRL-aggTrades-2024-03-15.csv.part")));
+  }
+
+  @Test
+  void recordedAndDumpedDaysReplayIntoTheSameBars() throws IOException {
+    assertNull(bars.recordInto(dir, "BTCBRL", DAY).error());
+    dump(DAY.plusDays(1));
+
+    TradeBarBuilder.Kind kind = TradeBarBuilder.Kind.DOLLAR;
+    CandleColumns replayed = TradeBars.replay(dir, "BTCBRL", DAY, DAY.plusDays(1), TradeBarBuilder.of(kind, 50_000));
+
+    CandleColumns expected = new CandleColumns(16);
+    TradeBarBuilder direct = TradeBarBuilder.of(kind, 50_000);
+    for (AggTrade t : day(DAY)) direct.add(t, expected);
+    for (AggTrade t : day(DAY.plusDays(1))) direct.add(t, expected);
+    direct.finish(expected);
+
+    assertEquals(expected.size(), replayed.size());
+    for (int i = 0; i < expected.size(); i++) assertEquals(expected.kline(i), replayed.kline(i));
+
+    BarSeries series = ColumnBarSeries.of(replayed, "BTCBRL");
+    assertEquals(replayed.size(), series.getBarCount());
+    assertTrue(series.getBarCount() > 100);
+  }
+
+  @Test
+  void missingDayIsRefused() {
+    IOException e = assertThrows(IOException.class,
+      () -> TradeBars.replay(dir, "BTCBRL", DAY, DAY, TradeBarBuilder.of(TradeBarBuilder.Kind.TICK, 10)));
+    assertTrue(e.getMessage().contains("2024-03-15"));
+  }
+
+  @Test
+  void csvLinesSplitAcrossReadsParseOnce() throws IOException {
+    StringBuilder csv = new StringBuilder("id,price,quantity,time,isBuyerMaker\r\n");
+    for (int i = 1; i <= 20_000; i++) csv.append(i).append(",1.5,0.25,").append(D0 + i).append(",true\r\n");
+    csv.append("20001,2.5,0.5,").append(D0 + 20_001).append(",false");
+    byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+    // Hands out a few bytes at a time, so lines keep straddling the end of the buffer.
+    java.io.InputStream trickle = new java.io.ByteArrayInputStream(bytes) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 7_001));
+      }
+    };
+    List<AggTrade> read = new ArrayList<>();
+    assertEquals(20_001, AggTradeCsv.read(trickle, read::add));
+    assertEquals(new AggTrade(1, 1.5, 0.25, D0 + 1, true), read.get(0));
+    assertEquals(new AggTrade(20_001, 2.5, 0.5, D0 + 20_001, false), read.get(20_000));
+  }
+
+  @Test
+  void specsNameTheBarKind() {
+    assertEquals(new TradeBars.Spec(TradeBarBuilder.Kind.VOLUME, 2.5, null), TradeBars.Spec.parse("volume:2.5"));
+    assertEquals(new TradeBars.Spec(TradeBarBuilder.Kind.TIME, 0, "15m"), TradeBars.Spec.parse("time:15m"));
+    assertNull(TradeBars.Spec.parse("4h"));
+    assertThrows(IllegalArgumentException.class, () -> TradeBars.Spec.parse("range:10"));
+  }
+
+  /** Serves the tape the way Binance does: by id, or by a time window of at most an hour. */
+  private String page(Map<String, String> q) {
+    int limit = Integer.parseInt(q.getOrDefault("limit", "500"));
+    StringBuilder sb = new StringBuilder("[");
+    int n = 0;
+    for (AggTrade t : tape) {
+      if (n == limit) break;
+      if (q.containsKey("fromId") && t.id() < Long.parseLong(q.get("fromId"))) continue;
+      if (q.containsKey("startTime") && t.time() < Long.parseLong(q.get("startTime"))) continue;
+      if (q.containsKey("endTime") && t.time() > Long.parseLong(q.get("endTime"))) break;
+      if (n++ > 0) sb.append(',');
+      sb.append(String.format(Locale.ROOT,
+        "{\"a\":%d,\"p\":\"%.8f\",\"q\":\"%.8f\",\"f\":%d,\"l\":%d,\"T\":%d,\"m\":%b,\"M\":true}",
+        t.id(), t.price(), t.quantity(), t.id() * 2, t.id() * 2 + 1, t.time(), t.buyerMaker()));
+    }
+    return sb.append(']').toString();
+  }
+
+  private List<AggTrade> day(LocalDate day) {
+    long from = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    return tape.stream().filter(t -> t.time() >= from && t.time() < from + 86_400_000L).toList();
+  }
+
+  /** A day as data.binance.vision ships it: zipped, eight columns, microsecond times. */
+  private void dump(LocalDate day) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(
+      Files.newOutputStream(dir.resolve("BTCBRL-aggTrades-" + day + ".zip")))) {
+      zip.putNextEntry(new ZipEntry("BTCBRL-aggTrades-" + day + ".csv"));
+      for (AggTrade t : day(day)) {
+        zip.write(String.format(Locale.ROOT, "%d,%.8f,%.8f,%d,%d,%d,%s,True%n", t.id(), t.price(), t.quantity(),
+          t.id() * 2, t.id() * 2 + 1, t.time() * 1000, t.buyerMaker() ? "True" : "False")
+          .getBytes(StandardCharsets.UTF_8));
+      }
+      zip.closeEntry();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package dev.prjbtrad001.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The limiter is what keeps a big backtest from getting the IP banned while
+ * bots trade. Budgets here are 6000/min, i.e. one weight every 10 ms.
+ */
+class WeightLimiterTest {
+
+  @Test
+  void underBudgetRequestsDoNotWait() throws Exception {
+    WeightLimiter limiter = new WeightLimiter(6000);
+    long start = System.nanoTime();
+    for (int i = 0; i < 100; i++) limiter.acquire(2, RequestPriority.BACKTEST);
+    assertTrue(System.nanoTime() - start < 50_000_000L);
+    assertEquals(100, limiter.stats().byPriority().get(RequestPriority.BACKTEST).granted());
+  }
+
+  @Test
+  void liveGoesBeforeDashboardBeforeBacktest() throws Exception {
+    WeightLimiter limiter = new WeightLimiter(6000);
+    limiter.acquire(6000, RequestPriority.LIVE);   // drain the bucket
+    List<RequestPriority> served = new CopyOnWriteArrayList<>();
+
+    // Queued in the worst order: backtest first, live last.
+    Thread backtest = waiter(limiter, RequestPriority.BACKTEST, served);
+    await(() -> queued(limiter, RequestPriority.BACKTEST) == 1);
+    Thread dashboard = waiter(limiter, RequestPriority.DASHBOARD, served);
+    await(() -> queued(limiter, RequestPriority.DASHBOARD) == 1);
+    Thread live = waiter(limiter, RequestPriority.LIVE, served);
+
+    for (Thread t : List.of(backtest, dashboard, live)) t.join(5000);
+    assertEquals(List.of(RequestPriority.LIVE, RequestPriority.DASHBOARD, RequestPriority.BACKTEST), served);
+    assertTrue(limiter.stats().byPriority().get(RequestPriority.BACKTEST).maxWaitMillis() > 0);
+  }
+
+  @Test
+  void exchangeReportedWeightShrinksTheBudget() {
+    WeightLimiter limiter = new WeightLimiter(6000);
+    limiter.onResponse(200, 5990, -1);
+    WeightLimiter.Stats stats = limiter.stats();
+    assertEquals(5990, stats.lastUsedWeight());
+    assertTrue(stats.available() <= 11, "only what the exchange says is left: " + stats.available());
+  }
+
+  @Test
+  void aRateLimitResponsePausesEveryone() throws Exception {
+    WeightLimiter limiter = new WeightLimiter(6000);
+    limiter.onResponse(429, -1, 1);
+    assertTrue(limiter.stats().pausedMillis() > 500);
+
+    long start = System.nanoTime();
+    limiter.acquire(1, RequestPriority.LIVE);
+    assertTrue(System.nanoTime() - start >= 900_000_000L, "even live requests honour Retry-After");
+  }
+
+  @Test
+  void aTimedOutWaiterLeavesTheQueueWithoutSpending() throws Exception {
+    WeightLimiter limiter = new WeightLimiter(6000);
+    limiter.acquire(6000, RequestPriority.LIVE);   // drain the bucket
+
+    assertFalse(limiter.tryAcquire(3000, RequestPriority.BACKTEST, 50, TimeUnit.MILLISECONDS));
+    assertEquals(0, queued(limiter, RequestPriority.BACKTEST));
+    assertEquals(0, limiter.stats().byPriority().get(RequestPriority.BACKTEST).granted());
+
+    limiter.release(6000);   // never sent
+    assertTrue(limiter.tryAcquire(3000, RequestPriority.BACKTEST, 0, TimeUnit.MILLISECONDS));
+  }
+
+  private static Thread waiter(WeightLimiter limiter, RequestPriority priority, List<RequestPriority> served) {
+    return Thread.startVirtualThread(() -> {
+      try {
+        limiter.acquire(30, priority);
+        served.add(priority);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+  }
+
+  private static int queued(WeightLimiter limiter, RequestPriority priority) {
+    return limiter.stats().byPriority().get(priority).queued();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) fail("condition not met within 5 s");
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package dev.prjbtrad001.scanner;
+
+import dev.prjbtrad001.market.Intervals;
+import dev.prjbtrad001.market.KlineDto;
+import dev.prjbtrad001.market.MarketDataClient;
+import dev.prjbtrad001.market.RequestPriority;
+import dev.prjbtrad001.strategy.EmaCrossKernel;
+import dev.prjbtrad001.strategy.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The scanner has to agree with a bot on every pair while paying for one
+ * candle per pair per close, and to rank what it finds.
+ */
+class MarketScannerTest {
+
+  private static final long MIN = 60_000L;
+  /** Monday 2024-03-04, 00:00 UTC: every timeframe but 3d closes here. */
+  private static final long MONDAY = Instant.parse("2024-03-04T00:00:00Z").toEpochMilli();
+
+  @Test
+  void eachCloseCostsTheNewCandleAndMatchesABot() {
+    Market market = new Market();
+    MarketScanner scanner = scanner(market, "9x21", "12x26");
+    List<String> symbols = List.of("BTCBRL", "ETHBRL", "SOLBRL");
+
+    long now = MONDAY + 20_000;
+    scan(scanner, market, symbols, Intervals.SUPPORTED, now);
+    for (int close = 0; close < 400; close++) {
+      long at = scanner.nextClose(now);
+      List<String> due = scanner.dueAt(at);
+      now = at + 20_000;
+      long before = market.served.get();
+      scan(scanner, market, symbols, due, now);
+      assertTrue(market.served.get() - before <= 3L * due.size() * symbols.size(),
+        "a close reads the newest candles only, at " + Instant.ofEpochMilli(at));
+    }
+
+    List<MarketScanner.Hit> hits = scanner.ranked(null, null, Integer.MAX_VALUE);
+    assertEquals(symbols.size() * Intervals.SUPPORTED.size() * 2, hits.size());
+    for (MarketScanner.Hit hit : hits) {
+      int fast = hit.definition().contains("9×21") ? 9 : 12, slow = fast == 9 ? 21 : 26;
+      double[] close = market.closesSince(hit.symbol(), hit.timeframe(), now);
+      int n = close.length;
+      double[] f = new double[n], s = new double[n];
+      EmaCrossKernel.ema(close, n, fast, f);
+      EmaCrossKernel.ema(close, n, slow, s);
+      int since = -1;
+      for (int i = n - 1; i >= 0 && since < 0; i--) if (EmaCrossKernel.crossAt(f, s, i) != 0) since = n - 1 - i;
+      String where = hit.symbol() + " " + hit.timeframe() + " " + hit.definition();
+
+      assertEquals((f[n - 1] - s[n - 1]) / s[n - 1] * 100, hit.spreadPercent(), where);
+      assertEquals(since, hit.barsSinceCross(), where);
+      assertEquals(close[n - 1], hit.close(), where);
+      assertEquals(Integer.signum(Double.compare(f[n - 1], s[n - 1])), hit.trend(), where);
+      int cross = EmaCrossKernel.crossAt(f, s, n - 1);
+      assertEquals(cross > 0 ? Signal.ENTER : cross < 0 ? Signal.EXIT : Signal.HOLD, hit.signal(), where);
+    }
+  }
+
+  @Test
+  void freshCrossesRankFirst() {
+    Market market = new Market();
+    MarketScanner scanner = scanner(market, "5x13");
+    List<String> symbols = IntStream.range(0, 40).mapToObj(i -> "S" + i + "BRL").toList();
+    for (long at = MONDAY; at <= MONDAY + 12 * 60 * MIN; at += 15 * MIN) {
+      scan(scanner, market, symbols, scanner.dueAt(at).contains("1h") ? List.of("15m", "1h") : List.of("15m"), at + 20_000);
+    }
+
+    List<MarketScanner.Hit> hits = scanner.ranked(null, null, 1000);
+    assertEquals(80, hits.size());
+    for (int i = 1; i < hits.size(); i++) assertTrue(MarketScanner.RANK.compare(hits.get(i - 1), hits.get(i)) <= 0);
+    assertTrue(hits.getFirst().barsSinceCross() >= 0);
+
+    List<MarketScanner.Hit> entries = scanner.ranked("15m", Signal.ENTER, 1000);
+    assertFalse(entries.isEmpty());
+    for (MarketScanner.Hit h : entries) {
+      assertEquals("15m", h.timeframe());
+      assertEquals(0, h.barsSinceCross());
+      assertEquals(1, h.trend());
+    }
+    assertEquals(5, scanner.ranked(null, null, 5).size());
+
+    scan(scanner, market, symbols.subList(0, 10), List.of("15m"), MONDAY + 12 * 60 * MIN + 15 * MIN + 20_000);
+    assertEquals(20, scanner.ranked(null, null, 1000).size(), "delisted symbols drop out");
+  }
+
+  @Test
+  void hundredsOfSymbolsOnEveryTimeframe() {
+    Market market = new Market();
+    MarketScanner scanner = scanner(market, "9x21", "12x26");
+    List<String> symbols = IntStream.range(0, 300).mapToObj(i -> "S" + i + "BRL").toList();
+
+    scan(scanner, market, symbols, Intervals.SUPPORTED, MONDAY - 15 * MIN + 20_000);
+    long at = MONDAY;
+    assertEquals(10, scanner.dueAt(at).size(), "all but 3d close on this Monday");
+    long before = market.served.get();
+    scan(scanner, market, symbols, scanner.dueAt(at), at + 20_000);
+
+    MarketScanner.Stats stats = scanner.stats();
+    assertEquals(300 * 11, stats.pairs());
+    assertEquals(0, stats.failures());
+    assertTrue(market.served.get() - before <= 3L * 300 * 10);
+    assertTrue(stats.last().millis() < 3_000, "one close across the market took " + stats.last().millis() + " ms");
+  }
+
+  @Test
+  void timeframesAreScannedWhenTheyClose() {
+    MarketScanner scanner = scanner(new Market(), "9x21");
+    long oneAm = MONDAY + 60 * MIN;
+    assertEquals(List.of("15m", "30m", "1h"), scanner.dueAt(oneAm));
+    assertEquals(List.of("15m", "30m", "1h", "2h", "4h", "6h", "12h"), scanner.dueAt(MONDAY + 12 * 60 * MIN));
+    assertEquals(List.of("15m"), scanner.dueAt(MONDAY + 15 * MIN));
+    assertEquals(MONDAY + 15 * MIN, scanner.nextClose(MONDAY + 7 * MIN));
+    assertThrows(IllegalArgumentException.class, () -> scanner(new Market(), "21x9"));
+  }
+
+  @Test
+  void sweepsQueueBehindLiveBotsAndPages() {
+    Market market = new Market();
+    scan(scanner(market, "9x21"), market, List.of("BTCBRL", "ETHBRL"), Intervals.SUPPORTED, MONDAY + 20_000);
+    assertEquals(Set.of(RequestPriority.BACKTEST), market.priorities);
+  }
+
+  private static void scan(MarketScanner scanner, Market market, List<String> symbols, List<String> due, long now) {
+    market.now.set(now);
+    scanner.scan(symbols, due, now);
+  }
+
+  private static MarketScanner scanner(MarketDataClient market, String... crosses) {
+    MarketScanner s = new MarketScanner();
+    s.marketData = market;
+    s.emaCrosses = List.of(crosses);
+    s.timeframes = Intervals.SUPPORTED.reversed();
+    s.init();
+    return s;
+  }
+
+  /**
+   * Candles on demand: each (symbol, timeframe) is a couple of interfering
+   * waves, so the averages cross now and then and any candle can be made
+   * without the ones before it.
+   */
+  private static final class Market implements MarketDataClient {
+
+    final AtomicLong served = new AtomicLong();
+    final Set<RequestPriority> priorities = ConcurrentHashMap.newKeySet();
+    final Map<String, Long> first = new ConcurrentHashMap<>();
+    /** Market time: the forming candle is the last one served. */
+    final AtomicLong now = new AtomicLong();
+
+    double price(String symbol, String timeframe, long index) {
+      int h = (symbol + timeframe).hashCode() & 0xffff;
+      return Math.round((100 + 8 * Math.sin(index / (6.0 + h % 7)) + 3 * Math.sin(index / 2.3 + h)) * 100) / 100.0;
+    }
+
+    KlineDto candle(String symbol, String timeframe, long index) {
+      long step = Intervals.millis(timeframe);
+      BigDecimal o = BigDecimal.valueOf(price(symbol, timeframe, index - 1));
+      BigDecimal c = BigDecimal.valueOf(price(symbol, timeframe, index));
+      long open = index * step + Intervals.openTimeOf(0, timeframe);
+      return new KlineDto(open, o, o.max(c), o.min(c), c, BigDecimal.ONE, open + step - 1);
+    }
+
+    /** Index of the candle forming at {@code now}. */
+    long index(String timeframe, long now) {
+      return (Intervals.openTimeOf(now, timeframe) - Intervals.openTimeOf(0, timeframe)) / Intervals.millis(timeframe);
+    }
+
+    /** Closes of every candle the scanner has read on the pair, up to {@code now}. */
+    double[] closesSince(String symbol, String timeframe, long now) {
+      long from = index(timeframe, first.get(symbol + timeframe)), to = index(timeframe, now);
+      double[] out = new double[(int) (to - from)];
+      for (int i = 0; i < out.length; i++) out[i] = price(symbol, timeframe, from + i);
+      return out;
+    }
+
+    @Override
+    public List<KlineDto> getCandles(String symbol, String interval, int limit) {
+      long last = index(interval, now.get());
+      List<KlineDto> out = new ArrayList<>(limit);
+      for (long i = last - limit + 1; i <= last; i++) out.add(candle(symbol, interval, i));
+      served.addAndGet(limit);
+      priorities.add(RequestPriority.current());
+      first.merge(symbol + interval, out.getFirst().openTime(), Math::min);
+      return out;
+    }
+
+    @Override
+    public List<KlineDto> getCandlesRange(String symbol, String interval, int total) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesBetween(String symbol, String interval, long from, long to) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<KlineDto> getCandlesPage(String symbol, String interval, Long startTime, Long endTime, int limit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BigDecimal getPrice(String symbol) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
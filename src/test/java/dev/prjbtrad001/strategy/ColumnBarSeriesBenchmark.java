@@ -0,0 +1,71 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.CandleColumns;
+import dev.prjbtrad001.market.KlineDto;
+import org.openjdk.jmh.annotations.*;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBarSeriesBuilder;
+import org.ta4j.core.TradingRecord;
+import org.ta4j.core.backtest.BarSeriesManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 100k-bar ta4j series built bar by bar, as {@code buildSeries} used to,
+ * against a view over columns already in memory; then one 9×21 backtest on
+ * each:
+ *
+ *   ./mvnw -Pperf test-compile exec:exec -Djmh.args="ColumnBarSeries"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnBarSeriesBenchmark {
+
+  private static final int BARS = 100_000;
+  private static final BigDecimal STOP = new BigDecimal("5");
+
+  private List<KlineDto> candles;
+  private CandleColumns columns;
+  private BarSeries base, view;
+
+  @Setup
+  public void setUp() {
+    candles = CandleFixtures.market(42, BARS);
+    columns = CandleColumns.of(candles);
+    base = buildBase();
+    view = ColumnBarSeries.of(columns, "BTCBRL");
+  }
+
+  @Benchmark
+  public BarSeries buildBase() {
+    BarSeries series = new BaseBarSeriesBuilder().withName("BTCBRL").build();
+    for (KlineDto k : candles) {
+      series.barBuilder().timePeriod(k.period()).endTime(k.closeInstant())
+        .openPrice(k.open().doubleValue()).highPrice(k.high().doubleValue())
+        .lowPrice(k.low().doubleValue()).closePrice(k.close().doubleValue())
+        .volume(k.volume().doubleValue()).add();
+    }
+    return series;
+  }
+
+  @Benchmark
+  public BarSeries buildView() {
+    return ColumnBarSeries.of(columns, "BTCBRL");
+  }
+
+  @Benchmark
+  public TradingRecord backtestBase() {
+    return new BarSeriesManager(base).run(EmaCrossStrategy.buildStrategy(base, 9, 21, STOP));
+  }
+
+  @Benchmark
+  public TradingRecord backtestView() {
+    return new BarSeriesManager(view).run(EmaCrossStrategy.buildStrategy(view, 9, 21, STOP));
+  }
+}
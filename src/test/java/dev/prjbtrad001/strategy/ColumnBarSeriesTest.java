@@ -0,0 +1,161 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.CandleColumns;
+import dev.prjbtrad001.market.KlineDto;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.Indicator;
+import org.ta4j.core.Position;
+import org.ta4j.core.TradingRecord;
+import org.ta4j.core.backtest.BarSeriesManager;
+import org.ta4j.core.indicators.ATRIndicator;
+import org.ta4j.core.indicators.CCIIndicator;
+import org.ta4j.core.indicators.MACDIndicator;
+import org.ta4j.core.indicators.ParabolicSarIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.StochasticOscillatorKIndicator;
+import org.ta4j.core.indicators.adx.ADXIndicator;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.averages.SMAIndicator;
+import org.ta4j.core.indicators.bollinger.BollingerBandFacade;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.volume.ChaikinMoneyFlowIndicator;
+import org.ta4j.core.indicators.volume.OnBalanceVolumeIndicator;
+import org.ta4j.core.indicators.volume.VWAPIndicator;
+import org.ta4j.core.num.Num;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The column view against a {@code BaseBarSeries} holding the same bars in
+ * doubles: every indicator and every backtest must come out identical, while
+ * the view is grown by appending to its columns.
+ */
+class ColumnBarSeriesTest {
+
+  private static final Map<String, Function<BarSeries, Indicator<Num>>> INDICATORS = Map.ofEntries(
+    Map.entry("ema", s -> new EMAIndicator(new ClosePriceIndicator(s), 21)),
+    Map.entry("sma", s -> new SMAIndicator(new ClosePriceIndicator(s), 30)),
+    Map.entry("rsi", s -> new RSIIndicator(new ClosePriceIndicator(s), 14)),
+    Map.entry("macd", s -> new MACDIndicator(new ClosePriceIndicator(s), 12, 26)),
+    Map.entry("atr", s -> new ATRIndicator(s, 14)),
+    Map.entry("adx", s -> new ADXIndicator(s, 14)),
+    Map.entry("stochastic", s -> new StochasticOscillatorKIndicator(s, 14)),
+    Map.entry("cci", s -> new CCIIndicator(s, 20)),
+    Map.entry("sar", ParabolicSarIndicator::new),
+    Map.entry("bollinger", s -> new BollingerBandFacade(s, 20, 2).upper()),
+    Map.entry("obv", OnBalanceVolumeIndicator::new),
+    Map.entry("vwap", s -> new VWAPIndicator(s, 20)),
+    Map.entry("cmf", s -> new ChaikinMoneyFlowIndicator(s, 20)));
+
+  @Test
+  void barsAreTheCandles() {
+    List<KlineDto> candles = CandleFixtures.market(1, 50);
+    BarSeries base = EmaCrossKernelTest.doubleSeries(candles);
+    BarSeries view = ColumnBarSeries.of(CandleColumns.of(candles), "T");
+
+    assertEquals(base.getBarCount(), view.getBarCount());
+    assertEquals(base.getBeginIndex(), view.getBeginIndex());
+    assertEquals(base.getEndIndex(), view.getEndIndex());
+    for (int i = 0; i < candles.size(); i++) {
+      var b = base.getBar(i);
+      var v = view.getBar(i);
+      assertEquals(b.getBeginTime(), v.getBeginTime());
+      assertEquals(b.getEndTime(), v.getEndTime());
+      assertEquals(b.getTimePeriod(), v.getTimePeriod());
+      assertEquals(b.getOpenPrice(), v.getOpenPrice());
+      assertEquals(b.getHighPrice(), v.getHighPrice());
+      assertEquals(b.getLowPrice(), v.getLowPrice());
+      assertEquals(b.getClosePrice(), v.getClosePrice());
+      assertEquals(b.getVolume(), v.getVolume());
+      assertEquals(b.getAmount(), v.getAmount());
+    }
+    assertEquals(base.getSeriesPeriodDescription(), view.getSeriesPeriodDescription());
+    assertEquals(-1, ColumnBarSeries.of(new CandleColumns(0), "E").getBeginIndex());
+  }
+
+  @Test
+  void indicatorsFollowAppendedCandles() {
+    List<KlineDto> candles = CandleFixtures.market(2, 400);
+    BarSeries base = EmaCrossKernelTest.doubleSeries(candles);
+    CandleColumns columns = CandleColumns.of(candles.subList(0, 100));
+    BarSeries view = ColumnBarSeries.of(columns, "T");
+
+    Map<String, Indicator<Num>> expected = built(base), live = built(view);
+    for (int i = 0; i < candles.size(); i++) {
+      if (i >= columns.size()) {
+        KlineDto k = candles.get(i);
+        columns.add(k.openTime(), k.open().doubleValue(), k.high().doubleValue(), k.low().doubleValue(),
+          k.close().doubleValue(), k.volume().doubleValue(), k.closeTime());
+        assertEquals(i, view.getEndIndex());
+      }
+      for (String name : INDICATORS.keySet()) {
+        assertEquals(expected.get(name).getValue(i), live.get(name).getValue(i), name + " at " + i);
+      }
+    }
+  }
+
+  @Test
+  void backtestsMatchTheBaseSeries() {
+    for (long seed = 0; seed < 10; seed++) {
+      List<KlineDto> candles = CandleFixtures.market(seed, 600);
+      BarSeries base = EmaCrossKernelTest.doubleSeries(candles);
+      BarSeries view = ColumnBarSeries.of(CandleColumns.of(candles), "T");
+      TradingRecord expected = new BarSeriesManager(base)
+        .run(EmaCrossStrategy.buildStrategy(base, 9, 21, new BigDecimal("3")));
+      TradingRecord actual = new BarSeriesManager(view)
+        .run(EmaCrossStrategy.buildStrategy(view, 9, 21, new BigDecimal("3")));
+
+      assertEquals(expected.getPositionCount(), actual.getPositionCount());
+      for (int p = 0; p < expected.getPositionCount(); p++) {
+        Position e = expected.getPositions().get(p), a = actual.getPositions().get(p);
+        assertEquals(e.getEntry().getIndex(), a.getEntry().getIndex());
+        assertEquals(e.getExit().getIndex(), a.getExit().getIndex());
+        assertEquals(e.getProfit(), a.getProfit());
+      }
+    }
+  }
+
+  @Test
+  void subSeriesAreFixedViews() {
+    List<KlineDto> candles = CandleFixtures.market(3, 200);
+    BarSeries base = EmaCrossKernelTest.doubleSeries(candles);
+    CandleColumns columns = CandleColumns.of(candles.subList(0, 150));
+    ColumnBarSeries view = ColumnBarSeries.of(columns, "T");
+
+    BarSeries expected = base.getSubSeries(40, 140);
+    ColumnBarSeries sub = view.getSubSeries(40, 140);
+    Indicator<Num> e = new RSIIndicator(new ClosePriceIndicator(expected), 14);
+    Indicator<Num> a = new RSIIndicator(new ClosePriceIndicator(sub), 14);
+    for (int i = 0; i < 100; i++) assertEquals(e.getValue(i), a.getValue(i));
+    assertEquals(50, sub.getSubSeries(50, 1_000).getBarCount(), "clamped to the end");
+
+    KlineDto k = candles.get(150);
+    columns.add(k.openTime(), 1, 1, 1, 1, 1, k.closeTime());
+    assertEquals(100, sub.getBarCount());
+    assertEquals(151, view.getBarCount());
+    assertThrows(IllegalArgumentException.class, () -> view.getSubSeries(5, 5));
+  }
+
+  @Test
+  void theViewIsReadOnly() {
+    BarSeries view = ColumnBarSeries.of(CandleColumns.of(CandleFixtures.market(4, 10)), "T");
+    assertThrows(UnsupportedOperationException.class, () -> view.barBuilder().timePeriod(Duration.ofHours(1)).endTime(Instant.now()).closePrice(1).add());
+    assertThrows(UnsupportedOperationException.class, () -> view.addPrice(1));
+    assertThrows(UnsupportedOperationException.class, () -> view.setMaximumBarCount(5));
+    assertThrows(UnsupportedOperationException.class, () -> view.getBar(0).addPrice(view.numFactory().one()));
+    assertThrows(IndexOutOfBoundsException.class, () -> view.getBar(10));
+  }
+
+  private static Map<String, Indicator<Num>> built(BarSeries series) {
+    return INDICATORS.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().apply(series)));
+  }
+}
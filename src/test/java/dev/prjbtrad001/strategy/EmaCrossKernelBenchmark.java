@@ -0,0 +1,55 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.KlineDto;
+import org.openjdk.jmh.annotations.*;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.TradingRecord;
+import org.ta4j.core.backtest.BarSeriesManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 9×21 backtest over 100k bars, through ta4j's objects and through the
+ * kernel, each from bars already in memory:
+ *
+ *   ./mvnw -Pperf test-compile exec:exec -Djmh.args="EmaCrossKernel"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmaCrossKernelBenchmark {
+
+  private static final int BARS = 100_000;
+  private static final BigDecimal STOP = new BigDecimal("5");
+
+  private BarSeries series;
+  private double[] open, close, fast, slow;
+  private int[] entries, exits;
+
+  @Setup
+  public void setUp() {
+    List<KlineDto> candles = CandleFixtures.market(42, BARS);
+    series = EmaCrossStrategy.buildSeries(candles, "BTCBRL");
+    open = EmaCrossKernelTest.opens(candles);
+    close = EmaCrossKernelTest.closes(candles);
+    fast = new double[BARS];
+    slow = new double[BARS];
+    entries = new int[BARS / 2 + 1];
+    exits = new int[BARS / 2 + 1];
+  }
+
+  @Benchmark
+  public TradingRecord ta4j() {
+    return new BarSeriesManager(series).run(EmaCrossStrategy.buildStrategy(series, 9, 21, STOP));
+  }
+
+  @Benchmark
+  public int kernel() {
+    return EmaCrossKernel.backtest(open, close, BARS, 9, 21, 5, fast, slow, entries, exits);
+  }
+}
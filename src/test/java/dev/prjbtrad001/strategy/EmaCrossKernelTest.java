@@ -0,0 +1,153 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.KlineDto;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBarSeriesBuilder;
+import org.ta4j.core.Position;
+import org.ta4j.core.Rule;
+import org.ta4j.core.Strategy;
+import org.ta4j.core.TradingRecord;
+import org.ta4j.core.backtest.BarSeriesManager;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.num.DoubleNumFactory;
+import org.ta4j.core.rules.CrossedDownIndicatorRule;
+import org.ta4j.core.rules.CrossedUpIndicatorRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ta4j is the reference: across many seeded random markets — trending,
+ * choppy, gapping, with flat stretches where the averages tie — and random
+ * EMA lengths and stops, the kernel must give ta4j's EMAs, ta4j's crosses and
+ * BarSeriesManager's positions, bar for bar.
+ */
+class EmaCrossKernelTest {
+
+  private static final int CASES = 200;
+
+  @Test
+  void emasAreTa4js() {
+    Random rnd = new Random(1);
+    for (int c = 0; c < CASES; c++) {
+      List<KlineDto> candles = CandleFixtures.market(rnd.nextLong(), 50 + rnd.nextInt(400));
+      int period = 2 + rnd.nextInt(60);
+      BarSeries series = doubleSeries(candles);
+      EMAIndicator reference = new EMAIndicator(new ClosePriceIndicator(series), period);
+
+      double[] out = new double[candles.size()];
+      EmaCrossKernel.ema(closes(candles), candles.size(), period, out);
+      for (int i = 0; i < candles.size(); i++) {
+        double expected = reference.getValue(i).doubleValue();
+        assertEquals(expected, out[i], 0.0, "case " + c + ", EMA(" + period + ") bar " + i);
+      }
+    }
+  }
+
+  @Test
+  void crossesAreTa4jsRules() {
+    Random rnd = new Random(2);
+    int crosses = 0;
+    for (int c = 0; c < CASES; c++) {
+      List<KlineDto> candles = CandleFixtures.market(rnd.nextLong(), 50 + rnd.nextInt(300));
+      int fast = 2 + rnd.nextInt(15), slow = fast + 1 + rnd.nextInt(30);
+      BarSeries series = EmaCrossStrategy.buildSeries(candles, "T");
+      ClosePriceIndicator close = new ClosePriceIndicator(series);
+      Rule up = new CrossedUpIndicatorRule(new EMAIndicator(close, fast), new EMAIndicator(close, slow));
+      Rule down = new CrossedDownIndicatorRule(new EMAIndicator(close, fast), new EMAIndicator(close, slow));
+
+      int n = candles.size();
+      double[] f = new double[n], s = new double[n];
+      EmaCrossKernel.ema(closes(candles), n, fast, f);
+      EmaCrossKernel.ema(closes(candles), n, slow, s);
+      for (int i = 0; i < n; i++) {
+        int expected = up.isSatisfied(i) ? 1 : down.isSatisfied(i) ? -1 : 0;
+        assertEquals(expected, EmaCrossKernel.crossAt(f, s, i), "case " + c + ", " + fast + "×" + slow + " bar " + i);
+        if (expected != 0) crosses++;
+      }
+    }
+    assertTrue(crosses > CASES, "enough crosses to mean something: " + crosses);
+  }
+
+  @Test
+  void positionsAreBarSeriesManagers() {
+    Random rnd = new Random(3);
+    int trades = 0, stops = 0;
+    for (int c = 0; c < CASES; c++) {
+      List<KlineDto> candles = CandleFixtures.market(rnd.nextLong(), 100 + rnd.nextInt(900));
+      int fast = 2 + rnd.nextInt(15), slow = fast + 1 + rnd.nextInt(40);
+      BigDecimal stopLoss = BigDecimal.valueOf(1 + rnd.nextInt(150), 1);   // 0.1 … 15.0 %
+
+      BarSeries series = EmaCrossStrategy.buildSeries(candles, "T");
+      Strategy strategy = EmaCrossStrategy.buildStrategy(series, fast, slow, stopLoss);
+      TradingRecord record = new BarSeriesManager(series).run(strategy);
+      List<int[]> expected = new ArrayList<>();
+      for (Position p : record.getPositions()) expected.add(new int[]{p.getEntry().getIndex(), p.getExit().getIndex()});
+      if (record.getCurrentPosition().isOpened()) {
+        expected.add(new int[]{record.getCurrentPosition().getEntry().getIndex(), -1});
+      }
+
+      int n = candles.size();
+      int[] entries = new int[n / 2 + 1], exits = new int[n / 2 + 1];
+      int positions = EmaCrossKernel.backtest(opens(candles), closes(candles), n, fast, slow, stopLoss.doubleValue(),
+        new double[n], new double[n], entries, exits);
+
+      String label = "case " + c + ", " + fast + "×" + slow + " stop " + stopLoss + "%";
+      assertEquals(expected.size(), positions, label);
+      for (int k = 0; k < positions; k++) {
+        assertEquals(expected.get(k)[0], entries[k], label + ", entry " + k);
+        assertEquals(expected.get(k)[1], exits[k], label + ", exit " + k);
+        if (exits[k] > 0 && candles.get(exits[k] - 1).close().doubleValue()
+          <= candles.get(entries[k]).open().doubleValue() * (100 - stopLoss.doubleValue()) / 100) stops++;
+      }
+      trades += positions;
+    }
+    assertTrue(trades > CASES * 3, "trades: " + trades);
+    assertTrue(stops > 10, "stop-losses: " + stops);
+  }
+
+  @Test
+  void liveEvaluationIsTheKernelsLastBar() {
+    Random rnd = new Random(4);
+    for (int c = 0; c < CASES; c++) {
+      List<KlineDto> candles = CandleFixtures.market(rnd.nextLong(), 30 + rnd.nextInt(100));
+      int fast = 2 + rnd.nextInt(8), slow = fast + 1 + rnd.nextInt(15);
+      BarSeries series = EmaCrossStrategy.buildSeries(candles, "T");
+      ClosePriceIndicator close = new ClosePriceIndicator(series);
+      EMAIndicator f = new EMAIndicator(close, fast), s = new EMAIndicator(close, slow);
+      int end = series.getEndIndex();
+      boolean enough = series.getBarCount() > slow + 1;
+
+      assertEquals(enough && new CrossedUpIndicatorRule(f, s).isSatisfied(end) ? Signal.ENTER : Signal.HOLD,
+        EmaCrossStrategy.evaluateLast(series, fast, slow, false), "case " + c);
+      assertEquals(enough && new CrossedDownIndicatorRule(f, s).isSatisfied(end) ? Signal.EXIT : Signal.HOLD,
+        EmaCrossStrategy.evaluateLast(series, fast, slow, true), "case " + c);
+    }
+  }
+
+  /** A {@code BaseBarSeries} built bar by bar, in doubles, so EMAs can be compared to the last bit. */
+  static BarSeries doubleSeries(List<KlineDto> candles) {
+    BarSeries series = new BaseBarSeriesBuilder().withNumFactory(DoubleNumFactory.getInstance()).build();
+    for (KlineDto k : candles) {
+      series.barBuilder().timePeriod(k.period()).endTime(k.closeInstant())
+        .openPrice(k.open().doubleValue()).highPrice(k.high().doubleValue())
+        .lowPrice(k.low().doubleValue()).closePrice(k.close().doubleValue())
+        .volume(k.volume().doubleValue()).add();
+    }
+    return series;
+  }
+
+  static double[] closes(List<KlineDto> candles) {
+    return candles.stream().mapToDouble(k -> k.close().doubleValue()).toArray();
+  }
+
+  static double[] opens(List<KlineDto> candles) {
+    return candles.stream().mapToDouble(k -> k.open().doubleValue()).toArray();
+  }
+}
@@ -0,0 +1,109 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.domain.bot.EmaState;
+import dev.prjbtrad001.market.KlineDto;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBarSeriesBuilder;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.num.DoubleNumFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The incremental EMAs live bots run must be ta4j's, not an approximation:
+ * the same values bar by bar, the same signals as {@link
+ * EmaCrossStrategy#evaluateLast}, and a rebuild whenever the state cannot be
+ * continued.
+ */
+class EmaCrossStrategyTest {
+
+  @Test
+  void valuesAreTa4jsBarByBar() {
+    List<KlineDto> candles = CandleFixtures.walk(1, 600);
+    BarSeries series = new BaseBarSeriesBuilder().withNumFactory(DoubleNumFactory.getInstance()).build();
+    for (KlineDto k : candles) {
+      series.barBuilder().timePeriod(k.period()).endTime(k.closeInstant())
+        .openPrice(k.open().doubleValue()).highPrice(k.high().doubleValue())
+        .lowPrice(k.low().doubleValue()).closePrice(k.close().doubleValue())
+        .volume(k.volume().doubleValue()).add();
+    }
+    EMAIndicator fast = new EMAIndicator(new ClosePriceIndicator(series), 9);
+    EMAIndicator slow = new EMAIndicator(new ClosePriceIndicator(series), 21);
+
+    EmaState state = new EmaState();
+    EmaCrossStrategy.resync(state, candles.subList(0, 1), 9, 21);
+    for (int i = 1; i < candles.size(); i++) {
+      assertTrue(EmaCrossStrategy.advance(state, candles.subList(Math.max(0, i - 1), i + 1), 9, 21));
+      if (i < 21) {
+        assertNull(state.getSlow(), "undefined while ta4j's is NaN, bar " + i);
+      } else {
+        assertEquals(fast.getValue(i).doubleValue(), state.getFast(), 0.0, "fast EMA, bar " + i);
+        assertEquals(slow.getValue(i).doubleValue(), state.getSlow(), 0.0, "slow EMA, bar " + i);
+      }
+    }
+  }
+
+  @Test
+  void signalsAreEvaluateLastsOnEveryBar() {
+    // A flat start makes both averages exactly equal for a while: ties are
+    // where a hand-rolled cross rule usually parts ways with ta4j's.
+    List<KlineDto> candles = new ArrayList<>(CandleFixtures.walk(0, 40));
+    candles.addAll(CandleFixtures.walk(2, 700).stream().map(k -> shift(k, 40)).toList());
+
+    EmaState state = new EmaState();
+    EmaCrossStrategy.resync(state, candles.subList(0, 1), 5, 13);
+    int crosses = 0;
+    for (int i = 1; i < candles.size(); i++) {
+      assertTrue(EmaCrossStrategy.advance(state, candles.subList(Math.max(0, i - 1), i + 1), 5, 13));
+      BarSeries series = EmaCrossStrategy.buildSeries(candles.subList(0, i + 1), "T");
+      for (boolean open : new boolean[]{false, true}) {
+        Signal expected = EmaCrossStrategy.evaluateLast(series, 5, 13, open);
+        assertEquals(expected, EmaCrossStrategy.evaluate(state, open), "bar " + i + (open ? " long" : " flat"));
+        if (expected != Signal.HOLD) crosses++;
+      }
+    }
+    assertTrue(crosses > 20, "the walk crosses often enough to mean something: " + crosses);
+  }
+
+  @Test
+  void warmStateOnlyNeedsTheNewestCandle() {
+    List<KlineDto> candles = CandleFixtures.walk(3, 300);
+    EmaState whole = new EmaState(), stepped = new EmaState();
+    EmaCrossStrategy.resync(whole, candles, 9, 21);
+    EmaCrossStrategy.resync(stepped, candles.subList(0, 200), 9, 21);
+
+    for (int i = 200; i < candles.size(); i++) {
+      assertTrue(EmaCrossStrategy.advance(stepped, List.of(candles.get(i)), 9, 21));
+    }
+    assertTrue(EmaCrossStrategy.advance(stepped, candles.subList(250, 300), 9, 21), "already folded: no-op");
+    assertEquals(whole.getFast(), stepped.getFast());
+    assertEquals(whole.getSlow(), stepped.getSlow());
+    assertEquals(300, stepped.getBars());
+  }
+
+  @Test
+  void cannotContinueAcrossAGapOrNewLengths() {
+    List<KlineDto> candles = CandleFixtures.walk(4, 100);
+    EmaState state = new EmaState();
+
+    assertFalse(EmaCrossStrategy.advance(state, candles, 9, 21), "no state yet");
+    EmaCrossStrategy.resync(state, candles.subList(0, 60), 9, 21);
+    Double fast = state.getFast();
+
+    assertFalse(EmaCrossStrategy.advance(state, candles.subList(61, 70), 9, 21), "candle 60 is missing");
+    assertFalse(EmaCrossStrategy.advance(state, candles.subList(60, 70), 9, 50), "other slow length");
+    assertEquals(fast, state.getFast(), "nothing folded on refusal");
+    assertTrue(EmaCrossStrategy.advance(state, candles.subList(59, 70), 9, 21));
+    assertEquals(70, state.getBars());
+  }
+
+  private static KlineDto shift(KlineDto k, int bars) {
+    return new KlineDto(k.openTime() + bars * CandleFixtures.H, k.open(), k.high(), k.low(), k.close(), k.volume(),
+      k.closeTime() + bars * CandleFixtures.H);
+  }
+}
@@ -0,0 +1,135 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.CandleColumns;
+import dev.prjbtrad001.market.KlineDto;
+import org.junit.jupiter.api.Test;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.Rule;
+import org.ta4j.core.indicators.MACDIndicator;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.averages.SMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.indicators.helpers.VolumeIndicator;
+import org.ta4j.core.indicators.numeric.NumericIndicator;
+import org.ta4j.core.rules.CrossedDownIndicatorRule;
+import org.ta4j.core.rules.CrossedUpIndicatorRule;
+import org.ta4j.core.rules.NotRule;
+import org.ta4j.core.rules.OverIndicatorRule;
+import org.ta4j.core.rules.UnderIndicatorRule;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiled rules against the ta4j rule trees they stand for, bar by bar over
+ * seeded random markets, plus the compiler's own promises: shared
+ * subexpressions computed once, and errors that say where.
+ */
+class RuleCompilerTest {
+
+  private static final int CASES = 60;
+
+  @Test
+  void rulesAreTheirTa4jTrees() {
+    check("ema(close, 9) crossesAbove ema(close, 21) and rsi(close, 14) < 70", s -> {
+      ClosePriceIndicator close = new ClosePriceIndicator(s);
+      return new CrossedUpIndicatorRule(new EMAIndicator(close, 9), new EMAIndicator(close, 21))
+        .and(new UnderIndicatorRule(new RSIIndicator(close, 14), 70));
+    });
+    check("macd(close, 12, 26) > 0 or volume > sma(volume, 20) * 1.5", s -> {
+      VolumeIndicator volume = new VolumeIndicator(s);
+      return new OverIndicatorRule(new MACDIndicator(new ClosePriceIndicator(s), 12, 26), 0)
+        .or(new OverIndicatorRule(volume, NumericIndicator.of(new SMAIndicator(volume, 20)).multipliedBy(1.5)));
+    });
+    check("not (close < sma(close, 30)) and rsi(ema(close, 5), 10) crossesAbove 50", s -> {
+      ClosePriceIndicator close = new ClosePriceIndicator(s);
+      return new NotRule(new UnderIndicatorRule(close, new SMAIndicator(close, 30)))
+        .and(new CrossedUpIndicatorRule(new RSIIndicator(new EMAIndicator(close, 5), 10), 50));
+    });
+    check("EMA(close, 9) crossesBelow ema(close, 21) OR close < 0.97 * ema(close, 50)", s -> {
+      ClosePriceIndicator close = new ClosePriceIndicator(s);
+      return new CrossedDownIndicatorRule(new EMAIndicator(close, 9), new EMAIndicator(close, 21))
+        .or(new UnderIndicatorRule(close, NumericIndicator.of(new EMAIndicator(close, 50)).multipliedBy(0.97)));
+    });
+  }
+
+  @Test
+  void theEmaCrossAsRulesTradesLikeTheKernel() {
+    Random rnd = new Random(5);
+    for (int c = 0; c < CASES; c++) {
+      List<KlineDto> candles = CandleFixtures.market(rnd.nextLong(), 100 + rnd.nextInt(600));
+      int fast = 2 + rnd.nextInt(15), slow = fast + 1 + rnd.nextInt(40);
+      double stop = (1 + rnd.nextInt(150)) / 10.0;
+      int n = candles.size();
+
+      int[] entries = new int[n / 2 + 1], exits = new int[n / 2 + 1];
+      int expected = EmaCrossKernel.backtest(EmaCrossKernelTest.opens(candles), EmaCrossKernelTest.closes(candles), n,
+        fast, slow, stop, new double[n], new double[n], entries, exits);
+      int[] ruleEntries = new int[n / 2 + 1], ruleExits = new int[n / 2 + 1];
+      RuleProgram rules = RuleCompiler.emaCross(fast, slow);
+      CandleColumns bars = CandleColumns.of(candles);
+
+      assertEquals(expected, rules.backtest(bars, n, stop, ruleEntries, ruleExits), "case " + c);
+      for (int k = 0; k < expected; k++) {
+        assertEquals(entries[k], ruleEntries[k]);
+        assertEquals(exits[k], ruleExits[k]);
+      }
+      double[] close = EmaCrossKernelTest.closes(candles);
+      for (boolean open : new boolean[]{false, true}) {
+        assertEquals(EmaCrossStrategy.evaluateLast(close, n, fast, slow, open), rules.evaluateLast(bars, n, open));
+      }
+    }
+  }
+
+  @Test
+  void sharedSubexpressionsAreComputedOnce() {
+    // close, both EMAs and the two crosses: the EMAs serve both rules.
+    assertEquals(5, RuleCompiler.emaCross(9, 21).size());
+    RuleProgram p = RuleCompiler.compile("70 > rsi(close, 14) and rsi(close, 14) < 70",
+      "close + ema(close, 9) > 100 and ema(close, 9) + close > 100");
+    // close, rsi, rsi < 70, and; ema, close + ema, > 100, and.
+    assertEquals(8, p.size());
+    assertEquals(14, p.lookback());
+  }
+
+  @Test
+  void errorsSayWhere() {
+    assertError("ema(close, 9) crossesAbove", "Expected a value at position 27");
+    assertError("rsi(close, 14)", "must be a condition");
+    assertError("ema(close, 2.5) > close", "whole number");
+    assertError("ema(close, 9) > stoch(close)", "Unknown name 'stoch' at position 17");
+    assertError("close > 1 and 2", "needs a condition");
+    assertError("close = 1", "Unexpected '='");
+    assertError("macd(close, 26, 12) > 0", "fast period below the slow");
+    assertThrows(IllegalArgumentException.class, () -> RuleCompiler.compile("close > 1", " "));
+  }
+
+  private static void assertError(String entry, String fragment) {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+      () -> RuleCompiler.compile(entry, "close < 0"));
+    assertTrue(e.getMessage().contains(fragment), e.getMessage());
+  }
+
+  private static void check(String text, Function<BarSeries, Rule> ta4j) {
+    Random rnd = new Random(text.hashCode());
+    RuleProgram program = RuleCompiler.compile(text, text);
+    int hits = 0;
+    for (int c = 0; c < CASES; c++) {
+      List<KlineDto> candles = CandleFixtures.market(rnd.nextLong(), 80 + rnd.nextInt(300));
+      int n = candles.size();
+      Rule rule = ta4j.apply(EmaCrossKernelTest.doubleSeries(candles));
+      boolean[] enter = new boolean[n], leave = new boolean[n];
+      program.run(CandleColumns.of(candles), n, enter, leave);
+      for (int i = 0; i < n; i++) {
+        assertEquals(rule.isSatisfied(i), enter[i], text + ", case " + c + ", bar " + i);
+        if (enter[i]) hits++;
+      }
+      assertArrayEquals(enter, leave);
+    }
+    assertTrue(hits > CASES, text + " should hold now and then: " + hits);
+  }
+}
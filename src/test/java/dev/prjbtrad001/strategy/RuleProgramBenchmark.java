@@ -0,0 +1,64 @@
+package dev.prjbtrad001.strategy;
+
+import dev.prjbtrad001.market.CandleColumns;
+import dev.prjbtrad001.market.KlineDto;
+import org.openjdk.jmh.annotations.*;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.Rule;
+import org.ta4j.core.indicators.RSIIndicator;
+import org.ta4j.core.indicators.averages.EMAIndicator;
+import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
+import org.ta4j.core.rules.CrossedUpIndicatorRule;
+import org.ta4j.core.rules.UnderIndicatorRule;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One entry rule over 100k bars, as a ta4j rule tree asked bar by bar (fresh
+ * indicators each time, as a backtest builds them) and as a compiled program:
+ *
+ *   ./mvnw -Pperf test-compile exec:exec -Djmh.args="RuleProgram"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleProgramBenchmark {
+
+  private static final int BARS = 100_000;
+  private static final String RULE = "ema(close, 9) crossesAbove ema(close, 21) and rsi(close, 14) < 70";
+
+  private BarSeries series;
+  private CandleColumns bars;
+  private RuleProgram program;
+  private boolean[] enter, leave;
+
+  @Setup
+  public void setUp() {
+    List<KlineDto> candles = CandleFixtures.market(42, BARS);
+    series = EmaCrossKernelTest.doubleSeries(candles);
+    bars = CandleColumns.of(candles);
+    program = RuleCompiler.compile(RULE, RULE);
+    enter = new boolean[BARS];
+    leave = new boolean[BARS];
+  }
+
+  @Benchmark
+  public int ta4j() {
+    ClosePriceIndicator close = new ClosePriceIndicator(series);
+    Rule rule = new CrossedUpIndicatorRule(new EMAIndicator(close, 9), new EMAIndicator(close, 21))
+      .and(new UnderIndicatorRule(new RSIIndicator(close, 14), 70));
+    int hits = 0;
+    for (int i = 0; i < BARS; i++) if (rule.isSatisfied(i)) hits++;
+    return hits;
+  }
+
+  @Benchmark
+  public boolean[] compiled() {
+    program.run(bars, BARS, enter, leave);
+    return enter;
+  }
+}